@@ -41,6 +41,7 @@ import java.lang.annotation.RetentionPolicy;
 import universum.studios.android.fragment.annotation.FragmentAnnotations;
 import universum.studios.android.fragment.annotation.handler.BaseAnnotationHandlers;
 import universum.studios.android.fragment.annotation.handler.FragmentAnnotationHandler;
+import universum.studios.android.fragment.util.FragmentConstructors;
 import universum.studios.android.fragment.util.FragmentUtils;
 
 /**
@@ -78,10 +79,16 @@ import universum.studios.android.fragment.util.FragmentUtils;
  * {@link #onCreateView(LayoutInflater, ViewGroup, Bundle)} is called.
  * </li>
  * </ul>
+ * <p>
+ * The content view specified via {@link universum.studios.android.fragment.annotation.ContentView @ContentView}
+ * may be also inflated in advance via {@link #preInflateContentView(LayoutInflater, ViewGroup)},
+ * for example on a background thread while the fragment is being prepared to be displayed. Such
+ * pre-inflated view is then returned when {@link #onCreateView(LayoutInflater, ViewGroup, Bundle)}
+ * is called for the first time.
  *
  * @author Martin Albedinsky
  */
-public abstract class BaseFragment extends Fragment implements BackPressWatcher, ViewClickWatcher {
+public abstract class BaseFragment extends Fragment implements BackPressWatcher, ViewClickWatcher, ContentViewPreInflater {
 
 	/**
 	 * Constants ===================================================================================
@@ -157,6 +164,11 @@ public abstract class BaseFragment extends Fragment implements BackPressWatcher,
 	 * Static members ==============================================================================
 	 */
 
+	static {
+		// Allow pre-warming of annotation handlers for subclasses of this class.
+		BaseAnnotationHandlers.registerHandlerTypes();
+	}
+
 	/**
 	 * Members =====================================================================================
 	 */
@@ -164,8 +176,18 @@ public abstract class BaseFragment extends Fragment implements BackPressWatcher,
 	/**
 	 * Handler responsible for processing of all annotations of this class and also for handling all
 	 * annotations related operations for this class.
+	 * <p>
+	 * The handler is resolved lazily upon its first use.
+	 *
+	 * @see #resolveAnnotationHandler()
 	 */
-	final FragmentAnnotationHandler mAnnotationHandler;
+	private FragmentAnnotationHandler mAnnotationHandler;
+
+	/**
+	 * Boolean flag indicating whether {@link #mAnnotationHandler} has been already resolved (even
+	 * if it has been resolved as {@code null}).
+	 */
+	private boolean mAnnotationHandlerResolved;
 
 	/**
 	 * Delegate for activity to which is this instance of fragment currently attached. This delegate
@@ -178,6 +200,12 @@ public abstract class BaseFragment extends Fragment implements BackPressWatcher,
 	 */
 	private int mLifecycleFlags;
 
+	/**
+	 * Content view that has been inflated in advance via {@link #preInflateContentView(LayoutInflater, ViewGroup)}
+	 * and not used yet.
+	 */
+	private View mPreInflatedContentView;
+
 	/**
 	 * Constructors ================================================================================
 	 */
@@ -186,11 +214,11 @@ public abstract class BaseFragment extends Fragment implements BackPressWatcher,
 	 * Creates a new instance of BaseFragment.
 	 * <p>
 	 * If annotations processing is enabled via {@link FragmentsConfig} all annotations supported by
-	 * this class will be processed/obtained here so they can be later used.
+	 * this class will be processed/obtained upon theirs first use, so creation of fragment instances
+	 * (like when restoring state of the fragment manager) remains cheap.
 	 */
 	public BaseFragment() {
 		super();
-		this.mAnnotationHandler = onCreateAnnotationHandler();
 	}
 
 	/**
@@ -199,26 +227,21 @@ public abstract class BaseFragment extends Fragment implements BackPressWatcher,
 
 	/**
 	 * Creates a new instance of the specified <var>classOfFragment</var> with the given <var>args</var>.
+	 * <p>
+	 * The fragment is instantiated via its empty constructor cached by {@link FragmentConstructors}.
 	 *
 	 * @param classOfFragment Class of the desired fragment to instantiate.
 	 * @param args            Arguments to set to new instance of fragment by {@link Fragment#setArguments(Bundle)}.
 	 * @param <F>             Type of the desired fragment.
-	 * @return New instance of fragment with the given arguments or {@code null} if some instantiation
-	 * error occurs.
+	 * @return New instance of fragment with the given arguments.
+	 * @throws Fragment.InstantiationException If the fragment class does not have public empty
+	 *                                         constructor or it is not accessible.
 	 */
-	@Nullable
-	@SuppressWarnings("TryWithIdenticalCatches")
+	@NonNull
 	public static <F extends Fragment> F newInstanceWithArguments(@NonNull Class<F> classOfFragment, @Nullable Bundle args) {
-		try {
-			final F fragment = classOfFragment.newInstance();
-			fragment.setArguments(args);
-			return fragment;
-		} catch (java.lang.InstantiationException e) {
-			Log.e(TAG, "Failed to instantiate instance of " + classOfFragment + " with arguments!", e);
-		} catch (IllegalAccessException e) {
-			Log.e(TAG, "Failed to instantiate instance of " + classOfFragment + " with arguments!", e);
-		}
-		return null;
+		final F fragment = FragmentConstructors.newInstance(classOfFragment);
+		fragment.setArguments(args);
+		return fragment;
 	}
 
 	/**
@@ -230,6 +253,17 @@ public abstract class BaseFragment extends Fragment implements BackPressWatcher,
 		return BaseAnnotationHandlers.obtainFragmentHandler(getClass());
 	}
 
+	/**
+	 * Invoked to obtain the same handler as {@link #onCreateAnnotationHandler()} but only if class
+	 * of this instance has presented any annotations that would be handled by such handler.
+	 *
+	 * @return Annotations handler specific for this class or {@code null} if there are no annotations
+	 * to be handled.
+	 */
+	FragmentAnnotationHandler onCreateAnnotationHandlerIfAnnotated() {
+		return BaseAnnotationHandlers.obtainFragmentHandlerIfAnnotated(getClass());
+	}
+
 	/**
 	 * Returns handler that is responsible for annotations processing of this class and also for
 	 * handling all annotations related operations for this class.
@@ -240,6 +274,29 @@ public abstract class BaseFragment extends Fragment implements BackPressWatcher,
 	@NonNull
 	protected FragmentAnnotationHandler getAnnotationHandler() {
 		FragmentAnnotations.checkIfEnabledOrThrow();
+		if (mAnnotationHandler == null) {
+			this.mAnnotationHandler = onCreateAnnotationHandler();
+			this.mAnnotationHandlerResolved = true;
+		}
+		return mAnnotationHandler;
+	}
+
+	/**
+	 * Resolves the annotation handler for this instance if it has not been resolved yet.
+	 * <p>
+	 * Unlike {@link #getAnnotationHandler()}, the handler is not created at all if the class of this
+	 * fragment does not have presented any annotations of the Fragments library.
+	 *
+	 * @return Annotations handler specific for this class or {@code null} if annotations processing
+	 * is disabled or there are no annotations to be handled.
+	 * @see #onCreateAnnotationHandlerIfAnnotated()
+	 */
+	@Nullable
+	final FragmentAnnotationHandler resolveAnnotationHandler() {
+		if (!mAnnotationHandlerResolved) {
+			this.mAnnotationHandlerResolved = true;
+			this.mAnnotationHandler = onCreateAnnotationHandlerIfAnnotated();
+		}
 		return mAnnotationHandler;
 	}
 
@@ -366,14 +423,50 @@ public abstract class BaseFragment extends Fragment implements BackPressWatcher,
 		return hasLifecycleFlag(LIFECYCLE_STARTED);
 	}
 
+	/**
+	 * This implementation inflates content view specified via {@link universum.studios.android.fragment.annotation.ContentView @ContentView}
+	 * annotation, if presented with {@link universum.studios.android.fragment.annotation.ContentView#preInflate() preInflate}
+	 * enabled and if it should not be attached directly to the container. The view is inflated only
+	 * once and it is then returned from {@link #onCreateView(LayoutInflater, ViewGroup, Bundle)}.
+	 * If the layout cannot be inflated at the current thread, it will be inflated as usual when the
+	 * view hierarchy of this fragment is requested to be created.
+	 */
+	@Override
+	public boolean preInflateContentView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container) {
+		if (mPreInflatedContentView != null || isViewCreated()) {
+			return false;
+		}
+		final FragmentAnnotationHandler annotationHandler = resolveAnnotationHandler();
+		if (annotationHandler == null || !annotationHandler.shouldPreInflateContentView() || annotationHandler.shouldAttachContentViewToContainer()) {
+			return false;
+		}
+		final int viewResource = annotationHandler.getContentViewResource(-1);
+		if (viewResource == -1) {
+			return false;
+		}
+		try {
+			this.mPreInflatedContentView = inflater.inflate(viewResource, container, false);
+		} catch (RuntimeException e) {
+			Log.w(TAG, "Failed to pre-inflate content view of fragment(" + getClass() + ").", e);
+			return false;
+		}
+		return true;
+	}
+
 	/**
 	 */
 	@Override
 	public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
-		if (mAnnotationHandler != null) {
-			final int viewResource = mAnnotationHandler.getContentViewResource(-1);
+		if (mPreInflatedContentView != null) {
+			final View contentView = mPreInflatedContentView;
+			this.mPreInflatedContentView = null;
+			return contentView;
+		}
+		final FragmentAnnotationHandler annotationHandler = resolveAnnotationHandler();
+		if (annotationHandler != null) {
+			final int viewResource = annotationHandler.getContentViewResource(-1);
 			if (viewResource != -1) {
-				if (mAnnotationHandler.shouldAttachContentViewToContainer()) {
+				if (annotationHandler.shouldAttachContentViewToContainer()) {
 					inflater.inflate(viewResource, container, true);
 					return null;
 				}
@@ -388,8 +481,9 @@ public abstract class BaseFragment extends Fragment implements BackPressWatcher,
 	@Override
 	public void onViewCreated(View view, Bundle savedInstanceState) {
 		super.onViewCreated(view, savedInstanceState);
-		if (mAnnotationHandler != null) {
-			final int backgroundResId = mAnnotationHandler.getContentViewBackgroundResId(-1);
+		final FragmentAnnotationHandler annotationHandler = resolveAnnotationHandler();
+		if (annotationHandler != null) {
+			final int backgroundResId = annotationHandler.getContentViewBackgroundResId(-1);
 			if (backgroundResId != -1) {
 				view.setBackgroundResource(backgroundResId);
 			}
@@ -60,4 +60,17 @@ public @interface ContentView {
 	@ColorRes
 	@DrawableRes
 	int background() default -1;
+
+	/**
+	 * Flag indicating whether the layout may be inflated in advance, possibly on a background thread,
+	 * when the fragment is prepared or prefetched by a fragment controller. Enable this only for
+	 * layouts that do not contain any views requiring to be inflated on the main thread.
+	 * <p>
+	 * Content views that should be attached to theirs container are never pre-inflated.
+	 * <p>
+	 * Default value: <b>false</b>
+	 *
+	 * @see universum.studios.android.fragment.ContentViewPreInflater
+	 */
+	boolean preInflate() default false;
 }
@@ -24,6 +24,10 @@ import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import universum.studios.android.fragment.BaseFragment;
 import universum.studios.android.fragment.annotation.ContentView;
 
@@ -61,6 +65,82 @@ public final class BaseAnnotationHandlers extends AnnotationHandlers {
 		return obtainHandler(FragmentHandler.class, classOfFragment);
 	}
 
+	/**
+	 * Obtains a {@link FragmentAnnotationHandler} implementation for the given <var>classOfFragment</var>
+	 * only if there are some annotations to be handled by such handler.
+	 * <p>
+	 * Already cached handlers and handlers provided by registries or by the loaded snapshot are
+	 * returned without any check. Otherwise the handler is instantiated only if the given class or
+	 * any of its super classes up to the {@link BaseFragment} class has presented at least one
+	 * annotation of the Fragments library.
+	 *
+	 * @param classOfFragment The class of fragment for which to obtain the handler.
+	 * @return Handler for the class or {@code null} if there are no annotations to be handled or
+	 * annotations processing is disabled.
+	 * @see #obtainFragmentHandler(Class)
+	 * @see AnnotationHandlers#obtainHandlerIfAnnotated(Class, Class, Class)
+	 */
+	@Nullable
+	public static FragmentAnnotationHandler obtainFragmentHandlerIfAnnotated(@NonNull Class<?> classOfFragment) {
+		return obtainHandlerIfAnnotated(FragmentHandler.class, classOfFragment, BaseFragment.class);
+	}
+
+	/**
+	 * Registers type of handlers obtained via {@link #obtainFragmentHandler(Class)} for {@link BaseFragment} and
+	 * all its subclasses, so handlers for such classes may be pre-warmed.
+	 * <p>
+	 * <b>Note</b>, that this method is called by {@link BaseFragment} class itself whenever it is
+	 * initialized.
+	 *
+	 * @see AnnotationHandlers#prewarmHandlers(java.util.concurrent.Executor, boolean, Class[])
+	 */
+	public static void registerHandlerTypes() {
+		registerHandlerType(BaseFragment.class, FragmentHandler.class);
+		registerSnapshotReader(FragmentHandler.class, new AnnotationSnapshot.HandlerReader() {
+
+			/**
+			 */
+			@NonNull
+			@Override
+			public AnnotationHandler readHandler(@NonNull Class<?> annotatedClass, @NonNull DataInput input) throws IOException {
+				// Values are read in the same order as written by FragmentHandler.writeSnapshot(DataOutput).
+				return createFragmentHandler(annotatedClass, input.readInt(), input.readBoolean(), input.readInt(), input.readBoolean());
+			}
+		});
+	}
+
+	/**
+	 * Creates a new {@link FragmentAnnotationHandler} implementation for the given <var>classOfFragment</var>
+	 * with values of {@link ContentView @ContentView} annotation already resolved.
+	 * <p>
+	 * <b>Note</b>, that this method is intended to be called only from {@link AnnotationHandlerRegistry}
+	 * implementations generated by the Fragments annotation processor.
+	 *
+	 * @param classOfFragment              Class of the fragment for which to create the handler.
+	 * @param contentViewResource          Resolved value of {@link ContentView#value()} or {@link FragmentAnnotationHandler#NO_RES}.
+	 * @param attachContentViewToContainer Resolved value of {@link ContentView#attachToContainer()}.
+	 * @param contentViewBackgroundResId   Resolved value of {@link ContentView#background()} or {@link FragmentAnnotationHandler#NO_RES}.
+	 * @param preInflateContentView        Resolved value of {@link ContentView#preInflate()}.
+	 * @return New fragment handler with the specified values.
+	 */
+	@NonNull
+	public static FragmentAnnotationHandler createFragmentHandler(
+			@NonNull Class<?> classOfFragment,
+			@LayoutRes int contentViewResource,
+			boolean attachContentViewToContainer,
+			int contentViewBackgroundResId,
+			boolean preInflateContentView
+	) {
+		return new FragmentHandler(
+				classOfFragment,
+				BaseFragment.class,
+				contentViewResource,
+				attachContentViewToContainer,
+				contentViewBackgroundResId,
+				preInflateContentView
+		);
+	}
+
 	/**
 	 * Inner classes ===============================================================================
 	 */
@@ -93,6 +173,14 @@ public final class BaseAnnotationHandlers extends AnnotationHandlers {
 		 */
 		private int contentViewBackgroundResId = NO_RES;
 
+		/**
+		 * Boolean flag determining whether content view of the related fragment may be inflated in
+		 * advance.
+		 * <p>
+		 * Obtained via {@link ContentView @ContentView} annotation.
+		 */
+		private boolean preInflateContentView;
+
 		/**
 		 * Same as {@link #FragmentHandler(Class, Class)} with {@link BaseFragment} as <var>maxSuperClass</var>.
 		 */
@@ -112,9 +200,35 @@ public final class BaseAnnotationHandlers extends AnnotationHandlers {
 				this.attachContentViewToContainer = contentView.attachToContainer();
 				this.contentViewResource = contentView.value();
 				this.contentViewBackgroundResId = contentView.background();
+				this.preInflateContentView = contentView.preInflate();
 			}
 		}
 
+		/**
+		 * Creates a new instance of FragmentHandler for the specified <var>annotatedClass</var> with
+		 * values of {@link ContentView @ContentView} annotation already resolved.
+		 *
+		 * @see BaseAnnotationHandlers#createFragmentHandler(Class, int, boolean, int, boolean)
+		 */
+		FragmentHandler(Class<?> annotatedClass, Class<?> maxSuperClass, int contentViewResource, boolean attachContentViewToContainer, int contentViewBackgroundResId, boolean preInflateContentView) {
+			super(annotatedClass, maxSuperClass);
+			this.contentViewResource = contentViewResource;
+			this.attachContentViewToContainer = attachContentViewToContainer;
+			this.contentViewBackgroundResId = contentViewBackgroundResId;
+			this.preInflateContentView = preInflateContentView;
+		}
+
+		/**
+		 */
+		@Override
+		boolean writeSnapshot(@NonNull DataOutput output) throws IOException {
+			output.writeInt(contentViewResource);
+			output.writeBoolean(attachContentViewToContainer);
+			output.writeInt(contentViewBackgroundResId);
+			output.writeBoolean(preInflateContentView);
+			return true;
+		}
+
 		/**
 		 */
 		@Override
@@ -122,6 +236,13 @@ public final class BaseAnnotationHandlers extends AnnotationHandlers {
 			return attachContentViewToContainer;
 		}
 
+		/**
+		 */
+		@Override
+		public boolean shouldPreInflateContentView() {
+			return preInflateContentView;
+		}
+
 		/**
 		 */
 		@Override
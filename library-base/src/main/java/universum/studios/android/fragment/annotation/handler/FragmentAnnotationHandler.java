@@ -57,6 +57,15 @@ public interface FragmentAnnotationHandler extends AnnotationHandler {
 	 */
 	boolean shouldAttachContentViewToContainer();
 
+	/**
+	 * Returns a boolean flag obtained from {@link ContentView @ContentView} annotation (if presented)
+	 * from {@link ContentView#preInflate()} attribute.
+	 *
+	 * @return {@code True} if pre-inflation of content view has been allowed via annotation,
+	 * {@code false} otherwise.
+	 */
+	boolean shouldPreInflateContentView();
+
 	/**
 	 * Returns the content view layout resource obtained from {@link ContentView @ContentView}
 	 * annotation (if presented) from {@link ContentView#value()} attribute.
@@ -0,0 +1,78 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.annotation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import universum.studios.android.fragment.benchmark.Hierarchy;
+
+/**
+ * Benchmarks for {@link FragmentAnnotations#obtainAnnotationFrom(Class, Class, Class)} measuring cost
+ * of annotations lookup depending on depth of the class within its hierarchy.
+ *
+ * @author Martin Albedinsky
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FragmentAnnotationsBenchmark {
+
+	/**
+	 * Depth of the class within the hierarchy from which to obtain the annotation.
+	 */
+	@Param({"0", "4", "8", "16"})
+	public int depth;
+
+	/**
+	 * Class from which to obtain the annotation.
+	 */
+	private Class<?> annotatedClass;
+
+	/**
+	 */
+	@Setup
+	public void setUp() {
+		this.annotatedClass = Hierarchy.LEVELS[depth];
+	}
+
+	/**
+	 * Obtains annotation presented for the root class of the hierarchy.
+	 */
+	@Benchmark
+	public FactoryFragments obtainPresentAnnotation() {
+		return FragmentAnnotations.obtainAnnotationFrom(FactoryFragments.class, annotatedClass, Object.class);
+	}
+
+	/**
+	 * Obtains annotation that is not presented for any class of the hierarchy.
+	 */
+	@Benchmark
+	public FactoryFragment obtainMissingAnnotation() {
+		return FragmentAnnotations.obtainAnnotationFrom(FactoryFragment.class, annotatedClass, Object.class);
+	}
+}
@@ -0,0 +1,214 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.annotation.handler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+import universum.studios.android.fragment.benchmark.Factory10;
+import universum.studios.android.fragment.benchmark.Factory100;
+import universum.studios.android.fragment.benchmark.Factory1000;
+
+/**
+ * Benchmarks for {@link AnnotationHandlers#obtainHandler(Class, Class)} measuring cost of obtaining
+ * of already cached handlers from multiple threads and cost of obtaining of handlers that are not
+ * cached yet.
+ *
+ * @author Martin Albedinsky
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AnnotationHandlersBenchmark {
+
+	/**
+	 * Annotated classes for which are the handlers obtained.
+	 */
+	private static final Class<?>[] ANNOTATED_CLASSES = {Factory10.class, Factory100.class, Factory1000.class};
+
+	/**
+	 * Obtains one of the cached handlers via the given <var>state</var>.
+	 */
+	private static AnnotationHandler obtainNext(ThreadState state) {
+		final Class<?> annotatedClass = ANNOTATED_CLASSES[state.index++ % ANNOTATED_CLASSES.length];
+		return AnnotationHandlers.obtainHandler(BaseManagementAnnotationHandlers.FragmentFactoryHandler.class, annotatedClass);
+	}
+
+	/**
+	 */
+	@Benchmark
+	@Threads(1)
+	public AnnotationHandler obtainCachedSingleThread(CachedState cache, ThreadState state) {
+		return obtainNext(state);
+	}
+
+	/**
+	 */
+	@Benchmark
+	@Threads(4)
+	public AnnotationHandler obtainCachedFourThreads(CachedState cache, ThreadState state) {
+		return obtainNext(state);
+	}
+
+	/**
+	 */
+	@Benchmark
+	@Threads(Threads.MAX)
+	public AnnotationHandler obtainCachedMaxThreads(CachedState cache, ThreadState state) {
+		return obtainNext(state);
+	}
+
+	/**
+	 * Same as {@link #obtainCachedSingleThread(CachedState, ThreadState)} with a metrics listener
+	 * set, so overhead of the listener may be tracked.
+	 */
+	@Benchmark
+	@Threads(1)
+	public AnnotationHandler obtainCachedWithMetricsListener(MetricsState metrics, ThreadState state) {
+		return obtainNext(state);
+	}
+
+	/**
+	 * Obtains handler that is not cached, so it is created via reflection.
+	 */
+	@Benchmark
+	@Threads(1)
+	public AnnotationHandler obtainUncached(UncachedState cache) {
+		return AnnotationHandlers.obtainHandler(BaseManagementAnnotationHandlers.FragmentFactoryHandler.class, Factory10.class);
+	}
+
+	/**
+	 * State with handlers for all annotated classes already cached.
+	 */
+	@State(Scope.Benchmark)
+	public static class CachedState {
+
+		/**
+		 */
+		@Setup
+		public void setUp() {
+			AnnotationHandlers.clearCache();
+			for (final Class<?> annotatedClass : ANNOTATED_CLASSES) {
+				AnnotationHandlers.obtainHandler(BaseManagementAnnotationHandlers.FragmentFactoryHandler.class, annotatedClass);
+			}
+		}
+	}
+
+	/**
+	 * State with a metrics listener set in addition to the cached handlers.
+	 */
+	@State(Scope.Benchmark)
+	public static class MetricsState extends CachedState {
+
+		/**
+		 */
+		@Setup
+		public void setUpListener() {
+			AnnotationHandlers.setMetricsListener(new CountingMetricsListener());
+		}
+
+		/**
+		 */
+		@TearDown
+		public void tearDownListener() {
+			AnnotationHandlers.setMetricsListener(null);
+		}
+	}
+
+	/**
+	 * State clearing cache of handlers before each invocation.
+	 */
+	@State(Scope.Benchmark)
+	public static class UncachedState {
+
+		/**
+		 */
+		@Setup(Level.Invocation)
+		public void setUp() {
+			AnnotationHandlers.clearCache();
+		}
+	}
+
+	/**
+	 * State holding index of the next class for which to obtain handler for a single thread.
+	 */
+	@State(Scope.Thread)
+	public static class ThreadState {
+
+		/**
+		 * Index of the next annotated class.
+		 */
+		int index;
+	}
+
+	/**
+	 * Metrics listener that only counts the received callbacks.
+	 */
+	static final class CountingMetricsListener implements AnnotationHandlers.MetricsListener {
+
+		/**
+		 * Count of received callbacks. Updated without synchronization as only its overhead matters.
+		 */
+		long count;
+
+		/**
+		 */
+		@Override
+		public void onHandlerCacheHit(Class<?> classOfHandler, Class<?> annotatedClass) {
+			count++;
+		}
+
+		/**
+		 */
+		@Override
+		public void onHandlerCacheMiss(Class<?> classOfHandler, Class<?> annotatedClass) {
+			count++;
+		}
+
+		/**
+		 */
+		@Override
+		public void onHandlerCreated(Class<?> classOfHandler, Class<?> annotatedClass, int source, long buildNanos) {
+			count++;
+		}
+
+		/**
+		 */
+		@Override
+		public void onAnnotationsScanned(Class<?> annotatedClass, long scanNanos) {
+			count++;
+		}
+
+		/**
+		 */
+		@Override
+		public void onFieldsIterated(Class<?> ofClass, int fieldsCount, long iterationNanos) {
+			count++;
+		}
+	}
+}
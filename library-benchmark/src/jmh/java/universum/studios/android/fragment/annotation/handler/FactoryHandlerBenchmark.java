@@ -0,0 +1,106 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.annotation.handler;
+
+import android.util.SparseArray;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import universum.studios.android.fragment.benchmark.BenchmarkFragment;
+import universum.studios.android.fragment.manage.BaseFragmentFactory;
+import universum.studios.android.fragment.manage.FragmentItem;
+
+/**
+ * Benchmarks measuring cost of creation of {@link BaseManagementAnnotationHandlers.FragmentFactoryHandler}
+ * for factories providing various counts of fragments, either via reflection or with already resolved
+ * items like handlers created by registries generated by the Fragments annotation processor.
+ *
+ * @author Martin Albedinsky
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FactoryHandlerBenchmark {
+
+	/**
+	 * Count of fragments provided by the factory.
+	 */
+	@Param({"10", "100", "1000"})
+	public int fragmentsCount;
+
+	/**
+	 * Class of factory providing the requested count of fragments.
+	 */
+	private Class<?> factoryClass;
+
+	/**
+	 * Tags of the fragments provided by the factory.
+	 */
+	private String[] tags;
+
+	/**
+	 */
+	@Setup
+	public void setUp() throws ClassNotFoundException {
+		this.factoryClass = Class.forName("universum.studios.android.fragment.benchmark.Factory" + fragmentsCount);
+		this.tags = new String[fragmentsCount];
+		for (int i = 0; i < fragmentsCount; i++) {
+			tags[i] = BaseFragmentFactory.createFragmentTag(factoryClass, Integer.toString(i));
+		}
+	}
+
+	/**
+	 * Creates the handler via reflection with annotations of the factory class already scanned and
+	 * cached, so mainly iteration of the annotated fields is measured.
+	 */
+	@Benchmark
+	public AnnotationHandler createReflectively() {
+		return new BaseManagementAnnotationHandlers.FragmentFactoryHandler(factoryClass);
+	}
+
+	/**
+	 * Creates the handler via reflection without any cached data.
+	 */
+	@Benchmark
+	public AnnotationHandler createReflectivelyCold() {
+		AnnotationHandlers.clearCache();
+		return new BaseManagementAnnotationHandlers.FragmentFactoryHandler(factoryClass);
+	}
+
+	/**
+	 * Creates the handler with already resolved items in the same way as generated registries do.
+	 */
+	@Benchmark
+	public AnnotationHandler createResolved() {
+		final SparseArray<FragmentItem> items = new SparseArray<>(fragmentsCount);
+		for (int i = 0; i < fragmentsCount; i++) {
+			items.put(i, new FragmentItem(i, BenchmarkFragment.class, tags[i]));
+		}
+		return BaseManagementAnnotationHandlers.createFactoryHandler(factoryClass, items, null);
+	}
+}
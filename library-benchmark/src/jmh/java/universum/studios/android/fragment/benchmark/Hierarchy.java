@@ -0,0 +1,165 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.benchmark;
+
+import universum.studios.android.fragment.annotation.FactoryFragments;
+
+/**
+ * Class hierarchy used by benchmarks to measure cost of annotations lookup depending on depth of
+ * the annotated class within its hierarchy. Only the root class of the hierarchy is annotated.
+ *
+ * @author Martin Albedinsky
+ */
+public final class Hierarchy {
+
+	/**
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Maximum depth of the hierarchy.
+	 */
+	public static final int MAX_DEPTH = 16;
+
+	/**
+	 * Classes of the hierarchy where a class at index {@code N} has depth {@code N}.
+	 */
+	public static final Class<?>[] LEVELS = {
+			Level0.class, Level1.class, Level2.class, Level3.class, Level4.class, Level5.class,
+			Level6.class, Level7.class, Level8.class, Level9.class, Level10.class, Level11.class,
+			Level12.class, Level13.class, Level14.class, Level15.class, Level16.class
+	};
+
+	/**
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 */
+	private Hierarchy() {
+		// Creation of instances of this class is not publicly allowed.
+	}
+
+	/**
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Root and the only annotated class of the hierarchy.
+	 */
+	@FactoryFragments({1})
+	public static class Level0 {
+	}
+
+	/**
+	 * Class at depth {@code 1} of the hierarchy.
+	 */
+	public static class Level1 extends Level0 {
+	}
+
+	/**
+	 * Class at depth {@code 2} of the hierarchy.
+	 */
+	public static class Level2 extends Level1 {
+	}
+
+	/**
+	 * Class at depth {@code 3} of the hierarchy.
+	 */
+	public static class Level3 extends Level2 {
+	}
+
+	/**
+	 * Class at depth {@code 4} of the hierarchy.
+	 */
+	public static class Level4 extends Level3 {
+	}
+
+	/**
+	 * Class at depth {@code 5} of the hierarchy.
+	 */
+	public static class Level5 extends Level4 {
+	}
+
+	/**
+	 * Class at depth {@code 6} of the hierarchy.
+	 */
+	public static class Level6 extends Level5 {
+	}
+
+	/**
+	 * Class at depth {@code 7} of the hierarchy.
+	 */
+	public static class Level7 extends Level6 {
+	}
+
+	/**
+	 * Class at depth {@code 8} of the hierarchy.
+	 */
+	public static class Level8 extends Level7 {
+	}
+
+	/**
+	 * Class at depth {@code 9} of the hierarchy.
+	 */
+	public static class Level9 extends Level8 {
+	}
+
+	/**
+	 * Class at depth {@code 10} of the hierarchy.
+	 */
+	public static class Level10 extends Level9 {
+	}
+
+	/**
+	 * Class at depth {@code 11} of the hierarchy.
+	 */
+	public static class Level11 extends Level10 {
+	}
+
+	/**
+	 * Class at depth {@code 12} of the hierarchy.
+	 */
+	public static class Level12 extends Level11 {
+	}
+
+	/**
+	 * Class at depth {@code 13} of the hierarchy.
+	 */
+	public static class Level13 extends Level12 {
+	}
+
+	/**
+	 * Class at depth {@code 14} of the hierarchy.
+	 */
+	public static class Level14 extends Level13 {
+	}
+
+	/**
+	 * Class at depth {@code 15} of the hierarchy.
+	 */
+	public static class Level15 extends Level14 {
+	}
+
+	/**
+	 * Class at depth {@code 16} of the hierarchy.
+	 */
+	public static class Level16 extends Level15 {
+	}
+}
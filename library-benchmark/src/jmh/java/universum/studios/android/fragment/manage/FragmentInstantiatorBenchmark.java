@@ -0,0 +1,157 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.manage;
+
+import android.app.Fragment;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import universum.studios.android.fragment.annotation.FactoryFragment;
+import universum.studios.android.fragment.benchmark.BenchmarkFragment;
+import universum.studios.android.fragment.benchmark.Factory10;
+
+/**
+ * Benchmarks measuring cost of instantiation of a single fragment via {@link Class#newInstance()}
+ * compared to instantiation via various {@link FragmentInstantiator} implementations and via
+ * {@link BaseFragmentFactory#createFragment(int)}.
+ *
+ * @author Martin Albedinsky
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FragmentInstantiatorBenchmark {
+
+	/**
+	 * Item for which are fragments instantiated.
+	 */
+	private FragmentItem item;
+
+	/**
+	 * Instantiator in the same form as generated by the Fragments annotation processor.
+	 */
+	private FragmentInstantiator generatedInstantiator;
+
+	/**
+	 * Factory instantiating its fragments via {@link ConstructorFragmentInstantiator}.
+	 */
+	private BaseFragmentFactory factory;
+
+	/**
+	 * Factory instantiating its fragments via supplied instantiator.
+	 */
+	private BaseFragmentFactory suppliedFactory;
+
+	/**
+	 */
+	@Setup
+	public void setUp() {
+		this.item = new FragmentItem(0, BenchmarkFragment.class, null);
+		this.generatedInstantiator = new FragmentInstantiator() {
+
+			/**
+			 */
+			@Override
+			public Fragment instantiateFragment(FragmentItem item) {
+				switch (item.id) {
+					case 0:
+						return new BenchmarkFragment();
+					default:
+						return null;
+				}
+			}
+		};
+		this.factory = new Factory10();
+		this.suppliedFactory = new SuppliedFactory(generatedInstantiator);
+	}
+
+	/**
+	 * Instantiates the fragment via {@link Class#newInstance()} as a baseline.
+	 */
+	@Benchmark
+	public Fragment classNewInstance() throws Exception {
+		return item.type.newInstance();
+	}
+
+	/**
+	 * Instantiates the fragment via {@link FragmentItem#newFragmentInstance(android.os.Bundle)}.
+	 */
+	@Benchmark
+	public Fragment itemNewFragmentInstance() {
+		return item.newFragmentInstance(null);
+	}
+
+	/**
+	 * Instantiates the fragment via cached constructor.
+	 */
+	@Benchmark
+	public Fragment constructorInstantiator() {
+		return ConstructorFragmentInstantiator.INSTANCE.instantiateFragment(item);
+	}
+
+	/**
+	 * Instantiates the fragment via direct constructor call as generated instantiators do.
+	 */
+	@Benchmark
+	public Fragment generatedInstantiator() {
+		return generatedInstantiator.instantiateFragment(item);
+	}
+
+	/**
+	 * Creates the fragment via factory which uses {@link ConstructorFragmentInstantiator}.
+	 */
+	@Benchmark
+	public Fragment factoryCreateFragment() {
+		return factory.createFragment(Factory10.FRAGMENT_0);
+	}
+
+	/**
+	 * Creates the fragment via factory which uses supplied instantiator.
+	 */
+	@Benchmark
+	public Fragment suppliedFactoryCreateFragment() {
+		return suppliedFactory.createFragment(SuppliedFactory.FRAGMENT_0);
+	}
+
+	/**
+	 * Factory providing fragments via the supplied instantiator.
+	 */
+	public static final class SuppliedFactory extends BaseFragmentFactory {
+
+		/**
+		 * Id of the only fragment provided by this factory.
+		 */
+		@FactoryFragment(BenchmarkFragment.class) public static final int FRAGMENT_0 = 0;
+
+		/**
+		 * Creates a new instance of SuppliedFactory with the given instantiator.
+		 */
+		SuppliedFactory(FragmentInstantiator instantiator) {
+			super(instantiator);
+		}
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package android.app;
+
+import android.os.Bundle;
+
+/**
+ * Stub of the Android {@code Fragment} class for benchmarks running on the JVM.
+ */
+public class Fragment {
+
+	private Bundle mArguments;
+
+	public Fragment() {
+	}
+
+	public void setArguments(Bundle args) {
+		this.mArguments = args;
+	}
+
+	public final Bundle getArguments() {
+		return mArguments;
+	}
+
+	public static class InstantiationException extends RuntimeException {
+
+		public InstantiationException(String msg, Exception cause) {
+			super(msg, cause);
+		}
+	}
+}
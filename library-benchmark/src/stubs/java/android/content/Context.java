@@ -0,0 +1,35 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package android.content;
+
+import android.content.pm.PackageManager;
+
+import java.io.File;
+
+/**
+ * Stub of the Android {@code Context} class for benchmarks running on the JVM.
+ */
+public abstract class Context {
+
+	public abstract PackageManager getPackageManager();
+
+	public abstract String getPackageName();
+
+	public abstract File getFilesDir();
+}
@@ -0,0 +1,53 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package android.util;
+
+/**
+ * Stub of the Android {@code Log} class for benchmarks running on the JVM. Logs only errors and
+ * warnings into the standard error output.
+ */
+public final class Log {
+
+	public static int v(String tag, String msg) {
+		return 0;
+	}
+
+	public static int d(String tag, String msg) {
+		return 0;
+	}
+
+	public static int i(String tag, String msg) {
+		return 0;
+	}
+
+	public static int w(String tag, String msg) {
+		System.err.println("W/" + tag + ": " + msg);
+		return 0;
+	}
+
+	public static int e(String tag, String msg) {
+		System.err.println("E/" + tag + ": " + msg);
+		return 0;
+	}
+
+	public static int e(String tag, String msg, Throwable error) {
+		System.err.println("E/" + tag + ": " + msg + " " + error);
+		return 0;
+	}
+}
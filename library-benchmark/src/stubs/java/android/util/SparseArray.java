@@ -0,0 +1,91 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package android.util;
+
+import java.util.Arrays;
+
+/**
+ * Stub of the Android {@code SparseArray} class for benchmarks running on the JVM. Keeps the same
+ * sorted arrays layout as the Android implementation, so its costs are comparable.
+ */
+public class SparseArray<E> {
+
+	private int[] mKeys;
+	private Object[] mValues;
+	private int mSize;
+
+	public SparseArray() {
+		this(10);
+	}
+
+	public SparseArray(int initialCapacity) {
+		this.mKeys = new int[Math.max(1, initialCapacity)];
+		this.mValues = new Object[mKeys.length];
+	}
+
+	public E get(int key) {
+		return get(key, null);
+	}
+
+	@SuppressWarnings("unchecked")
+	public E get(int key, E valueIfKeyNotFound) {
+		final int index = Arrays.binarySearch(mKeys, 0, mSize, key);
+		return index < 0 ? valueIfKeyNotFound : (E) mValues[index];
+	}
+
+	public void put(int key, E value) {
+		int index = Arrays.binarySearch(mKeys, 0, mSize, key);
+		if (index >= 0) {
+			mValues[index] = value;
+			return;
+		}
+		index = ~index;
+		if (mSize == mKeys.length) {
+			mKeys = Arrays.copyOf(mKeys, mSize * 2);
+			mValues = Arrays.copyOf(mValues, mSize * 2);
+		}
+		System.arraycopy(mKeys, index, mKeys, index + 1, mSize - index);
+		System.arraycopy(mValues, index, mValues, index + 1, mSize - index);
+		mKeys[index] = key;
+		mValues[index] = value;
+		mSize++;
+	}
+
+	public int size() {
+		return mSize;
+	}
+
+	public int keyAt(int index) {
+		return mKeys[index];
+	}
+
+	@SuppressWarnings("unchecked")
+	public E valueAt(int index) {
+		return (E) mValues[index];
+	}
+
+	public int indexOfKey(int key) {
+		return Arrays.binarySearch(mKeys, 0, mSize, key);
+	}
+
+	public void clear() {
+		Arrays.fill(mValues, 0, mSize, null);
+		mSize = 0;
+	}
+}
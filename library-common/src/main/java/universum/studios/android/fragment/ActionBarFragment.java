@@ -30,7 +30,6 @@ import android.view.MenuInflater;
 import android.view.MenuItem;
 
 import universum.studios.android.fragment.annotation.ActionBarOptions;
-import universum.studios.android.fragment.annotation.FragmentAnnotations;
 import universum.studios.android.fragment.annotation.MenuOptions;
 import universum.studios.android.fragment.annotation.handler.ActionBarAnnotationHandlers;
 import universum.studios.android.fragment.annotation.handler.ActionBarFragmentAnnotationHandler;
@@ -96,6 +95,11 @@ public class ActionBarFragment extends BaseFragment {
 	 * Static members ==============================================================================
 	 */
 
+	static {
+		// Allow pre-warming of annotation handlers for subclasses of this class.
+		ActionBarAnnotationHandlers.registerHandlerTypes();
+	}
+
 	/**
 	 * Members =====================================================================================
 	 */
@@ -127,13 +131,19 @@ public class ActionBarFragment extends BaseFragment {
 		return ActionBarAnnotationHandlers.obtainActionBarFragmentHandler(getClass());
 	}
 
+	/**
+	 */
+	@Override
+	ActionBarFragmentAnnotationHandler onCreateAnnotationHandlerIfAnnotated() {
+		return ActionBarAnnotationHandlers.obtainActionBarFragmentHandlerIfAnnotated(getClass());
+	}
+
 	/**
 	 */
 	@NonNull
 	@Override
 	protected ActionBarFragmentAnnotationHandler getAnnotationHandler() {
-		FragmentAnnotations.checkIfEnabledOrThrow();
-		return (ActionBarFragmentAnnotationHandler) mAnnotationHandler;
+		return (ActionBarFragmentAnnotationHandler) super.getAnnotationHandler();
 	}
 
 	/**
@@ -141,11 +151,9 @@ public class ActionBarFragment extends BaseFragment {
 	@Override
 	public void onCreate(Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
-		if (mAnnotationHandler != null) {
-			final ActionBarFragmentAnnotationHandler annotationHandler = (ActionBarFragmentAnnotationHandler) mAnnotationHandler;
-			if (annotationHandler.hasOptionsMenu()) {
-				setHasOptionsMenu(true);
-			}
+		final ActionBarFragmentAnnotationHandler annotationHandler = (ActionBarFragmentAnnotationHandler) resolveAnnotationHandler();
+		if (annotationHandler != null && annotationHandler.hasOptionsMenu()) {
+			setHasOptionsMenu(true);
 		}
 	}
 
@@ -153,12 +161,8 @@ public class ActionBarFragment extends BaseFragment {
 	 */
 	@Override
 	public void onCreateOptionsMenu(Menu menu, MenuInflater inflater) {
-		if (mAnnotationHandler == null) {
-			super.onCreateOptionsMenu(menu, inflater);
-			return;
-		}
-		final ActionBarFragmentAnnotationHandler annotationHandler = (ActionBarFragmentAnnotationHandler) mAnnotationHandler;
-		if (!annotationHandler.hasOptionsMenu()) {
+		final ActionBarFragmentAnnotationHandler annotationHandler = (ActionBarFragmentAnnotationHandler) resolveAnnotationHandler();
+		if (annotationHandler == null || !annotationHandler.hasOptionsMenu()) {
 			super.onCreateOptionsMenu(menu, inflater);
 			return;
 		}
@@ -279,8 +283,8 @@ public class ActionBarFragment extends BaseFragment {
 	 * additional ActionBar's invalidation.
 	 */
 	public void invalidateActionBar() {
-		if (mActionBarDelegate != null && mAnnotationHandler != null) {
-			final ActionBarFragmentAnnotationHandler annotationHandler = (ActionBarFragmentAnnotationHandler) mAnnotationHandler;
+		final ActionBarFragmentAnnotationHandler annotationHandler = (ActionBarFragmentAnnotationHandler) resolveAnnotationHandler();
+		if (mActionBarDelegate != null && annotationHandler != null) {
 			annotationHandler.configureActionBar(mActionBarDelegate);
 			if (annotationHandler.hasOptionsMenu()) {
 				setHasOptionsMenu(true);
@@ -430,9 +434,9 @@ public class ActionBarFragment extends BaseFragment {
 		 */
 		@Override
 		public boolean onCreateActionMode(@NonNull ActionMode actionMode, @NonNull Menu menu) {
-			if (fragment == null || fragment.mAnnotationHandler == null) return false;
-			final ActionBarFragmentAnnotationHandler annotationHandler = (ActionBarFragmentAnnotationHandler) fragment.mAnnotationHandler;
-			return annotationHandler.handleCreateActionMode(actionMode, menu);
+			if (fragment == null) return false;
+			final ActionBarFragmentAnnotationHandler annotationHandler = (ActionBarFragmentAnnotationHandler) fragment.resolveAnnotationHandler();
+			return annotationHandler != null && annotationHandler.handleCreateActionMode(actionMode, menu);
 		}
 
 		/**
@@ -26,6 +26,10 @@ import android.support.annotation.Nullable;
 import android.view.ActionMode;
 import android.view.Menu;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import universum.studios.android.fragment.ActionBarDelegate;
 import universum.studios.android.fragment.ActionBarFragment;
 import universum.studios.android.fragment.annotation.ActionBarOptions;
@@ -66,6 +70,132 @@ public final class ActionBarAnnotationHandlers extends AnnotationHandlers {
 		return obtainHandler(ActionBarFragmentHandler.class, classOfFragment);
 	}
 
+	/**
+	 * Obtains a {@link ActionBarFragmentAnnotationHandler} implementation for the given <var>classOfFragment</var>
+	 * only if there are some annotations to be handled by such handler.
+	 * <p>
+	 * Already cached handlers and handlers provided by registries or by the loaded snapshot are
+	 * returned without any check. Otherwise the handler is instantiated only if the given class or
+	 * any of its super classes up to the {@link ActionBarFragment} class has presented at least one
+	 * annotation of the Fragments library.
+	 *
+	 * @param classOfFragment The class of fragment for which to obtain the handler.
+	 * @return Handler for the class or {@code null} if there are no annotations to be handled or
+	 * annotations processing is disabled.
+	 * @see #obtainActionBarFragmentHandler(Class)
+	 * @see AnnotationHandlers#obtainHandlerIfAnnotated(Class, Class, Class)
+	 */
+	@Nullable
+	public static ActionBarFragmentAnnotationHandler obtainActionBarFragmentHandlerIfAnnotated(@NonNull Class<?> classOfFragment) {
+		return obtainHandlerIfAnnotated(ActionBarFragmentHandler.class, classOfFragment, ActionBarFragment.class);
+	}
+
+	/**
+	 * Registers type of handlers obtained via {@link #obtainActionBarFragmentHandler(Class)} for {@link ActionBarFragment} and
+	 * all its subclasses, so handlers for such classes may be pre-warmed.
+	 * <p>
+	 * <b>Note</b>, that this method is called by {@link ActionBarFragment} class itself whenever it is
+	 * initialized.
+	 *
+	 * @see AnnotationHandlers#prewarmHandlers(java.util.concurrent.Executor, boolean, Class[])
+	 */
+	public static void registerHandlerTypes() {
+		registerHandlerType(ActionBarFragment.class, ActionBarFragmentHandler.class);
+		registerSnapshotReader(ActionBarFragmentHandler.class, new AnnotationSnapshot.HandlerReader() {
+
+			/**
+			 */
+			@NonNull
+			@Override
+			public AnnotationHandler readHandler(@NonNull Class<?> annotatedClass, @NonNull DataInput input) throws IOException {
+				// Values are read in the same order as written by ActionBarFragmentHandler.writeSnapshot(DataOutput).
+				return createActionBarFragmentHandler(
+						annotatedClass,
+						input.readInt(),
+						input.readBoolean(),
+						input.readInt(),
+						input.readBoolean(),
+						input.readInt(),
+						input.readInt(),
+						input.readInt(),
+						input.readInt(),
+						input.readInt(),
+						input.readBoolean(),
+						input.readInt(),
+						input.readBoolean(),
+						input.readInt(),
+						input.readInt()
+				);
+			}
+		});
+	}
+
+	/**
+	 * Creates a new {@link ActionBarFragmentAnnotationHandler} implementation for the given
+	 * <var>classOfFragment</var> with values of all supported annotations already resolved.
+	 * <p>
+	 * <b>Note</b>, that this method is intended to be called only from {@link AnnotationHandlerRegistry}
+	 * implementations generated by the Fragments annotation processor.
+	 *
+	 * @param classOfFragment              Class of the fragment for which to create the handler.
+	 * @param contentViewResource          Resolved value of {@link universum.studios.android.fragment.annotation.ContentView#value() ContentView.value()}.
+	 * @param attachContentViewToContainer Resolved value of {@link universum.studios.android.fragment.annotation.ContentView#attachToContainer() ContentView.attachToContainer()}.
+	 * @param contentViewBackgroundResId   Resolved value of {@link universum.studios.android.fragment.annotation.ContentView#background() ContentView.background()}.
+	 * @param preInflateContentView        Resolved value of {@link universum.studios.android.fragment.annotation.ContentView#preInflate() ContentView.preInflate()}.
+	 * @param title                        Resolved value of {@link ActionBarOptions#title()}.
+	 * @param icon                         Resolved value of {@link ActionBarOptions#icon()}.
+	 * @param homeAsUp                     Resolved value of {@link ActionBarOptions#homeAsUp()}.
+	 * @param homeAsUpVectorIndicator      Resolved value of {@link ActionBarOptions#homeAsUpVectorIndicator()}.
+	 * @param homeAsUpIndicator            Resolved value of {@link ActionBarOptions#homeAsUpIndicator()}.
+	 * @param hasOptionsMenu               {@code True} if {@link MenuOptions @MenuOptions} annotation is presented.
+	 * @param optionsMenuResource          Resolved value of {@link MenuOptions#value()}.
+	 * @param clearOptionsMenu             Resolved value of {@link MenuOptions#clear()}.
+	 * @param optionsMenuFlags             Resolved value of {@link MenuOptions#flags()} or {@code -1}.
+	 * @param actionModeMenuResource       Resolved value of {@link ActionModeOptions#menu()}.
+	 * @return New action bar fragment handler with the specified values.
+	 * @see BaseAnnotationHandlers#createFragmentHandler(Class, int, boolean, int, boolean)
+	 */
+	@NonNull
+	public static ActionBarFragmentAnnotationHandler createActionBarFragmentHandler(
+			@NonNull Class<?> classOfFragment,
+			int contentViewResource,
+			boolean attachContentViewToContainer,
+			int contentViewBackgroundResId,
+			boolean preInflateContentView,
+			int title,
+			int icon,
+			int homeAsUp,
+			int homeAsUpVectorIndicator,
+			int homeAsUpIndicator,
+			boolean hasOptionsMenu,
+			int optionsMenuResource,
+			boolean clearOptionsMenu,
+			int optionsMenuFlags,
+			int actionModeMenuResource
+	) {
+		final ActionBarFragmentHandler handler = new ActionBarFragmentHandler(
+				classOfFragment,
+				ActionBarFragment.class,
+				contentViewResource,
+				attachContentViewToContainer,
+				contentViewBackgroundResId,
+				preInflateContentView
+		);
+		handler.setResolvedValues(
+				title,
+				icon,
+				homeAsUp,
+				homeAsUpVectorIndicator,
+				homeAsUpIndicator,
+				hasOptionsMenu,
+				optionsMenuResource,
+				clearOptionsMenu,
+				optionsMenuFlags,
+				actionModeMenuResource
+		);
+		return handler;
+	}
+
 	/**
 	 * Inner classes ===============================================================================
 	 */
@@ -182,6 +312,67 @@ public final class ActionBarAnnotationHandlers extends AnnotationHandlers {
 			}
 		}
 
+		/**
+		 * Creates a new instance of ActionBarFragmentHandler for the specified <var>annotatedClass</var>
+		 * with values of {@link universum.studios.android.fragment.annotation.ContentView @ContentView}
+		 * annotation already resolved. Values of the other supported annotations may be specified
+		 * via {@link #setResolvedValues(int, int, int, int, int, boolean, int, boolean, int, int)}.
+		 *
+		 * @see BaseAnnotationHandlers.FragmentHandler#FragmentHandler(Class, Class, int, boolean, int, boolean)
+		 */
+		ActionBarFragmentHandler(Class<?> annotatedClass, Class<?> maxSuperClass, int contentViewResource, boolean attachContentViewToContainer, int contentViewBackgroundResId, boolean preInflateContentView) {
+			super(annotatedClass, maxSuperClass, contentViewResource, attachContentViewToContainer, contentViewBackgroundResId, preInflateContentView);
+		}
+
+		/**
+		 * Specifies already resolved values of {@link ActionBarOptions @ActionBarOptions},
+		 * {@link MenuOptions @MenuOptions} and {@link ActionModeOptions @ActionModeOptions} annotations
+		 * for this handler.
+		 *
+		 * @see ActionBarAnnotationHandlers#createActionBarFragmentHandler(Class, int, boolean, int, boolean, int, int, int, int, int, boolean, int, boolean, int, int)
+		 */
+		final void setResolvedValues(
+				int title,
+				int icon,
+				int homeAsUp,
+				int homeAsUpVectorIndicator,
+				int homeAsUpIndicator,
+				boolean hasOptionsMenu,
+				int optionsMenuResource,
+				boolean clearOptionsMenu,
+				int optionsMenuFlags,
+				int actionModeMenuResource
+		) {
+			this.title = title;
+			this.icon = icon;
+			this.homeAsUp = homeAsUp;
+			this.homeAsUpVectorIndicator = homeAsUpVectorIndicator;
+			this.homeAsUpIndicator = homeAsUpIndicator;
+			this.hasOptionsMenu = hasOptionsMenu;
+			this.optionsMenuResource = optionsMenuResource;
+			this.clearOptionsMenu = clearOptionsMenu;
+			this.optionsMenuFlags = optionsMenuFlags;
+			this.actionModeMenuResource = actionModeMenuResource;
+		}
+
+		/**
+		 */
+		@Override
+		boolean writeSnapshot(@NonNull DataOutput output) throws IOException {
+			super.writeSnapshot(output);
+			output.writeInt(title);
+			output.writeInt(icon);
+			output.writeInt(homeAsUp);
+			output.writeInt(homeAsUpVectorIndicator);
+			output.writeInt(homeAsUpIndicator);
+			output.writeBoolean(hasOptionsMenu);
+			output.writeInt(optionsMenuResource);
+			output.writeBoolean(clearOptionsMenu);
+			output.writeInt(optionsMenuFlags);
+			output.writeInt(actionModeMenuResource);
+			return true;
+		}
+
 		/**
 		 */
 		@Override
@@ -0,0 +1,192 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.annotation.handler;
+
+import android.support.annotation.NonNull;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class AnnotationHandlersTest {
+
+	/**
+	 * Log TAG.
+	 */
+	@SuppressWarnings("unused")
+	private static final String TAG = "AnnotationHandlersTest";
+
+	private final CountingMetricsListener mListener = new CountingMetricsListener();
+
+	@Before
+	public void beforeTest() {
+		AnnotationHandlers.configureCache(false, 0);
+		AnnotationHandlers.setMetricsListener(mListener);
+	}
+
+	@After
+	public void afterTest() {
+		AnnotationHandlers.setMetricsListener(null);
+		AnnotationHandlers.configureCache(false, 0);
+	}
+
+	@Test
+	public void testObtainHandlerIfAnnotatedForAnnotatedClass() {
+		final TestHandler handler = AnnotationHandlers.obtainHandlerIfAnnotated(TestHandler.class, AnnotatedChild.class, TestBase.class);
+		assertThat(handler, is(notNullValue()));
+		assertThat(handler.getAnnotatedClass(), is((Object) AnnotatedChild.class));
+		assertThat(mListener.reflectionCreations.get(), is(1));
+		assertThat(AnnotationHandlers.obtainHandler(TestHandler.class, AnnotatedChild.class), is(sameInstance(handler)));
+	}
+
+	@Test
+	public void testObtainHandlerIfAnnotatedForInheritedAnnotations() {
+		assertThat(AnnotationHandlers.obtainHandlerIfAnnotated(TestHandler.class, AnnotatedGrandChild.class, TestBase.class), is(notNullValue()));
+		// Annotations of the max super class itself are not taken into count.
+		assertThat(AnnotationHandlers.obtainHandlerIfAnnotated(TestHandler.class, PlainGrandChild.class, AnnotatedChild.class), is(nullValue()));
+	}
+
+	@Test
+	public void testObtainHandlerIfAnnotatedForClassWithoutAnnotations() {
+		assertThat(AnnotationHandlers.obtainHandlerIfAnnotated(TestHandler.class, PlainChild.class, TestBase.class), is(nullValue()));
+		assertThat(mListener.scans.get(), is(1));
+		assertThat(mListener.reflectionCreations.get(), is(0));
+		assertThat(AnnotationHandlers.obtainHandlerIfAnnotated(TestHandler.class, PlainChild.class, TestBase.class), is(nullValue()));
+		assertThat(mListener.scans.get(), is(1));
+		assertThat(mListener.hits.get(), is(1));
+	}
+
+	@Test
+	public void testObtainHandlerIfAnnotatedForClassWithoutAnnotationsInWeakMode() {
+		AnnotationHandlers.configureCache(true, 0);
+		assertThat(AnnotationHandlers.obtainHandlerIfAnnotated(TestHandler.class, PlainChild.class, TestBase.class), is(nullValue()));
+		assertThat(AnnotationHandlers.obtainHandlerIfAnnotated(TestHandler.class, PlainChild.class, TestBase.class), is(nullValue()));
+		// Records of annotations are not cached in weak mode, but the negative result is.
+		assertThat(mListener.scans.get(), is(1));
+		assertThat(mListener.hits.get(), is(1));
+	}
+
+	@Test
+	public void testObtainHandlerIfAnnotatedFromRegistryDoesNotScan() {
+		final AnnotationHandlerRegistry registry = new AnnotationHandlerRegistry() {
+
+			@Override
+			public AnnotationHandler createHandler(@NonNull Class<? extends AnnotationHandler> classOfHandler, @NonNull Class<?> annotatedClass) {
+				return classOfHandler == TestHandler.class ? new TestHandler(annotatedClass) : null;
+			}
+		};
+		AnnotationHandlers.registerHandlerRegistry(registry);
+		try {
+			final TestHandler handler = AnnotationHandlers.obtainHandlerIfAnnotated(TestHandler.class, AnnotatedChild.class, TestBase.class);
+			assertThat(handler, is(notNullValue()));
+			assertThat(mListener.scans.get(), is(0));
+			assertThat(mListener.registryCreations.get(), is(1));
+		} finally {
+			AnnotationHandlers.unregisterHandlerRegistry(registry);
+		}
+	}
+
+	@Test
+	public void testObtainHandlerIfAnnotatedReturnsAlreadyCachedHandler() {
+		final TestHandler handler = AnnotationHandlers.obtainHandler(TestHandler.class, PlainChild.class);
+		final int scans = mListener.scans.get();
+		assertThat(AnnotationHandlers.obtainHandlerIfAnnotated(TestHandler.class, PlainChild.class, TestBase.class), is(sameInstance(handler)));
+		assertThat(mListener.scans.get(), is(scans));
+	}
+
+	@Test
+	public void testObtainHandlerAfterNegativeCheck() {
+		assertThat(AnnotationHandlers.obtainHandlerIfAnnotated(TestHandler.class, PlainChild.class, TestBase.class), is(nullValue()));
+		final TestHandler handler = AnnotationHandlers.obtainHandler(TestHandler.class, PlainChild.class);
+		assertThat(handler, is(notNullValue()));
+		assertThat(handler, is(instanceOf(TestHandler.class)));
+		assertThat(AnnotationHandlers.obtainHandlerIfAnnotated(TestHandler.class, PlainChild.class, TestBase.class), is(sameInstance(handler)));
+		assertThat(AnnotationHandlers.getCacheStats().entryCount, is(1));
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface TestOptions {}
+
+	public static class TestBase {}
+
+	public static class PlainChild extends TestBase {}
+
+	@TestOptions
+	public static class AnnotatedChild extends TestBase {}
+
+	public static class AnnotatedGrandChild extends AnnotatedChild {}
+
+	public static class PlainGrandChild extends AnnotatedChild {}
+
+	public static final class TestHandler extends BaseAnnotationHandler {
+
+		public TestHandler(@NonNull Class<?> annotatedClass) {
+			super(annotatedClass, TestBase.class);
+		}
+	}
+
+	private static final class CountingMetricsListener implements AnnotationHandlers.MetricsListener {
+
+		final AtomicInteger hits = new AtomicInteger();
+		final AtomicInteger scans = new AtomicInteger();
+		final AtomicInteger registryCreations = new AtomicInteger();
+		final AtomicInteger reflectionCreations = new AtomicInteger();
+
+		@Override
+		public void onHandlerCacheHit(@NonNull Class<?> classOfHandler, @NonNull Class<?> annotatedClass) {
+			hits.incrementAndGet();
+		}
+
+		@Override
+		public void onHandlerCacheMiss(@NonNull Class<?> classOfHandler, @NonNull Class<?> annotatedClass) {
+		}
+
+		@Override
+		public void onHandlerCreated(@NonNull Class<?> classOfHandler, @NonNull Class<?> annotatedClass, int source, long buildNanos) {
+			if (source == SOURCE_REGISTRY) registryCreations.incrementAndGet();
+			else if (source == SOURCE_REFLECTION) reflectionCreations.incrementAndGet();
+		}
+
+		@Override
+		public void onAnnotationsScanned(@NonNull Class<?> annotatedClass, long scanNanos) {
+			scans.incrementAndGet();
+		}
+
+		@Override
+		public void onFieldsIterated(@NonNull Class<?> ofClass, int fieldsCount, long iterationNanos) {
+		}
+	}
+}
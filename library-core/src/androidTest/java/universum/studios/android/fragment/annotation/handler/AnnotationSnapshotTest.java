@@ -0,0 +1,384 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.annotation.handler;
+
+import android.support.annotation.NonNull;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class AnnotationSnapshotTest {
+
+	/**
+	 * Log TAG.
+	 */
+	@SuppressWarnings("unused")
+	private static final String TAG = "AnnotationSnapshotTest";
+
+	private static final int VERSION_CODE = 12;
+	private static final long LAST_UPDATE_TIME = 1490000000000L;
+
+	// Size of the header: magic, format version, version code, last update time and entries count.
+	private static final int HEADER_SIZE = 4 + 4 + 4 + 8 + 4;
+
+	static {
+		AnnotationSnapshot.registerReader(TestHandler.class, new AnnotationSnapshot.HandlerReader() {
+
+			@NonNull
+			@Override
+			public AnnotationHandler readHandler(@NonNull Class<?> annotatedClass, @NonNull DataInput input) throws IOException {
+				return new TestHandler(annotatedClass, input.readInt());
+			}
+		});
+	}
+
+	private File mDirectory;
+	private File mFile;
+
+	@Before
+	public void beforeTest() throws Exception {
+		this.mDirectory = File.createTempFile("snapshot", "test");
+		assertThat(mDirectory.delete() && mDirectory.mkdirs(), is(true));
+		this.mFile = new File(mDirectory, AnnotationSnapshot.FILE_NAME);
+	}
+
+	@After
+	public void afterTest() {
+		deleteRecursively(mDirectory);
+	}
+
+	@Test
+	public void testSaveAndLoad() {
+		final AnnotationSnapshot snapshot = createSnapshot();
+		assertThat(snapshot.size(), is(0));
+		assertThat(snapshot.save(handlers(new TestHandler(FirstClass.class, 7), new TestHandler(SecondClass.class, 9))), is(true));
+		assertThat(mFile.exists(), is(true));
+		assertThat(tempFile().exists(), is(false));
+		final AnnotationSnapshot loadedSnapshot = createSnapshot();
+		loadedSnapshot.load();
+		assertThat(loadedSnapshot.size(), is(2));
+		assertHandler(loadedSnapshot, FirstClass.class, 7);
+		assertHandler(loadedSnapshot, SecondClass.class, 9);
+		assertThat(loadedSnapshot.createHandler(TestHandler.class, ThirdClass.class), is(nullValue()));
+	}
+
+	@Test
+	public void testSaveOnlyNewEntries() {
+		final AnnotationSnapshot snapshot = createSnapshot();
+		assertThat(snapshot.save(handlers(new TestHandler(FirstClass.class, 7))), is(true));
+		final long length = mFile.length();
+		assertThat(snapshot.save(handlers(new TestHandler(FirstClass.class, 7))), is(false));
+		assertThat(mFile.length(), is(length));
+		assertThat(snapshot.save(handlers(new TestHandler(FirstClass.class, 7), new TestHandler(SecondClass.class, 9))), is(true));
+		assertThat(snapshot.size(), is(2));
+		assertHandler(snapshot, FirstClass.class, 7);
+		assertHandler(snapshot, SecondClass.class, 9);
+	}
+
+	@Test
+	public void testSaveIgnoresHandlersWithoutReader() {
+		final AnnotationSnapshot snapshot = createSnapshot();
+		assertThat(snapshot.save(handlers(new UnreadableHandler(FirstClass.class))), is(false));
+		assertThat(mFile.exists(), is(false));
+	}
+
+	@Test
+	public void testLoadWithoutFile() {
+		final AnnotationSnapshot snapshot = createSnapshot();
+		snapshot.load();
+		assertThat(snapshot.size(), is(0));
+		assertThat(snapshot.createHandler(TestHandler.class, FirstClass.class), is(nullValue()));
+	}
+
+	@Test
+	public void testLoadDiscardsSnapshotOfDifferentVersionCode() {
+		writeSnapshot();
+		final AnnotationSnapshot snapshot = new AnnotationSnapshot(mFile, VERSION_CODE + 1, LAST_UPDATE_TIME);
+		snapshot.load();
+		assertDiscarded(snapshot);
+	}
+
+	@Test
+	public void testLoadDiscardsSnapshotOfDifferentLastUpdateTime() {
+		writeSnapshot();
+		final AnnotationSnapshot snapshot = new AnnotationSnapshot(mFile, VERSION_CODE, LAST_UPDATE_TIME + 1);
+		snapshot.load();
+		assertDiscarded(snapshot);
+	}
+
+	@Test
+	public void testLoadDiscardsSnapshotWithBadMagic() throws Exception {
+		writeSnapshot();
+		writeIntAt(0, 0x12345678);
+		assertDiscarded(loadSnapshot());
+	}
+
+	@Test
+	public void testLoadDiscardsSnapshotWithDifferentFormatVersion() throws Exception {
+		writeSnapshot();
+		writeIntAt(4, 1);
+		assertDiscarded(loadSnapshot());
+	}
+
+	@Test
+	public void testLoadDiscardsSnapshotWithBadEndMagic() throws Exception {
+		writeSnapshot();
+		writeIntAt((int) mFile.length() - 4, 0);
+		assertDiscarded(loadSnapshot());
+	}
+
+	@Test
+	public void testLoadDiscardsSnapshotWithInvalidEntriesCount() throws Exception {
+		writeSnapshot();
+		writeIntAt(HEADER_SIZE - 4, -1);
+		assertDiscarded(loadSnapshot());
+		writeSnapshot();
+		writeIntAt(HEADER_SIZE - 4, Integer.MAX_VALUE);
+		assertDiscarded(loadSnapshot());
+		writeSnapshot();
+		// More entries than written, so the end magic is read as a part of entry.
+		writeIntAt(HEADER_SIZE - 4, 3);
+		assertDiscarded(loadSnapshot());
+	}
+
+	@Test
+	public void testLoadDiscardsSnapshotWithInvalidEntryLength() throws Exception {
+		writeSnapshot();
+		final int lengthOffset = dataOffsetOfFirstEntry() - 4;
+		writeIntAt(lengthOffset, Integer.MAX_VALUE);
+		assertDiscarded(loadSnapshot());
+		writeSnapshot();
+		writeIntAt(lengthOffset, -1);
+		assertDiscarded(loadSnapshot());
+	}
+
+	@Test
+	public void testLoadDiscardsTruncatedSnapshot() throws Exception {
+		writeSnapshot();
+		final byte[] content = readFile();
+		for (int length = 0; length < content.length; length++) {
+			writeFile(Arrays.copyOf(content, length));
+			assertDiscarded(loadSnapshot());
+		}
+	}
+
+	@Test
+	public void testLoadDiscardsTooLargeSnapshot() throws Exception {
+		writeSnapshot();
+		final RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+		try {
+			file.setLength(4 * 1024 * 1024 + 1);
+		} finally {
+			file.close();
+		}
+		assertDiscarded(loadSnapshot());
+	}
+
+	@Test
+	public void testCreateHandlerIgnoresEntryWithChecksumMismatch() throws Exception {
+		writeSnapshot();
+		// Corrupt the single byte of the value of the first entry.
+		final byte[] content = readFile();
+		content[dataOffsetOfFirstEntry() + 3] ^= 0x01;
+		writeFile(content);
+		final AnnotationSnapshot snapshot = loadSnapshot();
+		assertThat(snapshot.size(), is(2));
+		assertThat(snapshot.createHandler(TestHandler.class, FirstClass.class), is(nullValue()));
+		assertThat(snapshot.size(), is(1));
+		assertHandler(snapshot, SecondClass.class, 9);
+		// Corrupted entry is dropped from the file by the next save.
+		assertThat(snapshot.save(Collections.<AnnotationHandler>emptyList()), is(true));
+		final AnnotationSnapshot reloadedSnapshot = loadSnapshot();
+		assertThat(reloadedSnapshot.size(), is(1));
+		assertThat(reloadedSnapshot.createHandler(TestHandler.class, FirstClass.class), is(nullValue()));
+		assertHandler(reloadedSnapshot, SecondClass.class, 9);
+	}
+
+	@Test
+	public void testSaveReplacesStaleTemporaryFile() throws Exception {
+		final File tempFile = tempFile();
+		final FileOutputStream stream = new FileOutputStream(tempFile);
+		try {
+			stream.write(new byte[]{1, 2, 3});
+		} finally {
+			stream.close();
+		}
+		writeSnapshot();
+		assertThat(tempFile.exists(), is(false));
+		final AnnotationSnapshot snapshot = loadSnapshot();
+		assertThat(snapshot.size(), is(2));
+	}
+
+	@Test
+	public void testSaveFailureDeletesTemporaryFile() throws Exception {
+		// Snapshot file cannot be replaced by a directory that is not empty.
+		assertThat(mFile.mkdirs() && new File(mFile, "file").createNewFile(), is(true));
+		final AnnotationSnapshot snapshot = createSnapshot();
+		assertThat(snapshot.save(handlers(new TestHandler(FirstClass.class, 7))), is(false));
+		assertThat(tempFile().exists(), is(false));
+		assertThat(snapshot.size(), is(0));
+	}
+
+	@Test
+	public void testSaveIntoMissingDirectory() {
+		this.mFile = new File(new File(mDirectory, "missing"), AnnotationSnapshot.FILE_NAME);
+		writeSnapshot();
+		assertThat(loadSnapshot().size(), is(2));
+	}
+
+	private AnnotationSnapshot createSnapshot() {
+		return new AnnotationSnapshot(mFile, VERSION_CODE, LAST_UPDATE_TIME);
+	}
+
+	private AnnotationSnapshot loadSnapshot() {
+		final AnnotationSnapshot snapshot = createSnapshot();
+		snapshot.load();
+		return snapshot;
+	}
+
+	private void writeSnapshot() {
+		assertThat(createSnapshot().save(handlers(new TestHandler(FirstClass.class, 7), new TestHandler(SecondClass.class, 9))), is(true));
+	}
+
+	private File tempFile() {
+		return new File(mFile.getPath() + ".tmp");
+	}
+
+	private static int dataOffsetOfFirstEntry() {
+		// Names are written via DataOutput.writeUTF(String), so each is prefixed by its length,
+		// followed by checksum and length of the entry data.
+		return HEADER_SIZE + 2 + TestHandler.class.getName().length() + 2 + FirstClass.class.getName().length() + 8 + 4;
+	}
+
+	private void writeIntAt(int offset, int value) throws IOException {
+		final RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+		try {
+			file.seek(offset);
+			file.writeInt(value);
+		} finally {
+			file.close();
+		}
+	}
+
+	private byte[] readFile() throws IOException {
+		final RandomAccessFile file = new RandomAccessFile(mFile, "r");
+		try {
+			final byte[] content = new byte[(int) file.length()];
+			file.readFully(content);
+			return content;
+		} finally {
+			file.close();
+		}
+	}
+
+	private void writeFile(byte[] content) throws IOException {
+		final FileOutputStream stream = new FileOutputStream(mFile);
+		try {
+			stream.write(content);
+		} finally {
+			stream.close();
+		}
+	}
+
+	private void assertDiscarded(AnnotationSnapshot snapshot) {
+		assertThat(snapshot.size(), is(0));
+		assertThat(snapshot.createHandler(TestHandler.class, FirstClass.class), is(nullValue()));
+		assertThat(mFile.exists(), is(false));
+	}
+
+	private static void assertHandler(AnnotationSnapshot snapshot, Class<?> annotatedClass, int value) {
+		final AnnotationHandler handler = snapshot.createHandler(TestHandler.class, annotatedClass);
+		assertThat(handler, is(notNullValue()));
+		assertThat(handler, is(instanceOf(TestHandler.class)));
+		assertThat(handler.getAnnotatedClass(), is((Object) annotatedClass));
+		assertThat(((TestHandler) handler).value, is(value));
+	}
+
+	private static Collection<AnnotationHandler> handlers(AnnotationHandler... handlers) {
+		return Arrays.asList(handlers);
+	}
+
+	private static void deleteRecursively(File file) {
+		final File[] files = file.listFiles();
+		if (files != null) {
+			for (final File child : files) {
+				deleteRecursively(child);
+			}
+		}
+		file.delete();
+	}
+
+	private static final class FirstClass {}
+
+	private static final class SecondClass {}
+
+	private static final class ThirdClass {}
+
+	private static final class TestHandler extends BaseAnnotationHandler {
+
+		final int value;
+
+		TestHandler(Class<?> annotatedClass, int value) {
+			super(annotatedClass, null);
+			this.value = value;
+		}
+
+		@Override
+		boolean writeSnapshot(@NonNull DataOutput output) throws IOException {
+			output.writeInt(value);
+			return true;
+		}
+	}
+
+	private static final class UnreadableHandler extends BaseAnnotationHandler {
+
+		UnreadableHandler(Class<?> annotatedClass) {
+			super(annotatedClass, null);
+		}
+
+		@Override
+		boolean writeSnapshot(@NonNull DataOutput output) throws IOException {
+			output.writeInt(1);
+			return true;
+		}
+	}
+}
@@ -0,0 +1,372 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.annotation.handler;
+
+import android.support.annotation.NonNull;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class HandlerCacheTest {
+
+	/**
+	 * Log TAG.
+	 */
+	@SuppressWarnings("unused")
+	private static final String TAG = "HandlerCacheTest";
+
+	private static final int ENTRY_SIZE = 64 + HandlerCache.HANDLER_SIZE;
+	private static final int ANNOTATIONS_RECORD_SIZE = 48;
+
+	private static final Class<?>[] CLASSES = {
+			Class0.class, Class1.class, Class2.class, Class3.class, Class4.class, Class5.class,
+			Class6.class, Class7.class, Class8.class, Class9.class, Class10.class
+	};
+
+	@After
+	public void afterTest() {
+		AnnotationHandlers.configureCache(false, 0);
+	}
+
+	@Test
+	public void testPutAndGet() {
+		final HandlerCache cache = new HandlerCache(false, 0);
+		final AnnotationHandler handler = new TestHandler(Class0.class);
+		cache.put(TestHandler.class, Class0.class, handler);
+		assertThat(cache.get(TestHandler.class, Class0.class), is(sameInstance(handler)));
+		assertThat(cache.get(TestHandler.class, Class1.class), is(nullValue()));
+		assertThat(cache.get(OtherHandler.class, Class0.class), is(nullValue()));
+	}
+
+	@Test
+	public void testBoundedCacheEvictsLeastRecentlyAccessedEntries() {
+		final HandlerCache cache = new HandlerCache(false, 8);
+		for (int i = 0; i < 8; i++) {
+			put(cache, CLASSES[i]);
+		}
+		assertThat(cache.stats().entryCount, is(8));
+		assertThat(cache.stats().evictionCount, is(0L));
+		// Accessed entry is ordered along with the most recently put one.
+		assertThat(cache.get(TestHandler.class, Class0.class), is(notNullValue()));
+		put(cache, Class8.class);
+		// Cache is trimmed to 7/8 of its max size, so 2 least recently accessed entries are evicted.
+		assertThat(cache.stats().entryCount, is(7));
+		assertThat(cache.stats().evictionCount, is(2L));
+		assertThat(cache.get(TestHandler.class, Class0.class), is(notNullValue()));
+		assertThat(cache.get(TestHandler.class, Class1.class), is(nullValue()));
+		assertThat(cache.get(TestHandler.class, Class2.class), is(nullValue()));
+		for (int i = 3; i <= 8; i++) {
+			assertThat(cache.get(TestHandler.class, CLASSES[i]), is(notNullValue()));
+		}
+		put(cache, Class9.class);
+		assertThat(cache.stats().entryCount, is(8));
+		assertThat(cache.stats().evictionCount, is(2L));
+	}
+
+	@Test
+	public void testBoundedCacheEvictsAcrossHandlerTypes() {
+		final HandlerCache cache = new HandlerCache(false, 2);
+		cache.put(OtherHandler.class, Class0.class, new TestHandler(Class0.class));
+		put(cache, Class1.class);
+		put(cache, Class2.class);
+		assertThat(cache.stats().entryCount, is(2));
+		assertThat(cache.stats().evictionCount, is(1L));
+		assertThat(cache.get(OtherHandler.class, Class0.class), is(nullValue()));
+		assertThat(cache.get(TestHandler.class, Class1.class), is(notNullValue()));
+		assertThat(cache.get(TestHandler.class, Class2.class), is(notNullValue()));
+	}
+
+	@Test
+	public void testUnboundedCacheDoesNotEvict() {
+		final HandlerCache cache = new HandlerCache(false, 0);
+		for (final Class<?> annotatedClass : CLASSES) {
+			put(cache, annotatedClass);
+		}
+		assertThat(cache.stats().entryCount, is(CLASSES.length));
+		assertThat(cache.stats().evictionCount, is(0L));
+	}
+
+	@Test
+	public void testStats() {
+		final HandlerCache cache = new HandlerCache(false, 0);
+		AnnotationHandlers.CacheStats stats = cache.stats();
+		assertThat(stats.entryCount, is(0));
+		assertThat(stats.annotationsCount, is(0));
+		assertThat(stats.approximateRetainedBytes, is(0L));
+		assertThat(stats.evictionCount, is(0L));
+		put(cache, Class0.class);
+		put(cache, Class1.class);
+		cache.put(OtherHandler.class, Class0.class, new OtherHandler(Class0.class));
+		stats = cache.stats();
+		assertThat(stats.entryCount, is(3));
+		assertThat(stats.approximateRetainedBytes, is(3L * ENTRY_SIZE));
+		// Replaced entry is not counted twice.
+		put(cache, Class0.class);
+		stats = cache.stats();
+		assertThat(stats.entryCount, is(3));
+		assertThat(stats.approximateRetainedBytes, is(3L * ENTRY_SIZE));
+		// Records are resolved also for super classes up to the max super class.
+		assertThat(cache.annotations(AnnotatedGrandChild.class, TestBase.class).isEmpty(), is(false));
+		stats = cache.stats();
+		assertThat(stats.annotationsCount, is(2));
+		assertThat(stats.approximateRetainedBytes, is(3L * ENTRY_SIZE + 2 * ANNOTATIONS_RECORD_SIZE));
+		cache.clear();
+		stats = cache.stats();
+		assertThat(stats.entryCount, is(0));
+		assertThat(stats.annotationsCount, is(0));
+		assertThat(stats.approximateRetainedBytes, is(0L));
+	}
+
+	@Test
+	public void testStatsOfEvictedEntries() {
+		final HandlerCache cache = new HandlerCache(false, 8);
+		for (int i = 0; i < 9; i++) {
+			put(cache, CLASSES[i]);
+		}
+		final AnnotationHandlers.CacheStats stats = cache.stats();
+		assertThat(stats.entryCount, is(7));
+		assertThat(stats.evictionCount, is(2L));
+		assertThat(stats.approximateRetainedBytes, is(7L * ENTRY_SIZE));
+	}
+
+	@Test
+	public void testAnnotationsAreCachedOnlyForMaxSuperClass() {
+		final HandlerCache cache = new HandlerCache(false, 0);
+		final ClassAnnotations annotations = cache.annotations(AnnotatedChild.class, TestBase.class);
+		assertThat(cache.annotations(AnnotatedChild.class, TestBase.class), is(sameInstance(annotations)));
+		assertThat(cache.annotations(AnnotatedChild.class, null), is(not(sameInstance(annotations))));
+		assertThat(cache.stats().annotationsCount, is(1));
+	}
+
+	@Test
+	public void testBoundedCacheDropsAnnotationsWhenExceeded() {
+		final HandlerCache cache = new HandlerCache(false, 2);
+		cache.annotations(AnnotatedGrandChild.class, TestBase.class);
+		assertThat(cache.stats().annotationsCount, is(2));
+		cache.annotations(PlainChild.class, TestBase.class);
+		assertThat(cache.stats().annotationsCount, is(0));
+		assertThat(cache.stats().approximateRetainedBytes, is(0L));
+	}
+
+	@Test
+	public void testWeakCache() {
+		final HandlerCache cache = new HandlerCache(true, 0);
+		final AnnotationHandler handler = new TestHandler(Class0.class);
+		cache.put(TestHandler.class, Class0.class, handler);
+		assertThat(cache.get(TestHandler.class, Class0.class), is(sameInstance(handler)));
+		assertThat(cache.get(TestHandler.class, Class1.class), is(nullValue()));
+		assertThat(cache.get(OtherHandler.class, Class0.class), is(nullValue()));
+		final AnnotationHandler newHandler = new TestHandler(Class0.class);
+		cache.put(TestHandler.class, Class0.class, newHandler);
+		assertThat(cache.get(TestHandler.class, Class0.class), is(sameInstance(newHandler)));
+		assertThat(cache.stats().entryCount, is(1));
+		assertThat(cache.stats().approximateRetainedBytes, is((long) ENTRY_SIZE));
+		final List<AnnotationHandler> handlers = new ArrayList<>(1);
+		cache.collectHandlers(handlers);
+		assertThat(handlers.size(), is(1));
+		assertThat(handlers.get(0), is(sameInstance(newHandler)));
+		cache.clear();
+		assertThat(cache.get(TestHandler.class, Class0.class), is(nullValue()));
+		assertThat(cache.stats().entryCount, is(0));
+	}
+
+	@Test
+	public void testWeakCacheDoesNotCacheAnnotations() {
+		final HandlerCache cache = new HandlerCache(true, 0);
+		final ClassAnnotations annotations = cache.annotations(AnnotatedGrandChild.class, TestBase.class);
+		assertThat(annotations.isEmpty(), is(false));
+		assertThat(cache.annotations(AnnotatedGrandChild.class, TestBase.class), is(not(sameInstance(annotations))));
+		assertThat(cache.stats().annotationsCount, is(0));
+	}
+
+	@Test
+	public void testBoundedWeakCacheEvicts() {
+		final HandlerCache cache = new HandlerCache(true, 8);
+		for (int i = 0; i < 8; i++) {
+			put(cache, CLASSES[i]);
+		}
+		assertThat(cache.get(TestHandler.class, Class0.class), is(notNullValue()));
+		put(cache, Class8.class);
+		assertThat(cache.stats().entryCount, is(7));
+		assertThat(cache.stats().evictionCount, is(2L));
+		assertThat(cache.get(TestHandler.class, Class0.class), is(notNullValue()));
+		assertThat(cache.get(TestHandler.class, Class1.class), is(nullValue()));
+	}
+
+	@Test
+	public void testCollectHandlersSkipsNotAnnotatedMarker() {
+		final HandlerCache cache = new HandlerCache(false, 0);
+		put(cache, Class0.class);
+		cache.put(TestHandler.class, Class1.class, HandlerCache.NOT_ANNOTATED);
+		final List<AnnotationHandler> handlers = new ArrayList<>(2);
+		cache.collectHandlers(handlers);
+		assertThat(handlers.size(), is(1));
+		assertThat(handlers.get(0).getAnnotatedClass(), is((Object) Class0.class));
+	}
+
+	@Test
+	public void testConfigureCache() {
+		AnnotationHandlers.configureCache(false, 0);
+		final AnnotatedHandler handler = AnnotationHandlers.obtainHandler(AnnotatedHandler.class, AnnotatedChild.class);
+		assertThat(AnnotationHandlers.getCacheStats().entryCount, is(1));
+		AnnotationHandlers.configureCache(true, 1);
+		// Handlers cached before are dropped along with the previous cache.
+		assertThat(AnnotationHandlers.getCacheStats().entryCount, is(0));
+		assertThat(AnnotationHandlers.obtainHandler(AnnotatedHandler.class, AnnotatedChild.class), is(not(sameInstance(handler))));
+		assertThat(AnnotationHandlers.obtainHandler(AnnotatedHandler.class, AnnotatedGrandChild.class), is(notNullValue()));
+		// New configuration is used: the cache is bounded and does not cache annotation records.
+		final AnnotationHandlers.CacheStats stats = AnnotationHandlers.getCacheStats();
+		assertThat(stats.entryCount, is(1));
+		assertThat(stats.evictionCount, is(1L));
+		assertThat(stats.annotationsCount, is(0));
+	}
+
+	@Test
+	public void testConfigureCacheConcurrently() throws Exception {
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+		final Class<?>[] annotatedClasses = {AnnotatedChild.class, AnnotatedGrandChild.class, PlainChild.class};
+		final Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						for (int j = 0; j < 2000; j++) {
+							final Class<?> annotatedClass = annotatedClasses[j % annotatedClasses.length];
+							final AnnotatedHandler handler = AnnotationHandlers.obtainHandler(AnnotatedHandler.class, annotatedClass);
+							if (handler == null || handler.getAnnotatedClass() != annotatedClass) {
+								throw new AssertionError("Invalid handler obtained for " + annotatedClass + ".");
+							}
+						}
+					} catch (Throwable error) {
+						failure.compareAndSet(null, error);
+					}
+				}
+			});
+			threads[i].start();
+		}
+		for (int i = 0; i < 200; i++) {
+			AnnotationHandlers.configureCache(i % 2 == 0, i % 3);
+		}
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+		assertThat(failure.get(), is(nullValue()));
+		AnnotationHandlers.configureCache(false, 2);
+		for (final Class<?> annotatedClass : annotatedClasses) {
+			AnnotationHandlers.obtainHandler(AnnotatedHandler.class, annotatedClass);
+		}
+		assertThat(AnnotationHandlers.getCacheStats().entryCount, is(2));
+	}
+
+	private static void put(HandlerCache cache, Class<?> annotatedClass) {
+		cache.put(TestHandler.class, annotatedClass, new TestHandler(annotatedClass));
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface TestOptions {}
+
+	public static class TestBase {}
+
+	public static class PlainChild extends TestBase {}
+
+	@TestOptions
+	public static class AnnotatedChild extends TestBase {}
+
+	public static class AnnotatedGrandChild extends AnnotatedChild {}
+
+	public static final class AnnotatedHandler extends BaseAnnotationHandler {
+
+		public AnnotatedHandler(@NonNull Class<?> annotatedClass) {
+			super(annotatedClass, TestBase.class);
+		}
+	}
+
+	private static final class TestHandler implements AnnotationHandler {
+
+		private final Class<?> annotatedClass;
+
+		TestHandler(Class<?> annotatedClass) {
+			this.annotatedClass = annotatedClass;
+		}
+
+		@NonNull
+		@Override
+		public Class<?> getAnnotatedClass() {
+			return annotatedClass;
+		}
+	}
+
+	private static final class OtherHandler implements AnnotationHandler {
+
+		private final Class<?> annotatedClass;
+
+		OtherHandler(Class<?> annotatedClass) {
+			this.annotatedClass = annotatedClass;
+		}
+
+		@NonNull
+		@Override
+		public Class<?> getAnnotatedClass() {
+			return annotatedClass;
+		}
+	}
+
+	private static final class Class0 {}
+
+	private static final class Class1 {}
+
+	private static final class Class2 {}
+
+	private static final class Class3 {}
+
+	private static final class Class4 {}
+
+	private static final class Class5 {}
+
+	private static final class Class6 {}
+
+	private static final class Class7 {}
+
+	private static final class Class8 {}
+
+	private static final class Class9 {}
+
+	private static final class Class10 {}
+}
@@ -0,0 +1,51 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.LayoutInflater;
+import android.view.ViewGroup;
+
+/**
+ * The ContentViewPreInflater interface specifies one callback that may be used to inflate content
+ * view of a fragment in advance, before the fragment is actually committed and its view is requested
+ * to be created.
+ * <p>
+ * The callback may be invoked on a background thread, so implementations should inflate only
+ * layouts that have been explicitly marked as safe to be inflated outside of the main thread and
+ * should not touch any other state shared with the main thread.
+ *
+ * @author Martin Albedinsky
+ */
+public interface ContentViewPreInflater {
+
+	/**
+	 * Called to inflate content view of this pre-inflater in advance. The inflated view should be
+	 * then used when the view hierarchy of this pre-inflater is requested to be created.
+	 *
+	 * @param inflater  The inflater that may be used to inflate the content view.
+	 * @param container The view container into which will be the content view placed or a detached
+	 *                  stand-in for it when invoked on a background thread. May be {@code null} if
+	 *                  it is not known yet. Should be used only to generate layout params for the
+	 *                  inflated view.
+	 * @return {@code True} if the content view has been inflated, {@code false} otherwise.
+	 */
+	boolean preInflateContentView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container);
+}
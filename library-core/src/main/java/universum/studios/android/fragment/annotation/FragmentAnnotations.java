@@ -23,8 +23,10 @@ import android.support.annotation.Nullable;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.util.concurrent.Executor;
 
 import universum.studios.android.fragment.FragmentsConfig;
+import universum.studios.android.fragment.annotation.handler.AnnotationHandlers;
 
 /**
  * Annotation utils for the Fragments library.
@@ -102,6 +104,34 @@ public final class FragmentAnnotations {
 		}
 	}
 
+	/**
+	 * Pre-warms annotation handlers for the given <var>classes</var> on the specified <var>executor</var>,
+	 * so no annotations need to be processed on the main thread when instances of such classes are
+	 * created for the first time.
+	 * <p>
+	 * This method is preferred to be called as soon as possible, ideally in {@code Application.onCreate()}.
+	 *
+	 * @param executor Executor on which to pre-warm the handlers.
+	 * @param classes  Fragment or fragment factory classes for which to pre-warm theirs handlers.
+	 * @see #prewarmReachable(Executor, Class[])
+	 * @see AnnotationHandlers#prewarmHandlers(Executor, boolean, Class[])
+	 */
+	public static void prewarm(@NonNull Executor executor, @NonNull Class<?>... classes) {
+		AnnotationHandlers.prewarmHandlers(executor, false, classes);
+	}
+
+	/**
+	 * Same as {@link #prewarm(Executor, Class[])} but this method pre-warms also handlers for all
+	 * classes reachable from the given <var>classes</var>, like all fragments provided by the given
+	 * fragment factories via {@code @FactoryFragment} annotations.
+	 *
+	 * @param executor Executor on which to pre-warm the handlers.
+	 * @param classes  Fragment or fragment factory classes for which to pre-warm theirs handlers.
+	 */
+	public static void prewarmReachable(@NonNull Executor executor, @NonNull Class<?>... classes) {
+		AnnotationHandlers.prewarmHandlers(executor, true, classes);
+	}
+
 	/**
 	 * Obtains the requested type of annotation from the given <var>fromClass</var> if it is presented.
 	 *
@@ -118,7 +148,12 @@ public final class FragmentAnnotations {
 	 */
 	@Nullable
 	public static <A extends Annotation> A obtainAnnotationFrom(@NonNull Class<A> classOfAnnotation, @NonNull Class<?> fromClass, @Nullable Class<?> maxSuperClass) {
+		final AnnotationHandlers.MetricsListener listener = AnnotationHandlers.getMetricsListener();
+		final long startTime = listener == null ? 0 : System.nanoTime();
 		final A annotation = fromClass.getAnnotation(classOfAnnotation);
+		if (listener != null) {
+			listener.onAnnotationsScanned(fromClass, System.nanoTime() - startTime);
+		}
 		if (annotation != null) {
 			return annotation;
 		} else if (maxSuperClass != null) {
@@ -140,12 +175,17 @@ public final class FragmentAnnotations {
 	 *                      excluding), otherwise only fields of the given class will be iterated.
 	 */
 	public static void iterateFields(@NonNull FieldProcessor processor, @NonNull Class<?> ofClass, @Nullable Class<?> maxSuperClass) {
+		final AnnotationHandlers.MetricsListener listener = AnnotationHandlers.getMetricsListener();
+		final long startTime = listener == null ? 0 : System.nanoTime();
 		final Field[] fields = ofClass.getDeclaredFields();
 		if (fields.length > 0) {
 			for (final Field field : fields) {
 				processor.onProcessField(field, field.getName());
 			}
 		}
+		if (listener != null) {
+			listener.onFieldsIterated(ofClass, fields.length, System.nanoTime() - startTime);
+		}
 		if (maxSuperClass != null) {
 			final Class<?> parent = ofClass.getSuperclass();
 			if (parent != null && !parent.equals(maxSuperClass)) {
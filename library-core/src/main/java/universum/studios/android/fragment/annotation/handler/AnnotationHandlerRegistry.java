@@ -0,0 +1,48 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.annotation.handler;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Registry that may provide already resolved {@link AnnotationHandler} instances for a specific set
+ * of annotated classes, so such handlers do not need to be created via reflection.
+ * <p>
+ * Implementations of this interface are primarily generated at compile time by the <b>Fragments
+ * annotation processor</b> and may be registered via {@link AnnotationHandlers#registerHandlerRegistry(AnnotationHandlerRegistry)}.
+ * Annotated classes for which a registry does not provide handler will have theirs handlers created
+ * via reflection as usually.
+ *
+ * @author Martin Albedinsky
+ * @see AnnotationHandlers#obtainHandler(Class, Class)
+ */
+public interface AnnotationHandlerRegistry {
+
+	/**
+	 * Creates a new annotation handler for the given <var>annotatedClass</var>.
+	 *
+	 * @param classOfHandler Class of the handler that has been requested for the annotated class.
+	 * @param annotatedClass Class for which to create the requested handler.
+	 * @return New handler instance with all annotations of the annotated class already resolved or
+	 * {@code null} if this registry does not provide handler for the specified class.
+	 */
+	@Nullable
+	AnnotationHandler createHandler(@NonNull Class<? extends AnnotationHandler> classOfHandler, @NonNull Class<?> annotatedClass);
+}
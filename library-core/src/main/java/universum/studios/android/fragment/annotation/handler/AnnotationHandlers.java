@@ -18,17 +18,28 @@
  */
 package universum.studios.android.fragment.annotation.handler;
 
+import android.content.Context;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.util.Log;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import universum.studios.android.fragment.FragmentsConfig;
 
 /**
  * Base factory and cache for {@link AnnotationHandler} instances for a specific classes from the
  * Fragments library.
+ * <p>
+ * The cache is safe to be accessed from multiple threads. Obtaining of already cached handlers does
+ * not require any locking, only creation of a new handler is synchronized, so each handler is created
+ * at most once. By default the cache holds all handlers along with theirs annotated classes strongly
+ * and it is unbounded. This may be changed via {@link #configureCache(boolean, int)}.
  *
  * @author Martin Albedinsky
  */
@@ -41,12 +52,90 @@ public abstract class AnnotationHandlers {
 	/**
 	 * Log TAG.
 	 */
-	// private static final String TAG = "AnnotationHandlers";
+	private static final String TAG = "AnnotationHandlers";
 
 	/**
 	 * Interface ===================================================================================
 	 */
 
+	/**
+	 * Listener that may be used to receive metrics about cost of annotations processing, like
+	 * hits and misses of the handlers cache or time spent by building of handlers.
+	 * <p>
+	 * All callbacks are invoked synchronously on the thread that performs the measured operation,
+	 * so they may be invoked from multiple threads and also while holding internal locks. Implementations
+	 * should therefore only aggregate the received values (ideally into atomic counters) and defer
+	 * any further work.
+	 *
+	 * @author Martin Albedinsky
+	 * @see #setMetricsListener(MetricsListener)
+	 */
+	public interface MetricsListener {
+
+		/**
+		 * Source identifying that a handler has been provided by one of registered registries.
+		 *
+		 * @see #registerHandlerRegistry(AnnotationHandlerRegistry)
+		 */
+		int SOURCE_REGISTRY = 1;
+
+		/**
+		 * Source identifying that a handler has been created from the loaded snapshot.
+		 *
+		 * @see #loadSnapshot(Context)
+		 */
+		int SOURCE_SNAPSHOT = 2;
+
+		/**
+		 * Source identifying that a handler has been created via reflection.
+		 */
+		int SOURCE_REFLECTION = 3;
+
+		/**
+		 * Invoked whenever an already cached handler is obtained.
+		 *
+		 * @param classOfHandler Class of the obtained handler.
+		 * @param annotatedClass Class for which has been the handler obtained.
+		 */
+		void onHandlerCacheHit(@NonNull Class<?> classOfHandler, @NonNull Class<?> annotatedClass);
+
+		/**
+		 * Invoked whenever the requested handler is not cached yet and needs to be created.
+		 *
+		 * @param classOfHandler Class of the requested handler.
+		 * @param annotatedClass Class for which has been the handler requested.
+		 */
+		void onHandlerCacheMiss(@NonNull Class<?> classOfHandler, @NonNull Class<?> annotatedClass);
+
+		/**
+		 * Invoked whenever a new handler has been created.
+		 *
+		 * @param classOfHandler Class of the created handler.
+		 * @param annotatedClass Class for which has been the handler created.
+		 * @param source         Source from which has been the handler created. One of {@link #SOURCE_REGISTRY},
+		 *                       {@link #SOURCE_SNAPSHOT} or {@link #SOURCE_REFLECTION}.
+		 * @param buildNanos     Time in nanoseconds spent by creation of the handler.
+		 */
+		void onHandlerCreated(@NonNull Class<?> classOfHandler, @NonNull Class<?> annotatedClass, int source, long buildNanos);
+
+		/**
+		 * Invoked whenever annotations of a single class have been obtained via reflection.
+		 *
+		 * @param annotatedClass Class of which annotations have been obtained.
+		 * @param scanNanos      Time in nanoseconds spent by obtaining of the annotations.
+		 */
+		void onAnnotationsScanned(@NonNull Class<?> annotatedClass, long scanNanos);
+
+		/**
+		 * Invoked whenever declared fields of a single class have been iterated via reflection.
+		 *
+		 * @param ofClass        Class of which fields have been iterated.
+		 * @param fieldsCount    Count of the iterated fields.
+		 * @param iterationNanos Time in nanoseconds spent by obtaining and processing of the fields.
+		 */
+		void onFieldsIterated(@NonNull Class<?> ofClass, int fieldsCount, long iterationNanos);
+	}
+
 	/**
 	 * Static members ==============================================================================
 	 */
@@ -57,15 +146,55 @@ public abstract class AnnotationHandlers {
 	private static final Object LOCK = new Object();
 
 	/**
-	 * Initial capacity for the handlers map.
+	 * Count of locks used to synchronize creation of new handlers. Must be power of two.
+	 */
+	private static final int CREATION_LOCKS_COUNT = 16;
+
+	/**
+	 * Locks used to synchronize creation of new handlers. Lock for a particular annotated class is
+	 * selected by its identity hash, so handlers for different classes may be in most cases created
+	 * concurrently.
+	 */
+	private static final Object[] CREATION_LOCKS = new Object[CREATION_LOCKS_COUNT];
+
+	static {
+		for (int i = 0; i < CREATION_LOCKS_COUNT; i++) {
+			CREATION_LOCKS[i] = new Object();
+		}
+	}
+
+	/**
+	 * Cache with annotation handlers mapped to theirs handler classes and annotated classes for which
+	 * have been those handlers instantiated.
+	 */
+	private static volatile HandlerCache sCache = new HandlerCache(false, 0);
+
+	/**
+	 * Array of registries that are asked to provide an already resolved handler before such handler
+	 * is instantiated via reflection.
+	 */
+	private static volatile AnnotationHandlerRegistry[] sRegistries;
+
+	/**
+	 * Snapshot with values of handlers resolved during previous runs of the application. Asked for
+	 * handlers after all registries.
+	 *
+	 * @see #loadSnapshot(Context)
+	 */
+	private static volatile AnnotationSnapshot sSnapshot;
+
+	/**
+	 * Listener receiving metrics about cost of annotations processing.
+	 *
+	 * @see #setMetricsListener(MetricsListener)
 	 */
-	private static final int HANDLERS_INITIAL_CAPACITY = 20;
+	private static volatile MetricsListener sMetricsListener;
 
 	/**
-	 * Map with annotation handlers where each handler is mapped to a particular class for which
-	 * has been that handler instantiated.
+	 * Map with handler types registered for base classes of the Fragments library. Used to resolve
+	 * handler type for classes of which handlers are requested to be pre-warmed.
 	 */
-	private static Map<Class<?>, Object> sHandlers;
+	private static volatile Map<Class<?>, Class<? extends AnnotationHandler>> sHandlerTypes = Collections.emptyMap();
 
 	/**
 	 * Members =====================================================================================
@@ -85,13 +214,320 @@ public abstract class AnnotationHandlers {
 	 * Methods =====================================================================================
 	 */
 
+	/**
+	 * Registers the given <var>registry</var> to be asked for annotation handlers that have not been
+	 * obtained yet. Handlers provided by registries are created without any reflection, so it is
+	 * recommended to register all registries generated by the Fragments annotation processor as
+	 * soon as possible, ideally in {@code Application.onCreate()}.
+	 * <p>
+	 * Registries are asked in the order in which they have been registered.
+	 *
+	 * @param registry The desired registry to be registered.
+	 * @see #unregisterHandlerRegistry(AnnotationHandlerRegistry)
+	 */
+	public static void registerHandlerRegistry(@NonNull AnnotationHandlerRegistry registry) {
+		synchronized (LOCK) {
+			if (sRegistries == null) {
+				sRegistries = new AnnotationHandlerRegistry[]{registry};
+			} else if (indexOfRegistry(registry) == -1) {
+				final int n = sRegistries.length;
+				final AnnotationHandlerRegistry[] registries = new AnnotationHandlerRegistry[n + 1];
+				System.arraycopy(sRegistries, 0, registries, 0, n);
+				registries[n] = registry;
+				sRegistries = registries;
+			}
+		}
+	}
+
+	/**
+	 * Un-registers the given <var>registry</var> from the registered registries. Handlers already
+	 * provided by the registry remain cached.
+	 *
+	 * @param registry The desired registry to be un-registered.
+	 * @see #registerHandlerRegistry(AnnotationHandlerRegistry)
+	 */
+	public static void unregisterHandlerRegistry(@NonNull AnnotationHandlerRegistry registry) {
+		synchronized (LOCK) {
+			final int index = indexOfRegistry(registry);
+			if (index == -1) {
+				return;
+			}
+			final int n = sRegistries.length;
+			if (n == 1) {
+				sRegistries = null;
+			} else {
+				final AnnotationHandlerRegistry[] registries = new AnnotationHandlerRegistry[n - 1];
+				System.arraycopy(sRegistries, 0, registries, 0, index);
+				System.arraycopy(sRegistries, index + 1, registries, index, n - index - 1);
+				sRegistries = registries;
+			}
+		}
+	}
+
+	/**
+	 * Returns index of the given <var>registry</var> within the current registries.
+	 *
+	 * @param registry The registry of which index to find.
+	 * @return Index of the registry or {@code -1} if it is not registered.
+	 */
+	private static int indexOfRegistry(AnnotationHandlerRegistry registry) {
+		if (sRegistries != null) {
+			for (int i = 0; i < sRegistries.length; i++) {
+				if (sRegistries[i] == registry) return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Configures the cache used to store already obtained annotation handlers. All handlers cached
+	 * so far will be dropped.
+	 * <p>
+	 * If <var>weakKeys</var> is {@code true}, the cache will hold annotated classes only weakly and
+	 * theirs handlers softly, so classes (for example classes loaded from dynamically loaded feature
+	 * splits) may be unloaded and handlers that are no longer used may be collected. Such handlers
+	 * are simply created again whenever they are requested.
+	 * <p>
+	 * If <var>maxSize</var> is greater than {@code 0}, the least recently accessed handlers will be
+	 * evicted from the cache whenever the count of cached handlers exceeds that size. The same limit
+	 * applies also to the count of cached records of resolved annotations.
+	 *
+	 * @param weakKeys {@code True} to hold annotated classes weakly, {@code false} to hold them strongly
+	 *                 (default).
+	 * @param maxSize  Maximum count of handlers that may be cached at the same time or {@code 0} for
+	 *                 unbounded cache (default).
+	 * @see #getCacheStats()
+	 */
+	public static void configureCache(boolean weakKeys, int maxSize) {
+		synchronized (LOCK) {
+			final HandlerCache cache = sCache;
+			sCache = new HandlerCache(weakKeys, maxSize);
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Drops all annotation handlers cached so far.
+	 */
+	public static void clearCache() {
+		sCache.clear();
+	}
+
+	/**
+	 * Returns the current statistics of the cache of annotation handlers.
+	 *
+	 * @return Snapshot of the cache statistics.
+	 * @see #configureCache(boolean, int)
+	 */
+	@NonNull
+	public static CacheStats getCacheStats() {
+		return sCache.stats();
+	}
+
+	/**
+	 * Loads snapshot with values of annotation handlers that have been saved during previous runs of
+	 * the application via {@link #saveSnapshot(Context)}. Handlers contained in the snapshot are then
+	 * created without any reflection. This is useful for applications that do not use registries
+	 * generated by the Fragments annotation processor.
+	 * <p>
+	 * The snapshot is bound to the version of the application package, so it is discarded whenever
+	 * the application is updated. It is recommended to load the snapshot as soon as possible, ideally
+	 * in {@code Application.onCreate()}.
+	 *
+	 * @param context Context used to access the snapshot file within the files directory.
+	 * @see #saveSnapshot(Context)
+	 */
+	public static void loadSnapshot(@NonNull Context context) {
+		if (!FragmentsConfig.ANNOTATIONS_PROCESSING_ENABLED) return;
+		synchronized (LOCK) {
+			if (sSnapshot == null) {
+				sSnapshot = AnnotationSnapshot.open(context);
+			}
+		}
+	}
+
+	/**
+	 * Saves values of all currently cached annotation handlers into the snapshot that may be loaded
+	 * on later cold starts of the application via {@link #loadSnapshot(Context)}. The snapshot file
+	 * is written only if there are some handlers which values are not contained in the snapshot yet.
+	 * <p>
+	 * <b>Note</b>, that this method performs I/O operations, so it should not be called on the main
+	 * thread. A good place to save the snapshot is a background task started once the application
+	 * has displayed its first screen.
+	 *
+	 * @param context Context used to access the snapshot file within the files directory.
+	 * @return {@code True} if the snapshot has been written, {@code false} otherwise.
+	 * @see #loadSnapshot(Context)
+	 */
+	public static boolean saveSnapshot(@NonNull Context context) {
+		if (!FragmentsConfig.ANNOTATIONS_PROCESSING_ENABLED) return false;
+		loadSnapshot(context);
+		final AnnotationSnapshot snapshot = sSnapshot;
+		if (snapshot == null) {
+			return false;
+		}
+		final List<AnnotationHandler> handlers = new ArrayList<>();
+		sCache.collectHandlers(handlers);
+		return snapshot.save(handlers);
+	}
+
+	/**
+	 * Registers the given <var>reader</var> that reads values of handlers of the specified
+	 * <var>classOfHandler</var> type from the snapshot of annotation handlers.
+	 *
+	 * @param classOfHandler Class of handlers that the reader can read.
+	 * @param reader         The reader to be registered.
+	 * @see BaseAnnotationHandler#writeSnapshot(java.io.DataOutput)
+	 */
+	static void registerSnapshotReader(@NonNull Class<? extends AnnotationHandler> classOfHandler, @NonNull AnnotationSnapshot.HandlerReader reader) {
+		AnnotationSnapshot.registerReader(classOfHandler, reader);
+	}
+
+	/**
+	 * Sets a listener that will receive metrics about cost of annotations processing. The metrics
+	 * are collected only while there is a listener set, and obtaining of cached handlers does not
+	 * perform any allocations even then, so the listener may remain set also in release builds.
+	 *
+	 * @param listener The desired listener. May be {@code null} to clear the current one.
+	 * @see #getMetricsListener()
+	 */
+	public static void setMetricsListener(@Nullable MetricsListener listener) {
+		sMetricsListener = listener;
+	}
+
+	/**
+	 * Returns the current listener receiving metrics about cost of annotations processing.
+	 *
+	 * @return Current metrics listener or {@code null} if there is no listener set.
+	 * @see #setMetricsListener(MetricsListener)
+	 */
+	@Nullable
+	public static MetricsListener getMetricsListener() {
+		return sMetricsListener;
+	}
+
+	/**
+	 * Returns record of annotations resolved for the given <var>annotatedClass</var> up to the
+	 * specified <var>maxSuperClass</var> using the current cache.
+	 *
+	 * @param annotatedClass The class for which to return the record.
+	 * @param maxSuperClass  Max super class up to which to resolve also inherited annotations.
+	 * @return Resolved record.
+	 */
+	@NonNull
+	static ClassAnnotations obtainClassAnnotations(@NonNull Class<?> annotatedClass, @Nullable Class<?> maxSuperClass) {
+		return sCache.annotations(annotatedClass, maxSuperClass);
+	}
+
+	/**
+	 * Registers the specified <var>classOfHandler</var> as type of handlers used for the given
+	 * <var>baseClass</var> and all its subclasses.
+	 *
+	 * @param baseClass      Base class of the Fragments library for which to register the handler type.
+	 * @param classOfHandler Class of handlers that are obtained for the base class and its subclasses.
+	 * @see #prewarmHandlers(Executor, boolean, Class[])
+	 */
+	static void registerHandlerType(@NonNull Class<?> baseClass, @NonNull Class<? extends AnnotationHandler> classOfHandler) {
+		synchronized (LOCK) {
+			if (sHandlerTypes.get(baseClass) != classOfHandler) {
+				final Map<Class<?>, Class<? extends AnnotationHandler>> handlerTypes = new HashMap<>(sHandlerTypes);
+				handlerTypes.put(baseClass, classOfHandler);
+				sHandlerTypes = handlerTypes;
+			}
+		}
+	}
+
+	/**
+	 * Resolves type of handlers used for the given <var>annotatedClass</var> from handler types
+	 * registered for its nearest base class.
+	 *
+	 * @param annotatedClass The class for which to resolve the handler type.
+	 * @return Resolved handler type or {@code null} if there is no handler type registered for any
+	 * of the base classes of the given class.
+	 */
+	@Nullable
+	static Class<? extends AnnotationHandler> resolveHandlerType(@NonNull Class<?> annotatedClass) {
+		final Map<Class<?>, Class<? extends AnnotationHandler>> handlerTypes = sHandlerTypes;
+		for (Class<?> type = annotatedClass; type != null; type = type.getSuperclass()) {
+			final Class<? extends AnnotationHandler> classOfHandler = handlerTypes.get(type);
+			if (classOfHandler != null) {
+				return classOfHandler;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Pre-warms annotation handlers for the given <var>annotatedClasses</var> on the specified
+	 * <var>executor</var>, so the handlers are already created and cached when they are requested
+	 * for the first time, like when the first instance of a particular fragment is created.
+	 * <p>
+	 * Type of handler for each of the given classes is resolved from its base class provided by the
+	 * Fragments library, like {@code BaseFragment} or {@code BaseFragmentFactory}. Classes that do
+	 * not extend any of such classes are ignored.
+	 *
+	 * @param executor         Executor on which to create the handlers. Handler for each class is
+	 *                         created within a separate task.
+	 * @param includeReachable {@code True} to pre-warm also handlers for all classes reachable from
+	 *                         handlers of the given classes, like fragment classes specified via
+	 *                         {@code @FactoryFragment} annotations for fragment factories,
+	 *                         {@code false} to pre-warm only handlers of the given classes.
+	 * @param annotatedClasses Classes for which to pre-warm theirs handlers.
+	 */
+	public static void prewarmHandlers(@NonNull Executor executor, boolean includeReachable, @NonNull Class<?>... annotatedClasses) {
+		if (!FragmentsConfig.ANNOTATIONS_PROCESSING_ENABLED) return;
+		for (final Class<?> annotatedClass : annotatedClasses) {
+			executor.execute(new PrewarmTask(annotatedClass, includeReachable));
+		}
+	}
+
+	/**
+	 * Pre-warms handler for the given <var>annotatedClass</var> and optionally also handlers for all
+	 * classes reachable from its handler.
+	 *
+	 * @see #prewarmHandlers(Executor, boolean, Class[])
+	 */
+	static void prewarmHandler(Class<?> annotatedClass, boolean includeReachable) {
+		final AnnotationHandler handler = prewarmHandler(annotatedClass);
+		if (includeReachable && handler instanceof BaseAnnotationHandler) {
+			final List<Class<?>> reachableClasses = new ArrayList<>();
+			((BaseAnnotationHandler) handler).collectReachableClasses(reachableClasses);
+			for (final Class<?> reachableClass : reachableClasses) {
+				prewarmHandler(reachableClass);
+			}
+		}
+	}
+
+	/**
+	 * Pre-warms handler for the given <var>annotatedClass</var>.
+	 *
+	 * @return The pre-warmed handler or {@code null} if handler type for the class is unknown or
+	 * the handler failed to be created.
+	 */
+	private static AnnotationHandler prewarmHandler(Class<?> annotatedClass) {
+		try {
+			// Initialize the class along with its base classes so they can register theirs handler types.
+			Class.forName(annotatedClass.getName(), true, annotatedClass.getClassLoader());
+			final Class<? extends AnnotationHandler> classOfHandler = resolveHandlerType(annotatedClass);
+			return classOfHandler == null ? null : obtainHandler(classOfHandler, annotatedClass);
+		} catch (Exception | LinkageError e) {
+			// Class of which initialization failed will fail also later when it is first used.
+			Log.e(TAG, "Failed to pre-warm annotation handler for(" + annotatedClass.getSimpleName() + ").", e);
+			return null;
+		}
+	}
+
 	/**
 	 * Obtains an annotation handler with the specified <var>classOfHandler</var> class for the
 	 * given <var>annotatedClass</var>. If there is no such handler already instantiated and cached,
 	 * its instance will be created and cached.
 	 * <p>
-	 * Each handler is mapped to its annotated class, so there may be only one handler of the same
-	 * type created for the same annotated class.
+	 * The handler is at first requested from the registered {@link AnnotationHandlerRegistry registries}
+	 * and only if none of them provides it, it is instantiated via reflection.
+	 * <p>
+	 * Each handler is mapped to its type and annotated class, so there may be only one handler of
+	 * the same type created for the same annotated class, but handlers of different types may be
+	 * obtained for the same annotated class. This method may be called from any thread.
 	 *
 	 * @param classOfHandler Class of the handler used to instantiate the requested handler instance
 	 *                       if needed.
@@ -99,34 +535,151 @@ public abstract class AnnotationHandlers {
 	 * @param <T>            Type of the handler to be obtained.
 	 * @return Always valid instance of the requested handler or {@code null} if annotations processing
 	 * is disabled for the Fragments library.
-	 * @throws ClassCastException If there is already an annotation handler instantiated for the
-	 *                            specified annotated class but it is of different type as requested.
 	 * @see FragmentsConfig#ANNOTATIONS_PROCESSING_ENABLED
 	 */
 	@Nullable
-	@SuppressWarnings({"unchecked", "ConstantConditions"})
+	@SuppressWarnings("unchecked")
 	public static <T extends AnnotationHandler> T obtainHandler(@NonNull Class<T> classOfHandler, @NonNull Class<?> annotatedClass) {
 		if (!FragmentsConfig.ANNOTATIONS_PROCESSING_ENABLED) return null;
-		Object handler;
-		synchronized (LOCK) {
-			if (sHandlers == null) {
-				sHandlers = new HashMap<>(HANDLERS_INITIAL_CAPACITY);
+		return (T) obtainHandler(classOfHandler, annotatedClass, null, false);
+	}
+
+	/**
+	 * Same as {@link #obtainHandler(Class, Class)} but the handler is instantiated via reflection
+	 * only if the given <var>annotatedClass</var> or any of its super classes up to the specified
+	 * <var>maxSuperClass</var> has presented at least one annotation of the Fragments library.
+	 * <p>
+	 * Handlers that are already cached or that are provided by the registries or by the snapshot
+	 * are returned without any check, so the class hierarchy is scanned via reflection only for
+	 * classes that would require a reflectively instantiated handler. Negative result of such scan
+	 * is cached along with the handlers, so the same class is not scanned again.
+	 *
+	 * @param classOfHandler Class of the handler to be obtained.
+	 * @param annotatedClass Class for which to obtain the requested handler.
+	 * @param maxSuperClass  Max super class up to which to check also inherited annotations. Should
+	 *                       be the same as used by the requested handler.
+	 * @param <T>            Type of the handler to be obtained.
+	 * @return Requested handler or {@code null} if there are no annotations to be handled or annotations
+	 * processing is disabled for the Fragments library.
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	static <T extends AnnotationHandler> T obtainHandlerIfAnnotated(@NonNull Class<T> classOfHandler, @NonNull Class<?> annotatedClass, @NonNull Class<?> maxSuperClass) {
+		if (!FragmentsConfig.ANNOTATIONS_PROCESSING_ENABLED) return null;
+		return (T) obtainHandler(classOfHandler, annotatedClass, maxSuperClass, true);
+	}
+
+	/**
+	 * Obtains handler of the specified <var>classOfHandler</var> type for the given <var>annotatedClass</var>
+	 * from the current cache or creates and caches a new one.
+	 *
+	 * @param onlyIfAnnotated {@code True} to not instantiate the handler via reflection if the annotated
+	 *                        class does not have any annotations up to the specified <var>maxSuperClass</var>.
+	 * @return Obtained handler or {@code null} if <var>onlyIfAnnotated</var> is {@code true} and there
+	 * are no annotations to be handled.
+	 * @see #obtainHandler(Class, Class)
+	 * @see #obtainHandlerIfAnnotated(Class, Class, Class)
+	 */
+	private static AnnotationHandler obtainHandler(Class<? extends AnnotationHandler> classOfHandler, Class<?> annotatedClass, Class<?> maxSuperClass, boolean onlyIfAnnotated) {
+		final HandlerCache cache = sCache;
+		final MetricsListener listener = sMetricsListener;
+		AnnotationHandler handler = cache.get(classOfHandler, annotatedClass);
+		if (handler == null || (handler == HandlerCache.NOT_ANNOTATED && !onlyIfAnnotated)) {
+			synchronized (CREATION_LOCKS[System.identityHashCode(annotatedClass) & (CREATION_LOCKS_COUNT - 1)]) {
+				handler = cache.get(classOfHandler, annotatedClass);
+				if (handler == null || (handler == HandlerCache.NOT_ANNOTATED && !onlyIfAnnotated)) {
+					if (listener != null) listener.onHandlerCacheMiss(classOfHandler, annotatedClass);
+					handler = createHandler(cache, classOfHandler, annotatedClass, onlyIfAnnotated ? maxSuperClass : null, listener);
+				} else if (listener != null) {
+					listener.onHandlerCacheHit(classOfHandler, annotatedClass);
+				}
 			}
-			handler = sHandlers.get(annotatedClass);
-			if (handler == null) {
-				handler = instantiateHandler(classOfHandler, annotatedClass);
-				sHandlers.put(annotatedClass, handler);
-			} else if (!handler.getClass().equals(classOfHandler)) {
-				final String newHandlerName = classOfHandler.getSimpleName();
-				final String currentHandlerName = handler.getClass().getSimpleName();
-				final String className = annotatedClass.getSimpleName();
-				throw new ClassCastException(
-						"Trying to obtain handler(" + newHandlerName + ") for class(" + className + ") while there " +
-								"is already handler(" + currentHandlerName + ") of different type for that class!"
-				);
+		} else if (listener != null) {
+			listener.onHandlerCacheHit(classOfHandler, annotatedClass);
+		}
+		return handler == HandlerCache.NOT_ANNOTATED ? null : handler;
+	}
+
+	/**
+	 * Creates a new annotation handler of the specified <var>classOfHandler</var> class for the given
+	 * <var>annotatedClass</var> and puts it into the given <var>cache</var>.
+	 * <p>
+	 * The handler is at first requested from the registries, then from the snapshot and only if
+	 * none of them provides it, it is instantiated via reflection.
+	 *
+	 * @param maxSuperClass If not {@code null}, the handler is not instantiated via reflection if
+	 *                      the annotated class does not have any annotations up to this class.
+	 * @return Created handler or {@link HandlerCache#NOT_ANNOTATED} if the handler has not been created.
+	 */
+	private static AnnotationHandler createHandler(
+			HandlerCache cache,
+			Class<? extends AnnotationHandler> classOfHandler,
+			Class<?> annotatedClass,
+			Class<?> maxSuperClass,
+			MetricsListener listener
+	) {
+		final long startTime = listener == null ? 0 : System.nanoTime();
+		int source = MetricsListener.SOURCE_REGISTRY;
+		AnnotationHandler handler = createHandlerFromRegistries(classOfHandler, annotatedClass);
+		if (handler == null) {
+			source = MetricsListener.SOURCE_SNAPSHOT;
+			handler = createHandlerFromSnapshot(classOfHandler, annotatedClass);
+		}
+		if (handler == null) {
+			if (maxSuperClass != null && cache.annotations(annotatedClass, maxSuperClass).isEmpty()) {
+				cache.put(classOfHandler, annotatedClass, HandlerCache.NOT_ANNOTATED);
+				return HandlerCache.NOT_ANNOTATED;
 			}
+			source = MetricsListener.SOURCE_REFLECTION;
+			handler = instantiateHandler(classOfHandler, annotatedClass);
+		}
+		cache.put(classOfHandler, annotatedClass, handler);
+		if (listener != null) {
+			listener.onHandlerCreated(classOfHandler, annotatedClass, source, System.nanoTime() - startTime);
 		}
-		return (T) handler;
+		return handler;
+	}
+
+	/**
+	 * Requests a new annotation handler of the specified <var>classOfHandler</var> class for the
+	 * given <var>annotatedClass</var> from the current registries.
+	 *
+	 * @param classOfHandler Class of the requested handler.
+	 * @param annotatedClass Class for which to create the requested handler.
+	 * @return Handler provided by one of the registries or {@code null} if there is no registry
+	 * that provides handler of the requested type for the annotated class.
+	 */
+	private static AnnotationHandler createHandlerFromRegistries(Class<? extends AnnotationHandler> classOfHandler, Class<?> annotatedClass) {
+		final AnnotationHandlerRegistry[] registries = sRegistries;
+		if (registries != null) {
+			for (final AnnotationHandlerRegistry registry : registries) {
+				final AnnotationHandler handler = registry.createHandler(classOfHandler, annotatedClass);
+				if (handler != null && handler.getClass().equals(classOfHandler)) {
+					return handler;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Requests a new annotation handler of the specified <var>classOfHandler</var> class for the
+	 * given <var>annotatedClass</var> from the current snapshot.
+	 *
+	 * @param classOfHandler Class of the requested handler.
+	 * @param annotatedClass Class for which to create the requested handler.
+	 * @return Handler created from the snapshot or {@code null} if there is no snapshot loaded or
+	 * it does not contain values of the requested handler.
+	 */
+	private static AnnotationHandler createHandlerFromSnapshot(Class<? extends AnnotationHandler> classOfHandler, Class<?> annotatedClass) {
+		final AnnotationSnapshot snapshot = sSnapshot;
+		if (snapshot != null) {
+			final AnnotationHandler handler = snapshot.createHandler(classOfHandler, annotatedClass);
+			if (handler != null && handler.getClass().equals(classOfHandler)) {
+				return handler;
+			}
+		}
+		return null;
 	}
 
 	/**
@@ -155,4 +708,84 @@ public abstract class AnnotationHandlers {
 	/**
 	 * Inner classes ===============================================================================
 	 */
+
+	/**
+	 * Task used to pre-warm annotation handler for a single annotated class.
+	 */
+	private static final class PrewarmTask implements Runnable {
+
+		/**
+		 * Class for which to pre-warm its handler.
+		 */
+		private final Class<?> annotatedClass;
+
+		/**
+		 * Boolean flag indicating whether to pre-warm also handlers for reachable classes.
+		 */
+		private final boolean includeReachable;
+
+		/**
+		 * Creates a new instance of PrewarmTask for the given <var>annotatedClass</var>.
+		 */
+		PrewarmTask(Class<?> annotatedClass, boolean includeReachable) {
+			this.annotatedClass = annotatedClass;
+			this.includeReachable = includeReachable;
+		}
+
+		/**
+		 */
+		@Override
+		public void run() {
+			prewarmHandler(annotatedClass, includeReachable);
+		}
+	}
+
+	/**
+	 * Statistics of the cache of annotation handlers.
+	 *
+	 * @see #getCacheStats()
+	 */
+	public static final class CacheStats {
+
+		/**
+		 * Count of handlers cached at the time of creation of these statistics.
+		 */
+		public final int entryCount;
+
+		/**
+		 * Count of records of annotations resolved for annotated classes cached at the time of
+		 * creation of these statistics.
+		 */
+		public final int annotationsCount;
+
+		/**
+		 * Approximate count of bytes retained by the cached handlers and annotation records.
+		 */
+		public final long approximateRetainedBytes;
+
+		/**
+		 * Count of handlers evicted from the cache due to its exceeded maximum size.
+		 */
+		public final long evictionCount;
+
+		/**
+		 * Creates a new instance of CacheStats with the given values.
+		 */
+		CacheStats(int entryCount, int annotationsCount, long approximateRetainedBytes, long evictionCount) {
+			this.entryCount = entryCount;
+			this.annotationsCount = annotationsCount;
+			this.approximateRetainedBytes = approximateRetainedBytes;
+			this.evictionCount = evictionCount;
+		}
+
+		/**
+		 */
+		@Override
+		public String toString() {
+			return "CacheStats{entryCount: " + entryCount +
+					", annotationsCount: " + annotationsCount +
+					", approximateRetainedBytes: " + approximateRetainedBytes +
+					", evictionCount: " + evictionCount + "}";
+		}
+	}
 }
@@ -0,0 +1,595 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.annotation.handler;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * An {@link AnnotationHandlerRegistry} implementation that provides annotation handlers from a binary
+ * snapshot persisted within the files directory of the application.
+ * <p>
+ * The snapshot contains values resolved by annotation handlers that have been created via reflection
+ * during previous runs of the application, so these handlers may be on later cold starts created
+ * without any reflection. The snapshot is memory-mapped when loaded and entries for particular
+ * handlers are decoded only when requested.
+ * <p>
+ * The snapshot is bound to the version code and the last update time of the application package,
+ * so it is automatically discarded whenever the application is updated (or re-installed). Snapshot
+ * that is malformed is discarded as whole, while an entry that does not match its checksum is ignored
+ * and its handler is created via reflection as usual.
+ *
+ * @author Martin Albedinsky
+ * @see AnnotationHandlers#loadSnapshot(Context)
+ * @see AnnotationHandlers#saveSnapshot(Context)
+ */
+final class AnnotationSnapshot implements AnnotationHandlerRegistry {
+
+	/**
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	private static final String TAG = "AnnotationSnapshot";
+
+	/**
+	 * Name of the file in which is the snapshot stored.
+	 */
+	static final String FILE_NAME = "fragments-annotations.snapshot";
+
+	/**
+	 * Magic number that starts each snapshot file.
+	 */
+	private static final int MAGIC = 0x46524153;
+
+	/**
+	 * Magic number that ends each snapshot file.
+	 */
+	private static final int END_MAGIC = 0x53415246;
+
+	/**
+	 * Version of the snapshot format. Snapshots with different format version are discarded.
+	 */
+	private static final int FORMAT_VERSION = 2;
+
+	/**
+	 * Maximum size of a snapshot file that is accepted when loading the snapshot.
+	 */
+	private static final int MAX_FILE_SIZE = 4 * 1024 * 1024;
+
+	/**
+	 * Interface ===================================================================================
+	 */
+
+	/**
+	 * Reader used to create annotation handler of a specific type from values that have been written
+	 * into snapshot via {@link BaseAnnotationHandler#writeSnapshot(DataOutput)}.
+	 */
+	interface HandlerReader {
+
+		/**
+		 * Creates a new handler for the given <var>annotatedClass</var> from values read from the
+		 * given <var>input</var>.
+		 *
+		 * @param annotatedClass The class for which to create the handler.
+		 * @param input          Input with values of the handler in the order in which they have
+		 *                       been written.
+		 * @return Handler with the read values.
+		 * @throws IOException If the values cannot be read.
+		 */
+		@NonNull
+		AnnotationHandler readHandler(@NonNull Class<?> annotatedClass, @NonNull DataInput input) throws IOException;
+	}
+
+	/**
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Map with readers mapped to types of handlers which they can read.
+	 */
+	private static volatile Map<Class<?>, HandlerReader> sReaders = Collections.emptyMap();
+
+	/**
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * File in which is this snapshot stored.
+	 */
+	private final File mFile;
+
+	/**
+	 * Version code of the application package for which is this snapshot valid.
+	 */
+	private final int mVersionCode;
+
+	/**
+	 * Last update time of the application package for which is this snapshot valid.
+	 */
+	private final long mLastUpdateTime;
+
+	/**
+	 * Currently loaded content of the snapshot file.
+	 */
+	private volatile Content mContent = Content.EMPTY;
+
+	/**
+	 * Boolean flag indicating whether some of the loaded entries have been found corrupted, so the
+	 * snapshot file should be re-written.
+	 */
+	private volatile boolean mCorrupted;
+
+	/**
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of AnnotationSnapshot stored in the given <var>file</var>.
+	 *
+	 * @param file           The file in which is the snapshot stored.
+	 * @param versionCode    Version code of the current application package.
+	 * @param lastUpdateTime Last update time of the current application package.
+	 */
+	AnnotationSnapshot(@NonNull File file, int versionCode, long lastUpdateTime) {
+		this.mFile = file;
+		this.mVersionCode = versionCode;
+		this.mLastUpdateTime = lastUpdateTime;
+	}
+
+	/**
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Creates a new snapshot for the application of the given <var>context</var> and loads its
+	 * content from the snapshot file (if it exists).
+	 *
+	 * @param context Context used to resolve the snapshot file and version of the application package.
+	 * @return Loaded snapshot or {@code null} if the version of the application package cannot be
+	 * resolved.
+	 */
+	@Nullable
+	static AnnotationSnapshot open(@NonNull Context context) {
+		final PackageInfo packageInfo;
+		try {
+			packageInfo = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+		} catch (PackageManager.NameNotFoundException e) {
+			Log.e(TAG, "Failed to resolve version of the application package.", e);
+			return null;
+		}
+		final AnnotationSnapshot snapshot = new AnnotationSnapshot(
+				new File(context.getFilesDir(), FILE_NAME),
+				packageInfo.versionCode,
+				packageInfo.lastUpdateTime
+		);
+		snapshot.load();
+		return snapshot;
+	}
+
+	/**
+	 * Registers the given <var>reader</var> for handlers of the specified <var>classOfHandler</var>.
+	 *
+	 * @param classOfHandler Class of handlers that the reader can read.
+	 * @param reader         The reader to be registered.
+	 */
+	static void registerReader(@NonNull Class<? extends AnnotationHandler> classOfHandler, @NonNull HandlerReader reader) {
+		synchronized (AnnotationSnapshot.class) {
+			if (!sReaders.containsKey(classOfHandler)) {
+				final Map<Class<?>, HandlerReader> readers = new HashMap<>(sReaders);
+				readers.put(classOfHandler, reader);
+				sReaders = readers;
+			}
+		}
+	}
+
+	/**
+	 * Writes the given String <var>value</var> that may be {@code null} into the specified <var>output</var>.
+	 *
+	 * @see #readString(DataInput)
+	 */
+	static void writeString(@NonNull DataOutput output, @Nullable String value) throws IOException {
+		output.writeBoolean(value != null);
+		if (value != null) output.writeUTF(value);
+	}
+
+	/**
+	 * Reads a String value that may be {@code null} from the given <var>input</var>.
+	 *
+	 * @see #writeString(DataOutput, String)
+	 */
+	@Nullable
+	static String readString(@NonNull DataInput input) throws IOException {
+		return input.readBoolean() ? input.readUTF() : null;
+	}
+
+	/**
+	 * Creates a key for entry of handler with the specified <var>handlerName</var> created for class
+	 * with the specified <var>className</var>.
+	 */
+	private static String createKey(String handlerName, String className) {
+		return handlerName + ":" + className;
+	}
+
+	/**
+	 * Loads content of this snapshot from its file. If the file is not valid for the current version
+	 * of the application package or it is malformed, it is deleted.
+	 */
+	synchronized void load() {
+		this.mContent = Content.EMPTY;
+		this.mCorrupted = false;
+		if (!mFile.exists()) {
+			return;
+		}
+		RandomAccessFile file = null;
+		try {
+			file = new RandomAccessFile(mFile, "r");
+			final long fileSize = file.length();
+			if (fileSize > MAX_FILE_SIZE) {
+				throw new IOException("Snapshot file is too large(" + fileSize + ").");
+			}
+			final ByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+			final DataInputStream input = new DataInputStream(new BufferInputStream(buffer));
+			if (input.readInt() != MAGIC) {
+				throw new IOException("Not a snapshot file.");
+			}
+			if (input.readInt() != FORMAT_VERSION || input.readInt() != mVersionCode || input.readLong() != mLastUpdateTime) {
+				// Snapshot from a different version of the application or of the library.
+				deleteFile();
+				return;
+			}
+			final int entriesCount = input.readInt();
+			if (entriesCount < 0 || entriesCount > fileSize) {
+				throw new IOException("Invalid count of entries(" + entriesCount + ").");
+			}
+			final Map<String, Entry> entries = new ConcurrentHashMap<>(Math.max(16, entriesCount * 2));
+			for (int i = 0; i < entriesCount; i++) {
+				final String handlerName = input.readUTF();
+				final String className = input.readUTF();
+				final long checksum = input.readLong();
+				final int length = input.readInt();
+				if (length < 0 || length > buffer.remaining()) {
+					throw new IOException("Invalid length of entry(" + length + ").");
+				}
+				entries.put(createKey(handlerName, className), new Entry(handlerName, className, checksum, buffer.position(), length));
+				buffer.position(buffer.position() + length);
+			}
+			if (input.readInt() != END_MAGIC) {
+				throw new IOException("Snapshot file is truncated.");
+			}
+			this.mContent = new Content(buffer, entries);
+		} catch (IOException | RuntimeException e) {
+			Log.e(TAG, "Failed to load annotations snapshot. Discarding it.", e);
+			deleteFile();
+		} finally {
+			if (file != null) {
+				try {
+					file.close();
+				} catch (IOException e) {
+					// Mapped buffer remains valid even after the file has been closed.
+				}
+			}
+		}
+	}
+
+	/**
+	 * Deletes the snapshot file.
+	 */
+	private void deleteFile() {
+		if (mFile.exists() && !mFile.delete()) {
+			Log.w(TAG, "Failed to delete annotations snapshot file.");
+		}
+	}
+
+	/**
+	 * Returns count of entries currently loaded by this snapshot.
+	 *
+	 * @return Count of loaded entries.
+	 */
+	int size() {
+		return mContent.entries.size();
+	}
+
+	/**
+	 */
+	@Nullable
+	@Override
+	public AnnotationHandler createHandler(@NonNull Class<? extends AnnotationHandler> classOfHandler, @NonNull Class<?> annotatedClass) {
+		final Content content = mContent;
+		if (content.entries.isEmpty()) {
+			return null;
+		}
+		final String key = createKey(classOfHandler.getName(), annotatedClass.getName());
+		final Entry entry = content.entries.get(key);
+		final HandlerReader reader = entry == null ? null : sReaders.get(classOfHandler);
+		if (reader == null) {
+			return null;
+		}
+		try {
+			final byte[] data = content.read(entry);
+			final CRC32 checksum = new CRC32();
+			checksum.update(data, 0, data.length);
+			if (checksum.getValue() != entry.checksum) {
+				throw new IOException("Checksum does not match.");
+			}
+			return reader.readHandler(annotatedClass, new DataInputStream(new ByteArrayInputStream(data)));
+		} catch (IOException | RuntimeException | LinkageError e) {
+			Log.e(TAG, "Failed to read snapshot entry for(" + annotatedClass.getName() + "). Ignoring it.", e);
+			content.entries.remove(key);
+			this.mCorrupted = true;
+			return null;
+		}
+	}
+
+	/**
+	 * Saves values of the given <var>handlers</var> along with the currently loaded entries into
+	 * the snapshot file. The file is written only if there is at least one handler which entry is
+	 * not loaded yet or some of the loaded entries are corrupted.
+	 * <p>
+	 * The snapshot file is written atomically, so it remains valid even if the application process
+	 * is killed during the write.
+	 *
+	 * @param handlers Handlers of which values to save.
+	 * @return {@code True} if the snapshot file has been written, {@code false} otherwise.
+	 */
+	synchronized boolean save(@NonNull Collection<AnnotationHandler> handlers) {
+		final Content content = mContent;
+		final Map<String, byte[]> newEntries = new LinkedHashMap<>();
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		try {
+			for (final AnnotationHandler handler : handlers) {
+				if (!(handler instanceof BaseAnnotationHandler)) {
+					continue;
+				}
+				final String key = createKey(handler.getClass().getName(), handler.getAnnotatedClass().getName());
+				if (content.entries.containsKey(key) || !sReaders.containsKey(handler.getClass())) {
+					continue;
+				}
+				bytes.reset();
+				if (((BaseAnnotationHandler) handler).writeSnapshot(new DataOutputStream(bytes))) {
+					newEntries.put(key, bytes.toByteArray());
+				}
+			}
+		} catch (IOException e) {
+			Log.e(TAG, "Failed to write values of annotation handlers.", e);
+			return false;
+		}
+		if (newEntries.isEmpty() && !mCorrupted) {
+			return false;
+		}
+		final File tempFile = new File(mFile.getPath() + ".tmp");
+		FileOutputStream stream = null;
+		try {
+			final File directory = mFile.getParentFile();
+			if (directory != null && !directory.exists() && !directory.mkdirs()) {
+				throw new IOException("Failed to create directory for snapshot file.");
+			}
+			stream = new FileOutputStream(tempFile);
+			final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream));
+			output.writeInt(MAGIC);
+			output.writeInt(FORMAT_VERSION);
+			output.writeInt(mVersionCode);
+			output.writeLong(mLastUpdateTime);
+			final List<Entry> loadedEntries = new ArrayList<>(content.entries.values());
+			output.writeInt(loadedEntries.size() + newEntries.size());
+			for (final Entry entry : loadedEntries) {
+				writeEntry(output, entry.handlerName, entry.className, content.read(entry), entry.checksum);
+			}
+			final CRC32 checksum = new CRC32();
+			for (final AnnotationHandler handler : handlers) {
+				final byte[] data = newEntries.remove(createKey(handler.getClass().getName(), handler.getAnnotatedClass().getName()));
+				if (data != null) {
+					checksum.reset();
+					checksum.update(data, 0, data.length);
+					writeEntry(output, handler.getClass().getName(), handler.getAnnotatedClass().getName(), data, checksum.getValue());
+				}
+			}
+			output.writeInt(END_MAGIC);
+			output.flush();
+			stream.getFD().sync();
+			output.close();
+			stream = null;
+			if (!tempFile.renameTo(mFile)) {
+				throw new IOException("Failed to replace snapshot file.");
+			}
+		} catch (IOException | RuntimeException e) {
+			Log.e(TAG, "Failed to save annotations snapshot.", e);
+			if (stream != null) {
+				try {
+					stream.close();
+				} catch (IOException ignored) {
+					// Temporary file is deleted below.
+				}
+			}
+			if (tempFile.exists() && !tempFile.delete()) {
+				Log.w(TAG, "Failed to delete temporary snapshot file.");
+			}
+			return false;
+		}
+		load();
+		return true;
+	}
+
+	/**
+	 * Writes a single entry with the given <var>data</var> into the specified <var>output</var>.
+	 */
+	private static void writeEntry(DataOutput output, String handlerName, String className, byte[] data, long checksum) throws IOException {
+		output.writeUTF(handlerName);
+		output.writeUTF(className);
+		output.writeLong(checksum);
+		output.writeInt(data.length);
+		output.write(data);
+	}
+
+	/**
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Loaded content of the snapshot file.
+	 */
+	private static final class Content {
+
+		/**
+		 * Content without any entries.
+		 */
+		static final Content EMPTY = new Content(null, Collections.<String, Entry>emptyMap());
+
+		/**
+		 * Buffer with memory-mapped snapshot file.
+		 */
+		final ByteBuffer buffer;
+
+		/**
+		 * Map with entries of the snapshot mapped to theirs keys.
+		 */
+		final Map<String, Entry> entries;
+
+		/**
+		 * Creates a new instance of Content with the given <var>buffer</var> and <var>entries</var>.
+		 */
+		Content(ByteBuffer buffer, Map<String, Entry> entries) {
+			this.buffer = buffer;
+			this.entries = entries;
+		}
+
+		/**
+		 * Reads data of the given <var>entry</var> from the mapped buffer.
+		 */
+		byte[] read(Entry entry) {
+			final ByteBuffer buffer = this.buffer.duplicate();
+			buffer.position(entry.offset);
+			final byte[] data = new byte[entry.length];
+			buffer.get(data);
+			return data;
+		}
+	}
+
+	/**
+	 * Entry of the snapshot holding position of values of a single handler within the snapshot file.
+	 */
+	private static final class Entry {
+
+		/**
+		 * Name of the class of handler.
+		 */
+		final String handlerName;
+
+		/**
+		 * Name of the annotated class for which has been the handler created.
+		 */
+		final String className;
+
+		/**
+		 * Checksum of the entry data.
+		 */
+		final long checksum;
+
+		/**
+		 * Offset of the entry data within the snapshot file.
+		 */
+		final int offset;
+
+		/**
+		 * Length of the entry data.
+		 */
+		final int length;
+
+		/**
+		 * Creates a new instance of Entry with the given values.
+		 */
+		Entry(String handlerName, String className, long checksum, int offset, int length) {
+			this.handlerName = handlerName;
+			this.className = className;
+			this.checksum = checksum;
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+
+	/**
+	 * An {@link InputStream} implementation reading from a {@link ByteBuffer}.
+	 */
+	private static final class BufferInputStream extends InputStream {
+
+		/**
+		 * Buffer from which this stream reads.
+		 */
+		private final ByteBuffer buffer;
+
+		/**
+		 * Creates a new instance of BufferInputStream for the given <var>buffer</var>.
+		 */
+		BufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		/**
+		 */
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+		}
+
+		/**
+		 */
+		@Override
+		public int read(@NonNull byte[] bytes, int offset, int length) {
+			if (length == 0) {
+				return 0;
+			}
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			final int count = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, count);
+			return count;
+		}
+	}
+}
@@ -21,7 +21,10 @@ package universum.studios.android.fragment.annotation.handler;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import java.io.DataOutput;
+import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.util.Collection;
 
 import universum.studios.android.fragment.annotation.FragmentAnnotations;
 
@@ -64,6 +67,12 @@ abstract class BaseAnnotationHandler implements AnnotationHandler {
 	 */
 	final Class<?> mMaxSuperClass;
 
+	/**
+	 * Record of annotations presented for {@link #mAnnotatedClass}. Resolved lazily upon the first
+	 * request for an annotation.
+	 */
+	private ClassAnnotations mAnnotations;
+
 	/**
 	 * Constructors ================================================================================
 	 */
@@ -101,7 +110,7 @@ abstract class BaseAnnotationHandler implements AnnotationHandler {
 	 * @return Found annotation or {@code null} if there is no such annotation presented.
 	 */
 	final <A extends Annotation> A findAnnotation(Class<A> classOfAnnotation) {
-		return FragmentAnnotations.obtainAnnotationFrom(classOfAnnotation, mAnnotatedClass, null);
+		return annotations().getDeclared(classOfAnnotation);
 	}
 
 	/**
@@ -113,7 +122,62 @@ abstract class BaseAnnotationHandler implements AnnotationHandler {
 	 * @return Found annotation or {@code null} if there is no such annotation presented.
 	 */
 	final <A extends Annotation> A findAnnotationRecursive(Class<A> classOfAnnotation) {
-		return FragmentAnnotations.obtainAnnotationFrom(classOfAnnotation, mAnnotatedClass, mMaxSuperClass);
+		return annotations().getResolved(classOfAnnotation);
+	}
+
+	/**
+	 * Returns record of annotations presented for the class attached to this handler. The record is
+	 * resolved via a single scan of the class hierarchy and shared between all handlers created for
+	 * the same class.
+	 *
+	 * @return Record of annotations.
+	 */
+	private ClassAnnotations annotations() {
+		if (mAnnotations == null) {
+			this.mAnnotations = AnnotationHandlers.obtainClassAnnotations(mAnnotatedClass, mMaxSuperClass);
+		}
+		return mAnnotations;
+	}
+
+	/**
+	 * Writes values resolved by this handler into the given snapshot <var>output</var>, so this handler
+	 * may be later re-created from the snapshot without any reflection.
+	 * <p>
+	 * Handlers that support snapshots should override this method and also register a reader that
+	 * reads the values in the same order in which they have been written.
+	 *
+	 * @param output The output into which to write the values.
+	 * @return {@code True} if the values have been written, {@code false} if this handler does not
+	 * support snapshots.
+	 * @throws IOException If some of the values failed to be written.
+	 * @see AnnotationHandlers#registerSnapshotReader(Class, AnnotationSnapshot.HandlerReader)
+	 */
+	boolean writeSnapshot(@NonNull DataOutput output) throws IOException {
+		return false;
+	}
+
+	/**
+	 * Estimates count of bytes retained by this handler. Used by cache of annotation handlers to
+	 * approximate its retained memory.
+	 * <p>
+	 * Handlers holding more than just simple values obtained from annotations should override this
+	 * method to include also size of such data.
+	 *
+	 * @return Approximate count of bytes retained by this handler.
+	 */
+	int estimateRetainedSize() {
+		return HandlerCache.HANDLER_SIZE;
+	}
+
+	/**
+	 * Collects all classes reachable from this handler of which handlers should be also pre-warmed
+	 * whenever this handler is pre-warmed along with its reachable classes.
+	 *
+	 * @param classes Collection into which to add the reachable classes.
+	 * @see AnnotationHandlers#prewarmHandlers(java.util.concurrent.Executor, boolean, Class[])
+	 */
+	void collectReachableClasses(@NonNull Collection<Class<?>> classes) {
+		// Simple handlers do not have any reachable classes.
 	}
 
 	/**
@@ -0,0 +1,231 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.annotation.handler;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.annotation.Annotation;
+import java.util.concurrent.ConcurrentMap;
+
+import universum.studios.android.fragment.annotation.FragmentAnnotations;
+
+/**
+ * Record holding all annotations of the Fragments library presented for a single annotated class.
+ * <p>
+ * The record is resolved via a single pass over annotations declared by the annotated class, where
+ * annotations inherited from its super classes are taken from already resolved (and cached) record
+ * of its direct super class, so each class of a particular hierarchy is scanned at most once.
+ * Classes without any annotations of the Fragments library share a single {@link #EMPTY} record.
+ *
+ * @author Martin Albedinsky
+ * @see FragmentAnnotations#obtainAnnotationFrom(Class, Class, Class)
+ */
+final class ClassAnnotations {
+
+	/**
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "ClassAnnotations";
+
+	/**
+	 * Prefix of names of annotations provided by the Fragments library.
+	 */
+	private static final String ANNOTATIONS_PACKAGE_PREFIX = FragmentAnnotations.class.getPackage().getName() + ".";
+
+	/**
+	 * Empty array of annotations.
+	 */
+	private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+	/**
+	 * Record for classes that do not have any annotations of the Fragments library presented.
+	 */
+	static final ClassAnnotations EMPTY = new ClassAnnotations(NO_ANNOTATIONS, NO_ANNOTATIONS);
+
+	/**
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Annotations declared directly by the annotated class.
+	 */
+	private final Annotation[] mDeclared;
+
+	/**
+	 * Annotations declared by the annotated class along with annotations inherited from its super
+	 * classes, where annotations of the annotated class override the inherited ones.
+	 */
+	private final Annotation[] mResolved;
+
+	/**
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of ClassAnnotations with the given annotations.
+	 *
+	 * @param declared Annotations declared directly by the annotated class.
+	 * @param resolved Declared annotations along with the inherited ones.
+	 */
+	private ClassAnnotations(Annotation[] declared, Annotation[] resolved) {
+		this.mDeclared = declared;
+		this.mResolved = resolved;
+	}
+
+	/**
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Resolves record of annotations for the given <var>annotatedClass</var> including annotations
+	 * of its super classes up to the specified <var>maxSuperClass</var> (excluding).
+	 *
+	 * @param annotatedClass The class for which to resolve the record.
+	 * @param maxSuperClass  Max super class up to which to resolve also inherited annotations. If
+	 *                       {@code null} only annotations of the class will be resolved.
+	 * @param cache          Cache with already resolved records for the specified max super class.
+	 *                       May be {@code null} if the records should not be cached.
+	 * @return Resolved record.
+	 */
+	@NonNull
+	static ClassAnnotations resolve(@NonNull Class<?> annotatedClass, @Nullable Class<?> maxSuperClass, @Nullable ConcurrentMap<Class<?>, ClassAnnotations> cache) {
+		ClassAnnotations annotations = cache == null ? null : cache.get(annotatedClass);
+		if (annotations != null) {
+			return annotations;
+		}
+		final Annotation[] declared = scanDeclared(annotatedClass);
+		final Class<?> parent = maxSuperClass == null ? null : annotatedClass.getSuperclass();
+		final ClassAnnotations parentAnnotations = parent == null || parent.equals(maxSuperClass) ?
+				EMPTY :
+				resolve(parent, maxSuperClass, cache);
+		if (declared.length == 0) {
+			annotations = parentAnnotations == EMPTY ? EMPTY : new ClassAnnotations(NO_ANNOTATIONS, parentAnnotations.mResolved);
+		} else {
+			annotations = new ClassAnnotations(declared, merge(declared, parentAnnotations.mResolved));
+		}
+		if (cache != null) {
+			final ClassAnnotations current = cache.putIfAbsent(annotatedClass, annotations);
+			if (current != null) {
+				annotations = current;
+			}
+		}
+		return annotations;
+	}
+
+	/**
+	 * Scans annotations of the Fragments library declared directly by the given <var>annotatedClass</var>.
+	 */
+	private static Annotation[] scanDeclared(Class<?> annotatedClass) {
+		final AnnotationHandlers.MetricsListener listener = AnnotationHandlers.getMetricsListener();
+		final long startTime = listener == null ? 0 : System.nanoTime();
+		final Annotation[] annotations = annotatedClass.getDeclaredAnnotations();
+		if (listener != null) {
+			listener.onAnnotationsScanned(annotatedClass, System.nanoTime() - startTime);
+		}
+		int count = 0;
+		for (int i = 0; i < annotations.length; i++) {
+			if (annotations[i].annotationType().getName().startsWith(ANNOTATIONS_PACKAGE_PREFIX)) {
+				annotations[count++] = annotations[i];
+			}
+		}
+		if (count == 0) {
+			return NO_ANNOTATIONS;
+		}
+		if (count == annotations.length) {
+			return annotations;
+		}
+		final Annotation[] libraryAnnotations = new Annotation[count];
+		System.arraycopy(annotations, 0, libraryAnnotations, 0, count);
+		return libraryAnnotations;
+	}
+
+	/**
+	 * Merges the given <var>declared</var> annotations with the <var>inherited</var> ones, where
+	 * declared annotations override the inherited annotations of the same type.
+	 */
+	private static Annotation[] merge(Annotation[] declared, Annotation[] inherited) {
+		if (inherited.length == 0) {
+			return declared;
+		}
+		final Annotation[] merged = new Annotation[declared.length + inherited.length];
+		System.arraycopy(declared, 0, merged, 0, declared.length);
+		int count = declared.length;
+		for (final Annotation annotation : inherited) {
+			if (find(declared, annotation.annotationType()) == null) {
+				merged[count++] = annotation;
+			}
+		}
+		if (count == merged.length) {
+			return merged;
+		}
+		final Annotation[] trimmed = new Annotation[count];
+		System.arraycopy(merged, 0, trimmed, 0, count);
+		return trimmed;
+	}
+
+	/**
+	 * Finds annotation of the requested type within the given <var>annotations</var>.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <A extends Annotation> A find(Annotation[] annotations, Class<A> classOfAnnotation) {
+		for (final Annotation annotation : annotations) {
+			if (annotation.annotationType() == classOfAnnotation) {
+				return (A) annotation;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns annotation of the requested type declared directly by the annotated class.
+	 *
+	 * @param classOfAnnotation Class of the requested annotation.
+	 * @param <A>               Type of the requested annotation.
+	 * @return Requested annotation or {@code null} if the class does not declare such annotation.
+	 */
+	@Nullable
+	<A extends Annotation> A getDeclared(@NonNull Class<A> classOfAnnotation) {
+		return find(mDeclared, classOfAnnotation);
+	}
+
+	/**
+	 * Returns annotation of the requested type declared by the annotated class or inherited from
+	 * one of its super classes.
+	 *
+	 * @param classOfAnnotation Class of the requested annotation.
+	 * @param <A>               Type of the requested annotation.
+	 * @return Requested annotation or {@code null} if there is no such annotation presented.
+	 */
+	@Nullable
+	<A extends Annotation> A getResolved(@NonNull Class<A> classOfAnnotation) {
+		return find(mResolved, classOfAnnotation);
+	}
+
+	/**
+	 * Returns {@code true} if there are no annotations presented for the annotated class.
+	 */
+	boolean isEmpty() {
+		return mResolved.length == 0;
+	}
+}
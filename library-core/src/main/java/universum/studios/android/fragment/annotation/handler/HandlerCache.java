@@ -0,0 +1,530 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.annotation.handler;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import universum.studios.android.fragment.util.WeakClassKey;
+
+/**
+ * Cache used by {@link AnnotationHandlers} to store already created annotation handlers mapped to
+ * theirs types and annotated classes.
+ * <p>
+ * Obtaining of cached handlers is lock-free. The cache may hold its annotated classes either strongly
+ * or weakly. In the weak mode, the handlers are held via soft references, because each handler
+ * holds its annotated class strongly, so the annotated class (and its class loader) may be collected
+ * once its handler is no longer used. The cache may be also bounded by a maximum count of entries,
+ * where the least recently accessed entries are evicted whenever the cache exceeds that count.
+ * <p>
+ * The cache also holds records of annotations resolved for annotated classes (see {@link ClassAnnotations}).
+ * These records are cached only if the cache holds its annotated classes strongly. If the cache is
+ * bounded, all records are dropped whenever theirs count exceeds the maximum count of entries, as
+ * the records are cheap to be resolved again. Classes that have been found to not have any annotations
+ * are cached as entries with {@link #NOT_ANNOTATED} marker in place of a handler, in both modes.
+ *
+ * @author Martin Albedinsky
+ */
+final class HandlerCache {
+
+	/**
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "HandlerCache";
+
+	/**
+	 * Initial capacity for the handler maps.
+	 */
+	private static final int HANDLERS_INITIAL_CAPACITY = 20;
+
+	/**
+	 * Approximate count of bytes retained by a single cache entry excluding its handler.
+	 */
+	private static final int ENTRY_SIZE = 64;
+
+	/**
+	 * Approximate count of bytes retained by a handler which size cannot be estimated.
+	 */
+	static final int HANDLER_SIZE = 32;
+
+	/**
+	 * Approximate count of bytes retained by a single record of resolved annotations.
+	 */
+	private static final int ANNOTATIONS_RECORD_SIZE = 48;
+
+	/**
+	 * Marker cached in place of a handler for annotated classes that do not have presented any
+	 * annotations, so such classes do not need to be checked again.
+	 *
+	 * @see AnnotationHandlers#obtainHandlerIfAnnotated(Class, Class, Class)
+	 */
+	static final AnnotationHandler NOT_ANNOTATED = new AnnotationHandler() {
+
+		/**
+		 */
+		@NonNull
+		@Override
+		public Class<?> getAnnotatedClass() {
+			return Object.class;
+		}
+	};
+
+	/**
+	 * Comparator used to order entries from the least recently accessed one.
+	 */
+	private static final Comparator<EvictionCandidate> EVICTION_ORDER = new Comparator<EvictionCandidate>() {
+
+		/**
+		 */
+		@Override
+		public int compare(EvictionCandidate first, EvictionCandidate second) {
+			return first.lastAccess < second.lastAccess ? -1 : (first.lastAccess == second.lastAccess ? 0 : 1);
+		}
+	};
+
+	/**
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Boolean flag indicating whether this cache holds annotated classes weakly.
+	 */
+	final boolean weakKeys;
+
+	/**
+	 * Maximum count of entries that may be stored in this cache. If {@code 0}, the cache is unbounded.
+	 */
+	final int maxSize;
+
+	/**
+	 * Map with maps of cache entries mapped to theirs handler classes. Within each of the inner maps
+	 * are entries mapped to a particular class (or its weak key) for which has been the handler created.
+	 */
+	private final ConcurrentMap<Class<?>, ConcurrentMap<Object, Entry>> mEntries = new ConcurrentHashMap<>(4);
+
+	/**
+	 * Map with maps of resolved annotation records mapped to max super classes up to which have been
+	 * the records resolved. {@code Null} if this cache holds annotated classes weakly.
+	 */
+	private final ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, ClassAnnotations>> mAnnotations;
+
+	/**
+	 * Approximate count of records of resolved annotations stored in this cache.
+	 */
+	private final AtomicInteger mAnnotationsCount = new AtomicInteger();
+
+	/**
+	 * Queue with weak keys of which annotated classes have been collected.
+	 */
+	private final ReferenceQueue<Class<?>> mCollectedKeys;
+
+	/**
+	 * Current count of entries stored in this cache.
+	 */
+	private final AtomicInteger mSize = new AtomicInteger();
+
+	/**
+	 * Approximate count of bytes retained by entries stored in this cache.
+	 */
+	private final AtomicLong mRetainedBytes = new AtomicLong();
+
+	/**
+	 * Count of entries evicted due to exceeded {@link #maxSize}.
+	 */
+	private final AtomicLong mEvictionCount = new AtomicLong();
+
+	/**
+	 * Tick incremented whenever an entry is put into this cache or entries are evicted, used to order
+	 * the entries by theirs last access. Obtaining of a cached handler only reads this tick, so hits
+	 * do not contend on it and the access order is approximate between two subsequent puts.
+	 */
+	private final AtomicLong mAccessTick = new AtomicLong();
+
+	/**
+	 * Lock used to synchronize eviction of entries.
+	 */
+	private final Object mEvictionLock = new Object();
+
+	/**
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of HandlerCache with the specified configuration.
+	 *
+	 * @param weakKeys {@code True} to hold annotated classes weakly, {@code false} to hold them strongly.
+	 * @param maxSize  Maximum count of entries or {@code 0} for unbounded cache.
+	 */
+	HandlerCache(boolean weakKeys, int maxSize) {
+		this.weakKeys = weakKeys;
+		this.maxSize = Math.max(0, maxSize);
+		this.mCollectedKeys = weakKeys ? new ReferenceQueue<Class<?>>() : null;
+		this.mAnnotations = weakKeys ? null : new ConcurrentHashMap<Class<?>, ConcurrentMap<Class<?>, ClassAnnotations>>(4);
+	}
+
+	/**
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Returns handler of the specified <var>classOfHandler</var> type cached for the given <var>annotatedClass</var>.
+	 *
+	 * @param classOfHandler Class of the requested handler.
+	 * @param annotatedClass Class for which to return the handler.
+	 * @return Cached handler or {@code null} if there is no such handler cached.
+	 */
+	@Nullable
+	AnnotationHandler get(@NonNull Class<?> classOfHandler, @NonNull Class<?> annotatedClass) {
+		final ConcurrentMap<Object, Entry> entries = mEntries.get(classOfHandler);
+		if (entries == null) {
+			return null;
+		}
+		final Entry entry;
+		if (weakKeys) {
+			entry = WeakClassKey.get(entries, annotatedClass);
+		} else {
+			entry = entries.get(annotatedClass);
+		}
+		if (entry == null) {
+			return null;
+		}
+		if (maxSize > 0) {
+			final long tick = mAccessTick.get();
+			if (entry.lastAccess != tick) entry.lastAccess = tick;
+		}
+		return entry.handler();
+	}
+
+	/**
+	 * Puts the given <var>handler</var> into this cache. The caller is responsible for synchronization
+	 * of puts for the same annotated class.
+	 *
+	 * @param classOfHandler Class of the handler.
+	 * @param annotatedClass Class for which has been the handler created.
+	 * @param handler        The handler to be cached.
+	 */
+	void put(@NonNull Class<?> classOfHandler, @NonNull Class<?> annotatedClass, @NonNull AnnotationHandler handler) {
+		if (weakKeys) {
+			expungeCollectedKeys();
+		}
+		final ConcurrentMap<Object, Entry> entries = entriesOfType(classOfHandler);
+		final Entry entry = new Entry(handler, weakKeys, estimateSize(handler));
+		entry.lastAccess = mAccessTick.incrementAndGet();
+		final Entry previous = entries.put(weakKeys ? new WeakKey(annotatedClass, classOfHandler, mCollectedKeys) : annotatedClass, entry);
+		if (previous == null) {
+			mSize.incrementAndGet();
+		} else {
+			mRetainedBytes.addAndGet(-previous.size);
+		}
+		mRetainedBytes.addAndGet(entry.size);
+		if (maxSize > 0 && mSize.get() > maxSize) {
+			evictLeastRecentlyAccessed();
+		}
+	}
+
+	/**
+	 * Returns map of entries for handlers of the specified <var>classOfHandler</var> type. The map
+	 * is created if it does not exist yet.
+	 */
+	private ConcurrentMap<Object, Entry> entriesOfType(Class<?> classOfHandler) {
+		ConcurrentMap<Object, Entry> entries = mEntries.get(classOfHandler);
+		if (entries == null) {
+			final ConcurrentMap<Object, Entry> newEntries = new ConcurrentHashMap<>(HANDLERS_INITIAL_CAPACITY);
+			entries = mEntries.putIfAbsent(classOfHandler, newEntries);
+			if (entries == null) {
+				entries = newEntries;
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * Returns record of annotations resolved for the given <var>annotatedClass</var> up to the
+	 * specified <var>maxSuperClass</var>. The record is resolved if it is not cached yet.
+	 *
+	 * @param annotatedClass The class for which to return the record.
+	 * @param maxSuperClass  Max super class up to which to resolve also inherited annotations.
+	 * @return Resolved record.
+	 * @see ClassAnnotations#resolve(Class, Class, ConcurrentMap)
+	 */
+	@NonNull
+	ClassAnnotations annotations(@NonNull Class<?> annotatedClass, @Nullable Class<?> maxSuperClass) {
+		if (mAnnotations == null || maxSuperClass == null) {
+			return ClassAnnotations.resolve(annotatedClass, maxSuperClass, null);
+		}
+		ConcurrentMap<Class<?>, ClassAnnotations> annotations = mAnnotations.get(maxSuperClass);
+		if (annotations == null) {
+			final ConcurrentMap<Class<?>, ClassAnnotations> newAnnotations = new ConcurrentHashMap<>(HANDLERS_INITIAL_CAPACITY);
+			annotations = mAnnotations.putIfAbsent(maxSuperClass, newAnnotations);
+			if (annotations == null) {
+				annotations = newAnnotations;
+			}
+		}
+		final int previousCount = annotations.size();
+		final ClassAnnotations record = ClassAnnotations.resolve(annotatedClass, maxSuperClass, annotations);
+		final int resolvedCount = annotations.size() - previousCount;
+		if (resolvedCount > 0 && mAnnotationsCount.addAndGet(resolvedCount) > maxSize && maxSize > 0) {
+			this.clearAnnotations();
+		}
+		return record;
+	}
+
+	/**
+	 * Removes all records of resolved annotations from this cache.
+	 */
+	private void clearAnnotations() {
+		mAnnotations.clear();
+		mAnnotationsCount.set(0);
+	}
+
+	/**
+	 * Estimates count of bytes retained by the given <var>handler</var>.
+	 */
+	private static int estimateSize(AnnotationHandler handler) {
+		return handler instanceof BaseAnnotationHandler ? ((BaseAnnotationHandler) handler).estimateRetainedSize() : HANDLER_SIZE;
+	}
+
+	/**
+	 * Removes entries of which annotated classes have been already collected.
+	 */
+	@SuppressWarnings("unchecked")
+	private void expungeCollectedKeys() {
+		Reference<? extends Class<?>> reference;
+		while ((reference = mCollectedKeys.poll()) != null) {
+			final WeakKey key = (WeakKey) reference;
+			final ConcurrentMap<Object, Entry> entries = mEntries.get(key.classOfHandler);
+			if (entries != null) {
+				removeEntry(entries, key);
+			}
+		}
+	}
+
+	/**
+	 * Evicts the least recently accessed entries so size of this cache drops below its maximum size
+	 * by about one eighth of that size, so the entries do not need to be scanned on each subsequent
+	 * put.
+	 */
+	private void evictLeastRecentlyAccessed() {
+		synchronized (mEvictionLock) {
+			final int evictCount = mSize.get() - (maxSize - maxSize / 8);
+			if (evictCount <= 0 || mSize.get() <= maxSize) {
+				return;
+			}
+			final List<EvictionCandidate> candidates = new ArrayList<>(mSize.get());
+			for (final ConcurrentMap<Object, Entry> entries : mEntries.values()) {
+				for (final Map.Entry<Object, Entry> entry : entries.entrySet()) {
+					candidates.add(new EvictionCandidate(entries, entry.getKey(), entry.getValue().lastAccess));
+				}
+			}
+			// Entries accessed after this eviction will be ordered after all the current entries.
+			mAccessTick.incrementAndGet();
+			Collections.sort(candidates, EVICTION_ORDER);
+			final int n = Math.min(evictCount, candidates.size());
+			for (int i = 0; i < n; i++) {
+				final EvictionCandidate candidate = candidates.get(i);
+				if (removeEntry(candidate.entries, candidate.key)) {
+					mEvictionCount.incrementAndGet();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes entry with the specified <var>key</var> from the given <var>entries</var>.
+	 *
+	 * @return {@code True} if the entry has been removed, {@code false} otherwise.
+	 */
+	private boolean removeEntry(ConcurrentMap<Object, Entry> entries, Object key) {
+		final Entry entry = entries.remove(key);
+		if (entry == null) {
+			return false;
+		}
+		mSize.decrementAndGet();
+		mRetainedBytes.addAndGet(-entry.size);
+		return true;
+	}
+
+	/**
+	 * Collects all handlers that are currently stored in this cache into the given <var>handlers</var>
+	 * collection.
+	 *
+	 * @param handlers The collection into which to add the cached handlers.
+	 */
+	void collectHandlers(@NonNull Collection<AnnotationHandler> handlers) {
+		for (final ConcurrentMap<Object, Entry> entries : mEntries.values()) {
+			for (final Entry entry : entries.values()) {
+				final AnnotationHandler handler = entry.handler();
+				if (handler != null && handler != NOT_ANNOTATED) {
+					handlers.add(handler);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes all entries from this cache.
+	 */
+	void clear() {
+		if (mAnnotations != null) {
+			this.clearAnnotations();
+		}
+		for (final ConcurrentMap<Object, Entry> entries : mEntries.values()) {
+			for (final Object key : entries.keySet()) {
+				removeEntry(entries, key);
+			}
+		}
+	}
+
+	/**
+	 * Creates a snapshot of the current statistics of this cache.
+	 *
+	 * @return Current statistics.
+	 */
+	@NonNull
+	AnnotationHandlers.CacheStats stats() {
+		if (weakKeys) {
+			expungeCollectedKeys();
+		}
+		final int annotationsCount = mAnnotationsCount.get();
+		return new AnnotationHandlers.CacheStats(
+				mSize.get(),
+				annotationsCount,
+				mRetainedBytes.get() + (long) annotationsCount * ANNOTATIONS_RECORD_SIZE,
+				mEvictionCount.get()
+		);
+	}
+
+	/**
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Entry holding a single cached handler.
+	 */
+	private static final class Entry {
+
+		/**
+		 * Strongly held handler. {@code Null} if the handler is held softly.
+		 */
+		final AnnotationHandler handler;
+
+		/**
+		 * Softly held handler. {@code Null} if the handler is held strongly.
+		 */
+		final Reference<AnnotationHandler> handlerReference;
+
+		/**
+		 * Approximate count of bytes retained by this entry.
+		 */
+		final int size;
+
+		/**
+		 * Access tick of the last access of this entry. Written only if it differs from the current
+		 * tick, so frequently accessed entries are not written on each hit.
+		 */
+		volatile long lastAccess;
+
+		/**
+		 * Creates a new instance of Entry for the given <var>handler</var>.
+		 */
+		Entry(AnnotationHandler handler, boolean soft, int handlerSize) {
+			this.handler = soft ? null : handler;
+			this.handlerReference = soft ? new SoftReference<>(handler) : null;
+			this.size = ENTRY_SIZE + handlerSize;
+		}
+
+		/**
+		 * Returns the handler of this entry or {@code null} if it has been already collected.
+		 */
+		AnnotationHandler handler() {
+			return handlerReference == null ? handler : handlerReference.get();
+		}
+	}
+
+	/**
+	 * Entry considered for eviction along with its access tick captured at the time of eviction.
+	 */
+	private static final class EvictionCandidate {
+
+		/**
+		 * Map containing the entry.
+		 */
+		final ConcurrentMap<Object, Entry> entries;
+
+		/**
+		 * Key of the entry.
+		 */
+		final Object key;
+
+		/**
+		 * Access tick of the last access of the entry.
+		 */
+		final long lastAccess;
+
+		/**
+		 * Creates a new instance of EvictionCandidate with the given values.
+		 */
+		EvictionCandidate(ConcurrentMap<Object, Entry> entries, Object key, long lastAccess) {
+			this.entries = entries;
+			this.key = key;
+			this.lastAccess = lastAccess;
+		}
+	}
+
+	/**
+	 * Key weakly referencing an annotated class along with class of handler cached for that class.
+	 */
+	private static final class WeakKey extends WeakClassKey {
+
+		/**
+		 * Class of handler cached for this key.
+		 */
+		final Class<?> classOfHandler;
+
+		/**
+		 * Creates a new instance of WeakKey for the given <var>annotatedClass</var>.
+		 */
+		WeakKey(Class<?> annotatedClass, Class<?> classOfHandler, ReferenceQueue<Class<?>> queue) {
+			super(annotatedClass, queue);
+			this.classOfHandler = classOfHandler;
+		}
+	}
+}
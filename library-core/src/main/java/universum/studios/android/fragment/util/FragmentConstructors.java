@@ -0,0 +1,189 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.util;
+
+import android.app.Fragment;
+import android.support.annotation.NonNull;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Utility class that may be used to instantiate fragments via theirs public empty constructors.
+ * <p>
+ * Unlike {@link Class#newInstance()}, which resolves and checks access to the empty constructor of
+ * a fragment class whenever it is called, this class resolves the constructor only once for each
+ * fragment class and caches it, so all subsequent instantiations of fragments of the same class
+ * invoke the cached constructor directly. The cache is safe to be accessed from multiple threads.
+ * <p>
+ * The cache holds fragment classes only weakly and theirs constructors softly (as each constructor
+ * references its class strongly), so fragment classes along with theirs class loaders (for example
+ * classes loaded from dynamically loaded feature splits) may be still unloaded.
+ *
+ * @author Martin Albedinsky
+ */
+public final class FragmentConstructors {
+
+	/**
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "FragmentConstructors";
+
+	/**
+	 * Interface ===================================================================================
+	 */
+
+	/**
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Cache with already resolved empty constructors mapped to weak keys of classes of theirs fragments.
+	 */
+	private static final ConcurrentMap<Object, Reference<Constructor<?>>> sConstructors = new ConcurrentHashMap<>();
+
+	/**
+	 * Queue with weak keys of which fragment classes have been collected.
+	 */
+	private static final ReferenceQueue<Class<?>> sCollectedKeys = new ReferenceQueue<>();
+
+	/**
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 */
+	private FragmentConstructors() {
+		// Creation of instances of this class is not publicly allowed.
+	}
+
+	/**
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Obtains the public empty constructor of the specified <var>classOfFragment</var>.
+	 * <p>
+	 * The constructor is resolved only for the first time it is requested for the fragment class
+	 * and then cached.
+	 *
+	 * @param classOfFragment Class of the fragment of which constructor to obtain.
+	 * @param <F>             Type of the fragment.
+	 * @return Accessible empty constructor of the fragment class.
+	 * @throws Fragment.InstantiationException If the fragment class does not have public empty
+	 *                                         constructor or it is not accessible.
+	 */
+	@NonNull
+	@SuppressWarnings("unchecked")
+	public static <F extends Fragment> Constructor<F> obtainConstructor(@NonNull Class<F> classOfFragment) {
+		final Reference<Constructor<?>> reference = WeakClassKey.get(sConstructors, classOfFragment);
+		Constructor<F> constructor = reference == null ? null : (Constructor<F>) reference.get();
+		if (constructor == null) {
+			try {
+				constructor = classOfFragment.getConstructor();
+				// Suppress access checks performed for each constructor invocation.
+				constructor.setAccessible(true);
+			} catch (NoSuchMethodException e) {
+				throw createInstantiationException(classOfFragment, e);
+			} catch (SecurityException e) {
+				throw createInstantiationException(classOfFragment, e);
+			}
+			expungeCollectedKeys();
+			sConstructors.put(new WeakClassKey(classOfFragment, sCollectedKeys), new SoftReference<Constructor<?>>(constructor));
+		}
+		return constructor;
+	}
+
+	/**
+	 * Removes cached constructors of which fragment classes have been already collected.
+	 */
+	private static void expungeCollectedKeys() {
+		Reference<? extends Class<?>> reference;
+		while ((reference = sCollectedKeys.poll()) != null) {
+			sConstructors.remove(reference);
+		}
+	}
+
+	/**
+	 * Creates a new instance of the specified <var>classOfFragment</var> via its cached empty
+	 * constructor.
+	 *
+	 * @param classOfFragment Class of the fragment to instantiate.
+	 * @param <F>             Type of the fragment.
+	 * @return New instance of the fragment.
+	 * @throws Fragment.InstantiationException If the fragment class does not have public empty
+	 *                                         constructor or it is not accessible. Any unchecked
+	 *                                         exception thrown by the constructor itself is rethrown
+	 *                                         as it is.
+	 * @see #obtainConstructor(Class)
+	 */
+	@NonNull
+	@SuppressWarnings("TryWithIdenticalCatches")
+	public static <F extends Fragment> F newInstance(@NonNull Class<F> classOfFragment) {
+		final Constructor<F> constructor = obtainConstructor(classOfFragment);
+		try {
+			return constructor.newInstance();
+		} catch (InstantiationException e) {
+			throw createInstantiationException(classOfFragment, e);
+		} catch (IllegalAccessException e) {
+			throw createInstantiationException(classOfFragment, e);
+		} catch (InvocationTargetException e) {
+			// Propagate failure of the constructor itself so it is not hidden behind instantiation error.
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw createInstantiationException(classOfFragment, e);
+		}
+	}
+
+	/**
+	 * Clears the cache with already resolved constructors.
+	 */
+	public static void clearCache() {
+		sConstructors.clear();
+	}
+
+	/**
+	 * Creates an exception describing failed instantiation of fragment of the specified class.
+	 */
+	private static Fragment.InstantiationException createInstantiationException(Class<?> classOfFragment, Exception cause) {
+		return new Fragment.InstantiationException(
+				"Unable to instantiate fragment " + classOfFragment.getName() + ". " +
+						"Make sure that this fragment class is accessible and has public empty constructor.",
+				cause
+		);
+	}
+
+	/**
+	 * Inner classes ===============================================================================
+	 */
+}
@@ -0,0 +1,186 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.util;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+
+/**
+ * Key that may be used to map values to classes within a {@link Map} without holding the classes
+ * strongly, so the classes along with theirs class loaders may be still unloaded. Two keys are equal
+ * if they reference the same class, while a key of which class has been already collected is equal
+ * only to itself.
+ * <p>
+ * Values mapped to weak keys may be looked up via {@link #get(Map, Class)} which uses a reusable
+ * lookup key confined to the calling thread, so no key needs to be allocated for each lookup.
+ * <p>
+ * This class is intended to be used by caches of the Fragments library.
+ *
+ * @author Martin Albedinsky
+ */
+public class WeakClassKey extends WeakReference<Class<?>> {
+
+	/**
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "WeakClassKey";
+
+	/**
+	 * Interface ===================================================================================
+	 */
+
+	/**
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Lookup keys confined to threads that look up values mapped to weak keys.
+	 */
+	private static final ThreadLocal<LookupKey> sLookupKeys = new ThreadLocal<LookupKey>() {
+
+		/**
+		 */
+		@Override
+		protected LookupKey initialValue() {
+			return new LookupKey();
+		}
+	};
+
+	/**
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Identity hash of the referenced class.
+	 */
+	private final int mHash;
+
+	/**
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of WeakClassKey for the given <var>keyClass</var>.
+	 *
+	 * @param keyClass The class to be referenced by the new key.
+	 * @param queue    Queue into which to enqueue the new key once its class is collected. May be
+	 *                 {@code null}.
+	 */
+	public WeakClassKey(@NonNull Class<?> keyClass, @Nullable ReferenceQueue<? super Class<?>> queue) {
+		super(keyClass, queue);
+		this.mHash = System.identityHashCode(keyClass);
+	}
+
+	/**
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Returns the value mapped within the given <var>map</var> to a weak key referencing the specified
+	 * <var>keyClass</var>.
+	 *
+	 * @param map      The map containing values mapped to weak keys.
+	 * @param keyClass The class for which to look up the value.
+	 * @param <V>      Type of the values.
+	 * @return Mapped value or {@code null} if there is no value mapped to key of the class.
+	 */
+	@Nullable
+	@SuppressWarnings("SuspiciousMethodCalls")
+	public static <V> V get(@NonNull Map<?, V> map, @NonNull Class<?> keyClass) {
+		final LookupKey key = sLookupKeys.get();
+		key.set(keyClass);
+		try {
+			return map.get(key);
+		} finally {
+			key.set(null);
+		}
+	}
+
+	/**
+	 */
+	@Override
+	public int hashCode() {
+		return mHash;
+	}
+
+	/**
+	 */
+	@Override
+	public boolean equals(Object other) {
+		if (other == this) return true;
+		final Class<?> keyClass = get();
+		if (other instanceof LookupKey) {
+			return keyClass != null && keyClass == ((LookupKey) other).keyClass;
+		}
+		if (!(other instanceof WeakClassKey)) return false;
+		return keyClass != null && keyClass == ((WeakClassKey) other).get();
+	}
+
+	/**
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Reusable key used to look up values mapped to {@link WeakClassKey WeakClassKeys} without
+	 * allocation of a new weak key for each lookup. The key is equal to a weak key referencing the
+	 * same class.
+	 */
+	private static final class LookupKey {
+
+		/**
+		 * Class to be looked up. {@code Null} if the key is not used at this time.
+		 */
+		Class<?> keyClass;
+
+		/**
+		 * Identity hash of the looked up class.
+		 */
+		int hash;
+
+		/**
+		 * Sets the class to be looked up via this key.
+		 */
+		void set(Class<?> keyClass) {
+			this.keyClass = keyClass;
+			this.hash = keyClass == null ? 0 : System.identityHashCode(keyClass);
+		}
+
+		/**
+		 */
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		/**
+		 */
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof WeakClassKey && keyClass != null && keyClass == ((WeakClassKey) other).get();
+		}
+	}
+}
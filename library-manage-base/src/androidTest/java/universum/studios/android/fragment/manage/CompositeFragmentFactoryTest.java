@@ -0,0 +1,174 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.manage;
+
+import android.app.Fragment;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import universum.studios.android.fragment.annotation.FactoryFragments;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class CompositeFragmentFactoryTest {
+
+	/**
+	 * Log TAG.
+	 */
+	@SuppressWarnings("unused")
+	private static final String TAG = "CompositeFragmentFactoryTest";
+
+	@Test
+	public void testRoutesIdsToChildFactories() {
+		final FragmentFactory first = new FirstFactory();
+		final FragmentFactory second = new SecondFactory();
+		final CompositeFragmentFactory factory = new CompositeFragmentFactory(first, second);
+		assertThat(factory.findFactory(1), is(sameInstance(first)));
+		assertThat(factory.findFactory(2), is(sameInstance(first)));
+		assertThat(factory.findFactory(3), is(sameInstance(first)));
+		assertThat(factory.findFactory(Integer.MIN_VALUE), is(sameInstance(second)));
+		assertThat(factory.findFactory(-1), is(sameInstance(second)));
+		assertThat(factory.findFactory(Integer.MAX_VALUE), is(sameInstance(second)));
+		assertThat(factory.findFactory(0), is(nullValue()));
+		assertThat(factory.findFactory(4), is(nullValue()));
+		assertThat(factory.isFragmentProvided(Integer.MAX_VALUE), is(true));
+		assertThat(factory.isFragmentProvided(Integer.MAX_VALUE - 1), is(false));
+		assertThat(factory.createFragmentTag(2), is(first.createFragmentTag(2)));
+		assertThat(factory.createFragmentTag(0), is(nullValue()));
+	}
+
+	@Test
+	public void testRoutesManyIds() {
+		final FragmentFactory first = new FirstFactory();
+		final FragmentFactory many = new ManyIdsFactory();
+		final CompositeFragmentFactory factory = new CompositeFragmentFactory(first, many);
+		for (final int id : ManyIdsFactory.class.getAnnotation(FactoryFragments.class).value()) {
+			assertThat(factory.findFactory(id), is(sameInstance(many)));
+		}
+		assertThat(factory.findFactory(1), is(sameInstance(first)));
+		assertThat(factory.findFactory(1001), is(nullValue()));
+		assertThat(factory.findFactory(-1000), is(nullValue()));
+	}
+
+	@Test
+	public void testAddFactoryWithCollidingIds() {
+		final FragmentFactory first = new FirstFactory();
+		final CompositeFragmentFactory factory = new CompositeFragmentFactory(first);
+		try {
+			factory.addFactory(new CollidingFactory());
+			fail("Expected IllegalStateException for colliding fragment ids.");
+		} catch (IllegalStateException e) {
+			assertThat(e.getMessage().contains("Fragment id(3)"), is(true));
+		}
+		// Failed addition must leave the composite factory untouched.
+		assertThat(factory.getFactories().size(), is(1));
+		assertThat(factory.findFactory(3), is(sameInstance(first)));
+		assertThat(factory.findFactory(4), is(nullValue()));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testCreateWithCollidingFactories() {
+		new CompositeFragmentFactory(new FirstFactory(), new CollidingFactory());
+	}
+
+	@Test
+	public void testAddSameFactoryTwice() {
+		final FragmentFactory first = new FirstFactory();
+		final CompositeFragmentFactory factory = new CompositeFragmentFactory();
+		assertThat(factory.addFactory(first), is(true));
+		assertThat(factory.addFactory(first), is(false));
+		assertThat(factory.getFactories().size(), is(1));
+	}
+
+	@Test
+	public void testRemoveFactory() {
+		final FragmentFactory first = new FirstFactory();
+		final FragmentFactory second = new SecondFactory();
+		final CompositeFragmentFactory factory = new CompositeFragmentFactory(first, second);
+		assertThat(factory.removeFactory(first), is(true));
+		assertThat(factory.removeFactory(first), is(false));
+		assertThat(factory.findFactory(1), is(nullValue()));
+		assertThat(factory.findFactory(Integer.MIN_VALUE), is(sameInstance(second)));
+		// Ids of the removed factory are no longer reported as colliding.
+		final FragmentFactory colliding = new CollidingFactory();
+		assertThat(factory.addFactory(colliding), is(true));
+		assertThat(factory.findFactory(3), is(sameInstance(colliding)));
+		assertThat(factory.findFactory(4), is(sameInstance(colliding)));
+	}
+
+	@Test
+	public void testProbesFactoriesWithUnknownIds() {
+		final FragmentFactory first = new FirstFactory();
+		final FragmentFactory probed = new ProbedFactory();
+		final CompositeFragmentFactory factory = new CompositeFragmentFactory(first, probed);
+		assertThat(factory.findFactory(1), is(sameInstance(first)));
+		assertThat(factory.findFactory(100), is(sameInstance(probed)));
+		assertThat(factory.findFactory(99), is(nullValue()));
+		assertThat(factory.createFragment(100), is(instanceOf(Fragment.class)));
+	}
+
+	@FactoryFragments({1, 2, 3})
+	public static final class FirstFactory extends BaseFragmentFactory {
+	}
+
+	@FactoryFragments({Integer.MIN_VALUE, -1, Integer.MAX_VALUE})
+	public static final class SecondFactory extends BaseFragmentFactory {
+	}
+
+	@FactoryFragments({3, 4})
+	public static final class CollidingFactory extends BaseFragmentFactory {
+	}
+
+	@FactoryFragments({
+			-999, -512, -100, -64, -33, -32, -31, -17, -16, -15, -8, -7,
+			8, 9, 10, 16, 24, 32, 40, 48, 56, 64, 72, 80,
+			127, 128, 129, 255, 256, 257, 511, 512, 513, 999, 1000
+	})
+	public static final class ManyIdsFactory extends BaseFragmentFactory {
+	}
+
+	public static final class ProbedFactory implements FragmentFactory {
+
+		@Override
+		public boolean isFragmentProvided(int fragmentId) {
+			return fragmentId == 100;
+		}
+
+		@Override
+		public Fragment createFragment(int fragmentId) {
+			return isFragmentProvided(fragmentId) ? new Fragment() : null;
+		}
+
+		@Override
+		public String createFragmentTag(int fragmentId) {
+			return isFragmentProvided(fragmentId) ? "test.TAG." + fragmentId : null;
+		}
+	}
+}
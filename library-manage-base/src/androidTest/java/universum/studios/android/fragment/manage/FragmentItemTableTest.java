@@ -0,0 +1,188 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.manage;
+
+import android.app.Fragment;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.SparseArray;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class FragmentItemTableTest {
+
+	/**
+	 * Log TAG.
+	 */
+	@SuppressWarnings("unused")
+	private static final String TAG = "FragmentItemTableTest";
+
+	@Test
+	public void testEmpty() {
+		final FragmentItemTable table = new FragmentItemTable(new SparseArray<FragmentItem>());
+		assertThat(table.size(), is(0));
+		assertThat(table.contains(0), is(false));
+		assertThat(table.get(0), is(nullValue()));
+		assertThat(table.ids().length, is(0));
+		assertThat(FragmentItemTable.EMPTY.size(), is(0));
+		assertThat(FragmentItemTable.EMPTY.contains(0), is(false));
+	}
+
+	@Test
+	public void testDenseAtRangeBoundary() {
+		// Range of 4 items may be at most 2 * 4 + 16 = 24 ids long to be stored densely.
+		final FragmentItemTable table = createTable(0, 1, 2, 23);
+		assertThat(isDense(table), is(true));
+		assertContainsExactly(table, 0, 1, 2, 23);
+		assertThat(table.contains(3), is(false));
+		assertThat(table.contains(22), is(false));
+		assertThat(table.contains(-1), is(false));
+		assertThat(table.contains(24), is(false));
+	}
+
+	@Test
+	public void testHashedJustAboveRangeBoundary() {
+		final FragmentItemTable table = createTable(0, 1, 2, 24);
+		assertThat(isDense(table), is(false));
+		assertContainsExactly(table, 0, 1, 2, 24);
+		assertThat(table.contains(3), is(false));
+		assertThat(table.contains(23), is(false));
+		assertThat(table.contains(-1), is(false));
+		assertThat(table.contains(25), is(false));
+	}
+
+	@Test
+	public void testNegativeIds() {
+		final FragmentItemTable denseTable = createTable(-5, -3, -1, 0, 2);
+		assertThat(isDense(denseTable), is(true));
+		assertContainsExactly(denseTable, -5, -3, -1, 0, 2);
+		assertThat(denseTable.contains(-6), is(false));
+		assertThat(denseTable.contains(-4), is(false));
+		assertThat(denseTable.contains(3), is(false));
+		final FragmentItemTable hashedTable = createTable(-100000, -5000, -1, 7000);
+		assertThat(isDense(hashedTable), is(false));
+		assertContainsExactly(hashedTable, -100000, -5000, -1, 7000);
+		assertThat(hashedTable.contains(-5001), is(false));
+		assertThat(hashedTable.contains(1), is(false));
+	}
+
+	@Test
+	public void testIdsSpanningWholeIntRange() {
+		final FragmentItemTable table = createTable(Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE);
+		assertThat(isDense(table), is(false));
+		assertContainsExactly(table, Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE);
+		assertThat(table.contains(Integer.MIN_VALUE + 1), is(false));
+		assertThat(table.contains(Integer.MAX_VALUE - 1), is(false));
+		assertThat(table.contains(2), is(false));
+		final FragmentItemTable boundsTable = createTable(Integer.MIN_VALUE, Integer.MAX_VALUE);
+		assertThat(isDense(boundsTable), is(false));
+		assertContainsExactly(boundsTable, Integer.MIN_VALUE, Integer.MAX_VALUE);
+		final FragmentItemTable topTable = createTable(Integer.MAX_VALUE - 2, Integer.MAX_VALUE);
+		assertThat(isDense(topTable), is(true));
+		assertContainsExactly(topTable, Integer.MAX_VALUE - 2, Integer.MAX_VALUE);
+		assertThat(topTable.contains(Integer.MAX_VALUE - 1), is(false));
+		assertThat(topTable.contains(Integer.MIN_VALUE), is(false));
+	}
+
+	@Test
+	public void testProbeWrapsAroundEndOfTable() {
+		// Table with 3 items has 8 slots. Find ids of which home slot is the last one, so the
+		// colliding ids are stored at the beginning of the table.
+		final int[] ids = findIdsWithHomeSlot(7, 7, 4);
+		final FragmentItemTable table = createTable(ids[0], ids[1], ids[2]);
+		assertThat(isDense(table), is(false));
+		assertThat(table.toString().contains("slots: 8"), is(true));
+		assertContainsExactly(table, ids[0], ids[1], ids[2]);
+		// Lookup of an absent id with the same home slot must stop at the first empty slot.
+		assertThat(table.contains(ids[3]), is(false));
+		assertThat(table.get(ids[3]), is(nullValue()));
+	}
+
+	@Test
+	public void testIds() {
+		final int[] denseIds = {-2, 0, 1, 5};
+		final int[] hashedIds = {Integer.MIN_VALUE, -300, 12, 4000, Integer.MAX_VALUE};
+		final int[] ids = createTable(denseIds).ids();
+		Arrays.sort(ids);
+		assertThat(Arrays.equals(ids, denseIds), is(true));
+		final int[] hashedTableIds = createTable(hashedIds).ids();
+		Arrays.sort(hashedTableIds);
+		assertThat(Arrays.equals(hashedTableIds, hashedIds), is(true));
+	}
+
+	@Test
+	public void testTagsAreInterned() {
+		final SparseArray<FragmentItem> items = new SparseArray<>();
+		items.put(1, new FragmentItem(1, Fragment.class, new String("test.TAG.First")));
+		items.put(2, new FragmentItem(2, Fragment.class));
+		final FragmentItemTable table = new FragmentItemTable(items);
+		assertThat(table.getTag(1), is(sameInstance("test.TAG.First")));
+		assertThat(table.getTag(2), is(nullValue()));
+		assertThat(table.getTag(3), is(nullValue()));
+	}
+
+	private static FragmentItemTable createTable(int... ids) {
+		final SparseArray<FragmentItem> items = new SparseArray<>();
+		for (final int id : ids) {
+			items.put(id, new FragmentItem(id, Fragment.class, "test.TAG." + id));
+		}
+		return new FragmentItemTable(items);
+	}
+
+	private static boolean isDense(FragmentItemTable table) {
+		return table.toString().contains("dense: true");
+	}
+
+	private static void assertContainsExactly(FragmentItemTable table, int... ids) {
+		assertThat(table.size(), is(ids.length));
+		for (final int id : ids) {
+			assertThat(table.contains(id), is(true));
+			assertThat(table.get(id).id, is(id));
+			assertThat(table.getTag(id), is("test.TAG." + id));
+		}
+	}
+
+	private static int[] findIdsWithHomeSlot(int slot, int mask, int count) {
+		final int[] ids = new int[count];
+		int found = 0;
+		// Keep the ids far apart so they are never stored densely.
+		for (int id = 0; found < count; id++) {
+			if (slotOf(id, mask) == slot && (found == 0 || id - ids[found - 1] > 100)) {
+				ids[found++] = id;
+			}
+		}
+		return ids;
+	}
+
+	private static int slotOf(int id, int mask) {
+		final int hash = id * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+}
@@ -25,13 +25,19 @@ import android.text.TextUtils;
 import android.util.Log;
 import android.util.SparseArray;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.lang.reflect.Field;
+import java.util.Collection;
 
 import universum.studios.android.fragment.annotation.FactoryFragment;
 import universum.studios.android.fragment.annotation.FactoryFragments;
 import universum.studios.android.fragment.annotation.FragmentAnnotations;
 import universum.studios.android.fragment.manage.BaseFragmentFactory;
+import universum.studios.android.fragment.manage.FragmentInstantiator;
 import universum.studios.android.fragment.manage.FragmentItem;
+import universum.studios.android.fragment.manage.FragmentItemTable;
 
 /**
  * An {@link AnnotationHandlers} implementation providing {@link AnnotationHandler} instances for
@@ -66,6 +72,65 @@ public final class BaseManagementAnnotationHandlers extends AnnotationHandlers {
 		return obtainHandler(FragmentFactoryHandler.class, classOfFactory);
 	}
 
+	/**
+	 * Registers type of handlers obtained via {@link #obtainFactoryHandler(Class)} for {@link BaseFragmentFactory} and
+	 * all its subclasses, so handlers for such classes may be pre-warmed.
+	 * <p>
+	 * <b>Note</b>, that this method is called by {@link BaseFragmentFactory} class itself whenever it is
+	 * initialized.
+	 *
+	 * @see AnnotationHandlers#prewarmHandlers(java.util.concurrent.Executor, boolean, Class[])
+	 */
+	public static void registerHandlerTypes() {
+		registerHandlerType(BaseFragmentFactory.class, FragmentFactoryHandler.class);
+		registerSnapshotReader(FragmentFactoryHandler.class, new AnnotationSnapshot.HandlerReader() {
+
+			/**
+			 */
+			@NonNull
+			@Override
+			public AnnotationHandler readHandler(@NonNull Class<?> annotatedClass, @NonNull DataInput input) throws IOException {
+				// Values are read in the same order as written by FragmentFactoryHandler.writeSnapshot(DataOutput).
+				final int itemsCount = input.readInt();
+				final SparseArray<FragmentItem> items = new SparseArray<>(itemsCount);
+				for (int i = 0; i < itemsCount; i++) {
+					final int id = input.readInt();
+					final String typeName = input.readUTF();
+					final Class<? extends Fragment> type;
+					try {
+						type = Class.forName(typeName, false, annotatedClass.getClassLoader()).asSubclass(Fragment.class);
+					} catch (ClassNotFoundException e) {
+						throw new IOException("Fragment class(" + typeName + ") no longer exists.", e);
+					}
+					items.put(id, new FragmentItem(id, type, AnnotationSnapshot.readString(input)));
+				}
+				return createFactoryHandler(annotatedClass, items, null);
+			}
+		});
+	}
+
+	/**
+	 * Creates a new {@link FragmentFactoryAnnotationHandler} implementation for the given <var>classOfFactory</var>
+	 * with fragment items of {@link FactoryFragments @FactoryFragments} and {@link FactoryFragment @FactoryFragment}
+	 * annotations already resolved.
+	 * <p>
+	 * <b>Note</b>, that this method is intended to be called only from {@link AnnotationHandlerRegistry}
+	 * implementations generated by the Fragments annotation processor.
+	 *
+	 * @param classOfFactory Class of the factory for which to create the handler.
+	 * @param items          Resolved fragment items. May be {@code null} if there are no items.
+	 * @param instantiator   Instantiator for the resolved fragment items. May be {@code null}.
+	 * @return New factory handler with the specified items and instantiator.
+	 */
+	@NonNull
+	public static FragmentFactoryAnnotationHandler createFactoryHandler(
+			@NonNull Class<?> classOfFactory,
+			@Nullable SparseArray<FragmentItem> items,
+			@Nullable FragmentInstantiator instantiator
+	) {
+		return new FragmentFactoryHandler(classOfFactory, items, instantiator);
+	}
+
 	/**
 	 * Inner classes ===============================================================================
 	 */
@@ -81,6 +146,17 @@ public final class BaseManagementAnnotationHandlers extends AnnotationHandlers {
 		 */
 		private final SparseArray<FragmentItem> items;
 
+		/**
+		 * Lookup table built from {@link #items}.
+		 */
+		private final FragmentItemTable itemTable;
+
+		/**
+		 * Instantiator for fragments of the items. Available only if this handler has been created
+		 * with already resolved items.
+		 */
+		private final FragmentInstantiator instantiator;
+
 		/**
 		 * Same as {@link BaseAnnotationHandler#BaseAnnotationHandler(Class, Class)} with
 		 * {@link BaseFragmentFactory} as <var>maxSuperClass</var>.
@@ -133,6 +209,71 @@ public final class BaseManagementAnnotationHandlers extends AnnotationHandlers {
 				}
 			}, mAnnotatedClass, mMaxSuperClass);
 			this.items = items.size() > 0 ? items : null;
+			this.itemTable = this.items == null ? FragmentItemTable.EMPTY : new FragmentItemTable(this.items);
+			this.instantiator = null;
+		}
+
+		/**
+		 * Creates a new instance of FragmentFactoryHandler for the specified <var>annotatedClass</var>
+		 * with the given already resolved <var>items</var>.
+		 *
+		 * @see BaseManagementAnnotationHandlers#createFactoryHandler(Class, SparseArray, FragmentInstantiator)
+		 */
+		FragmentFactoryHandler(Class<?> annotatedClass, SparseArray<FragmentItem> items, FragmentInstantiator instantiator) {
+			super(annotatedClass, BaseFragmentFactory.class);
+			this.items = items != null && items.size() > 0 ? items : null;
+			this.itemTable = this.items == null ? FragmentItemTable.EMPTY : new FragmentItemTable(this.items);
+			this.instantiator = instantiator;
+		}
+
+		/**
+		 */
+		@Override
+		void collectReachableClasses(@NonNull Collection<Class<?>> classes) {
+			if (items != null) {
+				final int itemsCount = items.size();
+				for (int i = 0; i < itemsCount; i++) {
+					final Class<? extends Fragment> type = items.valueAt(i).type;
+					if (!Fragment.class.equals(type) && !classes.contains(type)) {
+						classes.add(type);
+					}
+				}
+			}
+		}
+
+		/**
+		 */
+		@Override
+		boolean writeSnapshot(@NonNull DataOutput output) throws IOException {
+			if (instantiator != null) {
+				// Handler with already resolved items does not need to be snapshot.
+				return false;
+			}
+			final int itemsCount = items == null ? 0 : items.size();
+			output.writeInt(itemsCount);
+			for (int i = 0; i < itemsCount; i++) {
+				final FragmentItem item = items.valueAt(i);
+				output.writeInt(item.id);
+				output.writeUTF(item.type.getName());
+				AnnotationSnapshot.writeString(output, item.tag);
+			}
+			return true;
+		}
+
+		/**
+		 */
+		@Override
+		int estimateRetainedSize() {
+			int size = super.estimateRetainedSize();
+			if (items != null) {
+				final int itemsCount = items.size();
+				for (int i = 0; i < itemsCount; i++) {
+					final String tag = items.valueAt(i).tag;
+					// Item object with its slots in SparseArray and FragmentItemTable + its tag String with its characters.
+					size += 48 + (tag == null ? 0 : 40 + tag.length() * 2);
+				}
+			}
+			return size;
 		}
 
 		/**
@@ -142,5 +283,21 @@ public final class BaseManagementAnnotationHandlers extends AnnotationHandlers {
 		public SparseArray<FragmentItem> getFragmentItems() {
 			return items;
 		}
+
+		/**
+		 */
+		@Override
+		@NonNull
+		public FragmentItemTable getFragmentItemTable() {
+			return itemTable;
+		}
+
+		/**
+		 */
+		@Override
+		@Nullable
+		public FragmentInstantiator getFragmentInstantiator() {
+			return instantiator;
+		}
 	}
 }
@@ -18,13 +18,16 @@
  */
 package universum.studios.android.fragment.annotation.handler;
 
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.SparseArray;
 
 import universum.studios.android.fragment.annotation.FactoryFragment;
 import universum.studios.android.fragment.annotation.FactoryFragments;
 import universum.studios.android.fragment.manage.BaseFragmentFactory;
+import universum.studios.android.fragment.manage.FragmentInstantiator;
 import universum.studios.android.fragment.manage.FragmentItem;
+import universum.studios.android.fragment.manage.FragmentItemTable;
 
 /**
  * An {@link AnnotationHandler} extended interface for annotation handlers from the Fragments library
@@ -45,4 +48,25 @@ public interface FragmentFactoryAnnotationHandler extends AnnotationHandler {
 	 */
 	@Nullable
 	SparseArray<FragmentItem> getFragmentItems();
+
+	/**
+	 * Returns the immutable lookup table built from items provided by {@link #getFragmentItems()}.
+	 * <p>
+	 * The table is built only once for the annotated class, so it may be shared by all its instances.
+	 *
+	 * @return Table with fragment items. May be {@link FragmentItemTable#EMPTY} if there were no
+	 * annotations specified.
+	 */
+	@NonNull
+	FragmentItemTable getFragmentItemTable();
+
+	/**
+	 * Returns the instantiator that may be used to instantiate fragments for items provided by
+	 * {@link #getFragmentItems()} without use of reflection.
+	 *
+	 * @return Fragment instantiator or {@code null} if there is no instantiator available for the
+	 * annotated class, like when the handler has not been generated by the Fragments annotation processor.
+	 */
+	@Nullable
+	FragmentInstantiator getFragmentInstantiator();
 }
@@ -22,7 +22,6 @@ import android.app.Fragment;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.text.TextUtils;
-import android.util.SparseArray;
 
 import universum.studios.android.fragment.FragmentsConfig;
 import universum.studios.android.fragment.annotation.FactoryFragment;
@@ -60,6 +59,21 @@ import universum.studios.android.fragment.annotation.handler.FragmentFactoryAnno
  * </li>
  * </ul>
  *
+ * <h3>Fragments instantiation</h3>
+ * Fragments for ids specified via {@link FactoryFragment @FactoryFragment} annotation are instantiated
+ * via {@link FragmentInstantiator FragmentInstantiators} without use of {@link Class#newInstance()}.
+ * A fragment is first requested from instantiator supplied via {@link #BaseFragmentFactory(FragmentInstantiator)}
+ * (if any), then from instantiator generated for the factory class by the Fragments annotation
+ * processor (if available) and finally from {@link ConstructorFragmentInstantiator} which uses
+ * cached constructors of the fragment classes.
+ *
+ * <h3>Thread safety</h3>
+ * All state of BaseFragmentFactory used to resolve fragments and theirs tags is immutable, so the
+ * factory may be safely used from multiple threads at once without any locking. Fragments may be
+ * also created in background via {@link FragmentFactories#createFragmentAsync(FragmentFactory, int, java.util.concurrent.Executor)}.
+ * Subclasses that override any of the {@code provides/onCreate} methods and a supplied
+ * {@link FragmentInstantiator} must preserve this contract.
+ *
  * @author Martin Albedinsky
  */
 public abstract class BaseFragmentFactory implements FragmentFactory {
@@ -81,6 +95,11 @@ public abstract class BaseFragmentFactory implements FragmentFactory {
 	 * Static members ==============================================================================
 	 */
 
+	static {
+		// Allow pre-warming of annotation handlers for subclasses of this class.
+		BaseManagementAnnotationHandlers.registerHandlerTypes();
+	}
+
 	/**
 	 * Members =====================================================================================
 	 */
@@ -92,35 +111,55 @@ public abstract class BaseFragmentFactory implements FragmentFactory {
 	private final FragmentFactoryAnnotationHandler mAnnotationHandler;
 
 	/**
-	 * Set of fragment item holders created from annotated fields ({@link FactoryFragment @FactoryDialog})
-	 * of this factory instance.
+	 * Lookup table with fragment item holders created from annotated fields ({@link FactoryFragment @FactoryFragment})
+	 * of this factory instance. The table is immutable and shared by all instances of this factory class.
+	 */
+	private final FragmentItemTable mItemTable;
+
+	/**
+	 * Instantiator supplied for this factory instance and used to instantiate fragments for
+	 * {@link #mItemTable} in the first place. May be {@code null}.
 	 */
-	private final SparseArray<FragmentItem> mItems;
+	private final FragmentInstantiator mSuppliedInstantiator;
 
 	/**
-	 * Id of the fragment that has been last checked via {@link #isFragmentProvided(int)}.
+	 * Instantiator generated for this factory class and used to instantiate fragments for {@link #mItemTable}
+	 * without reflection. May be {@code null}.
 	 */
-	private int mLastCheckedFragmentId = -1;
+	private final FragmentInstantiator mInstantiator;
 
 	/**
-	 * Flag indicating whether an instance of fragment for {@link #mLastCheckedFragmentId} is
-	 * provided by this factory or not.
+	 * Prefix of tags created for fragment ids that are not presented in {@link #mItemTable}. Resolved
+	 * lazily whenever such tag is requested for the first time.
 	 */
-	private boolean mFragmentProvided;
+	private volatile String mTagPrefix;
 
 	/**
 	 * Constructors ================================================================================
 	 */
 
 	/**
-	 * Creates a new instance of BaseFragmentFactory.
+	 * Same as {@link #BaseFragmentFactory(FragmentInstantiator)} with {@code null} <var>instantiator</var>.
+	 */
+	public BaseFragmentFactory() {
+		this(null);
+	}
+
+	/**
+	 * Creates a new instance of BaseFragmentFactory with the given fragment <var>instantiator</var>.
 	 * <p>
 	 * If annotations processing is enabled via {@link FragmentsConfig} all annotations supported by
 	 * this class will be processed/obtained here so they can be later used.
+	 *
+	 * @param instantiator Instantiator that should be used to instantiate fragments for items of the
+	 *                     new factory in the first place. May be {@code null} to use only the generated
+	 *                     or default instantiator. The instantiator must be safe for concurrent use.
 	 */
-	public BaseFragmentFactory() {
+	protected BaseFragmentFactory(@Nullable FragmentInstantiator instantiator) {
+		this.mSuppliedInstantiator = instantiator;
 		this.mAnnotationHandler = onCreateAnnotationHandler();
-		this.mItems = mAnnotationHandler == null ? null : mAnnotationHandler.getFragmentItems();
+		this.mItemTable = mAnnotationHandler == null ? FragmentItemTable.EMPTY : mAnnotationHandler.getFragmentItemTable();
+		this.mInstantiator = mAnnotationHandler == null ? null : mAnnotationHandler.getFragmentInstantiator();
 	}
 
 	/**
@@ -173,27 +212,32 @@ public abstract class BaseFragmentFactory implements FragmentFactory {
 		return mAnnotationHandler;
 	}
 
+	/**
+	 * Returns the lookup table with items created from annotations of this factory.
+	 *
+	 * @return Table with fragment items. May be {@link FragmentItemTable#EMPTY}.
+	 */
+	@NonNull
+	FragmentItemTable getItemTable() {
+		return mItemTable;
+	}
+
 	/**
 	 */
 	@Override
 	public boolean isFragmentProvided(int fragmentId) {
-		if (fragmentId == mLastCheckedFragmentId) {
-			return mFragmentProvided;
-		}
-		this.mLastCheckedFragmentId = fragmentId;
-		return mFragmentProvided = providesFragment(fragmentId);
+		return providesFragment(fragmentId);
 	}
 
 	/**
-	 * Invoked whenever {@link #isFragmentProvided(int)} is called and the specified <var>fragmentId</var>
-	 * differs from the one last time called.
+	 * Invoked whenever {@link #isFragmentProvided(int)} is called.
 	 * <p>
 	 * This implementation returns {@code true} if there is {@link FactoryFragments @FactoryFragments}
 	 * or {@link FactoryFragment @FactoryFragment} annotation presented for the specified <var>fragmentId</var>,
-	 * {@code false} otherwise.
+	 * {@code false} otherwise. The check is performed in a constant time without any allocations.
 	 */
 	protected boolean providesFragment(int fragmentId) {
-		return mItems != null && mItems.indexOfKey(fragmentId) >= 0;
+		return mItemTable.contains(fragmentId);
 	}
 
 	/**
@@ -209,11 +253,26 @@ public abstract class BaseFragmentFactory implements FragmentFactory {
 	 * instance for the specified <var>fragmentId</var>.
 	 * <p>
 	 * This implementation returns the requested fragment instance instantiated from class specified
-	 * via {@link FactoryFragment @FactoryFragment}. If instantiation fails an exception is thrown.
+	 * via {@link FactoryFragment @FactoryFragment}. The fragment is instantiated via the supplied
+	 * {@link FragmentInstantiator} if any, then via instantiator generated for this factory by the
+	 * Fragments annotation processor if available, otherwise via {@link ConstructorFragmentInstantiator}.
+	 * If instantiation fails an exception is thrown.
 	 */
 	@NonNull
 	protected Fragment onCreateFragment(int fragmentId) {
-		final Fragment fragment = mItems.get(fragmentId).newFragmentInstance(null);
+		final FragmentItem item = mItemTable.get(fragmentId);
+		Fragment fragment = null;
+		if (item != null) {
+			if (mSuppliedInstantiator != null) {
+				fragment = mSuppliedInstantiator.instantiateFragment(item);
+			}
+			if (fragment == null && mInstantiator != null) {
+				fragment = mInstantiator.instantiateFragment(item);
+			}
+			if (fragment == null) {
+				fragment = ConstructorFragmentInstantiator.INSTANCE.instantiateFragment(item);
+			}
+		}
 		if (fragment == null) {
 			throw new IllegalArgumentException("Failed to instantiate fragment for the requested id(" + fragmentId + ")!");
 		}
@@ -234,12 +293,20 @@ public abstract class BaseFragmentFactory implements FragmentFactory {
 	 * <p>
 	 * This implementation returns the requested fragment TAG created from fragment ids specified
 	 * via {@link FactoryFragments @FactoryFragments} or for a single id marked by {@link FactoryFragment @FactoryFragment}.
-	 * If neither of these annotations is presented, the TAG is created via {@link #createFragmentTag(Class, String)}
+	 * If neither of these annotations is presented, the TAG is created in format of {@link #createFragmentTag(Class, String)}
 	 * with the fragment id as <var>fragmentName</var>.
 	 */
 	@Nullable
 	protected String onCreateFragmentTag(int fragmentId) {
-		return mItems.indexOfKey(fragmentId) >= 0 ? mItems.get(fragmentId).tag : createFragmentTag(getClass(), Integer.toString(fragmentId));
+		if (mItemTable.contains(fragmentId)) {
+			return mItemTable.getTag(fragmentId);
+		}
+		String prefix = mTagPrefix;
+		if (prefix == null) {
+			final Class<?> classOfFactory = getClass();
+			this.mTagPrefix = prefix = classOfFactory.getPackage().getName() + "." + classOfFactory.getSimpleName() + ".TAG.";
+		}
+		return prefix + fragmentId;
 	}
 
 	/**
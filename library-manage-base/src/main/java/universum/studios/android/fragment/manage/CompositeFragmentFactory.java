@@ -0,0 +1,399 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.manage;
+
+import android.app.Fragment;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link FragmentFactory} implementation that composes multiple child factories, like factories
+ * of separate feature modules, into a single factory that may be attached to {@link FragmentController}.
+ *
+ * <h3>Routing</h3>
+ * Whenever a child {@link BaseFragmentFactory} is added via {@link #addFactory(FragmentFactory)} all
+ * ids of fragments specified for that factory via annotations are merged into a single index of
+ * this composite factory, so requests for theirs fragments and tags are routed to the appropriate
+ * child factory in a constant time. Ids of the added factory are checked against ids of already
+ * added factories, so an id collision is reported immediately when adding the factory instead of
+ * being resolved silently by the order of the factories.
+ * <p>
+ * Child factories that are not instances of {@link BaseFragmentFactory} or that override
+ * {@link BaseFragmentFactory#isFragmentProvided(int)} or {@link BaseFragmentFactory#providesFragment(int)}
+ * may provide fragments for ids that are not known up front. Such factories are probed in the
+ * order in which they have been added only if the requested id is not found in the index.
+ *
+ * <h3>Lazy registration</h3>
+ * Child factories may be added and removed at any time, also after this factory has been attached
+ * to {@link FragmentController}, like when a particular feature module is loaded. The index is
+ * immutable and is replaced by a new one whenever the set of child factories changes, so the
+ * routing is safe to be performed from multiple threads without any locking.
+ *
+ * @author Martin Albedinsky
+ */
+public final class CompositeFragmentFactory implements FragmentFactory {
+
+	/**
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "CompositeFragmentFactory";
+
+	/**
+	 * Empty array of factories.
+	 */
+	private static final FragmentFactory[] NO_FACTORIES = new FragmentFactory[0];
+
+	/**
+	 * Interface ===================================================================================
+	 */
+
+	/**
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Lock used to synchronize modifications of the child factories.
+	 */
+	private final Object mLock = new Object();
+
+	/**
+	 * List with all added child factories in the order in which they have been added.
+	 */
+	private final List<FragmentFactory> mFactories = new ArrayList<>(2);
+
+	/**
+	 * Index of child factories mapped to ids of theirs fragments known up front.
+	 */
+	private volatile Index mIndex = Index.EMPTY;
+
+	/**
+	 * Array of child factories that need to be probed for ids not found in {@link #mIndex}.
+	 */
+	private volatile FragmentFactory[] mProbedFactories = NO_FACTORIES;
+
+	/**
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of CompositeFragmentFactory with the given child <var>factories</var>.
+	 *
+	 * @param factories The initial child factories. May be empty if the factories will be added
+	 *                  later via {@link #addFactory(FragmentFactory)}.
+	 * @throws IllegalStateException If ids of fragments of the given factories collide.
+	 */
+	public CompositeFragmentFactory(@NonNull FragmentFactory... factories) {
+		for (final FragmentFactory factory : factories) {
+			addFactory(factory);
+		}
+	}
+
+	/**
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Adds the given <var>factory</var> as child of this composite factory.
+	 * <p>
+	 * Ids of fragments specified for the factory via annotations are merged into the index of this
+	 * composite factory.
+	 *
+	 * @param factory The desired factory to add.
+	 * @return {@code True} if the factory has been added, {@code false} if it has been already added.
+	 * @throws IllegalStateException If some of the ids of the factory collides with id of already
+	 *                               added factory.
+	 * @see #removeFactory(FragmentFactory)
+	 */
+	public boolean addFactory(@NonNull FragmentFactory factory) {
+		synchronized (mLock) {
+			if (mFactories.contains(factory)) {
+				return false;
+			}
+			Index index = mIndex;
+			if (factory instanceof BaseFragmentFactory) {
+				final int[] ids = ((BaseFragmentFactory) factory).getItemTable().ids();
+				for (final int id : ids) {
+					final FragmentFactory current = index.get(id);
+					if (current != null) {
+						throw new IllegalStateException(
+								"Fragment id(" + id + ") of factory(" + factory.getClass().getName() + ") " +
+										"collides with id provided by factory(" + current.getClass().getName() + ")!"
+						);
+					}
+				}
+				index = index.with(ids, factory);
+			}
+			this.mFactories.add(factory);
+			this.mIndex = index;
+			if (requiresProbing(factory)) {
+				this.mProbedFactories = appendFactory(mProbedFactories, factory);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Removes the given <var>factory</var> from children of this composite factory.
+	 *
+	 * @param factory The desired factory to remove.
+	 * @return {@code True} if the factory has been removed, {@code false} if it has not been added.
+	 * @see #addFactory(FragmentFactory)
+	 */
+	public boolean removeFactory(@NonNull FragmentFactory factory) {
+		synchronized (mLock) {
+			if (!mFactories.remove(factory)) {
+				return false;
+			}
+			Index index = Index.EMPTY;
+			FragmentFactory[] probedFactories = NO_FACTORIES;
+			for (final FragmentFactory child : mFactories) {
+				if (child instanceof BaseFragmentFactory) {
+					index = index.with(((BaseFragmentFactory) child).getItemTable().ids(), child);
+				}
+				if (requiresProbing(child)) {
+					probedFactories = appendFactory(probedFactories, child);
+				}
+			}
+			this.mIndex = index;
+			this.mProbedFactories = probedFactories;
+			return true;
+		}
+	}
+
+	/**
+	 * Returns list with all child factories of this composite factory.
+	 *
+	 * @return Unmodifiable list with child factories in the order in which they have been added.
+	 */
+	@NonNull
+	public List<FragmentFactory> getFactories() {
+		synchronized (mLock) {
+			return Collections.unmodifiableList(new ArrayList<>(mFactories));
+		}
+	}
+
+	/**
+	 * Checks whether the given <var>factory</var> may provide fragments for ids that are not known
+	 * up front, so it needs to be probed.
+	 */
+	private static boolean requiresProbing(FragmentFactory factory) {
+		if (!(factory instanceof BaseFragmentFactory)) {
+			return true;
+		}
+		Class<?> classOfFactory = factory.getClass();
+		while (!BaseFragmentFactory.class.equals(classOfFactory)) {
+			if (declaresMethod(classOfFactory, "isFragmentProvided") || declaresMethod(classOfFactory, "providesFragment")) {
+				return true;
+			}
+			classOfFactory = classOfFactory.getSuperclass();
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether the given <var>classOfFactory</var> declares method with the specified
+	 * <var>name</var> accepting a single fragment id.
+	 */
+	private static boolean declaresMethod(Class<?> classOfFactory, String name) {
+		try {
+			classOfFactory.getDeclaredMethod(name, int.class);
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Creates a new array with the given <var>factories</var> and the <var>factory</var> appended.
+	 */
+	private static FragmentFactory[] appendFactory(FragmentFactory[] factories, FragmentFactory factory) {
+		final FragmentFactory[] newFactories = new FragmentFactory[factories.length + 1];
+		System.arraycopy(factories, 0, newFactories, 0, factories.length);
+		newFactories[factories.length] = factory;
+		return newFactories;
+	}
+
+	/**
+	 * Finds the child factory that provides fragment for the specified <var>fragmentId</var>.
+	 *
+	 * @param fragmentId Id of the desired fragment.
+	 * @return Child factory providing the fragment or {@code null} if there is no such factory.
+	 */
+	@Nullable
+	public FragmentFactory findFactory(int fragmentId) {
+		final FragmentFactory factory = mIndex.get(fragmentId);
+		if (factory != null) {
+			return factory;
+		}
+		final FragmentFactory[] probedFactories = mProbedFactories;
+		for (final FragmentFactory probedFactory : probedFactories) {
+			if (probedFactory.isFragmentProvided(fragmentId)) {
+				return probedFactory;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 */
+	@Override
+	public boolean isFragmentProvided(int fragmentId) {
+		return findFactory(fragmentId) != null;
+	}
+
+	/**
+	 */
+	@Nullable
+	@Override
+	public Fragment createFragment(int fragmentId) {
+		final FragmentFactory factory = findFactory(fragmentId);
+		return factory == null ? null : factory.createFragment(fragmentId);
+	}
+
+	/**
+	 */
+	@Nullable
+	@Override
+	public String createFragmentTag(int fragmentId) {
+		final FragmentFactory factory = findFactory(fragmentId);
+		return factory == null ? null : factory.createFragmentTag(fragmentId);
+	}
+
+	/**
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Immutable open addressing table of child factories mapped to ids of theirs fragments.
+	 */
+	private static final class Index {
+
+		/**
+		 * Index without any ids.
+		 */
+		static final Index EMPTY = new Index(0);
+
+		/**
+		 * Multiplier used to spread ids across slots of the table.
+		 */
+		private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+		/**
+		 * Count of ids stored in this index.
+		 */
+		final int size;
+
+		/**
+		 * Mask used to compute index of a slot within the table.
+		 */
+		final int mask;
+
+		/**
+		 * Ids stored at the corresponding slots.
+		 */
+		final int[] ids;
+
+		/**
+		 * Factories stored at the corresponding slots. Empty slots contain {@code null}.
+		 */
+		final FragmentFactory[] factories;
+
+		/**
+		 * Creates a new instance of Index with capacity sufficient for the specified count of ids.
+		 *
+		 * @param size Count of ids to be stored in the new index.
+		 */
+		private Index(int size) {
+			final int capacity = Integer.highestOneBit(Math.max(size, 1)) << 2;
+			this.size = size;
+			this.mask = capacity - 1;
+			this.ids = new int[capacity];
+			this.factories = new FragmentFactory[capacity];
+		}
+
+		/**
+		 * Returns index of the home slot for the given <var>id</var>.
+		 */
+		private int slotOf(int id) {
+			final int hash = id * HASH_MULTIPLIER;
+			return (hash ^ (hash >>> 16)) & mask;
+		}
+
+		/**
+		 * Returns the factory mapped to the specified <var>id</var> or {@code null} if there is
+		 * no such factory.
+		 */
+		FragmentFactory get(int id) {
+			int slot = slotOf(id);
+			FragmentFactory factory;
+			while ((factory = factories[slot]) != null) {
+				if (ids[slot] == id) {
+					return factory;
+				}
+				slot = (slot + 1) & mask;
+			}
+			return null;
+		}
+
+		/**
+		 * Stores the given <var>factory</var> for the specified <var>id</var>. Used only while
+		 * the index is being built.
+		 */
+		private void put(int id, FragmentFactory factory) {
+			int slot = slotOf(id);
+			while (factories[slot] != null) {
+				slot = (slot + 1) & mask;
+			}
+			ids[slot] = id;
+			factories[slot] = factory;
+		}
+
+		/**
+		 * Creates a new index with ids of this index and the given <var>ids</var> mapped to the
+		 * specified <var>factory</var>. The ids must not be already stored in this index.
+		 */
+		Index with(int[] ids, FragmentFactory factory) {
+			if (ids.length == 0) {
+				return this;
+			}
+			final Index index = new Index(size + ids.length);
+			for (int i = 0; i < factories.length; i++) {
+				if (factories[i] != null) {
+					index.put(this.ids[i], factories[i]);
+				}
+			}
+			for (final int id : ids) {
+				index.put(id, factory);
+			}
+			return index;
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.manage;
+
+import android.app.Fragment;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import universum.studios.android.fragment.util.FragmentConstructors;
+
+/**
+ * A {@link FragmentInstantiator} implementation that instantiates fragments via theirs public empty
+ * constructors which are resolved only once for each fragment class and then cached via
+ * {@link FragmentConstructors}.
+ * <p>
+ * This instantiator is used by {@link BaseFragmentFactory} for all items for which there is neither
+ * user supplied nor generated instantiator available. Instantiation errors are propagated to the
+ * caller, only for items of the default {@link android.app.Fragment Fragment.class} type is returned
+ * {@code null}.
+ *
+ * @author Martin Albedinsky
+ */
+public final class ConstructorFragmentInstantiator implements FragmentInstantiator {
+
+	/**
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "ConstructorFragmentInstantiator";
+
+	/**
+	 * Shared instance of this instantiator. The instantiator is stateless, so it may be shared.
+	 */
+	public static final ConstructorFragmentInstantiator INSTANCE = new ConstructorFragmentInstantiator();
+
+	/**
+	 * Interface ===================================================================================
+	 */
+
+	/**
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of ConstructorFragmentInstantiator.
+	 *
+	 * @see #INSTANCE
+	 */
+	private ConstructorFragmentInstantiator() {
+		super();
+	}
+
+	/**
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 */
+	@Nullable
+	@Override
+	public Fragment instantiateFragment(@NonNull FragmentItem item) {
+		return Fragment.class.equals(item.type) ? null : FragmentConstructors.newInstance(item.type);
+	}
+
+	/**
+	 * Inner classes ===============================================================================
+	 */
+}
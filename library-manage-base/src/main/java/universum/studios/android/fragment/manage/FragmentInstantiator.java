@@ -0,0 +1,51 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.manage;
+
+import android.app.Fragment;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import universum.studios.android.fragment.annotation.FactoryFragment;
+
+/**
+ * Interface that may be used by {@link BaseFragmentFactory} to instantiate fragments specified via
+ * {@link FactoryFragment @FactoryFragment} annotation without use of reflection.
+ * <p>
+ * Implementations of this interface are primarily generated by the Fragments annotation processor
+ * for each {@link BaseFragmentFactory} subclass. A custom implementation, like one directly invoking
+ * constructors of the fragments for theirs ids, may be also supplied to a factory via
+ * {@link BaseFragmentFactory#BaseFragmentFactory(FragmentInstantiator)}. For items for which none of
+ * these instantiators provides a fragment, the {@link ConstructorFragmentInstantiator} is used.
+ *
+ * @author Martin Albedinsky
+ * @see FragmentItem#newFragmentInstance(android.os.Bundle)
+ */
+public interface FragmentInstantiator {
+
+	/**
+	 * Called to instantiate a new fragment for the given fragment <var>item</var>.
+	 *
+	 * @param item The item for which to instantiate the fragment.
+	 * @return New fragment instance or {@code null} if this instantiator does not support instantiation
+	 * of fragment for the specified item.
+	 */
+	@Nullable
+	Fragment instantiateFragment(@NonNull FragmentItem item);
+}
@@ -22,9 +22,9 @@ import android.app.Fragment;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
-import android.util.Log;
 
 import universum.studios.android.fragment.annotation.FactoryFragment;
+import universum.studios.android.fragment.util.FragmentConstructors;
 
 /**
  * Item that is used by {@link BaseFragmentFactory} to instantiate new fragments that has been
@@ -41,7 +41,7 @@ public final class FragmentItem {
 	/**
 	 * Log TAG.
 	 */
-	private static final String TAG = "FragmentItem";
+	// private static final String TAG = "FragmentItem";
 
 	/**
 	 * Interface ===================================================================================
@@ -100,40 +100,26 @@ public final class FragmentItem {
 
 	/**
 	 * Creates a new instance of Fragment type of specified for this item.
+	 * <p>
+	 * The fragment is instantiated via its empty constructor cached by {@link FragmentConstructors}.
 	 *
 	 * @param arguments Arguments to be attached to the new Fragment instance via {@link Fragment#setArguments(Bundle)}.
 	 * @return New fragment instance or {@code null} if fragment type specified for this item is
-	 * {@link Fragment Fragment.class} which is a default type and such type cannot be instantiated
-	 * or some instantiation error occurs.
+	 * {@link Fragment Fragment.class} which is a default type and such type cannot be instantiated.
+	 * @throws Fragment.InstantiationException If the fragment type does not have public empty
+	 *                                         constructor or it is not accessible.
+	 * @see ConstructorFragmentInstantiator
 	 */
 	@Nullable
-	@SuppressWarnings("TryWithIdenticalCatches")
 	public Fragment newFragmentInstance(@Nullable Bundle arguments) {
 		if (type.equals(Fragment.class)) {
 			return null;
 		}
-		try {
-			final Fragment fragment = type.newInstance();
-			if (arguments != null) {
-				fragment.setArguments(arguments);
-			}
-			return fragment;
-		} catch (InstantiationException e) {
-			Log.e(
-					TAG,
-					"Failed to instantiate a new fragment instance class of(" + type + "). " +
-							"Make sure that this fragment class is accessible and has public empty constructor.",
-					e
-			);
-		} catch (IllegalAccessException e) {
-			Log.e(
-					TAG,
-					"Failed to instantiate a new fragment instance class of(" + type + "). " +
-							"Make sure that this fragment class is accessible and has public empty constructor.",
-					e
-			);
+		final Fragment fragment = FragmentConstructors.newInstance(type);
+		if (arguments != null) {
+			fragment.setArguments(arguments);
 		}
-		return null;
+		return fragment;
 	}
 
 	/**
@@ -0,0 +1,283 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.manage;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.SparseArray;
+
+/**
+ * Immutable lookup table of {@link FragmentItem FragmentItems} mapped to theirs ids that is used by
+ * {@link BaseFragmentFactory} to resolve items for requested fragment ids.
+ * <p>
+ * The table is built only once from the items resolved for a particular factory class and may be
+ * then safely shared across multiple factory instances and threads. If the ids of the items form
+ * a dense range the items are stored in an array indexed directly by theirs ids, otherwise the
+ * items are stored in an open addressing hash table. In both cases lookup of an item is performed
+ * in a constant time without any allocations. Tags of the items are interned when the table is
+ * being built.
+ *
+ * @author Martin Albedinsky
+ */
+public final class FragmentItemTable {
+
+	/**
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "FragmentItemTable";
+
+	/**
+	 * Number of additional slots by which may a range of ids exceed twice the count of items so the
+	 * items are still stored in a direct-indexed array.
+	 */
+	private static final int DENSE_RANGE_SLACK = 16;
+
+	/**
+	 * Multiplier used to spread ids across slots of the open addressing table.
+	 */
+	private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+	/**
+	 * Table without any items.
+	 */
+	public static final FragmentItemTable EMPTY = new FragmentItemTable(null);
+
+	/**
+	 * Interface ===================================================================================
+	 */
+
+	/**
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Number of items stored in this table.
+	 */
+	private final int mSize;
+
+	/**
+	 * Flag indicating whether the items are stored in a direct-indexed array or in an open addressing
+	 * table.
+	 */
+	private final boolean mDense;
+
+	/**
+	 * Smallest id of the stored items. Used as offset into {@link #mItems} for dense table.
+	 */
+	private final int mMinId;
+
+	/**
+	 * Mask used to compute index of a slot within open addressing table.
+	 */
+	private final int mMask;
+
+	/**
+	 * Ids of the items stored at the corresponding slots. Used only for open addressing table.
+	 */
+	private final int[] mIds;
+
+	/**
+	 * Slots with the stored items. Empty slots contain {@code null}.
+	 */
+	private final FragmentItem[] mItems;
+
+	/**
+	 * Interned tags of the items stored at the corresponding slots.
+	 */
+	private final String[] mTags;
+
+	/**
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of FragmentItemTable with the given <var>items</var>.
+	 *
+	 * @param items The items to be stored in the new table. May be {@code null} to create an empty
+	 *              table.
+	 */
+	public FragmentItemTable(@Nullable SparseArray<FragmentItem> items) {
+		final int size = items == null ? 0 : items.size();
+		this.mSize = size;
+		if (size == 0) {
+			this.mDense = true;
+			this.mMinId = 0;
+			this.mMask = 0;
+			this.mIds = null;
+			this.mItems = new FragmentItem[0];
+			this.mTags = new String[0];
+			return;
+		}
+		// Keys of SparseArray are sorted in ascending order.
+		final int minId = items.keyAt(0);
+		final long range = (long) items.keyAt(size - 1) - minId + 1;
+		this.mDense = range <= 2L * size + DENSE_RANGE_SLACK;
+		if (mDense) {
+			this.mMinId = minId;
+			this.mMask = 0;
+			this.mIds = null;
+			this.mItems = new FragmentItem[(int) range];
+			this.mTags = new String[(int) range];
+			for (int i = 0; i < size; i++) {
+				final int index = items.keyAt(i) - minId;
+				mItems[index] = items.valueAt(i);
+				mTags[index] = internTag(items.valueAt(i));
+			}
+		} else {
+			int capacity = Integer.highestOneBit(size) << 2;
+			this.mMinId = 0;
+			this.mMask = capacity - 1;
+			this.mIds = new int[capacity];
+			this.mItems = new FragmentItem[capacity];
+			this.mTags = new String[capacity];
+			for (int i = 0; i < size; i++) {
+				final int id = items.keyAt(i);
+				int index = slotOf(id);
+				while (mItems[index] != null) {
+					index = (index + 1) & mMask;
+				}
+				mIds[index] = id;
+				mItems[index] = items.valueAt(i);
+				mTags[index] = internTag(items.valueAt(i));
+			}
+		}
+	}
+
+	/**
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Returns interned tag of the given <var>item</var>.
+	 */
+	private static String internTag(FragmentItem item) {
+		return item.tag == null ? null : item.tag.intern();
+	}
+
+	/**
+	 * Returns index of the home slot for the given <var>id</var> within open addressing table.
+	 */
+	private int slotOf(int id) {
+		final int hash = id * HASH_MULTIPLIER;
+		return (hash ^ (hash >>> 16)) & mMask;
+	}
+
+	/**
+	 * Returns index of the slot where is stored item with the specified <var>id</var>.
+	 *
+	 * @param id Id of the desired item.
+	 * @return Index of the item's slot or {@code -1} if there is no item with such id stored.
+	 */
+	private int indexOf(int id) {
+		if (mDense) {
+			final int index = id - mMinId;
+			return index >= 0 && index < mItems.length && mItems[index] != null ? index : -1;
+		}
+		int index = slotOf(id);
+		while (mItems[index] != null) {
+			if (mIds[index] == id) {
+				return index;
+			}
+			index = (index + 1) & mMask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks whether this table contains an item with the specified <var>id</var>.
+	 *
+	 * @param id Id of the desired item.
+	 * @return {@code True} if there is item with the id stored, {@code false} otherwise.
+	 */
+	public boolean contains(int id) {
+		return indexOf(id) != -1;
+	}
+
+	/**
+	 * Returns the item with the specified <var>id</var>.
+	 *
+	 * @param id Id of the desired item.
+	 * @return Item stored in this table or {@code null} if there is no item with such id stored.
+	 */
+	@Nullable
+	public FragmentItem get(int id) {
+		final int index = indexOf(id);
+		return index == -1 ? null : mItems[index];
+	}
+
+	/**
+	 * Returns the interned tag of the item with the specified <var>id</var>.
+	 *
+	 * @param id Id of the item of which tag to obtain.
+	 * @return Tag of the item or {@code null} if there is no item with such id stored or the item
+	 * does not have tag specified.
+	 * @see FragmentItem#tag
+	 */
+	@Nullable
+	public String getTag(int id) {
+		final int index = indexOf(id);
+		return index == -1 ? null : mTags[index];
+	}
+
+	/**
+	 * Returns ids of all items stored in this table.
+	 *
+	 * @return New array with ids of the stored items. Order of the ids is not specified.
+	 */
+	@NonNull
+	int[] ids() {
+		final int[] ids = new int[mSize];
+		int count = 0;
+		for (int i = 0; i < mItems.length; i++) {
+			if (mItems[i] != null) {
+				ids[count++] = mDense ? mMinId + i : mIds[i];
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * Returns the count of items stored in this table.
+	 *
+	 * @return Items count.
+	 */
+	public int size() {
+		return mSize;
+	}
+
+	/**
+	 */
+	@NonNull
+	@Override
+	public String toString() {
+		return "FragmentItemTable{size: " + mSize + ", dense: " + mDense + ", slots: " + mItems.length + "}";
+	}
+
+	/**
+	 * Inner classes ===============================================================================
+	 */
+}
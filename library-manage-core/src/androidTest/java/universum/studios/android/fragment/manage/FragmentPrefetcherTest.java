@@ -0,0 +1,354 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.manage;
+
+import android.app.Fragment;
+import android.content.ContextWrapper;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+@RunWith(AndroidJUnit4.class)
+public final class FragmentPrefetcherTest {
+
+	/**
+	 * Log TAG.
+	 */
+	@SuppressWarnings("unused")
+	private static final String TAG = "FragmentPrefetcherTest";
+
+	private static final int MAGIC = 0x46525046;
+	private static final int FORMAT_VERSION = 1;
+	private static final int HEADER_SIZE = 12;
+	private static final int TRANSITION_SIZE = 12;
+	private static final String MODEL_NAME = "test";
+
+	private File mDirectory;
+	private TestContext mContext;
+
+	@Before
+	public void beforeTest() throws IOException {
+		this.mDirectory = File.createTempFile("prefetch", "test");
+		assertThat(mDirectory.delete() && mDirectory.mkdirs(), is(true));
+		this.mContext = new TestContext(mDirectory);
+	}
+
+	@After
+	public void afterTest() {
+		final File[] files = mDirectory.listFiles();
+		if (files != null) {
+			for (final File file : files) {
+				file.delete();
+			}
+		}
+		mDirectory.delete();
+	}
+
+	@Test
+	public void testPredictNextWithoutEnoughSamples() {
+		final FragmentPrefetcher prefetcher = new FragmentPrefetcher(16);
+		record(prefetcher, 1, 2, 1, 2, 1);
+		// Only 2 transitions from fragment 1 while 3 are required by default.
+		assertThat(prefetcher.predictNext(), is(FragmentRequest.NO_ID));
+		record(prefetcher, 2, 1);
+		assertThat(prefetcher.predictNext(), is(2));
+	}
+
+	@Test
+	public void testPredictNextWithoutEnoughProbability() {
+		final FragmentPrefetcher prefetcher = new FragmentPrefetcher(16);
+		record(prefetcher, 1, 2, 1, 3, 1, 4, 1);
+		// Each transition from fragment 1 has probability of 1/3 while 1/2 is required by default.
+		assertThat(prefetcher.predictNext(), is(FragmentRequest.NO_ID));
+		prefetcher.minConfidence(3, 0.3f);
+		assertThat(prefetcher.predictNext(), is(2));
+	}
+
+	@Test
+	public void testPredictNextWithCustomConfidence() {
+		final FragmentPrefetcher prefetcher = new FragmentPrefetcher(16).minConfidence(1, 1f);
+		record(prefetcher, 1, 2, 1);
+		assertThat(prefetcher.predictNext(), is(2));
+		record(prefetcher, 3, 1);
+		assertThat(prefetcher.predictNext(), is(FragmentRequest.NO_ID));
+	}
+
+	@Test
+	public void testPredictNextWithoutRequests() {
+		assertThat(new FragmentPrefetcher(16).predictNext(), is(FragmentRequest.NO_ID));
+	}
+
+	@Test
+	public void testRecordRequestOfSameFragment() {
+		final FragmentPrefetcher prefetcher = new FragmentPrefetcher(16);
+		record(prefetcher, 1, 1, 1);
+		assertThat(prefetcher.getTransitionsCount(), is(0));
+	}
+
+	@Test
+	public void testAgingWhenFull() throws IOException {
+		final FragmentPrefetcher prefetcher = new FragmentPrefetcher(3);
+		record(prefetcher, 1, 2, 1, 2, 1, 2, 1, 2, 3);
+		assertThat(prefetcher.getTransitionsCount(), is(3));
+		assertThat(savedModel(prefetcher), is(model(1, 2, 4, 2, 1, 3, 2, 3, 1)));
+		// New transition does not fit, so the counts are halved and the rare transition dropped.
+		record(prefetcher, 4);
+		assertThat(prefetcher.getTransitionsCount(), is(3));
+		assertThat(savedModel(prefetcher), is(model(1, 2, 2, 2, 1, 1, 3, 4, 1)));
+	}
+
+	@Test
+	public void testAgingWhenFullDropsAllRareTransitions() throws IOException {
+		final FragmentPrefetcher prefetcher = new FragmentPrefetcher(2);
+		record(prefetcher, 1, 2, 1);
+		assertThat(prefetcher.getTransitionsCount(), is(2));
+		record(prefetcher, 3);
+		assertThat(prefetcher.getTransitionsCount(), is(1));
+		assertThat(savedModel(prefetcher), is(model(1, 3, 1)));
+	}
+
+	@Test
+	public void testSaveAndLoad() throws IOException {
+		final FragmentPrefetcher prefetcher = new FragmentPrefetcher(16);
+		record(prefetcher, 1, 2, 1, 2, 1, 2, 3, 1, 2);
+		assertThat(prefetcher.save(mContext, MODEL_NAME), is(true));
+		assertThat(new File(mDirectory, "fragments-prefetch-" + MODEL_NAME + ".tmp").exists(), is(false));
+		final FragmentPrefetcher loaded = new FragmentPrefetcher(16);
+		assertThat(loaded.load(mContext, MODEL_NAME), is(true));
+		assertThat(loaded.getTransitionsCount(), is(prefetcher.getTransitionsCount()));
+		assertThat(savedModel(loaded), is(model(1, 2, 4, 2, 1, 2, 2, 3, 1, 3, 1, 1)));
+		record(loaded, 1);
+		assertThat(loaded.predictNext(), is(2));
+	}
+
+	@Test
+	public void testLoadMergesWithRecordedModel() throws IOException {
+		final FragmentPrefetcher prefetcher = new FragmentPrefetcher(16);
+		record(prefetcher, 1, 2, 1);
+		assertThat(prefetcher.save(mContext, MODEL_NAME), is(true));
+		final FragmentPrefetcher loaded = new FragmentPrefetcher(16);
+		record(loaded, 1, 2, 3);
+		assertThat(loaded.load(mContext, MODEL_NAME), is(true));
+		assertThat(savedModel(loaded), is(model(1, 2, 2, 2, 1, 1, 2, 3, 1)));
+	}
+
+	@Test
+	public void testLoadIntoFullPrefetcher() throws IOException {
+		final FragmentPrefetcher prefetcher = new FragmentPrefetcher(16);
+		record(prefetcher, 1, 2, 3);
+		assertThat(prefetcher.save(mContext, MODEL_NAME), is(true));
+		final FragmentPrefetcher loaded = new FragmentPrefetcher(1);
+		record(loaded, 1, 2);
+		assertThat(loaded.load(mContext, MODEL_NAME), is(true));
+		// Transitions that do not fit are skipped.
+		assertThat(loaded.getTransitionsCount(), is(1));
+		assertThat(savedModel(loaded), is(model(1, 2, 2)));
+	}
+
+	@Test
+	public void testLoadWithoutFile() {
+		assertThat(new FragmentPrefetcher(16).load(mContext, MODEL_NAME), is(false));
+	}
+
+	@Test
+	public void testLoadTruncatedFile() throws IOException {
+		final byte[] content = createModelFile();
+		for (int length = 0; length < content.length; length++) {
+			final byte[] truncated = new byte[length];
+			System.arraycopy(content, 0, truncated, 0, length);
+			writeFile(truncated);
+			assertLoadFails();
+		}
+	}
+
+	@Test
+	public void testLoadFileWithInvalidMagic() throws IOException {
+		createModelFile();
+		writeIntAt(0, 0xCAFEBABE);
+		assertLoadFails();
+	}
+
+	@Test
+	public void testLoadFileWithInvalidVersion() throws IOException {
+		createModelFile();
+		writeIntAt(4, FORMAT_VERSION + 1);
+		assertLoadFails();
+	}
+
+	@Test
+	public void testLoadFileWithInvalidTransitionsCount() throws IOException {
+		createModelFile();
+		writeIntAt(8, -1);
+		assertLoadFails();
+		writeIntAt(8, Integer.MAX_VALUE);
+		assertLoadFails();
+	}
+
+	@Test
+	public void testLoadFileWithInvalidTransitionCount() throws IOException {
+		final int transitions = (createModelFile().length - HEADER_SIZE) / TRANSITION_SIZE;
+		// Corrupt count of the last transition, so all preceding transitions are read successfully.
+		writeIntAt(HEADER_SIZE + transitions * TRANSITION_SIZE - 4, 0);
+		assertLoadFails();
+		writeIntAt(HEADER_SIZE + transitions * TRANSITION_SIZE - 4, -5);
+		assertLoadFails();
+	}
+
+	@Test
+	public void testHitsAndMisses() {
+		final FragmentPrefetcher prefetcher = new FragmentPrefetcher(16);
+		assertThat(prefetcher.getHitRate(), is(0f));
+		final Fragment fragment = new Fragment();
+		prefetcher.putPrefetched(1, fragment);
+		assertThat(prefetcher.getPrefetchedFragmentId(), is(1));
+		assertThat(prefetcher.takePrefetched(1), is(sameInstance(fragment)));
+		assertThat(prefetcher.getPrefetchedFragmentId(), is(FragmentRequest.NO_ID));
+		prefetcher.putPrefetched(2, new Fragment());
+		assertThat(prefetcher.takePrefetched(3), is(nullValue()));
+		prefetcher.putPrefetched(4, new Fragment());
+		prefetcher.discardPrefetched();
+		assertThat(prefetcher.getHits(), is(1));
+		assertThat(prefetcher.getMisses(), is(2));
+		assertThat(prefetcher.getHitRate(), is(1 / 3f));
+	}
+
+	private static void record(FragmentPrefetcher prefetcher, int... fragmentIds) {
+		for (final int fragmentId : fragmentIds) {
+			prefetcher.recordRequest(fragmentId);
+		}
+	}
+
+	private byte[] createModelFile() throws IOException {
+		final FragmentPrefetcher prefetcher = new FragmentPrefetcher(16);
+		record(prefetcher, 1, 2, 1, 2, 3);
+		assertThat(prefetcher.save(mContext, MODEL_NAME), is(true));
+		return readFile();
+	}
+
+	private void assertLoadFails() throws IOException {
+		final FragmentPrefetcher prefetcher = new FragmentPrefetcher(16);
+		record(prefetcher, 5, 6, 5, 6, 5);
+		final Map<Long, Integer> model = savedModel(prefetcher, "recorded");
+		assertThat(prefetcher.load(mContext, MODEL_NAME), is(false));
+		assertThat(prefetcher.getTransitionsCount(), is(2));
+		assertThat(savedModel(prefetcher, "recorded"), is(model));
+		assertThat(prefetcher.predictNext(), is(FragmentRequest.NO_ID));
+		record(prefetcher, 6, 5);
+		assertThat(prefetcher.predictNext(), is(6));
+	}
+
+	private Map<Long, Integer> savedModel(FragmentPrefetcher prefetcher) throws IOException {
+		return savedModel(prefetcher, "saved");
+	}
+
+	private Map<Long, Integer> savedModel(FragmentPrefetcher prefetcher, String name) throws IOException {
+		assertThat(prefetcher.save(mContext, name), is(true));
+		final DataInputStream input = new DataInputStream(new FileInputStream(modelFile(name)));
+		try {
+			assertThat(input.readInt(), is(MAGIC));
+			assertThat(input.readInt(), is(FORMAT_VERSION));
+			final int transitionsCount = input.readInt();
+			final Map<Long, Integer> model = new HashMap<>(transitionsCount);
+			for (int i = 0; i < transitionsCount; i++) {
+				model.put(input.readLong(), input.readInt());
+			}
+			assertThat(input.read(), is(-1));
+			return model;
+		} finally {
+			input.close();
+		}
+	}
+
+	private static Map<Long, Integer> model(int... transitions) {
+		final Map<Long, Integer> model = new HashMap<>(transitions.length / 3);
+		for (int i = 0; i < transitions.length; i += 3) {
+			model.put(((long) transitions[i] << 32) | (transitions[i + 1] & 0xffffffffL), transitions[i + 2]);
+		}
+		return model;
+	}
+
+	private File modelFile(String name) {
+		return new File(mDirectory, "fragments-prefetch-" + name);
+	}
+
+	private byte[] readFile() throws IOException {
+		final RandomAccessFile file = new RandomAccessFile(modelFile(MODEL_NAME), "r");
+		try {
+			final byte[] content = new byte[(int) file.length()];
+			file.readFully(content);
+			return content;
+		} finally {
+			file.close();
+		}
+	}
+
+	private void writeFile(byte[] content) throws IOException {
+		final RandomAccessFile file = new RandomAccessFile(modelFile(MODEL_NAME), "rw");
+		try {
+			file.setLength(0);
+			file.write(content);
+		} finally {
+			file.close();
+		}
+	}
+
+	private void writeIntAt(int offset, int value) throws IOException {
+		final RandomAccessFile file = new RandomAccessFile(modelFile(MODEL_NAME), "rw");
+		try {
+			file.seek(offset);
+			file.writeInt(value);
+		} finally {
+			file.close();
+		}
+	}
+
+	private static final class TestContext extends ContextWrapper {
+
+		private final File filesDir;
+
+		TestContext(File filesDir) {
+			super(null);
+			this.filesDir = filesDir;
+		}
+
+		@Override
+		public File getFilesDir() {
+			return filesDir;
+		}
+	}
+}
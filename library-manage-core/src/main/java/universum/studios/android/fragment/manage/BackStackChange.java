@@ -0,0 +1,183 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.manage;
+
+import android.app.FragmentManager;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable event describing a single change of the fragments back stack as a diff between its
+ * previous and its current state.
+ * <p>
+ * A single change may remove multiple entries, like when the back stack is popped up to a specific
+ * entry, and also add multiple entries, like when multiple transactions are executed at once.
+ *
+ * @author Martin Albedinsky
+ * @see FragmentController.OnBackStackDiffListener
+ */
+public final class BackStackChange {
+
+	/**
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "BackStackChange";
+
+	/**
+	 * Interface ===================================================================================
+	 */
+
+	/**
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * List of entries removed from the back stack ordered from the top.
+	 */
+	private final List<FragmentManager.BackStackEntry> mRemovedEntries;
+
+	/**
+	 * List of entries added into the back stack ordered from the bottom.
+	 */
+	private final List<FragmentManager.BackStackEntry> mAddedEntries;
+
+	/**
+	 * Depth of the back stack before the change.
+	 */
+	private final int mOldDepth;
+
+	/**
+	 * Depth of the back stack after the change.
+	 */
+	private final int mNewDepth;
+
+	/**
+	 * Top entry of the back stack after the change.
+	 */
+	private final FragmentManager.BackStackEntry mTopEntry;
+
+	/**
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of BackStackChange with the given data. The arrays are not copied.
+	 *
+	 * @param removedEntries Entries removed from the back stack ordered from the top.
+	 * @param addedEntries   Entries added into the back stack ordered from the bottom.
+	 * @param oldDepth       Depth of the back stack before the change.
+	 * @param newDepth       Depth of the back stack after the change.
+	 * @param topEntry       Top entry of the back stack after the change. May be {@code null}.
+	 */
+	BackStackChange(
+			FragmentManager.BackStackEntry[] removedEntries,
+			FragmentManager.BackStackEntry[] addedEntries,
+			int oldDepth,
+			int newDepth,
+			FragmentManager.BackStackEntry topEntry
+	) {
+		this.mRemovedEntries = removedEntries.length == 0 ?
+				Collections.<FragmentManager.BackStackEntry>emptyList() :
+				Collections.unmodifiableList(Arrays.asList(removedEntries));
+		this.mAddedEntries = addedEntries.length == 0 ?
+				Collections.<FragmentManager.BackStackEntry>emptyList() :
+				Collections.unmodifiableList(Arrays.asList(addedEntries));
+		this.mOldDepth = oldDepth;
+		this.mNewDepth = newDepth;
+		this.mTopEntry = topEntry;
+	}
+
+	/**
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Returns the entries that have been removed from the back stack.
+	 *
+	 * @return Unmodifiable list of the removed entries ordered from the top most one. May be empty.
+	 */
+	@NonNull
+	public List<FragmentManager.BackStackEntry> getRemovedEntries() {
+		return mRemovedEntries;
+	}
+
+	/**
+	 * Returns the entries that have been added into the back stack.
+	 *
+	 * @return Unmodifiable list of the added entries ordered from the bottom most one. May be empty.
+	 */
+	@NonNull
+	public List<FragmentManager.BackStackEntry> getAddedEntries() {
+		return mAddedEntries;
+	}
+
+	/**
+	 * Returns the count of entries in the back stack before the change.
+	 *
+	 * @return Old back stack depth.
+	 */
+	public int getOldDepth() {
+		return mOldDepth;
+	}
+
+	/**
+	 * Returns the count of entries in the back stack after the change.
+	 *
+	 * @return New back stack depth.
+	 */
+	public int getNewDepth() {
+		return mNewDepth;
+	}
+
+	/**
+	 * Returns the top entry of the back stack after the change.
+	 *
+	 * @return The top back stack entry or {@code null} if the back stack is empty.
+	 */
+	@Nullable
+	public FragmentManager.BackStackEntry getTopEntry() {
+		return mTopEntry;
+	}
+
+	/**
+	 */
+	@Override
+	public String toString() {
+		return "BackStackChange{removed: " + mRemovedEntries.size() +
+				", added: " + mAddedEntries.size() +
+				", oldDepth: " + mOldDepth +
+				", newDepth: " + mNewDepth + "}";
+	}
+
+	/**
+	 * Inner classes ===============================================================================
+	 */
+}
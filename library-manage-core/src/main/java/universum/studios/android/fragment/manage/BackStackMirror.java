@@ -0,0 +1,381 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.manage;
+
+import android.app.Fragment;
+import android.app.FragmentManager;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.SparseIntArray;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Incremental mirror of the fragments back stack maintained by {@link FragmentController} with
+ * indexes of its entries by theirs names (tags of fragments) and factory fragment ids, so back stack
+ * queries may be answered without iterating entries of {@link FragmentManager}.
+ * <p>
+ * The mirror is synchronized with the back stack via {@link #sync(FragmentManager)} whenever the
+ * fragment manager reports a back stack change. Usually only the entries that have been added or
+ * removed are processed.
+ * <p>
+ * Factory ids of entries are known from registrations made via {@link #registerFactoryFragment(String, int)}
+ * when transactions of factory fragments are committed. Entries restored by the fragment manager
+ * after configuration change or process restoration do not have any registrations, so theirs factory
+ * ids are adopted via {@link #adoptFactoryId(String, int)} once the controller resolves them from
+ * theirs names (tags) via the attached factory.
+ *
+ * @author Martin Albedinsky
+ */
+final class BackStackMirror {
+
+	/**
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "BackStackMirror";
+
+	/**
+	 * Initial capacity of the mirror.
+	 */
+	private static final int INITIAL_CAPACITY = 8;
+
+	/**
+	 * Interface ===================================================================================
+	 */
+
+	/**
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Mirrored back stack entries ordered from the bottom to the top.
+	 */
+	private FragmentManager.BackStackEntry[] mEntries = new FragmentManager.BackStackEntry[INITIAL_CAPACITY];
+
+	/**
+	 * Ids of factory fragments of the corresponding entries.
+	 */
+	private int[] mFactoryIds = new int[INITIAL_CAPACITY];
+
+	/**
+	 * Positions of the previous entries with the same name as the corresponding entries. Position
+	 * is {@code -1} if there is no such previous entry.
+	 */
+	private int[] mPreviousPositions = new int[INITIAL_CAPACITY];
+
+	/**
+	 * Positions of the previous entries with the same factory id as the corresponding entries.
+	 * Position is {@code -1} if there is no such previous entry.
+	 */
+	private int[] mPreviousFactoryPositions = new int[INITIAL_CAPACITY];
+
+	/**
+	 * Count of the mirrored entries.
+	 */
+	private int mSize;
+
+	/**
+	 * Positions of the top most entries mapped to theirs names.
+	 */
+	private final Map<String, Integer> mTopPositions = new HashMap<>();
+
+	/**
+	 * Positions of the top most entries mapped to ids of theirs factory fragments.
+	 */
+	private final SparseIntArray mFactoryTopPositions = new SparseIntArray();
+
+	/**
+	 * Ids of factory fragments mapped to theirs tags under which have been theirs transactions
+	 * committed into the back stack. Registrations are dropped when there are no more entries with
+	 * theirs tags.
+	 */
+	private final Map<String, Integer> mFactoryIdsByTag = new HashMap<>();
+
+	/**
+	 * Snapshot of the current state of this mirror. Is {@code null} if it has not been created yet
+	 * for the current state.
+	 */
+	private BackStackSnapshot mSnapshot = BackStackSnapshot.EMPTY;
+
+	/**
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Registers the specified <var>factoryFragmentId</var> for the given <var>tag</var> under which
+	 * is transaction of a factory fragment being committed into the back stack, so its entry may be
+	 * indexed also by the factory id. Should be called only for transactions that are really committed.
+	 *
+	 * @param tag               Name of the future back stack entry.
+	 * @param factoryFragmentId Id of the factory fragment.
+	 */
+	void registerFactoryFragment(@Nullable String tag, int factoryFragmentId) {
+		if (tag != null && factoryFragmentId != FragmentRequest.NO_ID) {
+			mFactoryIdsByTag.put(tag, factoryFragmentId);
+		}
+	}
+
+	/**
+	 * Adopts the specified <var>factoryFragmentId</var> for all mirrored entries with the given
+	 * <var>name</var> that do not have any factory id yet, like entries restored by the fragment
+	 * manager. The caller is responsible for resolving that the name is the tag of the factory
+	 * fragment with the id.
+	 *
+	 * @param name              Name (tag) of the entries for which to adopt the factory id.
+	 * @param factoryFragmentId Id of the factory fragment.
+	 * @return Position of the top most entry of the factory fragment after adoption or {@code -1}
+	 * if there is no such entry mirrored.
+	 */
+	int adoptFactoryId(@Nullable String name, int factoryFragmentId) {
+		int position = lastPositionOf(name);
+		if (position == -1 || factoryFragmentId == FragmentRequest.NO_ID) {
+			return -1;
+		}
+		boolean adopted = false;
+		for (; position != -1; position = mPreviousPositions[position]) {
+			if (mFactoryIds[position] == FragmentRequest.NO_ID) {
+				mFactoryIds[position] = factoryFragmentId;
+				adopted = true;
+			}
+		}
+		if (adopted) {
+			mFactoryIdsByTag.put(name, factoryFragmentId);
+			// Adopted entries may be anywhere within the chains of entries with the same factory
+			// id, so the index is simply rebuilt. This happens at most once per restored tag.
+			mFactoryTopPositions.clear();
+			for (int i = 0; i < mSize; i++) {
+				final int factoryId = mFactoryIds[i];
+				if (factoryId == FragmentRequest.NO_ID) {
+					mPreviousFactoryPositions[i] = -1;
+				} else {
+					mPreviousFactoryPositions[i] = mFactoryTopPositions.get(factoryId, -1);
+					mFactoryTopPositions.put(factoryId, i);
+				}
+			}
+			this.mSnapshot = null;
+		}
+		return lastPositionOfFactoryId(factoryFragmentId);
+	}
+
+	/**
+	 * Synchronizes this mirror with the current back stack of the given <var>manager</var>.
+	 *
+	 * @param manager The fragment manager of which back stack to mirror.
+	 * @return Change describing the entries that have been removed and added since the last
+	 * synchronization or {@code null} if the back stack has not changed.
+	 */
+	@Nullable
+	BackStackChange sync(@NonNull FragmentManager manager) {
+		final int count = manager.getBackStackEntryCount();
+		// Resolve count of entries that are still at the same positions. Usually only the top
+		// entries change, so check the entry just below the changed ones first.
+		int retained = Math.min(count, mSize);
+		if (retained > 0 && manager.getBackStackEntryAt(retained - 1) != mEntries[retained - 1]) {
+			int position = 0;
+			while (position < retained && manager.getBackStackEntryAt(position) == mEntries[position]) {
+				position++;
+			}
+			retained = position;
+		}
+		if (retained == mSize && retained == count) {
+			return null;
+		}
+		final int oldSize = mSize;
+		final FragmentManager.BackStackEntry[] removedEntries = new FragmentManager.BackStackEntry[oldSize - retained];
+		for (int i = 0; i < removedEntries.length; i++) {
+			removedEntries[i] = mEntries[mSize - 1];
+			this.pop();
+		}
+		final FragmentManager.BackStackEntry[] addedEntries = new FragmentManager.BackStackEntry[count - retained];
+		for (int i = 0; i < addedEntries.length; i++) {
+			addedEntries[i] = manager.getBackStackEntryAt(retained + i);
+			this.push(addedEntries[i]);
+		}
+		// Drop registrations of tags that are no longer used by any entry. This is done after the
+		// added entries have been pushed, as a popped entry may be replaced by a new one with the
+		// same tag within a single change.
+		if (removedEntries.length > 0 && !mFactoryIdsByTag.isEmpty()) {
+			final Set<String> removedNames = new HashSet<>(removedEntries.length);
+			for (final FragmentManager.BackStackEntry entry : removedEntries) {
+				final String name = entry.getName();
+				if (name != null && !mTopPositions.containsKey(name)) removedNames.add(name);
+			}
+			mFactoryIdsByTag.keySet().removeAll(removedNames);
+		}
+		this.mSnapshot = null;
+		return new BackStackChange(removedEntries, addedEntries, oldSize, mSize, getTopEntry());
+	}
+
+	/**
+	 * Pushes the given <var>entry</var> at the top of this mirror.
+	 */
+	private void push(FragmentManager.BackStackEntry entry) {
+		if (mSize == mEntries.length) {
+			final int capacity = mSize * 2;
+			final FragmentManager.BackStackEntry[] entries = new FragmentManager.BackStackEntry[capacity];
+			System.arraycopy(mEntries, 0, entries, 0, mSize);
+			this.mEntries = entries;
+			final int[] factoryIds = new int[capacity];
+			System.arraycopy(mFactoryIds, 0, factoryIds, 0, mSize);
+			this.mFactoryIds = factoryIds;
+			final int[] previousPositions = new int[capacity];
+			System.arraycopy(mPreviousPositions, 0, previousPositions, 0, mSize);
+			this.mPreviousPositions = previousPositions;
+			final int[] previousFactoryPositions = new int[capacity];
+			System.arraycopy(mPreviousFactoryPositions, 0, previousFactoryPositions, 0, mSize);
+			this.mPreviousFactoryPositions = previousFactoryPositions;
+		}
+		final String name = entry.getName();
+		final Integer registeredFactoryId = name == null ? null : mFactoryIdsByTag.get(name);
+		final int factoryId = registeredFactoryId == null ? FragmentRequest.NO_ID : registeredFactoryId;
+		final Integer previousPosition = name == null ? null : mTopPositions.put(name, mSize);
+		mEntries[mSize] = entry;
+		mFactoryIds[mSize] = factoryId;
+		mPreviousPositions[mSize] = previousPosition == null ? -1 : previousPosition;
+		if (factoryId == FragmentRequest.NO_ID) {
+			mPreviousFactoryPositions[mSize] = -1;
+		} else {
+			mPreviousFactoryPositions[mSize] = mFactoryTopPositions.get(factoryId, -1);
+			mFactoryTopPositions.put(factoryId, mSize);
+		}
+		this.mSize++;
+	}
+
+	/**
+	 * Pops the top entry of this mirror.
+	 */
+	private void pop() {
+		final int position = --mSize;
+		final String name = mEntries[position].getName();
+		if (name != null) {
+			if (mPreviousPositions[position] == -1) {
+				mTopPositions.remove(name);
+			} else {
+				mTopPositions.put(name, mPreviousPositions[position]);
+			}
+		}
+		final int factoryId = mFactoryIds[position];
+		if (factoryId != FragmentRequest.NO_ID) {
+			if (mPreviousFactoryPositions[position] == -1) {
+				mFactoryTopPositions.delete(factoryId);
+			} else {
+				mFactoryTopPositions.put(factoryId, mPreviousFactoryPositions[position]);
+			}
+		}
+		mEntries[position] = null;
+	}
+
+	/**
+	 * Returns the count of the mirrored entries.
+	 *
+	 * @return Entries count.
+	 */
+	int size() {
+		return mSize;
+	}
+
+	/**
+	 * Returns the mirrored entry at the specified <var>position</var>.
+	 *
+	 * @param position Position of the desired entry. Position {@code 0} specifies the bottom entry.
+	 * @return The entry at the position.
+	 */
+	@NonNull
+	FragmentManager.BackStackEntry getEntryAt(int position) {
+		return mEntries[position];
+	}
+
+	/**
+	 * Returns the top mirrored entry.
+	 *
+	 * @return The top entry or {@code null} if there are no entries mirrored.
+	 */
+	@Nullable
+	FragmentManager.BackStackEntry getTopEntry() {
+		return mSize == 0 ? null : mEntries[mSize - 1];
+	}
+
+	/**
+	 * Returns position of the top most entry with the specified <var>name</var>.
+	 *
+	 * @param name Name of the desired entry.
+	 * @return Position of the entry or {@code -1} if there is no such entry mirrored.
+	 */
+	int lastPositionOf(@Nullable String name) {
+		final Integer position = name == null ? null : mTopPositions.get(name);
+		return position == null ? -1 : position;
+	}
+
+	/**
+	 * Returns position of the top most entry of the factory fragment with the specified <var>factoryFragmentId</var>.
+	 *
+	 * @param factoryFragmentId Id of the desired factory fragment.
+	 * @return Position of the entry or {@code -1} if there is no such entry mirrored.
+	 */
+	int lastPositionOfFactoryId(int factoryFragmentId) {
+		return factoryFragmentId == FragmentRequest.NO_ID ? -1 : mFactoryTopPositions.get(factoryFragmentId, -1);
+	}
+
+	/**
+	 * Returns a snapshot of the current state of this mirror.
+	 *
+	 * @return Immutable snapshot which is shared until the next change of the mirrored entries.
+	 */
+	@NonNull
+	BackStackSnapshot snapshot() {
+		if (mSnapshot == null) {
+			final FragmentManager.BackStackEntry[] entries = new FragmentManager.BackStackEntry[mSize];
+			System.arraycopy(mEntries, 0, entries, 0, mSize);
+			final int[] factoryIds = new int[mSize];
+			System.arraycopy(mFactoryIds, 0, factoryIds, 0, mSize);
+			this.mSnapshot = new BackStackSnapshot(entries, factoryIds);
+		}
+		return mSnapshot;
+	}
+
+	/**
+	 * Clears all mirrored entries along with the registered factory tags.
+	 */
+	void clear() {
+		while (mSize > 0) {
+			this.pop();
+		}
+		mFactoryIdsByTag.clear();
+		this.mSnapshot = BackStackSnapshot.EMPTY;
+	}
+
+	/**
+	 * Inner classes ===============================================================================
+	 */
+}
@@ -0,0 +1,170 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.manage;
+
+import android.app.FragmentManager;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Immutable snapshot of the fragments back stack as mirrored by {@link FragmentController}.
+ * <p>
+ * Entries of the snapshot are ordered in the same way as entries of {@link FragmentManager}, so
+ * entry at index {@code 0} is the bottom entry and entry at index {@code size() - 1} is the top
+ * entry. For each entry the snapshot also provides id of the factory fragment that has been added
+ * into the back stack via that entry, if the entry has been created for a factory fragment request.
+ * Entries restored by the fragment manager after configuration change or process restoration get
+ * theirs factory ids only once they are looked up by a factory id via the controller, like via
+ * {@link FragmentController#getBackStackDepth(int)}.
+ * <p>
+ * A snapshot may be obtained via {@link FragmentController#getBackStackSnapshot()}.
+ *
+ * @author Martin Albedinsky
+ */
+public final class BackStackSnapshot {
+
+	/**
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "BackStackSnapshot";
+
+	/**
+	 * Snapshot of an empty back stack.
+	 */
+	static final BackStackSnapshot EMPTY = new BackStackSnapshot(new FragmentManager.BackStackEntry[0], new int[0]);
+
+	/**
+	 * Interface ===================================================================================
+	 */
+
+	/**
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Back stack entries ordered from the bottom to the top.
+	 */
+	private final FragmentManager.BackStackEntry[] mEntries;
+
+	/**
+	 * Ids of factory fragments of the corresponding entries.
+	 */
+	private final int[] mFactoryIds;
+
+	/**
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of BackStackSnapshot with the given data. The arrays are not copied.
+	 *
+	 * @param entries    Back stack entries ordered from the bottom to the top.
+	 * @param factoryIds Ids of factory fragments of the corresponding entries.
+	 */
+	BackStackSnapshot(FragmentManager.BackStackEntry[] entries, int[] factoryIds) {
+		this.mEntries = entries;
+		this.mFactoryIds = factoryIds;
+	}
+
+	/**
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Returns the count of entries of this snapshot.
+	 *
+	 * @return Entries count.
+	 */
+	public int size() {
+		return mEntries.length;
+	}
+
+	/**
+	 * Checks whether this snapshot has some entries.
+	 *
+	 * @return {@code True} if the back stack has been empty at time of this snapshot, {@code false}
+	 * otherwise.
+	 */
+	public boolean isEmpty() {
+		return mEntries.length == 0;
+	}
+
+	/**
+	 * Returns the back stack entry at the specified <var>index</var>.
+	 *
+	 * @param index Index of the desired entry. Index {@code 0} specifies the bottom entry.
+	 * @return Back stack entry at the index.
+	 * @throws IndexOutOfBoundsException If the index is out of range of this snapshot.
+	 */
+	@NonNull
+	public FragmentManager.BackStackEntry getEntryAt(int index) {
+		return mEntries[index];
+	}
+
+	/**
+	 * Returns id of the factory fragment that has been added into the back stack via entry at the
+	 * specified <var>index</var>.
+	 *
+	 * @param index Index of the desired entry. Index {@code 0} specifies the bottom entry.
+	 * @return Factory fragment id or {@link FragmentRequest#NO_ID} if the entry has not been created
+	 * for a factory fragment request.
+	 * @throws IndexOutOfBoundsException If the index is out of range of this snapshot.
+	 */
+	public int getFactoryIdAt(int index) {
+		return mFactoryIds[index];
+	}
+
+	/**
+	 * Returns the top entry of this snapshot.
+	 *
+	 * @return The top back stack entry or {@code null} if this snapshot is empty.
+	 */
+	@Nullable
+	public FragmentManager.BackStackEntry getTopEntry() {
+		return mEntries.length == 0 ? null : mEntries[mEntries.length - 1];
+	}
+
+	/**
+	 * Returns index of the top most entry created for the factory fragment with the specified
+	 * <var>factoryFragmentId</var>.
+	 *
+	 * @param factoryFragmentId Id of the desired factory fragment.
+	 * @return Index of the entry or {@code -1} if there is no such entry in this snapshot.
+	 */
+	public int lastIndexOf(int factoryFragmentId) {
+		for (int i = mFactoryIds.length - 1; i >= 0; i--) {
+			if (mFactoryIds[i] == factoryFragmentId) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Inner classes ===============================================================================
+	 */
+}
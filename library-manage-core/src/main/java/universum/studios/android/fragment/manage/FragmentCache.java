@@ -0,0 +1,444 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.manage;
+
+import android.app.Fragment;
+import android.support.annotation.IntDef;
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A cache that may be used by {@link FragmentController} to keep instances of factory fragments
+ * that are replaced within a single view container, so such fragments do not need to be re-created
+ * whenever they are requested to be displayed again (like in case of tab-style navigation).
+ * <p>
+ * When a cache is attached to the controller via {@link FragmentController#setFragmentCache(FragmentCache)},
+ * each {@link FragmentRequest#REPLACE} request for a factory fragment is performed so the outgoing
+ * fragment, if cached, is detached (or hidden) instead of being removed and the incoming fragment is
+ * attached (or shown) if there is its instance already cached. Entries of the cache are evicted in
+ * the least recently used order whenever the count of cached fragments exceeds the maximum count
+ * specified via {@link #FragmentCache(int)} or their total size exceeds the maximum size specified
+ * via {@link #maxSize(long, SizeCalculator)}. Evicted fragments are removed from the fragment manager.
+ * <p>
+ * <b>Note</b>, that the cache is primarily designed for navigation where the replaced fragments are
+ * not added into the back stack.
+ *
+ * @author Martin Albedinsky
+ * @see FragmentController#setFragmentCache(FragmentCache)
+ */
+public final class FragmentCache {
+
+	/**
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "FragmentCache";
+
+	/**
+	 * Mode determining that the cached fragments should be detached and attached when replaced.
+	 * Detached fragments have their views destroyed, but their instances and state are retained.
+	 *
+	 * @see android.app.FragmentTransaction#detach(Fragment)
+	 * @see android.app.FragmentTransaction#attach(Fragment)
+	 */
+	public static final int MODE_DETACH = 0x00;
+
+	/**
+	 * Mode determining that the cached fragments should be hidden and shown when replaced. Hidden
+	 * fragments retain also their views, so they may be displayed again faster, but for the cost of
+	 * higher memory usage.
+	 *
+	 * @see android.app.FragmentTransaction#hide(Fragment)
+	 * @see android.app.FragmentTransaction#show(Fragment)
+	 */
+	public static final int MODE_HIDE = 0x01;
+
+	/**
+	 * Defines an annotation for determining available modes for {@link #mode(int)} method.
+	 */
+	@IntDef({MODE_DETACH, MODE_HIDE})
+	@Retention(RetentionPolicy.SOURCE)
+	public @interface Mode {
+	}
+
+	/**
+	 * Interface ===================================================================================
+	 */
+
+	/**
+	 * Calculator that may be used to calculate size of a cached fragment in units that are used to
+	 * specify maximum size of {@link FragmentCache}.
+	 *
+	 * @author Martin Albedinsky
+	 * @see #maxSize(long, SizeCalculator)
+	 */
+	public interface SizeCalculator {
+
+		/**
+		 * Calculates size of the given <var>fragment</var>.
+		 *
+		 * @param fragmentId Factory id of the fragment.
+		 * @param fragment   The fragment of which size to calculate.
+		 * @return Size of the fragment. Should not change while the fragment is cached.
+		 */
+		long sizeOf(int fragmentId, @NonNull Fragment fragment);
+	}
+
+	/**
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Cached entries mapped to factory ids of theirs fragments, ordered from the least recently used.
+	 */
+	private final LinkedHashMap<Integer, Entry> mEntries = new LinkedHashMap<>(8, 0.75f, true);
+
+	/**
+	 * Maximum count of fragments that may be cached.
+	 */
+	private final int mMaxCount;
+
+	/**
+	 * Maximum total size of the cached fragments. Is {@code 0} if not limited.
+	 */
+	private long mMaxSize;
+
+	/**
+	 * Calculator used to calculate size of the cached fragments.
+	 */
+	private SizeCalculator mSizeCalculator;
+
+	/**
+	 * Current total size of the cached fragments.
+	 */
+	private long mSize;
+
+	/**
+	 * Mode determining how to replace the cached fragments.
+	 */
+	@Mode
+	private int mMode = MODE_DETACH;
+
+	/**
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of FragmentCache with the specified <var>maxCount</var>.
+	 *
+	 * @param maxCount Maximum count of fragments that may be cached.
+	 */
+	public FragmentCache(@IntRange(from = 1) int maxCount) {
+		if (maxCount < 1) throw new IllegalArgumentException("Max count of cached fragments must be at least 1!");
+		this.mMaxCount = maxCount;
+	}
+
+	/**
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Sets a mode determining how the cached fragments should be replaced.
+	 * <p>
+	 * Default value: <b>{@link #MODE_DETACH}</b>
+	 *
+	 * @param mode The desired mode. One of {@link #MODE_DETACH} or {@link #MODE_HIDE}.
+	 * @return This cache to allow methods chaining.
+	 * @see #mode()
+	 */
+	public FragmentCache mode(@Mode int mode) {
+		this.mMode = mode;
+		return this;
+	}
+
+	/**
+	 * Returns the mode determining how the cached fragments are replaced.
+	 *
+	 * @return One of {@link #MODE_DETACH} or {@link #MODE_HIDE}.
+	 * @see #mode(int)
+	 */
+	@Mode
+	public int mode() {
+		return mMode;
+	}
+
+	/**
+	 * Specifies a maximum total size of the cached fragments.
+	 *
+	 * @param maxSize        The desired maximum size. May be {@code 0} to not limit size of the cache.
+	 * @param sizeCalculator Calculator used to calculate size of the cached fragments. Must be
+	 *                       specified if the <var>maxSize</var> is greater than {@code 0}.
+	 * @return This cache to allow methods chaining.
+	 */
+	public FragmentCache maxSize(long maxSize, @Nullable SizeCalculator sizeCalculator) {
+		if (maxSize > 0 && sizeCalculator == null) {
+			throw new IllegalArgumentException("Cannot limit size of the cache without size calculator!");
+		}
+		this.mMaxSize = Math.max(0, maxSize);
+		this.mSizeCalculator = sizeCalculator;
+		return this;
+	}
+
+	/**
+	 * Returns the maximum count of fragments that may be cached.
+	 *
+	 * @return Maximum count.
+	 */
+	public int maxCount() {
+		return mMaxCount;
+	}
+
+	/**
+	 * Returns the count of the currently cached fragments.
+	 *
+	 * @return Count of cached fragments.
+	 */
+	public int size() {
+		return mEntries.size();
+	}
+
+	/**
+	 * Returns the fragment cached for the specified <var>fragmentId</var> and marks it as the most
+	 * recently used.
+	 *
+	 * @param fragmentId Factory id of the desired fragment.
+	 * @return Cached fragment or {@code null} if there is no fragment cached for the id.
+	 */
+	@Nullable
+	Fragment get(int fragmentId) {
+		final Entry entry = mEntries.get(fragmentId);
+		return entry == null ? null : entry.fragment;
+	}
+
+	/**
+	 * Checks whether there is fragment cached for the specified <var>fragmentId</var>. Unlike
+	 * {@link #get(int)}, this does not change order of the cached fragments.
+	 *
+	 * @param fragmentId Factory id of the fragment to check.
+	 * @return {@code True} if the fragment is cached, {@code false} otherwise.
+	 */
+	boolean contains(int fragmentId) {
+		return mEntries.containsKey(fragmentId);
+	}
+
+	/**
+	 * Checks whether the given <var>fragment</var> is cached.
+	 *
+	 * @param fragment The fragment to check.
+	 * @return {@code True} if the fragment is cached, {@code false} otherwise.
+	 */
+	boolean contains(Fragment fragment) {
+		for (final Entry entry : mEntries.values()) {
+			if (entry.fragment == fragment) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Puts the given <var>fragment</var> into this cache as the most recently used one and evicts
+	 * the least recently used fragments if the limits of this cache are exceeded.
+	 *
+	 * @param fragmentId Factory id of the fragment.
+	 * @param fragment   The fragment to be cached.
+	 * @param evicted    List into which to add the evicted fragments.
+	 */
+	void put(int fragmentId, Fragment fragment, List<Fragment> evicted) {
+		final Entry current = mEntries.get(fragmentId);
+		if (current != null) {
+			if (current.fragment == fragment) {
+				return;
+			}
+			this.removeEntry(fragmentId);
+			evicted.add(current.fragment);
+		}
+		final Entry entry = new Entry(fragment, mSizeCalculator == null ? 0 : mSizeCalculator.sizeOf(fragmentId, fragment));
+		mEntries.put(fragmentId, entry);
+		this.mSize += entry.size;
+		final Iterator<Map.Entry<Integer, Entry>> iterator = mEntries.entrySet().iterator();
+		while (exceedsLimits() && iterator.hasNext()) {
+			final Entry eldest = iterator.next().getValue();
+			if (eldest != entry) {
+				iterator.remove();
+				this.mSize -= eldest.size;
+				evicted.add(eldest.fragment);
+			}
+		}
+	}
+
+	/**
+	 * Collects fragments that would be evicted from this cache if the given <var>fragment</var> has
+	 * been put into it via {@link #put(int, Fragment, List)}. Unlike put, this does not change
+	 * content nor order of the cached fragments.
+	 *
+	 * @param fragmentId Factory id of the fragment.
+	 * @param fragment   The fragment that is about to be cached.
+	 * @param evicted    List into which to add the fragments that would be evicted.
+	 */
+	void collectEvictions(int fragmentId, Fragment fragment, List<Fragment> evicted) {
+		Entry current = null;
+		for (final Map.Entry<Integer, Entry> entry : mEntries.entrySet()) {
+			if (entry.getKey() == fragmentId) {
+				current = entry.getValue();
+				break;
+			}
+		}
+		int count = mEntries.size() + 1;
+		long size = mSize + (mSizeCalculator == null ? 0 : mSizeCalculator.sizeOf(fragmentId, fragment));
+		if (current != null) {
+			if (current.fragment == fragment) {
+				return;
+			}
+			count--;
+			size -= current.size;
+			evicted.add(current.fragment);
+		}
+		final Iterator<Entry> iterator = mEntries.values().iterator();
+		while (exceedsLimits(count, size) && iterator.hasNext()) {
+			final Entry eldest = iterator.next();
+			if (eldest != current) {
+				count--;
+				size -= eldest.size;
+				evicted.add(eldest.fragment);
+			}
+		}
+	}
+
+	/**
+	 * Returns all fragments currently cached by this cache ordered from the least recently used one.
+	 * Unlike {@link #get(int)}, this does not change order of the cached fragments.
+	 *
+	 * @return List with cached fragments.
+	 */
+	@NonNull
+	List<Fragment> fragments() {
+		final List<Fragment> fragments = new ArrayList<>(mEntries.size());
+		for (final Entry entry : mEntries.values()) {
+			fragments.add(entry.fragment);
+		}
+		return fragments;
+	}
+
+	/**
+	 * Checks whether the current count or size of the cached fragments exceeds limits of this cache.
+	 */
+	private boolean exceedsLimits() {
+		return exceedsLimits(mEntries.size(), mSize);
+	}
+
+	/**
+	 * Checks whether the specified <var>count</var> or <var>size</var> of cached fragments exceeds
+	 * limits of this cache.
+	 */
+	private boolean exceedsLimits(int count, long size) {
+		return count > mMaxCount || (mMaxSize > 0 && size > mMaxSize);
+	}
+
+	/**
+	 * Removes entry for the specified <var>fragmentId</var> and updates size of this cache.
+	 */
+	private Entry removeEntry(int fragmentId) {
+		final Entry entry = mEntries.remove(fragmentId);
+		if (entry != null) {
+			this.mSize -= entry.size;
+		}
+		return entry;
+	}
+
+	/**
+	 * Trims this cache to the specified <var>maxCount</var> evicting the least recently used fragments
+	 * that are not currently displayed (are detached or hidden).
+	 *
+	 * @param maxCount Maximum count of fragments that may remain cached.
+	 * @return List with the evicted fragments.
+	 */
+	@NonNull
+	List<Fragment> trimToCount(int maxCount) {
+		final List<Fragment> evicted = new ArrayList<>(Math.max(0, mEntries.size() - maxCount));
+		final Iterator<Map.Entry<Integer, Entry>> iterator = mEntries.entrySet().iterator();
+		while (mEntries.size() > maxCount && iterator.hasNext()) {
+			final Entry entry = iterator.next().getValue();
+			if (entry.fragment.isDetached() || entry.fragment.isHidden()) {
+				iterator.remove();
+				this.mSize -= entry.size;
+				evicted.add(entry.fragment);
+			}
+		}
+		return evicted;
+	}
+
+	/**
+	 * Removes all fragments from this cache.
+	 *
+	 * @return List with all fragments that have been cached.
+	 */
+	@NonNull
+	List<Fragment> evictAll() {
+		final List<Fragment> evicted = new ArrayList<>(mEntries.size());
+		for (final Entry entry : mEntries.values()) {
+			evicted.add(entry.fragment);
+		}
+		mEntries.clear();
+		this.mSize = 0;
+		return evicted;
+	}
+
+	/**
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Entry of the cache holding a cached fragment along with its size.
+	 */
+	private static final class Entry {
+
+		/**
+		 * Cached fragment.
+		 */
+		final Fragment fragment;
+
+		/**
+		 * Size of the cached fragment.
+		 */
+		final long size;
+
+		/**
+		 * Creates a new instance of Entry for the given <var>fragment</var>.
+		 */
+		Entry(Fragment fragment, long size) {
+			this.fragment = fragment;
+			this.size = size;
+		}
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.manage;
+
+import android.annotation.SuppressLint;
+import android.app.Activity;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Build;
+import android.support.annotation.NonNull;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * A {@link ComponentCallbacks2} implementation used by {@link FragmentController} to trim its
+ * {@link FragmentCache} when the system is running low on memory.
+ * <p>
+ * The callbacks are registered on the application context, so they reference the controller and
+ * its parent activity only weakly and un-register themselves once the controller is no longer used,
+ * as activity-scoped controllers are not required to be destroyed.
+ *
+ * @author Martin Albedinsky
+ * @see FragmentController#trimFragmentCache(int)
+ */
+final class FragmentCacheCallbacks implements ComponentCallbacks2 {
+
+	/**
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "FragmentCacheCallbacks";
+
+	/**
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Weak reference to the controller of which cache to trim.
+	 */
+	private final WeakReference<FragmentController> mControllerReference;
+
+	/**
+	 * Weak reference to the parent activity of the controller.
+	 */
+	private final WeakReference<Activity> mActivityReference;
+
+	/**
+	 * Application context on which are these callbacks registered.
+	 */
+	private final Context mContext;
+
+	/**
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of FragmentCacheCallbacks for the given <var>controller</var>.
+	 */
+	private FragmentCacheCallbacks(FragmentController controller, Activity activity) {
+		this.mControllerReference = new WeakReference<>(controller);
+		this.mActivityReference = new WeakReference<>(activity);
+		this.mContext = activity.getApplicationContext();
+	}
+
+	/**
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of FragmentCacheCallbacks for the given <var>controller</var> and
+	 * registers it on application context of the specified <var>activity</var>.
+	 *
+	 * @param controller The controller of which cache to trim.
+	 * @param activity   Parent activity of the controller.
+	 * @return The registered callbacks which should be un-registered via {@link #unregister()} once
+	 * the cache is no longer used.
+	 */
+	@NonNull
+	static FragmentCacheCallbacks register(@NonNull FragmentController controller, @NonNull Activity activity) {
+		final FragmentCacheCallbacks callbacks = new FragmentCacheCallbacks(controller, activity);
+		callbacks.mContext.registerComponentCallbacks(callbacks);
+		return callbacks;
+	}
+
+	/**
+	 */
+	@Override
+	public void onTrimMemory(int level) {
+		final FragmentController controller = mControllerReference.get();
+		if (controller == null || isActivityDestroyed(mActivityReference.get())) {
+			unregister();
+			return;
+		}
+		controller.trimFragmentCache(level);
+	}
+
+	/**
+	 * Checks whether the given <var>activity</var> has been already destroyed (or it is finishing
+	 * on Android versions that do not report destroyed state).
+	 */
+	@SuppressLint("NewApi")
+	private static boolean isActivityDestroyed(Activity activity) {
+		return activity == null || (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1 ? activity.isDestroyed() : activity.isFinishing());
+	}
+
+	/**
+	 * Un-registers these callbacks from the application context.
+	 */
+	void unregister() {
+		mControllerReference.clear();
+		mActivityReference.clear();
+		mContext.unregisterComponentCallbacks(this);
+	}
+
+	/**
+	 */
+	@Override
+	public void onConfigurationChanged(Configuration newConfig) {
+		// Configuration changes do not affect the cache.
+	}
+
+	/**
+	 */
+	@Override
+	public void onLowMemory() {
+		onTrimMemory(TRIM_MEMORY_COMPLETE);
+	}
+
+	/**
+	 * Inner classes ===============================================================================
+	 */
+}
@@ -22,18 +22,31 @@ import android.app.Activity;
 import android.app.Fragment;
 import android.app.FragmentManager;
 import android.app.FragmentTransaction;
+import android.content.ComponentCallbacks2;
 import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Trace;
 import android.support.annotation.IdRes;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v4.util.Pair;
 import android.transition.Transition;
 import android.util.Log;
+import android.view.Choreographer;
+import android.view.LayoutInflater;
 import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 
+import universum.studios.android.fragment.ContentViewPreInflater;
 import universum.studios.android.fragment.FragmentsConfig;
 
 /**
@@ -74,6 +87,39 @@ import universum.studios.android.fragment.FragmentsConfig;
  * the stack or an old one removed from the stack, a desired {@link OnBackStackChangeListener} may
  * be attached to the FragmentController via {@link #registerOnBackStackChangeListener(OnBackStackChangeListener)}.
  *
+ * <h3>Batching</h3>
+ * Multiple fragment requests may be merged into a single {@link FragmentTransaction} by executing
+ * them between calls to {@link #beginBatch()} and {@link #commitBatch()}. Such requests are only
+ * queued when executed and the whole batch is committed at once, which results in a single back
+ * stack change and a single layout pass for all of them.
+ *
+ * <h3>Pooling</h3>
+ * For screens that execute fragment requests at high frequency, the controller may be requested to
+ * recycle already executed requests and reuse them for new ones via {@link #setRequestPoolSize(int)}.
+ * When pooling is enabled, executed requests must not be referenced further.
+ *
+ * <h3>Coalescing</h3>
+ * If requests may be executed in quick succession (for example as result of a double tap), the
+ * controller may be requested to collect all executed requests until the next frame via
+ * {@link #setRequestCoalescingEnabled(boolean)}. Requests that are superseded by later requests
+ * are then dropped and only the remaining ones are committed via a single transaction.
+ *
+ * <h3>Caching</h3>
+ * Instances of factory fragments that are replaced within a single view container may be cached
+ * and reused by attaching a {@link FragmentCache} to the controller via {@link #setFragmentCache(FragmentCache)}.
+ *
+ * <h3>Prefetching</h3>
+ * Controller may also predict which factory fragment will be requested next and create it in
+ * advance while the main thread is idle, if there is {@link FragmentPrefetcher} attached via
+ * {@link #setPrefetcher(FragmentPrefetcher)}.
+ *
+ * <h3>Preparation</h3>
+ * Fragment requests that add a new fragment may be also prepared asynchronously via
+ * {@link FragmentRequest#prepareAsync()}. Fragment of such request is created and its content view
+ * pre-inflated (see {@link ContentViewPreInflater}) on a background thread and the request is then
+ * executed on the main thread once the fragment is ready. Base fragments pre-inflate only content
+ * views that opt in via {@code @ContentView(preInflate = true)}.
+ *
  * @author Martin Albedinsky
  * @see FragmentFactory
  * @see FragmentRequest
@@ -105,6 +151,22 @@ public class FragmentController {
 	 */
 	private static final boolean CAN_ATTACH_TRANSITIONS = Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP;
 
+	/**
+	 * Flag indicating whether we can use {@link Choreographer} to schedule execution of coalesced
+	 * requests at the current Android API level or not.
+	 */
+	private static final boolean CAN_USE_CHOREOGRAPHER = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN;
+
+	/**
+	 * Empty array of request listeners.
+	 */
+	private static final OnRequestListener[] NO_REQUEST_LISTENERS = new OnRequestListener[0];
+
+	/**
+	 * Empty array of back stack change listeners.
+	 */
+	private static final OnBackStackChangeListener[] NO_BACK_STACK_CHANGE_LISTENERS = new OnBackStackChangeListener[0];
+
 	/**
 	 * Interface ===================================================================================
 	 */
@@ -126,6 +188,29 @@ public class FragmentController {
 		void onRequestExecuted(@NonNull FragmentRequest request);
 	}
 
+	/**
+	 * An {@link OnRequestListener} that may be used to receive a single callback about all fragment
+	 * requests that have been executed as one batch.
+	 * <p>
+	 * Listeners that do not implement this interface receive {@link #onRequestExecuted(FragmentRequest)}
+	 * callback for each of the batched requests after the batch has been committed.
+	 *
+	 * @author Martin Albedinsky
+	 * @see #beginBatch()
+	 * @see #commitBatch()
+	 */
+	public interface OnRequestBatchListener extends OnRequestListener {
+
+		/**
+		 * Invoked whenever the specified batch of <var>requests</var> has been executed via a single
+		 * fragment transaction.
+		 *
+		 * @param requests The executed fragment requests in order in which they have been executed.
+		 * @see #commitBatch()
+		 */
+		void onRequestBatchExecuted(@NonNull List<FragmentRequest> requests);
+	}
+
 	/**
 	 * Listener that may be used to receive a callback about changes in the fragments back stack.
 	 * The callback is fired whenever a new fragment is added into the back stack or an old fragment
@@ -145,6 +230,47 @@ public class FragmentController {
 		void onFragmentsBackStackChanged(@NonNull FragmentManager.BackStackEntry backStackEntry, boolean added);
 	}
 
+	/**
+	 * An {@link OnBackStackChangeListener} that may be used to receive a single callback with full
+	 * diff of each change in the fragments back stack, like when multiple entries are popped at once.
+	 * <p>
+	 * Listeners that do not implement this interface receive {@link #onFragmentsBackStackChanged(FragmentManager.BackStackEntry, boolean)}
+	 * callback with the top entry whenever depth of the back stack changes.
+	 *
+	 * @author Martin Albedinsky
+	 * @see #registerOnBackStackChangeListener(OnBackStackChangeListener)
+	 */
+	public interface OnBackStackDiffListener extends OnBackStackChangeListener {
+
+		/**
+		 * Invoked whenever fragments back stack change occur.
+		 *
+		 * @param change The change describing entries that have been removed from the back stack
+		 *               and added into it along with the old and new back stack depth.
+		 */
+		void onFragmentsBackStackChanged(@NonNull BackStackChange change);
+	}
+
+	/**
+	 * Predicate that may be used to specify a back stack entry up to which should be the fragments
+	 * back stack popped via {@link #popUntil(BackStackEntryPredicate)}.
+	 *
+	 * @author Martin Albedinsky
+	 * @see #popUntil(BackStackEntryPredicate)
+	 */
+	public interface BackStackEntryPredicate {
+
+		/**
+		 * Invoked to test whether the given back stack <var>entry</var> is the one up to which should
+		 * be the back stack popped.
+		 *
+		 * @param entry The back stack entry to test.
+		 * @return {@code True} if the entry matches, so it and all entries below it should stay in
+		 * the back stack, {@code false} otherwise.
+		 */
+		boolean test(@NonNull FragmentManager.BackStackEntry entry);
+	}
+
 	/**
 	 * Static members ==============================================================================
 	 */
@@ -163,6 +289,12 @@ public class FragmentController {
 	 */
 	private final FragmentManager mManager;
 
+	/**
+	 * Activity in context of which is this controller used. May be {@code null} if this controller
+	 * has been created only for a fragment manager.
+	 */
+	private Activity mParentActivity;
+
 	/**
 	 * Id of a view container where to place view hierarchies of the desired fragments.
 	 */
@@ -180,20 +312,122 @@ public class FragmentController {
 	private FragmentRequestInterceptor mRequestInterceptor;
 
 	/**
-	 * List of listener callbacks registered for fragment requests.
+	 * Array of listener callbacks registered for fragment requests. The array is never modified,
+	 * but replaced by a new one whenever a listener is registered or un-registered.
 	 */
-	private List<OnRequestListener> mRequestListeners;
+	private OnRequestListener[] mRequestListeners = NO_REQUEST_LISTENERS;
 
 	/**
-	 * List of listener callbacks registered for back stack changes.
+	 * Array of listener callbacks registered for back stack changes. The array is never modified,
+	 * but replaced by a new one whenever a listener is registered or un-registered.
 	 */
-	private List<OnBackStackChangeListener> mBackStackChangeListeners;
+	private OnBackStackChangeListener[] mBackStackChangeListeners = NO_BACK_STACK_CHANGE_LISTENERS;
 
 	/**
 	 * Entry that is at the top of the fragments back stack.
 	 */
 	private FragmentManager.BackStackEntry mTopBackStackEntry;
 
+	/**
+	 * Indexed mirror of the fragments back stack.
+	 */
+	private final BackStackMirror mBackStack = new BackStackMirror();
+
+	/**
+	 * List of fragment requests queued for the current batch. Is {@code null} if there is no batch
+	 * in progress.
+	 *
+	 * @see #beginBatch()
+	 * @see #commitBatch()
+	 */
+	private List<FragmentRequest> mBatchRequests;
+
+	/**
+	 * Pool with executed fragment requests that may be reused. Is {@code null} if pooling of requests
+	 * is not enabled.
+	 *
+	 * @see #setRequestPoolSize(int)
+	 */
+	private FragmentRequest[] mRequestPool;
+
+	/**
+	 * Count of requests currently available in {@link #mRequestPool}.
+	 */
+	private int mRequestPoolCount;
+
+	/**
+	 * Count of requests that have been obtained from the pool.
+	 */
+	private int mRequestPoolHits;
+
+	/**
+	 * Count of requests that have been created because the pool has been empty.
+	 */
+	private int mRequestPoolMisses;
+
+	/**
+	 * List of fragment requests collected for execution at the next frame. Is {@code null} if
+	 * coalescing of requests is not enabled.
+	 *
+	 * @see #setRequestCoalescingEnabled(boolean)
+	 */
+	private List<FragmentRequest> mCoalescedRequests;
+
+	/**
+	 * Callback used to execute coalesced requests at the next frame.
+	 */
+	private Object mCoalescingCallback;
+
+	/**
+	 * Handler used to post execution of requests on the main thread, like of the coalesced requests
+	 * at Android API levels where {@link Choreographer} is not available or of prepared requests.
+	 */
+	private Handler mMainHandler;
+
+	/**
+	 * Boolean flag indicating whether execution of coalesced requests is already scheduled or not.
+	 */
+	private boolean mCoalescingScheduled;
+
+	/**
+	 * Cache with instances of replaced factory fragments.
+	 *
+	 * @see #setFragmentCache(FragmentCache)
+	 */
+	private FragmentCache mFragmentCache;
+
+	/**
+	 * Callbacks used to trim {@link #mFragmentCache} when the system is running low on memory.
+	 */
+	private FragmentCacheCallbacks mFragmentCacheCallbacks;
+
+	/**
+	 * Prefetcher used to create likely next factory fragments in advance.
+	 *
+	 * @see #setPrefetcher(FragmentPrefetcher)
+	 */
+	private FragmentPrefetcher mPrefetcher;
+
+	/**
+	 * Idle handler used to prefetch fragments while the main thread is idle.
+	 */
+	private FragmentPrefetchIdleHandler mPrefetchIdleHandler;
+
+	/**
+	 * Tracing of phases of execution of fragment requests.
+	 *
+	 * @see #setRequestTracer(FragmentRequestTracer)
+	 * @see #setSystraceEnabled(boolean)
+	 */
+	private final FragmentRequestTracing mTracing = new FragmentRequestTracing();
+
+	/**
+	 * Metrics into which are captured frames drawn during animations of fragment transitions.
+	 *
+	 * @see #setTransitionMetrics(FragmentTransitionMetrics)
+	 */
+	private FragmentTransitionMetrics mTransitionMetrics;
+
 	/**
 	 * Boolean flag indicating whether this controller has been destroyed or not.
 	 */
@@ -222,6 +456,7 @@ public class FragmentController {
 	 */
 	public FragmentController(@NonNull Activity parentActivity) {
 		this(parentActivity.getFragmentManager());
+		this.mParentActivity = parentActivity;
 		if (parentActivity instanceof FragmentRequestInterceptor) {
 			setRequestInterceptor((FragmentRequestInterceptor) parentActivity);
 		}
@@ -255,6 +490,7 @@ public class FragmentController {
 	 */
 	public FragmentController(@NonNull Fragment parentFragment) {
 		this(parentFragment.getFragmentManager());
+		this.mParentActivity = parentFragment.getActivity();
 		if (parentFragment instanceof FragmentRequestInterceptor) {
 			setRequestInterceptor((FragmentRequestInterceptor) parentFragment);
 		}
@@ -276,10 +512,8 @@ public class FragmentController {
 	public FragmentController(@NonNull FragmentManager fragmentManager) {
 		this.mManager = fragmentManager;
 		this.mManager.addOnBackStackChangedListener(mBackStackChangeListener);
-		final int n = mManager.getBackStackEntryCount();
-		if (n > 0) {
-			this.mTopBackStackEntry = mManager.getBackStackEntryAt(n - 1);
-		}
+		this.mBackStack.sync(mManager);
+		this.mTopBackStackEntry = mBackStack.getTopEntry();
 	}
 
 	/**
@@ -388,8 +622,7 @@ public class FragmentController {
 	 * @see #unregisterOnRequestListener(OnRequestListener)
 	 */
 	public void registerOnRequestListener(@NonNull OnRequestListener listener) {
-		if (mRequestListeners == null) this.mRequestListeners = new ArrayList<>(1);
-		if (!mRequestListeners.contains(listener)) mRequestListeners.add(listener);
+		this.mRequestListeners = appendListener(mRequestListeners, listener);
 	}
 
 	/**
@@ -399,7 +632,47 @@ public class FragmentController {
 	 * @see #registerOnRequestListener(OnRequestListener)
 	 */
 	public void unregisterOnRequestListener(@NonNull OnRequestListener listener) {
-		if (mRequestListeners != null) mRequestListeners.remove(listener);
+		this.mRequestListeners = removeListener(mRequestListeners, listener);
+	}
+
+	/**
+	 * Creates a new array with the given <var>listeners</var> and the <var>listener</var> appended,
+	 * if it is not presented yet.
+	 *
+	 * @param listeners The current listeners.
+	 * @param listener  The listener to append.
+	 * @param <L>       Type of the listeners.
+	 * @return New array with the listener appended or the current array if it already contains
+	 * the listener.
+	 */
+	private static <L> L[] appendListener(L[] listeners, L listener) {
+		for (final L registeredListener : listeners) {
+			if (registeredListener.equals(listener)) {
+				return listeners;
+			}
+		}
+		final L[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+		newListeners[listeners.length] = listener;
+		return newListeners;
+	}
+
+	/**
+	 * Creates a new array with the given <var>listeners</var> without the <var>listener</var>.
+	 *
+	 * @param listeners The current listeners.
+	 * @param listener  The listener to remove.
+	 * @param <L>       Type of the listeners.
+	 * @return New array without the listener or the current array if it does not contain the listener.
+	 */
+	private static <L> L[] removeListener(L[] listeners, L listener) {
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i].equals(listener)) {
+				final L[] newListeners = Arrays.copyOf(listeners, listeners.length - 1);
+				System.arraycopy(listeners, i + 1, newListeners, i, listeners.length - i - 1);
+				return newListeners;
+			}
+		}
+		return listeners;
 	}
 
 	/**
@@ -409,9 +682,33 @@ public class FragmentController {
 	 * @param request The request that has been just executed via {@link #executeRequest(FragmentRequest)}.
 	 */
 	private void notifyRequestExecuted(FragmentRequest request) {
-		if (mRequestListeners != null && !mRequestListeners.isEmpty()) {
-			for (final OnRequestListener listener : mRequestListeners) {
-				listener.onRequestExecuted(request);
+		final OnRequestListener[] listeners = mRequestListeners;
+		for (int i = 0; i < listeners.length; i++) {
+			listeners[i].onRequestExecuted(request);
+		}
+	}
+
+	/**
+	 * Notifies all registered {@link OnRequestListener OnRequestListeners} that the given batch of
+	 * <var>requests</var> has been executed. Listeners that are {@link OnRequestBatchListener OnRequestBatchListeners}
+	 * are notified only once for the whole batch.
+	 *
+	 * @param requests The requests that have been just executed via {@link #commitBatch()}.
+	 */
+	private void notifyRequestBatchExecuted(List<FragmentRequest> requests) {
+		final OnRequestListener[] listeners = mRequestListeners;
+		if (listeners.length > 0) {
+			final List<FragmentRequest> executedRequests = Collections.unmodifiableList(requests);
+			final int requestsCount = requests.size();
+			for (int i = 0; i < listeners.length; i++) {
+				final OnRequestListener listener = listeners[i];
+				if (listener instanceof OnRequestBatchListener) {
+					((OnRequestBatchListener) listener).onRequestBatchExecuted(executedRequests);
+				} else {
+					for (int j = 0; j < requestsCount; j++) {
+						listener.onRequestExecuted(requests.get(j));
+					}
+				}
 			}
 		}
 	}
@@ -424,8 +721,7 @@ public class FragmentController {
 	 * @see FragmentManager#addOnBackStackChangedListener(FragmentManager.OnBackStackChangedListener)
 	 */
 	public void registerOnBackStackChangeListener(@NonNull OnBackStackChangeListener listener) {
-		if (mBackStackChangeListeners == null) this.mBackStackChangeListeners = new ArrayList<>(1);
-		if (!mBackStackChangeListeners.contains(listener)) mBackStackChangeListeners.add(listener);
+		this.mBackStackChangeListeners = appendListener(mBackStackChangeListeners, listener);
 	}
 
 	/**
@@ -435,20 +731,28 @@ public class FragmentController {
 	 * @see #registerOnBackStackChangeListener(OnBackStackChangeListener)
 	 */
 	public void unregisterOnBackStackChangeListener(@NonNull OnBackStackChangeListener listener) {
-		if (mBackStackChangeListeners != null) mBackStackChangeListeners.remove(listener);
+		this.mBackStackChangeListeners = removeListener(mBackStackChangeListeners, listener);
 	}
 
 	/**
-	 * Notifies all registered {@link OnBackStackChangeListener OnBackStackChangeListeners} that the
-	 * given <var>changedEntry</var> was added or removed from the back stack.
+	 * Notifies all registered {@link OnBackStackChangeListener OnBackStackChangeListeners} about the
+	 * given back stack <var>change</var>. Listeners that are {@link OnBackStackDiffListener OnBackStackDiffListeners}
+	 * are notified about each change, other listeners are notified only if depth of the back stack
+	 * has changed.
 	 *
-	 * @param changedEntry The back stack entry that was changed.
+	 * @param change       The change that occurred in the back stack.
+	 * @param changedEntry The back stack entry to be dispatched to listeners that are not diff listeners.
+	 *                     May be {@code null} if depth of the back stack has not changed.
 	 * @param added        {@code True} if the specified entry was added to the back stack,
 	 *                     {@code false} if it was removed.
 	 */
-	private void notifyBackStackEntryChange(FragmentManager.BackStackEntry changedEntry, boolean added) {
-		if (mBackStackChangeListeners != null && !mBackStackChangeListeners.isEmpty()) {
-			for (final OnBackStackChangeListener listener : mBackStackChangeListeners) {
+	private void notifyBackStackChange(BackStackChange change, FragmentManager.BackStackEntry changedEntry, boolean added) {
+		final OnBackStackChangeListener[] listeners = mBackStackChangeListeners;
+		for (int i = 0; i < listeners.length; i++) {
+			final OnBackStackChangeListener listener = listeners[i];
+			if (listener instanceof OnBackStackDiffListener) {
+				((OnBackStackDiffListener) listener).onFragmentsBackStackChanged(change);
+			} else if (changedEntry != null) {
 				listener.onFragmentsBackStackChanged(changedEntry, added);
 			}
 		}
@@ -470,7 +774,7 @@ public class FragmentController {
 	@NonNull
 	public final FragmentRequest newRequest(int fragmentId) {
 		this.assertNotDestroyed("NEW REQUEST");
-		return new FragmentRequest(this).fragmentId(fragmentId).viewContainerId(mViewContainerId);
+		return obtainRequest(null).fragmentId(fragmentId).viewContainerId(mViewContainerId);
 	}
 
 	/**
@@ -491,7 +795,110 @@ public class FragmentController {
 	@NonNull
 	public final FragmentRequest newRequest(@NonNull Fragment fragment) {
 		this.assertNotDestroyed("NEW REQUEST");
-		return new FragmentRequest(this, fragment).tag(FRAGMENT_TAG).viewContainerId(mViewContainerId);
+		return obtainRequest(fragment).tag(FRAGMENT_TAG).viewContainerId(mViewContainerId);
+	}
+
+	/**
+	 * Obtains a fragment request for the given <var>fragment</var> either from the pool of recycled
+	 * requests, if pooling is enabled and there is some request available, or creates a new one.
+	 *
+	 * @param fragment The fragment to associate with the request. May be {@code null}.
+	 * @return Fragment request ready to be configured.
+	 */
+	private FragmentRequest obtainRequest(Fragment fragment) {
+		if (mRequestPool == null) {
+			return new FragmentRequest(this, fragment);
+		}
+		if (mRequestPoolCount > 0) {
+			final FragmentRequest request = mRequestPool[--mRequestPoolCount];
+			this.mRequestPool[mRequestPoolCount] = null;
+			this.mRequestPoolHits++;
+			request.mExecuted = false;
+			request.mFragment = fragment;
+			return request;
+		}
+		this.mRequestPoolMisses++;
+		return new FragmentRequest(this, fragment);
+	}
+
+	/**
+	 * Recycles the given executed <var>request</var> and puts it into the pool of requests, if pooling
+	 * is enabled and the pool is not full yet.
+	 * <p>
+	 * Requests that are queued for the current batch are recycled when the batch is committed.
+	 *
+	 * @param request The request that has been just executed.
+	 */
+	final void recycleRequest(FragmentRequest request) {
+		if (mRequestPool == null ||
+				(mBatchRequests != null && mBatchRequests.contains(request)) ||
+				(mCoalescedRequests != null && mCoalescedRequests.contains(request))) {
+			return;
+		}
+		request.recycle();
+		if (mRequestPoolCount < mRequestPool.length) {
+			this.mRequestPool[mRequestPoolCount++] = request;
+		}
+	}
+
+	/**
+	 * Sets a size of the pool used to recycle executed {@link FragmentRequest FragmentRequests}
+	 * so they may be reused by subsequent calls to {@link #newRequest(int)} or {@link #newRequest(Fragment)}.
+	 * <p>
+	 * Pooling of requests is disabled by default. When enabled, requests created via this controller
+	 * must not be referenced after they have been executed as they may be reused for other requests.
+	 * Attempt to execute already recycled request results in an exception.
+	 *
+	 * @param size The desired size of the pool. May be {@code 0} to disable pooling.
+	 * @see #getRequestPoolSize()
+	 * @see #getRequestPoolHits()
+	 * @see #getRequestPoolMisses()
+	 */
+	public void setRequestPoolSize(int size) {
+		if (size <= 0) {
+			this.mRequestPool = null;
+			this.mRequestPoolCount = 0;
+			return;
+		}
+		final FragmentRequest[] pool = new FragmentRequest[size];
+		if (mRequestPool != null) {
+			this.mRequestPoolCount = Math.min(mRequestPoolCount, size);
+			System.arraycopy(mRequestPool, 0, pool, 0, mRequestPoolCount);
+		}
+		this.mRequestPool = pool;
+	}
+
+	/**
+	 * Returns the size of the pool of fragment requests.
+	 *
+	 * @return Size of the pool or {@code 0} if pooling of requests is not enabled.
+	 * @see #setRequestPoolSize(int)
+	 */
+	public int getRequestPoolSize() {
+		return mRequestPool == null ? 0 : mRequestPool.length;
+	}
+
+	/**
+	 * Returns the count of fragment requests that have been reused from the pool.
+	 *
+	 * @return Count of pool hits.
+	 * @see #setRequestPoolSize(int)
+	 * @see #getRequestPoolMisses()
+	 */
+	public int getRequestPoolHits() {
+		return mRequestPoolHits;
+	}
+
+	/**
+	 * Returns the count of fragment requests that have been newly created while pooling of requests
+	 * has been enabled because there was no request available in the pool.
+	 *
+	 * @return Count of pool misses.
+	 * @see #setRequestPoolSize(int)
+	 * @see #getRequestPoolHits()
+	 */
+	public int getRequestPoolMisses() {
+		return mRequestPoolMisses;
 	}
 
 	/**
@@ -500,6 +907,11 @@ public class FragmentController {
 	 * This method also notifies all registered {@link OnRequestListener OnRequestListeners} about
 	 * the request execution.
 	 * <p>
+	 * If there is batch in progress, the request (if not intercepted) is only queued and it will be
+	 * executed along with the other batched requests when {@link #commitBatch()} is called. If there
+	 * is coalescing of requests enabled, the request is only collected and it will be executed at
+	 * the next frame, so the returned fragment may be {@code null} for requests of factory fragments.
+	 * <p>
 	 * <b>Note</b>, that this method does not check if the request has been already executed or not.
 	 *
 	 * @param request The fragment request to be executed.
@@ -513,15 +925,174 @@ public class FragmentController {
 	@Nullable
 	final Fragment executeRequest(FragmentRequest request) {
 		this.assertNotDestroyed("EXECUTE REQUEST");
+		final Fragment fragment = request.mFragment;
+		if (fragment == null) {
+			this.assertProvidesFragment(request.mFragmentId);
+		}
+		if (mCoalescedRequests != null && mBatchRequests == null) {
+			mCoalescedRequests.add(request);
+			this.scheduleCoalescedRequests();
+			return fragment;
+		}
+		return performRequest(request);
+	}
+
+	/**
+	 * Resolves a cached instance of fragment for the given <var>request</var> of {@link FragmentRequest#REPLACE}
+	 * transaction, if there is fragment cache attached and it contains fragment for the factory id
+	 * specified for the request.
+	 *
+	 * @param request The request for which to resolve the cached fragment.
+	 */
+	private void resolveCachedFragment(FragmentRequest request) {
+		if (mFragmentCache == null || request.mFragment != null || request.mTransaction != FragmentRequest.REPLACE) {
+			return;
+		}
+		Fragment fragment = mFragmentCache.get(request.mFragmentId);
+		final String tag = request.mTag == null ? mFactory.createFragmentTag(request.mFragmentId) : request.mTag;
+		if (fragment == null) {
+			// Fragment manager restores cached fragments that are not displayed after configuration
+			// change or process restoration, but the cache itself is not restored, so such fragment
+			// is adopted and it will be cached once the request is committed.
+			final Fragment restoredFragment = mManager.findFragmentByTag(tag);
+			if (restoredFragment != null && (restoredFragment.isDetached() || restoredFragment.isHidden())) {
+				fragment = restoredFragment;
+			}
+		}
+		if (fragment != null) {
+			request.mFragment = fragment;
+			request.mFragmentCached = true;
+			if (request.mTag == null) {
+				request.tag(tag);
+			}
+		}
+	}
+
+	/**
+	 * Asserts that there is factory attached to this controller and that it provides fragment for
+	 * the specified <var>fragmentId</var>. If not, an exception is thrown.
+	 *
+	 * @param fragmentId Id of the factory fragment to check.
+	 */
+	private void assertProvidesFragment(int fragmentId) {
+		this.assertHasFactory();
+		if (!mFactory.isFragmentProvided(fragmentId)) {
+			throw new IllegalArgumentException(
+					"Cannot execute request for factory fragment. Current factory(" + mFactory.getClass() + ") " +
+							"does not provide fragment for the requested id(" + fragmentId + ")!");
+		}
+	}
+
+	/**
+	 * Prepares the given fragment <var>request</var> for execution via the specified <var>executor</var>
+	 * and executes it on the main thread once prepared.
+	 * <p>
+	 * For requests of {@link FragmentRequest#REPLACE} or {@link FragmentRequest#ADD} transaction the
+	 * associated fragment is created (if it is a factory fragment) and its content view is pre-inflated
+	 * (if the fragment is {@link ContentViewPreInflater}) via the executor. Requests of other
+	 * transaction types are executed immediately.
+	 *
+	 * @param request  The fragment request to be prepared and executed.
+	 * @param executor The executor on which to prepare the request.
+	 * @throws IllegalStateException    If there is no factory attached.
+	 * @throws IllegalArgumentException If the attached factory does not provide fragment for the
+	 *                                  fragment id specified for the request.
+	 * @see FragmentRequest#prepareAsync(Executor)
+	 */
+	final void prepareRequest(FragmentRequest request, Executor executor) {
+		this.assertNotDestroyed("PREPARE REQUEST");
+		if (request.mTransaction != FragmentRequest.REPLACE && request.mTransaction != FragmentRequest.ADD) {
+			this.executeRequest(request);
+			this.recycleRequest(request);
+			return;
+		}
+		if (request.mFragment == null) {
+			this.assertProvidesFragment(request.mFragmentId);
+			this.resolveCachedFragment(request);
+		}
+		LayoutInflater inflater = null;
+		ViewGroup container = null;
+		if (mParentActivity != null) {
+			// Inflater of the activity is shared with inflation on the main thread, so it must not be
+			// used on the background thread.
+			inflater = mParentActivity.getLayoutInflater().cloneInContext(mParentActivity);
+			// The attached container must not be touched on the background thread either, so only
+			// a detached stand-in is passed to generate layout params for the pre-inflated view.
+			if (mParentActivity.findViewById(request.mViewContainerId) instanceof ViewGroup) {
+				container = new FrameLayout(mParentActivity);
+			}
+		}
+		if (mMainHandler == null) this.mMainHandler = new Handler(Looper.getMainLooper());
+		executor.execute(new RequestPreparation(request, mFactory, inflater, container));
+	}
+
+	/**
+	 * Called to execute the given <var>request</var> that has been prepared via {@link #prepareRequest(FragmentRequest, Executor)}.
+	 *
+	 * @param request  The prepared request.
+	 * @param fragment The fragment that has been created for the request. May be {@code null} if
+	 *                 the preparation has failed, in such case the fragment will be created during
+	 *                 execution of the request.
+	 */
+	@SuppressWarnings("WeakerAccess")
+	final void handleRequestPrepared(FragmentRequest request, Fragment fragment) {
+		if (mDestroyed) {
+			if (FragmentsConfig.LOG_ENABLED) {
+				Log.v(TAG, "Dropping prepared request(" + request + "). Controller is already destroyed.");
+			}
+			return;
+		}
+		if (request.mFragment == null && fragment != null && mFactory != null) {
+			request.mFragment = fragment;
+			if (request.mTag == null) {
+				request.tag(mFactory.createFragmentTag(request.mFragmentId));
+			}
+		}
+		this.executeRequest(request);
+		this.recycleRequest(request);
+	}
+
+	/**
+	 * Performs execution of the given fragment <var>request</var> as described in {@link #executeRequest(FragmentRequest)}.
+	 *
+	 * @param request The fragment request to be executed.
+	 * @return The fragment associated with the request or {@code null} if the execution has failed.
+	 */
+	private Fragment performRequest(FragmentRequest request) {
+		if (resolveRequestFragment(request) == null) {
+			return null;
+		}
+		if (mPrefetcher != null && request.mFragmentId != FragmentRequest.NO_ID &&
+				(request.mTransaction == FragmentRequest.REPLACE || request.mTransaction == FragmentRequest.ADD)) {
+			mPrefetcher.recordRequest(request.mFragmentId);
+			this.schedulePrefetch();
+		}
+		Fragment fragment = mRequestInterceptor == null ? null : interceptRequest(request);
+		if (fragment == null) {
+			if (mBatchRequests != null) {
+				mBatchRequests.add(request);
+				return request.mFragment;
+			}
+			fragment = onExecuteRequest(request);
+		}
+		this.notifyRequestExecuted(request);
+		return fragment;
+	}
+
+	/**
+	 * Resolves the fragment associated with the given <var>request</var>. If the request does not
+	 * have its fragment specified yet, it is resolved from the fragment cache, the prefetcher or
+	 * created via the attached factory for the request's fragment id.
+	 *
+	 * @param request The request for which to resolve its fragment.
+	 * @return The resolved fragment or {@code null} if there is no fragment to be resolved for the
+	 * request's transaction.
+	 */
+	private Fragment resolveRequestFragment(FragmentRequest request) {
+		this.resolveCachedFragment(request);
 		Fragment fragment = request.mFragment;
 		if (fragment == null) {
-			this.assertHasFactory();
 			final int fragmentId = request.mFragmentId;
-			if (!mFactory.isFragmentProvided(fragmentId)) {
-				throw new IllegalArgumentException(
-						"Cannot execute request for factory fragment. Current factory(" + mFactory.getClass() + ") " +
-								"does not provide fragment for the requested id(" + fragmentId + ")!");
-			}
 			switch (request.mTransaction) {
 				case FragmentRequest.REMOVE:
 				case FragmentRequest.SHOW:
@@ -533,7 +1104,16 @@ public class FragmentController {
 				case FragmentRequest.REPLACE:
 				case FragmentRequest.ADD:
 				default:
-					fragment = mFactory.createFragment(fragmentId);
+					fragment = mPrefetcher == null ? null : mPrefetcher.takePrefetched(fragmentId);
+					if (fragment == null) {
+						final int tracing = mTracing.resolveFlags();
+						final long startTime = tracing != 0 ? mTracing.beginPhase(tracing, FragmentRequestTracer.PHASE_CREATE_FRAGMENT, request) : 0;
+						try {
+							fragment = mFactory.createFragment(fragmentId);
+						} finally {
+							if (tracing != 0) mTracing.endPhase(tracing, FragmentRequestTracer.PHASE_CREATE_FRAGMENT, request, startTime);
+						}
+					}
 					if (fragment == null) {
 						throw new IllegalArgumentException(
 								"Cannot execute request for factory fragment. Current factory(" + mFactory.getClass() + ") is cheating. " +
@@ -550,58 +1130,702 @@ public class FragmentController {
 				request.tag(mFactory.createFragmentTag(fragmentId));
 			}
 		}
-		fragment = mRequestInterceptor == null ? null : mRequestInterceptor.interceptFragmentRequest(request);
-		if (fragment == null) {
-			fragment = onExecuteRequest(request);
-		}
-		this.notifyRequestExecuted(request);
 		return fragment;
 	}
 
 	/**
-	 * Called to perform execution of the given fragment <var>request</var>.
-	 * <p>
-	 * This implementation creates a new {@link FragmentTransaction} via {@link #createTransaction(FragmentRequest)}
-	 * for the request and commits it via appropriate commit method and returns the associated fragment.
+	 * Delegates interception of the given <var>request</var> to the current request interceptor.
 	 *
-	 * @param request The fragment request of which execution has been requested via call to
-	 *                {@link FragmentRequest#execute()}
-	 * @return The fragment associated with the request.
+	 * @param request The request to be intercepted.
+	 * @return Fragment returned by the interceptor or {@code null} if the request has not been
+	 * intercepted.
 	 */
-	@NonNull
-	@SuppressWarnings("ConstantConditions")
-	protected Fragment onExecuteRequest(@NonNull FragmentRequest request) {
+	private Fragment interceptRequest(FragmentRequest request) {
+		final int tracing = mTracing.resolveFlags();
+		final long startTime = tracing != 0 ? mTracing.beginPhase(tracing, FragmentRequestTracer.PHASE_INTERCEPT, request) : 0;
+		try {
+			return mRequestInterceptor.interceptFragmentRequest(request);
+		} finally {
+			if (tracing != 0) mTracing.endPhase(tracing, FragmentRequestTracer.PHASE_INTERCEPT, request, startTime);
+		}
+	}
+
+	/**
+	 * Begins a new batch of fragment requests. All requests executed via this controller after this
+	 * call will be only queued and committed via a single {@link FragmentTransaction} when
+	 * {@link #commitBatch()} is called.
+	 * <p>
+	 * Within the batch transaction, each request keeps its own custom animations and transitions,
+	 * however the transaction may be added into the back stack only once, so the whole batch is
+	 * represented by a single back stack entry if at least one of the batched requests has been
+	 * requested to be added into the back stack.
+	 * <p>
+	 * <b>Note</b>, that batched requests are not executed via {@link #onExecuteRequest(FragmentRequest)},
+	 * so its implementation provided by a subclass is not invoked for them.
+	 *
+	 * @throws IllegalStateException If there is already batch in progress.
+	 * @see #commitBatch()
+	 * @see #isBatchInProgress()
+	 */
+	public void beginBatch() {
+		this.assertNotDestroyed("BEGIN BATCH");
+		if (mBatchRequests != null) {
+			throw new IllegalStateException("Cannot begin batch. Batch is already in progress!");
+		}
+		this.mBatchRequests = new ArrayList<>(4);
+	}
+
+	/**
+	 * Checks whether there is batch of fragment requests in progress.
+	 *
+	 * @return {@code True} if batch has been began via {@link #beginBatch()} and not committed yet,
+	 * {@code false} otherwise.
+	 */
+	public boolean isBatchInProgress() {
+		return mBatchRequests != null;
+	}
+
+	/**
+	 * Commits the batch of fragment requests that has been began via {@link #beginBatch()}.
+	 * <p>
+	 * All queued requests are merged into a single {@link FragmentTransaction} in order in which
+	 * they have been executed. The transaction is committed allowing state loss only if all of the
+	 * requests allow it and it is executed immediately if at least one of the requests requested
+	 * immediate execution.
+	 * <p>
+	 * The registered {@link OnRequestListener OnRequestListeners} are notified about executed
+	 * requests after the transaction has been committed.
+	 *
+	 * @return {@code True} if the batch transaction has been committed, {@code false} if there were
+	 * no requests to be committed.
+	 * @throws IllegalStateException If there is no batch in progress.
+	 * @see #beginBatch()
+	 * @see OnRequestBatchListener
+	 */
+	public boolean commitBatch() {
+		this.assertNotDestroyed("COMMIT BATCH");
+		if (mBatchRequests == null) {
+			throw new IllegalStateException("Cannot commit batch. No batch in progress!");
+		}
+		final List<FragmentRequest> requests = mBatchRequests;
+		this.mBatchRequests = null;
+		if (requests.isEmpty()) {
+			return false;
+		}
 		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1 && mManager.isDestroyed()) {
-			throw new IllegalStateException("Cannot execute fragment request in context of activity that has been already destroyed!");
+			throw new IllegalStateException("Cannot commit batch of fragment requests in context of activity that has been already destroyed!");
 		}
-		if (request.mTransaction == FragmentRequest.REPLACE && !request.hasFlag(FragmentRequest.REPLACE_SAME)) {
+		final FragmentTransaction transaction = mManager.beginTransaction();
+		String backStackName = null;
+		int backStackFactoryId = FragmentRequest.NO_ID;
+		boolean addToBackStack = false, allowStateLoss = true, immediate = false, hasAnimations = false;
+		FragmentRequest lastRequest = null;
+		final List<FragmentRequest> executedRequests = new ArrayList<>(requests.size());
+		for (final FragmentRequest request : requests) {
 			// Do not replace same fragment if there is already displayed fragment with the same tag.
-			final Fragment existingFragment = mManager.findFragmentByTag(request.mTag);
-			if (existingFragment != null) {
-				if (FragmentsConfig.LOG_ENABLED) {
-					Log.v(TAG, "Fragment with tag(" + request.mTag + ") is already displayed or it is in the back-stack.");
+			if (findSameFragmentToReplace(request) != null) {
+				continue;
+			}
+			// Clear animations specified by previous request so they are not applied also for this one.
+			if (hasAnimations && request.mTransition == null) {
+				transaction.setCustomAnimations(0, 0, 0, 0);
+			}
+			hasAnimations = request.mTransition != null;
+			this.appendRequestToTransaction(transaction, request);
+			// Batch transaction is always committed below, so the cache may be updated right away
+			// and the following requests see its current content.
+			this.updateFragmentCache(request);
+			if (request.hasFlag(FragmentRequest.ADD_TO_BACK_STACK)) {
+				addToBackStack = true;
+				backStackName = request.mFragment.getTag();
+				backStackFactoryId = request.mFragmentId;
+			}
+			allowStateLoss &= request.hasFlag(FragmentRequest.ALLOW_STATE_LOSS);
+			immediate |= request.hasFlag(FragmentRequest.IMMEDIATE);
+			executedRequests.add(request);
+			lastRequest = request;
+		}
+		if (executedRequests.isEmpty()) {
+			for (final FragmentRequest request : requests) {
+				this.recycleRequest(request);
+			}
+			return false;
+		}
+		if (addToBackStack) {
+			if (FragmentsConfig.DEBUG_LOG_ENABLED) {
+				Log.d(TAG, "Batch of " + executedRequests.size() + " requests will be added to back-stack under the tag(" + backStackName + ").");
+			}
+			transaction.addToBackStack(backStackName);
+			mBackStack.registerFactoryFragment(backStackName, backStackFactoryId);
+		}
+		// Batch is traced as whole under the last of its requests.
+		this.commitTransaction(transaction, allowStateLoss, immediate, lastRequest);
+		FragmentTransition lastTransition = null;
+		for (final FragmentRequest request : executedRequests) {
+			mTracing.watchFirstFrame(request);
+			if (request.mTransition != null) lastTransition = request.mTransition;
+		}
+		if (mTransitionMetrics != null && lastTransition != null) {
+			this.captureTransitionFrames(lastTransition);
+		}
+		this.notifyRequestBatchExecuted(executedRequests);
+		for (final FragmentRequest request : requests) {
+			this.recycleRequest(request);
+		}
+		return true;
+	}
+
+	/**
+	 * Sets a boolean flag indicating whether this controller should coalesce executed fragment
+	 * requests or not.
+	 * <p>
+	 * When enabled, requests executed via this controller are collected until the next frame (or
+	 * until {@link #executePendingRequests()} is called). Collected requests that are superseded by
+	 * later requests are dropped and only the remaining ones are executed as one batch (see
+	 * {@link #beginBatch()}). A request is superseded whenever there is later request of
+	 * {@link FragmentRequest#REPLACE} transaction for the same view container or later request
+	 * changing visibility (show/hide or attach/detach) of the same fragment, but only if there is
+	 * no other request targeting the same fragment in between them.
+	 * <p>
+	 * Disabling of coalescing executes all currently collected requests immediately.
+	 * <p>
+	 * <b>Note</b>, that factory fragments of collected requests are created at the time when those
+	 * requests are actually executed, so {@link FragmentRequest#execute()} returns {@code null} for
+	 * such requests.
+	 *
+	 * @param enabled {@code True} to enable coalescing, {@code false} to disable it.
+	 * @see #isRequestCoalescingEnabled()
+	 */
+	public void setRequestCoalescingEnabled(boolean enabled) {
+		this.assertNotDestroyed("SET REQUEST COALESCING ENABLED");
+		if (enabled) {
+			if (mCoalescedRequests == null) this.mCoalescedRequests = new ArrayList<>(4);
+		} else if (mCoalescedRequests != null) {
+			this.executePendingRequests();
+			this.mCoalescedRequests = null;
+		}
+	}
+
+	/**
+	 * Returns boolean flag indicating whether coalescing of fragment requests is enabled or not.
+	 *
+	 * @return {@code True} if coalescing is enabled, {@code false} otherwise.
+	 * @see #setRequestCoalescingEnabled(boolean)
+	 */
+	public boolean isRequestCoalescingEnabled() {
+		return mCoalescedRequests != null;
+	}
+
+	/**
+	 * Executes immediately all fragment requests that have been collected for execution at the next
+	 * frame while coalescing of requests is enabled.
+	 * <p>
+	 * If execution of some of the requests fails, the requests performed before it are still
+	 * committed, the remaining ones are dropped and the failure is re-thrown.
+	 *
+	 * @return {@code True} if there were some requests to be executed, {@code false} otherwise.
+	 * @see #setRequestCoalescingEnabled(boolean)
+	 */
+	public boolean executePendingRequests() {
+		this.assertNotDestroyed("EXECUTE PENDING REQUESTS");
+		this.cancelCoalescedRequests();
+		if (mCoalescedRequests == null || mCoalescedRequests.isEmpty()) {
+			return false;
+		}
+		final List<FragmentRequest> requests = new ArrayList<>(mCoalescedRequests);
+		mCoalescedRequests.clear();
+		final boolean ownsBatch = mBatchRequests == null;
+		if (ownsBatch) {
+			this.beginBatch();
+		}
+		RuntimeException failure = null;
+		final int n = requests.size();
+		for (int i = 0; i < n; i++) {
+			final FragmentRequest request = requests.get(i);
+			if (failure != null) {
+				// Requests following the failed one may depend on it, so these are dropped.
+				this.recycleRequest(request);
+				continue;
+			}
+			if (isRequestSuperseded(requests, i)) {
+				if (FragmentsConfig.DEBUG_LOG_ENABLED) {
+					Log.d(TAG, "Dropping request(" + request + ") as it has been superseded by later request.");
+				}
+			} else {
+				try {
+					this.performRequest(request);
+				} catch (RuntimeException e) {
+					failure = e;
 				}
-				return existingFragment;
 			}
+			this.recycleRequest(request);
+		}
+		if (ownsBatch) {
+			// Commit the requests that have been already performed even if some of the requests failed.
+			this.commitBatch();
+		}
+		if (failure != null) {
+			throw failure;
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether the request at the specified <var>index</var> within the given list of
+	 * <var>requests</var> is superseded by some of the later requests.
+	 *
+	 * @param requests The requests collected for execution.
+	 * @param index    Index of the request to check.
+	 * @return {@code True} if the request is superseded and should not be executed, {@code false}
+	 * otherwise.
+	 */
+	private static boolean isRequestSuperseded(List<FragmentRequest> requests, int index) {
+		final FragmentRequest request = requests.get(index);
+		final int n = requests.size();
+		for (int i = index + 1; i < n; i++) {
+			final FragmentRequest laterRequest = requests.get(i);
+			final boolean sameTarget = hasSameTarget(request, laterRequest);
+			switch (request.mTransaction) {
+				case FragmentRequest.REPLACE:
+				case FragmentRequest.ADD:
+					if (laterRequest.mTransaction == FragmentRequest.REPLACE && laterRequest.mViewContainerId == request.mViewContainerId) {
+						return true;
+					}
+					break;
+				case FragmentRequest.SHOW:
+				case FragmentRequest.HIDE:
+					if (sameTarget && (laterRequest.mTransaction == FragmentRequest.SHOW || laterRequest.mTransaction == FragmentRequest.HIDE)) {
+						return true;
+					}
+					break;
+				case FragmentRequest.ATTACH:
+				case FragmentRequest.DETACH:
+					if (sameTarget && (laterRequest.mTransaction == FragmentRequest.ATTACH || laterRequest.mTransaction == FragmentRequest.DETACH)) {
+						return true;
+					}
+					break;
+				default:
+					return false;
+			}
+			// Later request that depends on this one (like removal of the added fragment) prevents
+			// this request from being superseded by any of the following requests.
+			if (sameTarget) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether the given requests target the same fragment, either the same fragment instance
+	 * or the same factory fragment.
+	 */
+	private static boolean hasSameTarget(FragmentRequest first, FragmentRequest second) {
+		if (first.mFragment != null || second.mFragment != null) {
+			return first.mFragment == second.mFragment;
+		}
+		return first.mFragmentId == second.mFragmentId;
+	}
+
+	/**
+	 * Schedules execution of the coalesced requests at the next frame, if not scheduled yet.
+	 */
+	@SuppressWarnings("NewApi")
+	private void scheduleCoalescedRequests() {
+		if (mCoalescingScheduled) {
+			return;
+		}
+		this.mCoalescingScheduled = true;
+		if (CAN_USE_CHOREOGRAPHER) {
+			if (mCoalescingCallback == null) this.mCoalescingCallback = new CoalescingFrameCallback();
+			Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) mCoalescingCallback);
+		} else {
+			if (mCoalescingCallback == null) this.mCoalescingCallback = new CoalescingRunnable();
+			if (mMainHandler == null) this.mMainHandler = new Handler(Looper.getMainLooper());
+			mMainHandler.post((Runnable) mCoalescingCallback);
+		}
+	}
+
+	/**
+	 * Cancels scheduled execution of the coalesced requests, if scheduled.
+	 */
+	@SuppressWarnings("NewApi")
+	private void cancelCoalescedRequests() {
+		if (!mCoalescingScheduled) {
+			return;
+		}
+		this.mCoalescingScheduled = false;
+		if (CAN_USE_CHOREOGRAPHER) {
+			Choreographer.getInstance().removeFrameCallback((Choreographer.FrameCallback) mCoalescingCallback);
+		} else {
+			mMainHandler.removeCallbacks((Runnable) mCoalescingCallback);
+		}
+	}
+
+	/**
+	 * Called to execute the coalesced requests at the scheduled frame.
+	 */
+	@SuppressWarnings("WeakerAccess")
+	final void handleCoalescedRequestsFrame() {
+		this.mCoalescingScheduled = false;
+		if (!mDestroyed) {
+			try {
+				this.executePendingRequests();
+			} catch (RuntimeException e) {
+				Log.e(TAG, "Failed to execute coalesced fragment requests.", e);
+			}
+		}
+	}
+
+	/**
+	 * Sets a cache that should be used to cache instances of factory fragments replaced via
+	 * {@link FragmentRequest#REPLACE} requests created via {@link #newRequest(int)}.
+	 * <p>
+	 * If this controller has been created for an activity or a fragment, the cache is also trimmed
+	 * automatically whenever the system requests to trim memory. Otherwise {@link #trimFragmentCache(int)}
+	 * should be called when appropriate.
+	 *
+	 * @param cache The desired cache. May be {@code null} to clear the current one. All fragments
+	 *              cached by the current cache, which are not currently displayed, are removed.
+	 * @see #getFragmentCache()
+	 * @see FragmentCache
+	 */
+	public void setFragmentCache(@Nullable FragmentCache cache) {
+		this.assertNotDestroyed("SET FRAGMENT CACHE");
+		if (mFragmentCache == cache) {
+			return;
+		}
+		if (mFragmentCache != null) {
+			this.removeFragments(mFragmentCache.trimToCount(0));
+		}
+		this.mFragmentCache = cache;
+		if (cache != null && mFragmentCacheCallbacks == null && mParentActivity != null) {
+			this.mFragmentCacheCallbacks = FragmentCacheCallbacks.register(this, mParentActivity);
+		} else if (cache == null) {
+			this.unregisterFragmentCacheCallbacks();
+		}
+	}
+
+	/**
+	 * Returns the cache used to cache instances of replaced factory fragments.
+	 *
+	 * @return This controller's fragment cache or {@code null} if there is no cache attached.
+	 * @see #setFragmentCache(FragmentCache)
+	 */
+	@Nullable
+	public FragmentCache getFragmentCache() {
+		return mFragmentCache;
+	}
+
+	/**
+	 * Trims the attached {@link FragmentCache} according to the specified memory trim <var>level</var>.
+	 * <p>
+	 * For levels of {@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_CRITICAL} and {@link ComponentCallbacks2#TRIM_MEMORY_COMPLETE}
+	 * all cached fragments that are not currently displayed are removed, for other levels only half
+	 * of them (the least recently used ones). Level of {@link ComponentCallbacks2#TRIM_MEMORY_UI_HIDDEN}
+	 * is ignored, as hiding of the UI alone does not indicate any memory pressure.
+	 *
+	 * @param level The level of memory trimming as passed to {@link ComponentCallbacks2#onTrimMemory(int)}.
+	 * @see #setFragmentCache(FragmentCache)
+	 */
+	public void trimFragmentCache(int level) {
+		if (mDestroyed || mFragmentCache == null) {
+			return;
+		}
+		if (level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+			return;
+		}
+		final boolean critical = level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL || level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE;
+		final int maxCount = critical ? 0 : mFragmentCache.size() / 2;
+		this.removeFragments(mFragmentCache.trimToCount(maxCount));
+	}
+
+	/**
+	 * Removes the given <var>fragments</var> from the fragment manager via a single transaction.
+	 *
+	 * @param fragments The fragments to be removed.
+	 */
+	private void removeFragments(List<Fragment> fragments) {
+		if (fragments.isEmpty() || (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1 && mManager.isDestroyed())) {
+			return;
+		}
+		final FragmentTransaction transaction = mManager.beginTransaction();
+		for (final Fragment fragment : fragments) {
+			if (fragment.isAdded() || fragment.isDetached()) {
+				transaction.remove(fragment);
+			}
+		}
+		// Removed fragments are not displayed, so their state does not need to be retained.
+		transaction.commitAllowingStateLoss();
+	}
+
+	/**
+	 * Sets a prefetcher that should be used to predict which factory fragment will be requested next
+	 * and to create its instance in advance while the main thread is idle.
+	 * <p>
+	 * Each {@link FragmentRequest#REPLACE} or {@link FragmentRequest#ADD} request for factory fragment
+	 * executed via this controller is recorded by the prefetcher and the predicted fragment is then
+	 * created when the main thread becomes idle. The prefetched fragment is used only if it is really
+	 * requested as the next one.
+	 *
+	 * @param prefetcher The desired prefetcher. May be {@code null} to clear the current one.
+	 * @see #getPrefetcher()
+	 */
+	public void setPrefetcher(@Nullable FragmentPrefetcher prefetcher) {
+		this.assertNotDestroyed("SET PREFETCHER");
+		if (mPrefetcher != null) {
+			mPrefetcher.discardPrefetched();
+		}
+		this.mPrefetcher = prefetcher;
+	}
+
+	/**
+	 * Returns the prefetcher used to create likely next factory fragments in advance.
+	 *
+	 * @return This controller's prefetcher or {@code null} if there is no prefetcher attached.
+	 * @see #setPrefetcher(FragmentPrefetcher)
+	 */
+	@Nullable
+	public FragmentPrefetcher getPrefetcher() {
+		return mPrefetcher;
+	}
+
+	/**
+	 * Schedules prefetching of the likely next fragment when the main thread becomes idle, if not
+	 * scheduled yet.
+	 */
+	private void schedulePrefetch() {
+		if (mPrefetchIdleHandler == null) {
+			this.mPrefetchIdleHandler = new FragmentPrefetchIdleHandler(this, mParentActivity);
+		}
+		mPrefetchIdleHandler.schedule();
+	}
+
+	/**
+	 * Sets a tracer to be notified about phases of execution of fragment requests executed via this
+	 * controller.
+	 * <p>
+	 * The tracer is notified about creation of fragment via the attached factory, interception of
+	 * request via the attached interceptor, creation and commit of transaction, execution of pending
+	 * transactions for {@link FragmentRequest#immediate(boolean) immediate} requests and also about
+	 * the first frame drawn for view of the incoming fragment. Each phase is tagged with id of the
+	 * factory fragment and name of the transition of the traced request.
+	 *
+	 * @param tracer The desired tracer. May be {@code null} to clear the current one.
+	 * @see #getRequestTracer()
+	 * @see #setSystraceEnabled(boolean)
+	 */
+	public void setRequestTracer(@Nullable FragmentRequestTracer tracer) {
+		mTracing.setTracer(tracer);
+	}
+
+	/**
+	 * Returns the tracer notified about phases of execution of fragment requests.
+	 *
+	 * @return This controller's tracer or {@code null} if there is no tracer attached.
+	 * @see #setRequestTracer(FragmentRequestTracer)
+	 */
+	@Nullable
+	public FragmentRequestTracer getRequestTracer() {
+		return mTracing.getTracer();
+	}
+
+	/**
+	 * Sets a flag indicating whether phases of execution of fragment requests should be emitted as
+	 * {@link Trace} sections, so they may be inspected via systrace, or not.
+	 * <p>
+	 * Sections are emitted only on Android versions that support {@link Trace} and are named as
+	 * {@code Fragments:<phase>#<factory-fragment-id>[:<transition-name>]}. The first drawn frame
+	 * of the incoming fragment is reported only to the {@link #setRequestTracer(FragmentRequestTracer) tracer}
+	 * as it does not run synchronously within the execution of the request.
+	 * <p>
+	 * Default value: {@code false}
+	 *
+	 * @param enabled {@code True} to emit trace sections, {@code false} otherwise.
+	 * @see #isSystraceEnabled()
+	 */
+	public void setSystraceEnabled(boolean enabled) {
+		mTracing.setSystraceEnabled(enabled);
+	}
+
+	/**
+	 * Returns a flag indicating whether phases of execution of fragment requests are emitted as
+	 * {@link Trace} sections or not.
+	 *
+	 * @return {@code True} if trace sections are emitted, {@code false} otherwise.
+	 * @see #setSystraceEnabled(boolean)
+	 */
+	public boolean isSystraceEnabled() {
+		return mTracing.isSystraceEnabled();
+	}
+
+	/**
+	 * Sets metrics into which to capture durations of frames drawn while animations of fragment
+	 * transitions are running.
+	 * <p>
+	 * Frames are captured for each executed request that has a {@link FragmentTransition} specified,
+	 * for duration of the longest of its incoming and outgoing animations. As requests executed as
+	 * part of a batch (including coalesced requests) are committed via a single transaction, theirs
+	 * animations run simultaneously and frames are captured only once for the whole batch, under
+	 * transition of the last of its requests that has one. Frames are captured only if this
+	 * controller has been created with a parent activity.
+	 *
+	 * @param metrics The desired metrics. May be {@code null} to stop capturing of frames.
+	 * @see #getTransitionMetrics()
+	 */
+	public void setTransitionMetrics(@Nullable FragmentTransitionMetrics metrics) {
+		this.mTransitionMetrics = metrics;
+	}
+
+	/**
+	 * Returns the metrics into which are captured frames drawn during animations of fragment transitions.
+	 *
+	 * @return This controller's transition metrics or {@code null} if there are no metrics attached.
+	 * @see #setTransitionMetrics(FragmentTransitionMetrics)
+	 */
+	@Nullable
+	public FragmentTransitionMetrics getTransitionMetrics() {
+		return mTransitionMetrics;
+	}
+
+	/**
+	 * Starts capturing of frames drawn while animations of the given <var>transition</var> are running.
+	 *
+	 * @param transition The transition of which frames to capture.
+	 */
+	private void captureTransitionFrames(FragmentTransition transition) {
+		if (mParentActivity != null) {
+			if (mMainHandler == null) this.mMainHandler = new Handler(Looper.getMainLooper());
+			TransitionFrameCapture.start(mTransitionMetrics, transition, mParentActivity, mMainHandler);
+		}
+	}
+
+	/**
+	 * Un-registers callbacks for trimming of the fragment cache, if registered.
+	 */
+	private void unregisterFragmentCacheCallbacks() {
+		if (mFragmentCacheCallbacks != null) {
+			mFragmentCacheCallbacks.unregister();
+			this.mFragmentCacheCallbacks = null;
+		}
+	}
+
+	/**
+	 * Called to perform execution of the given fragment <var>request</var>.
+	 * <p>
+	 * This implementation creates a new {@link FragmentTransaction} via {@link #createTransaction(FragmentRequest)}
+	 * for the request and commits it via appropriate commit method and returns the associated fragment.
+	 * <p>
+	 * <b>Note</b>, that this method is not called for requests executed while a batch is in progress
+	 * (see {@link #beginBatch()}), including requests collected while coalescing of requests is
+	 * enabled (see {@link #setRequestCoalescingEnabled(boolean)}), as such requests are committed
+	 * via a single transaction in {@link #commitBatch()}.
+	 *
+	 * @param request The fragment request of which execution has been requested via call to
+	 *                {@link FragmentRequest#execute()}
+	 * @return The fragment associated with the request.
+	 */
+	@NonNull
+	@SuppressWarnings("ConstantConditions")
+	protected Fragment onExecuteRequest(@NonNull FragmentRequest request) {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1 && mManager.isDestroyed()) {
+			throw new IllegalStateException("Cannot execute fragment request in context of activity that has been already destroyed!");
+		}
+		// Do not replace same fragment if there is already displayed fragment with the same tag.
+		final Fragment existingFragment = findSameFragmentToReplace(request);
+		if (existingFragment != null) {
+			return existingFragment;
 		}
 		// Crate transaction for the fragment request.
 		final Fragment fragment = request.mFragment;
-		final FragmentTransaction transaction = createTransaction(request);
-		if (request.hasFlag(FragmentRequest.ADD_TO_BACK_STACK) && FragmentsConfig.DEBUG_LOG_ENABLED) {
-			Log.d(TAG, "Fragment(" + fragment + ") will be added to back-stack under the tag(" + fragment.getTag() + ").");
+		final int tracing = mTracing.resolveFlags();
+		final long startTime = tracing != 0 ? mTracing.beginPhase(tracing, FragmentRequestTracer.PHASE_CREATE_TRANSACTION, request) : 0;
+		final FragmentTransaction transaction;
+		try {
+			transaction = createTransaction(request);
+		} finally {
+			if (tracing != 0) mTracing.endPhase(tracing, FragmentRequestTracer.PHASE_CREATE_TRANSACTION, request, startTime);
 		}
-		// Commit the transaction either normally or allowing state loss.
-		if (request.hasFlag(FragmentRequest.ALLOW_STATE_LOSS)) {
-			transaction.commitAllowingStateLoss();
-		} else {
-			transaction.commit();
+		if (request.hasFlag(FragmentRequest.ADD_TO_BACK_STACK)) {
+			if (FragmentsConfig.DEBUG_LOG_ENABLED) {
+				Log.d(TAG, "Fragment(" + fragment + ") will be added to back-stack under the tag(" + fragment.getTag() + ").");
+			}
+			mBackStack.registerFactoryFragment(fragment.getTag(), request.mFragmentId);
 		}
-		if (request.hasFlag(FragmentRequest.IMMEDIATE)) {
-			mManager.executePendingTransactions();
+		this.commitTransaction(
+				transaction,
+				request.hasFlag(FragmentRequest.ALLOW_STATE_LOSS),
+				request.hasFlag(FragmentRequest.IMMEDIATE),
+				request
+		);
+		this.updateFragmentCache(request);
+		mTracing.watchFirstFrame(request);
+		if (mTransitionMetrics != null && request.mTransition != null) {
+			this.captureTransitionFrames(request.mTransition);
 		}
 		return fragment;
 	}
 
+	/**
+	 * Commits the given <var>transaction</var> either normally or allowing state loss and executes
+	 * it immediately if requested.
+	 *
+	 * @param transaction    The transaction to be committed.
+	 * @param allowStateLoss {@code True} to commit the transaction allowing state loss, {@code false}
+	 *                       otherwise.
+	 * @param immediate      {@code True} to execute all pending transactions immediately after commit,
+	 *                       {@code false} otherwise.
+	 * @param request        The request under which to trace the commit.
+	 */
+	private void commitTransaction(FragmentTransaction transaction, boolean allowStateLoss, boolean immediate, FragmentRequest request) {
+		final int tracing = mTracing.resolveFlags();
+		long startTime = tracing != 0 ? mTracing.beginPhase(tracing, FragmentRequestTracer.PHASE_COMMIT, request) : 0;
+		try {
+			if (allowStateLoss) {
+				transaction.commitAllowingStateLoss();
+			} else {
+				transaction.commit();
+			}
+		} finally {
+			if (tracing != 0) mTracing.endPhase(tracing, FragmentRequestTracer.PHASE_COMMIT, request, startTime);
+		}
+		if (immediate) {
+			startTime = tracing != 0 ? mTracing.beginPhase(tracing, FragmentRequestTracer.PHASE_EXECUTE_PENDING, request) : 0;
+			try {
+				mManager.executePendingTransactions();
+			} finally {
+				if (tracing != 0) mTracing.endPhase(tracing, FragmentRequestTracer.PHASE_EXECUTE_PENDING, request, startTime);
+			}
+		}
+	}
+
+	/**
+	 * Finds a fragment with the same tag as the fragment of the given <var>request</var> of
+	 * {@link FragmentRequest#REPLACE} transaction, which is already displayed or it is in the back
+	 * stack, so the request should not be executed.
+	 *
+	 * @param request The request for which to find the same fragment.
+	 * @return The same fragment or {@code null} if the request may be executed.
+	 */
+	private Fragment findSameFragmentToReplace(FragmentRequest request) {
+		if (request.mTransaction != FragmentRequest.REPLACE || request.hasFlag(FragmentRequest.REPLACE_SAME)) {
+			return null;
+		}
+		final Fragment existingFragment = mManager.findFragmentByTag(request.mTag);
+		if (existingFragment == null) {
+			return null;
+		}
+		// Cached (or restored) fragment that is not displayed at this time may be displayed again.
+		if (existingFragment == request.mFragment && mFragmentCache != null && request.mFragmentId != FragmentRequest.NO_ID &&
+				(existingFragment.isDetached() || existingFragment.isHidden())) {
+			return null;
+		}
+		if (FragmentsConfig.LOG_ENABLED) {
+			Log.v(TAG, "Fragment with tag(" + request.mTag + ") is already displayed or it is in the back-stack.");
+		}
+		return existingFragment;
+	}
+
 	/**
 	 * Begins and configures a new FragmentTransaction for the given fragment <var>request</var>.
 	 * <p>
@@ -634,6 +1858,12 @@ public class FragmentController {
 	 * </ul>
 	 * <p>
 	 * <b>Do not forget to commit the transaction.</b>
+	 * <p>
+	 * If there is {@link FragmentCache} attached, the cache is not updated for the request by this
+	 * method, as the returned transaction may not be committed. For the same reason, back stack entry
+	 * of the returned transaction is not associated with factory id of the request within
+	 * {@link #getBackStackSnapshot()}. Requests executed via this controller update the cache and
+	 * the back stack associations once theirs transactions are committed.
 	 *
 	 * @param request The request specifying configuration parameters for the transaction to be
 	 *                created.
@@ -644,13 +1874,34 @@ public class FragmentController {
 	 *                                  specified via {@link FragmentRequest#viewContainerId(int)}
 	 */
 	@NonNull
-	@SuppressWarnings("NewApi")
 	public FragmentTransaction createTransaction(@NonNull FragmentRequest request) {
 		this.assertNotDestroyed("CREATE TRANSACTION");
 		final FragmentTransaction transaction = mManager.beginTransaction();
+		this.appendRequestToTransaction(transaction, request);
+		// Add fragment to back stack if requested.
+		if (request.hasFlag(FragmentRequest.ADD_TO_BACK_STACK)) {
+			transaction.addToBackStack(request.mFragment.getTag());
+		}
+		return transaction;
+	}
+
+	/**
+	 * Configures the given <var>transaction</var> for the given fragment <var>request</var> as
+	 * described in {@link #createTransaction(FragmentRequest)} except adding of the transaction into
+	 * the back stack.
+	 *
+	 * @param transaction The transaction to be configured.
+	 * @param request     The request specifying configuration parameters for the transaction.
+	 */
+	@SuppressWarnings("NewApi")
+	private void appendRequestToTransaction(FragmentTransaction transaction, FragmentRequest request) {
 		final Fragment fragment = request.mFragment;
 		if (request.mArguments != null) {
-			fragment.setArguments(request.mArguments);
+			if (request.mFragmentCached) {
+				this.mergeArguments(fragment, request.mArguments);
+			} else {
+				fragment.setArguments(request.mArguments);
+			}
 		}
 		// Attach animations to the transaction from the FragmentTransition parameter.
 		if (request.mTransition != null) {
@@ -669,7 +1920,11 @@ public class FragmentController {
 				if (request.mViewContainerId == NO_CONTAINER_ID) {
 					throw new IllegalArgumentException("Cannot create REPLACE transaction. No view container id specified!");
 				}
-				transaction.replace(request.mViewContainerId, fragment, request.mTag);
+				if (mFragmentCache != null && request.mFragmentId != FragmentRequest.NO_ID) {
+					this.appendCachedReplaceToTransaction(transaction, request);
+				} else {
+					transaction.replace(request.mViewContainerId, fragment, request.mTag);
+				}
 				break;
 			case FragmentRequest.ADD:
 				if (request.mViewContainerId == NO_CONTAINER_ID) {
@@ -705,11 +1960,91 @@ public class FragmentController {
 				}
 			}
 		}
-		// Add fragment to back stack if requested.
-		if (request.hasFlag(FragmentRequest.ADD_TO_BACK_STACK)) {
-			transaction.addToBackStack(fragment.getTag());
+	}
+
+	/**
+	 * Merges the given <var>arguments</var> into the current arguments of the given <var>fragment</var>
+	 * resolved from the {@link FragmentCache}. Arguments of such fragment cannot be replaced as it
+	 * is already active. If the fragment does not have any arguments, the given ones are ignored.
+	 *
+	 * @param fragment  The cached fragment to which to apply the arguments.
+	 * @param arguments The arguments to be merged.
+	 */
+	private void mergeArguments(Fragment fragment, Bundle arguments) {
+		final Bundle currentArguments = fragment.getArguments();
+		if (currentArguments != null) {
+			if (currentArguments != arguments) currentArguments.putAll(arguments);
+		} else {
+			Log.w(TAG, "Cannot apply arguments to already active fragment(" + fragment + ") without arguments. Ignoring them.");
+		}
+	}
+
+	/**
+	 * Configures the given <var>transaction</var> for the given <var>request</var> of {@link FragmentRequest#REPLACE}
+	 * transaction so the outgoing fragment, if cached, is detached or hidden instead of being removed
+	 * and the incoming fragment, if already added, is attached or shown instead of being added again.
+	 * <p>
+	 * All other cached fragments displayed in the same container are detached or hidden as well. As
+	 * the fragment manager does not allow to enumerate its fragments on all supported Android versions,
+	 * from the fragments that are not cached only the one found via {@link FragmentManager#findFragmentById(int)}
+	 * is removed.
+	 * <p>
+	 * Fragments that are going to be evicted from the cache as result of caching of the incoming
+	 * fragment are removed. The cache itself is updated only once the transaction is committed (see
+	 * {@link #updateFragmentCache(FragmentRequest)}).
+	 *
+	 * @param transaction The transaction to be configured.
+	 * @param request     The request for factory fragment to be displayed.
+	 * @see FragmentCache#mode()
+	 */
+	private void appendCachedReplaceToTransaction(FragmentTransaction transaction, FragmentRequest request) {
+		final Fragment fragment = request.mFragment;
+		final List<Fragment> evictedFragments = new ArrayList<>(1);
+		mFragmentCache.collectEvictions(request.mFragmentId, fragment, evictedFragments);
+		final boolean detach = mFragmentCache.mode() == FragmentCache.MODE_DETACH;
+		final int containerId = request.mViewContainerId;
+		for (final Fragment cachedFragment : mFragmentCache.fragments()) {
+			if (cachedFragment == fragment || cachedFragment.getId() != containerId || evictedFragments.contains(cachedFragment)) {
+				continue;
+			}
+			if (detach && cachedFragment.isAdded()) {
+				transaction.detach(cachedFragment);
+			} else if (!detach && cachedFragment.isAdded() && !cachedFragment.isHidden()) {
+				transaction.hide(cachedFragment);
+			}
+		}
+		final Fragment outgoingFragment = mManager.findFragmentById(containerId);
+		if (outgoingFragment != null && outgoingFragment != fragment && outgoingFragment.isAdded() &&
+				!mFragmentCache.contains(outgoingFragment) && !evictedFragments.contains(outgoingFragment)) {
+			transaction.remove(outgoingFragment);
+		}
+		for (final Fragment evictedFragment : evictedFragments) {
+			if (evictedFragment != fragment && (evictedFragment.isAdded() || evictedFragment.isDetached())) {
+				transaction.remove(evictedFragment);
+			}
+		}
+		if (fragment.isDetached()) {
+			transaction.attach(fragment);
+		} else if (fragment.isHidden()) {
+			transaction.show(fragment);
+		} else if (!fragment.isAdded()) {
+			transaction.add(request.mViewContainerId, fragment, request.mTag);
+		}
+	}
+
+	/**
+	 * Updates the attached fragment cache for the given <var>request</var> of which transaction has
+	 * been committed, so the incoming factory fragment becomes the most recently used cached fragment.
+	 *
+	 * @param request The committed request.
+	 * @see #appendCachedReplaceToTransaction(FragmentTransaction, FragmentRequest)
+	 */
+	private void updateFragmentCache(FragmentRequest request) {
+		if (mFragmentCache != null && request.mTransaction == FragmentRequest.REPLACE &&
+				request.mFragmentId != FragmentRequest.NO_ID && request.mFragment != null) {
+			// Evicted fragments have been already removed within the committed transaction.
+			mFragmentCache.put(request.mFragmentId, request.mFragment, new ArrayList<Fragment>(1));
 		}
-		return transaction;
 	}
 
 	/**
@@ -812,47 +2147,258 @@ public class FragmentController {
 	}
 
 	/**
-	 * Clears fragments back stack by calling {@link FragmentManager#popBackStack()} in loop for current
-	 * back stack size obtained via {@link FragmentManager#getBackStackEntryCount()}.
+	 * Checks whether there is entry of the fragment associated with the specified <var>factoryFragmentId</var>
+	 * within the fragments back stack.
 	 * <p>
-	 * <b>Note</b>, that {@link FragmentManager#popBackStack()} is an asynchronous call, so the
+	 * <b>Note</b>, that this method assumes that there is factory attached and that factory provides
+	 * fragment that is associated with the specified <var>factoryFragmentId</var> otherwise an
+	 * exception is thrown.
+	 *
+	 * @param factoryFragmentId Id of the desired factory fragment.
+	 * @return {@code True} if the fragment is in the back stack, {@code false} otherwise.
+	 * @throws IllegalStateException    If there is no factory attached.
+	 * @throws IllegalArgumentException If the attached factory does not provide fragment for the
+	 *                                  specified id.
+	 * @see #getBackStackDepth(int)
+	 */
+	public boolean isInBackStack(int factoryFragmentId) {
+		return getBackStackDepth(factoryFragmentId) != -1;
+	}
+
+	/**
+	 * Returns depth of the top most entry of the fragment associated with the specified <var>factoryFragmentId</var>
+	 * within the fragments back stack.
+	 * <p>
+	 * The depth is resolved in a constant time from the mirror of the back stack maintained by this
+	 * controller.
+	 *
+	 * @param factoryFragmentId Id of the desired factory fragment.
+	 * @return Depth of the entry where {@code 0} specifies the top entry or {@code -1} if there is
+	 * no entry of the fragment in the back stack.
+	 * @throws IllegalStateException    If there is no factory attached.
+	 * @throws IllegalArgumentException If the attached factory does not provide fragment for the
+	 *                                  specified id.
+	 * @see #getBackStackDepth(String)
+	 */
+	public int getBackStackDepth(int factoryFragmentId) {
+		this.assertNotDestroyed("GET BACK STACK DEPTH");
+		this.assertProvidesFragment(factoryFragmentId);
+		final int position = lastBackStackPositionOf(factoryFragmentId);
+		return position == -1 ? -1 : mBackStack.size() - 1 - position;
+	}
+
+	/**
+	 * Returns position of the top most back stack entry of the fragment associated with the specified
+	 * <var>factoryFragmentId</var> within the back stack mirror. Entries that do not have any factory
+	 * id, like entries restored by the fragment manager, are matched by the tag created for the id
+	 * by the current factory and the id is adopted for them.
+	 *
+	 * @param factoryFragmentId Id of the desired factory fragment.
+	 * @return Position of the entry or {@code -1} if there is no entry of the fragment in the back stack.
+	 */
+	private int lastBackStackPositionOf(int factoryFragmentId) {
+		final int position = mBackStack.lastPositionOfFactoryId(factoryFragmentId);
+		return position == -1 ? mBackStack.adoptFactoryId(mFactory.createFragmentTag(factoryFragmentId), factoryFragmentId) : position;
+	}
+
+	/**
+	 * Returns depth of the top most back stack entry with the specified <var>name</var>, which for
+	 * entries added by this controller is the tag of the added fragment.
+	 *
+	 * @param name Name of the desired back stack entry.
+	 * @return Depth of the entry where {@code 0} specifies the top entry or {@code -1} if there is
+	 * no such entry in the back stack.
+	 * @see FragmentManager.BackStackEntry#getName()
+	 */
+	public int getBackStackDepth(@Nullable String name) {
+		final int position = mBackStack.lastPositionOf(name);
+		return position == -1 ? -1 : mBackStack.size() - 1 - position;
+	}
+
+	/**
+	 * Returns a read-only snapshot of the fragments back stack.
+	 * <p>
+	 * The snapshot is created from the mirror of the back stack maintained by this controller and
+	 * is shared until the back stack changes.
+	 *
+	 * @return Immutable snapshot of the current back stack.
+	 */
+	@NonNull
+	public BackStackSnapshot getBackStackSnapshot() {
+		return mBackStack.snapshot();
+	}
+
+	/**
+	 * Clears fragments back stack by calling {@link FragmentManager#popBackStack(int, int)} with id
+	 * of the bottom back stack entry and {@link FragmentManager#POP_BACK_STACK_INCLUSIVE} flag, so
+	 * all entries are popped within a single operation.
+	 * <p>
+	 * <b>Note</b>, that {@link FragmentManager#popBackStack(int, int)} is an asynchronous call, so the
 	 * fragments back stack may be cleared in a feature, not immediately.
 	 *
 	 * @see #clearBackStackImmediate()
 	 */
 	public void clearBackStack() {
 		this.assertNotDestroyed("CLEAR BACK STACK");
-		final int n = mManager.getBackStackEntryCount();
-		if (n > 0) {
-			for (int i = 0; i < n; i++) {
-				mManager.popBackStack();
-			}
+		if (mManager.getBackStackEntryCount() > 0) {
+			mManager.popBackStack(mManager.getBackStackEntryAt(0).getId(), FragmentManager.POP_BACK_STACK_INCLUSIVE);
 		}
 	}
 
 	/**
-	 * Like {@link #clearBackStack()} but this will call {@link FragmentManager#popBackStackImmediate()}
-	 * instead of {@link FragmentManager#popBackStack()}.
+	 * Like {@link #clearBackStack()} but this will call {@link FragmentManager#popBackStackImmediate(int, int)}
+	 * instead of {@link FragmentManager#popBackStack(int, int)}.
 	 * <p>
-	 * <b>Note</b>, that {@link FragmentManager#popBackStackImmediate()} is a synchronous call, so
-	 * the fragments back stack will be popped immediately within this call. If there are too many
-	 * fragments, this may take some time.
+	 * <b>Note</b>, that {@link FragmentManager#popBackStackImmediate(int, int)} is a synchronous call,
+	 * so the fragments back stack will be popped immediately within this call.
 	 *
 	 * @return {@code True} if there was at least one fragment popped, {@code false} otherwise.
 	 */
 	public boolean clearBackStackImmediate() {
 		this.assertNotDestroyed("CLEAR BACK STACK IMMEDIATE");
+		return mManager.getBackStackEntryCount() > 0 && mManager.popBackStackImmediate(
+				mManager.getBackStackEntryAt(0).getId(),
+				FragmentManager.POP_BACK_STACK_INCLUSIVE
+		);
+	}
+
+	/**
+	 * Pops the fragments back stack up to the top most entry of fragment associated with the specified
+	 * <var>factoryFragmentId</var> within a single operation via {@link FragmentManager#popBackStack(int, int)}.
+	 * <p>
+	 * <b>Note</b>, that this method assumes that there is factory attached and that factory provides
+	 * fragment that is associated with the specified <var>factoryFragmentId</var> otherwise an
+	 * exception is thrown.
+	 *
+	 * @param factoryFragmentId Id of the factory fragment up to which to pop the back stack.
+	 * @param inclusive         {@code True} to pop also entry of the fragment, {@code false} to pop
+	 *                          only entries above it.
+	 * @return {@code True} if there is entry of the fragment within the back stack, so the back stack
+	 * will be popped, {@code false} otherwise.
+	 * @throws IllegalStateException    If there is no factory attached.
+	 * @throws IllegalArgumentException If the attached factory does not provide fragment for the
+	 *                                  specified id.
+	 * @see #popUntil(BackStackEntryPredicate)
+	 */
+	public boolean popTo(int factoryFragmentId, boolean inclusive) {
+		this.assertNotDestroyed("POP TO");
+		this.assertProvidesFragment(factoryFragmentId);
+		final int position = lastBackStackPositionOf(factoryFragmentId);
+		if (position == -1) {
+			return false;
+		}
+		mManager.popBackStack(mBackStack.getEntryAt(position).getId(), inclusive ? FragmentManager.POP_BACK_STACK_INCLUSIVE : 0);
+		return true;
+	}
+
+	/**
+	 * Pops the fragments back stack from the top until the specified <var>predicate</var> matches
+	 * a back stack entry within a single operation via {@link FragmentManager#popBackStack(int, int)}.
+	 * The matching entry stays in the back stack. If none of the entries matches, the whole back
+	 * stack is cleared.
+	 *
+	 * @param predicate The predicate used to find the entry up to which to pop the back stack.
+	 * @return {@code True} if there is at least one entry to be popped, {@code false} if the top entry
+	 * matches the predicate or the back stack is empty.
+	 * @see #popTo(int, boolean)
+	 * @see #clearBackStack()
+	 */
+	public boolean popUntil(@NonNull BackStackEntryPredicate predicate) {
+		this.assertNotDestroyed("POP UNTIL");
 		final int n = mManager.getBackStackEntryCount();
-		if (n > 0) {
-			boolean popped = false;
-			for (int i = 0; i < n; i++) {
-				if (mManager.popBackStackImmediate() && !popped) {
-					popped = true;
+		for (int i = n - 1; i >= 0; i--) {
+			final FragmentManager.BackStackEntry entry = mManager.getBackStackEntryAt(i);
+			if (predicate.test(entry)) {
+				if (i == n - 1) {
+					return false;
 				}
+				mManager.popBackStack(entry.getId(), 0);
+				return true;
 			}
-			return popped;
 		}
-		return false;
+		this.clearBackStack();
+		return n > 0;
+	}
+
+	/**
+	 * Replaces the whole fragments back stack with fragments of the given <var>requests</var>.
+	 * <p>
+	 * Fragments of all the requests are resolved (taken from the fragment cache or created via the
+	 * attached factory) before the current back stack is touched, so if resolving of any fragment
+	 * fails, the back stack is left unchanged. The current back stack is then popped within a single
+	 * operation via {@link #clearBackStackImmediate()} and all the requests are executed in the given
+	 * order, so theirs transactions are performed by the fragment manager within a single pass and
+	 * only the final state is drawn. As fragments of all but the last request are never visible,
+	 * they are executed without transitions and only the last request is executed with its transition.
+	 * If any of the requests is {@link FragmentRequest#immediate(boolean) immediate} all the transactions
+	 * are executed immediately after the last request has been executed. Requests waiting for
+	 * coalescing are executed before the back stack is replaced.
+	 * <p>
+	 * The given requests are not modified. Each of them is executed via its copy, so the registered
+	 * {@link OnRequestListener OnRequestListeners} are notified with the copies. The given requests
+	 * are only marked as executed.
+	 * <p>
+	 * <b>Note</b>, that the replacement is not atomic in regard to execution of the requests. If
+	 * execution of some request fails after the back stack has been popped, the requests executed
+	 * before it are not reverted.
+	 *
+	 * @param requests The requests created via this controller to be executed. Requests that should
+	 *                 form the new back stack should be requested to be added into it via
+	 *                 {@link FragmentRequest#addToBackStack(boolean)}.
+	 * @throws IllegalStateException    If there is batch in progress or some of the requests has
+	 *                                  been already executed.
+	 * @throws IllegalArgumentException If some of the requests has not been created via this controller
+	 *                                  or the attached factory does not provide fragment for some
+	 *                                  of the requests.
+	 */
+	public void replaceStack(@NonNull List<FragmentRequest> requests) {
+		this.assertNotDestroyed("REPLACE STACK");
+		if (mBatchRequests != null) {
+			throw new IllegalStateException("Cannot replace stack. Batch is in progress!");
+		}
+		final int n = requests.size();
+		for (int i = 0; i < n; i++) {
+			final FragmentRequest request = requests.get(i);
+			if (request.mController != this) {
+				throw new IllegalArgumentException("Cannot replace stack. Request(" + request + ") has not been created via this controller!");
+			}
+			if (request.mExecuted) {
+				throw new IllegalStateException("Cannot replace stack. Request(" + request + ") has been already executed!");
+			}
+			if (request.mFragment == null) {
+				this.assertProvidesFragment(request.mFragmentId);
+			}
+		}
+		final FragmentRequest[] stackRequests = new FragmentRequest[n];
+		boolean immediate = false;
+		for (int i = 0; i < n; i++) {
+			final FragmentRequest request = requests.get(i);
+			immediate |= request.immediate();
+			final FragmentRequest stackRequest = obtainRequest(null);
+			request.copyTo(stackRequest);
+			stackRequest.immediate(false);
+			if (i < n - 1) {
+				stackRequest.transition(null).transitionStyle(FragmentRequest.NO_STYLE);
+			}
+			stackRequests[i] = stackRequest;
+		}
+		this.executePendingRequests();
+		for (final FragmentRequest stackRequest : stackRequests) {
+			if (stackRequest.mTransaction == FragmentRequest.REPLACE || stackRequest.mTransaction == FragmentRequest.ADD) {
+				this.resolveRequestFragment(stackRequest);
+			}
+		}
+		this.clearBackStackImmediate();
+		for (int i = 0; i < n; i++) {
+			final FragmentRequest stackRequest = stackRequests[i];
+			requests.get(i).mExecuted = true;
+			this.performRequest(stackRequest);
+			stackRequest.mExecuted = true;
+			this.recycleRequest(stackRequest);
+		}
+		if (immediate) {
+			mManager.executePendingTransactions();
+		}
 	}
 
 	/**
@@ -869,8 +2415,26 @@ public class FragmentController {
 		if (!mDestroyed) {
 			this.mDestroyed = true;
 			this.mManager.removeOnBackStackChangedListener(mBackStackChangeListener);
-			this.mRequestListeners = null;
-			this.mBackStackChangeListeners = null;
+			this.mRequestListeners = NO_REQUEST_LISTENERS;
+			this.mBackStackChangeListeners = NO_BACK_STACK_CHANGE_LISTENERS;
+			this.mBackStack.clear();
+			this.mBatchRequests = null;
+			this.mRequestPool = null;
+			this.mRequestPoolCount = 0;
+			this.cancelCoalescedRequests();
+			this.mCoalescedRequests = null;
+			this.unregisterFragmentCacheCallbacks();
+			this.mFragmentCache = null;
+			if (mPrefetchIdleHandler != null) {
+				mPrefetchIdleHandler.cancel();
+				this.mPrefetchIdleHandler = null;
+			}
+			if (mPrefetcher != null) {
+				mPrefetcher.discardPrefetched();
+				this.mPrefetcher = null;
+			}
+			mTracing.release();
+			this.mTransitionMetrics = null;
 		}
 	}
 
@@ -889,20 +2453,20 @@ public class FragmentController {
 	/**
 	 * Called to dispatch change in the fragments back stack.
 	 *
-	 * @param backStackSize Current size of the fragments back stack.
-	 * @param change        Identifier determining the occurred change. One of {@link BackStackListener#ADDED}
-	 *                      or {@link BackStackListener#REMOVED}.
+	 * @param change The change that occurred in the back stack.
 	 */
 	@SuppressWarnings("WeakerAccess")
-	final void handleBackStackChange(int backStackSize, int change) {
-		if (backStackSize > 0) {
-			final FragmentManager.BackStackEntry entry = mManager.getBackStackEntryAt(backStackSize - 1);
-			if (entry != null) {
-				this.notifyBackStackEntryChange(mTopBackStackEntry = entry, change == BackStackListener.ADDED);
-			}
-		} else if (mTopBackStackEntry != null) {
-			this.notifyBackStackEntryChange(mTopBackStackEntry, false);
-			this.mTopBackStackEntry = null;
+	final void handleBackStackChange(BackStackChange change) {
+		final FragmentManager.BackStackEntry previousTopEntry = mTopBackStackEntry;
+		this.mTopBackStackEntry = change.getTopEntry();
+		final int oldDepth = change.getOldDepth();
+		final int newDepth = change.getNewDepth();
+		if (newDepth == oldDepth) {
+			this.notifyBackStackChange(change, null, false);
+		} else if (newDepth > 0) {
+			this.notifyBackStackChange(change, mTopBackStackEntry, newDepth > oldDepth);
+		} else {
+			this.notifyBackStackChange(change, previousTopEntry, false);
 		}
 	}
 
@@ -917,29 +2481,115 @@ public class FragmentController {
 	private final class BackStackListener implements FragmentManager.OnBackStackChangedListener {
 
 		/**
-		 * Flag to indicate, that fragment was added to the back stack.
 		 */
-		static final int ADDED = 0x00;
+		@Override
+		public void onBackStackChanged() {
+			final BackStackChange change = mBackStack.sync(mManager);
+			if (change != null) {
+				handleBackStackChange(change);
+			}
+		}
+	}
+
+	/**
+	 * A {@link Choreographer.FrameCallback} implementation used to execute coalesced requests at the
+	 * next frame.
+	 */
+	@SuppressWarnings("NewApi")
+	private final class CoalescingFrameCallback implements Choreographer.FrameCallback {
 
 		/**
-		 * Flag to indicate, that fragment was removed from the back stack.
 		 */
-		static final int REMOVED = 0x01;
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			handleCoalescedRequestsFrame();
+		}
+	}
+
+	/**
+	 * A {@link Runnable} implementation used to execute coalesced requests at Android API levels
+	 * where {@link Choreographer} is not available.
+	 */
+	private final class CoalescingRunnable implements Runnable {
 
 		/**
-		 * Current size of the fragments back stack.
 		 */
-		int backStackSize;
+		@Override
+		public void run() {
+			handleCoalescedRequestsFrame();
+		}
+	}
+
+	/**
+	 * A {@link Runnable} implementation used to prepare a fragment request on a background thread
+	 * and then to execute it on the main thread.
+	 */
+	private final class RequestPreparation implements Runnable {
 
 		/**
+		 * The request to be prepared.
+		 */
+		final FragmentRequest request;
+
+		/**
+		 * Factory that should provide fragment for the request.
+		 */
+		final FragmentFactory factory;
+
+		/**
+		 * Inflater used to pre-inflate content view of the fragment. May be {@code null}.
+		 */
+		final LayoutInflater inflater;
+
+		/**
+		 * Container into which will be the content view placed. May be {@code null}.
+		 */
+		final ViewGroup container;
+
+		/**
+		 * Fragment created for the request.
+		 */
+		Fragment fragment;
+
+		/**
+		 * Boolean flag indicating whether the request has been already prepared or not.
+		 */
+		boolean prepared;
+
+		/**
+		 * Creates a new instance of RequestPreparation for the given <var>request</var>.
+		 */
+		RequestPreparation(FragmentRequest request, FragmentFactory factory, LayoutInflater inflater, ViewGroup container) {
+			this.request = request;
+			this.factory = factory;
+			this.inflater = inflater;
+			this.container = container;
+		}
+
+		/**
+		 * Prepares the request when invoked for the first time (on a background thread) and executes
+		 * it when invoked for the second time (on the main thread).
 		 */
 		@Override
-		public void onBackStackChanged() {
-			final int n = mManager.getBackStackEntryCount();
-			if (n >= 0 && n != backStackSize) {
-				handleBackStackChange(n, n > backStackSize ? ADDED : REMOVED);
-				this.backStackSize = n;
+		public void run() {
+			if (prepared) {
+				handleRequestPrepared(request, fragment);
+				return;
+			}
+			try {
+				Fragment fragment = request.mFragment;
+				if (fragment == null) {
+					fragment = factory.createFragment(request.mFragmentId);
+				}
+				if (fragment instanceof ContentViewPreInflater && inflater != null) {
+					((ContentViewPreInflater) fragment).preInflateContentView(inflater, container);
+				}
+				this.fragment = fragment;
+			} catch (RuntimeException e) {
+				Log.w(TAG, "Failed to prepare request(" + request + "). Request will be executed without preparation.", e);
 			}
+			this.prepared = true;
+			mMainHandler.post(this);
 		}
 	}
 }
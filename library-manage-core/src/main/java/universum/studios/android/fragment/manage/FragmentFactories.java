@@ -0,0 +1,104 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2016 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.manage;
+
+import android.app.Fragment;
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Utility class providing helper methods for {@link FragmentFactory} implementations.
+ *
+ * @author Martin Albedinsky
+ */
+public final class FragmentFactories {
+
+	/**
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "FragmentFactories";
+
+	/**
+	 * Interface ===================================================================================
+	 */
+
+	/**
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 */
+	private FragmentFactories() {
+		// Creation of instances of this class is not publicly allowed.
+	}
+
+	/**
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of the fragment associated with the specified <var>fragmentId</var>
+	 * asynchronously via the given <var>executor</var> using the given <var>factory</var>.
+	 * <p>
+	 * <b>Note</b>, that the factory is invoked on a thread of the executor, so it must be safe to be
+	 * used from multiple threads as required by the {@link FragmentFactory} contract.
+	 *
+	 * @param factory    The factory used to create the fragment.
+	 * @param fragmentId Id of the desired fragment to create a new instance of.
+	 * @param executor   Executor on which to create the fragment.
+	 * @return Future providing instance of fragment associated with the <var>fragmentId</var> or
+	 * {@code null} if the factory does not provide fragment for the requested id. If creation of
+	 * the fragment fails the future completes with the thrown exception.
+	 * @see FragmentFactory#createFragment(int)
+	 */
+	@NonNull
+	public static Future<Fragment> createFragmentAsync(@NonNull final FragmentFactory factory, final int fragmentId, @NonNull Executor executor) {
+		final FutureTask<Fragment> task = new FutureTask<>(new Callable<Fragment>() {
+
+			/**
+			 */
+			@Override
+			public Fragment call() throws Exception {
+				return factory.createFragment(fragmentId);
+			}
+		});
+		executor.execute(task);
+		return task;
+	}
+
+	/**
+	 * Inner classes ===============================================================================
+	 */
+}
@@ -25,6 +25,14 @@ import android.support.annotation.Nullable;
  * FragmentFactory specifies an interface for factories that may be attached to {@link FragmentController}
  * in order to provide fragment instances with theirs corresponding TAGs for that controller.
  *
+ * <h3>Thread safety</h3>
+ * Implementations of this interface must be safe for concurrent use. {@link FragmentController} may
+ * call all methods of its factory not only from the main thread but also from background threads,
+ * like when a fragment for a request is created via {@link FragmentRequest#prepareAsync(java.util.concurrent.Executor)}
+ * or via {@link FragmentFactories#createFragmentAsync(FragmentFactory, int, java.util.concurrent.Executor)}.
+ * Implementations should prefer immutable state for theirs lookups so the calls do not need to
+ * acquire any locks.
+ *
  * @author Martin Albedinsky
  */
 public interface FragmentFactory {
@@ -0,0 +1,160 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.manage;
+
+import android.app.Activity;
+import android.app.Fragment;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewGroup;
+
+import universum.studios.android.fragment.ContentViewPreInflater;
+
+/**
+ * A {@link MessageQueue.IdleHandler} implementation used by {@link FragmentController} to prefetch
+ * the factory fragment predicted by its {@link FragmentPrefetcher} while the main thread is idle.
+ *
+ * @author Martin Albedinsky
+ * @see FragmentController#setPrefetcher(FragmentPrefetcher)
+ */
+final class FragmentPrefetchIdleHandler implements MessageQueue.IdleHandler {
+
+	/**
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	private static final String TAG = "FragmentPrefetchIdleHandler";
+
+	/**
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Controller for which to prefetch fragments.
+	 */
+	private final FragmentController mController;
+
+	/**
+	 * Parent activity of the controller used to pre-inflate content views of prefetched fragments.
+	 * May be {@code null}.
+	 */
+	private final Activity mParentActivity;
+
+	/**
+	 * Boolean flag indicating whether prefetching is already scheduled or not.
+	 */
+	private boolean mScheduled;
+
+	/**
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of FragmentPrefetchIdleHandler for the given <var>controller</var>.
+	 *
+	 * @param controller     The controller for which to prefetch fragments.
+	 * @param parentActivity Parent activity of the controller. May be {@code null}.
+	 */
+	FragmentPrefetchIdleHandler(@NonNull FragmentController controller, @Nullable Activity parentActivity) {
+		this.mController = controller;
+		this.mParentActivity = parentActivity;
+	}
+
+	/**
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Schedules prefetching of the likely next fragment when the main thread becomes idle, if not
+	 * scheduled yet. Does nothing if not called on the main thread.
+	 */
+	void schedule() {
+		if (mScheduled || Looper.myLooper() != Looper.getMainLooper()) {
+			return;
+		}
+		this.mScheduled = true;
+		Looper.myQueue().addIdleHandler(this);
+	}
+
+	/**
+	 * Cancels the scheduled prefetching, if any. Must be called on the main thread.
+	 */
+	void cancel() {
+		if (mScheduled) {
+			this.mScheduled = false;
+			Looper.myQueue().removeIdleHandler(this);
+		}
+	}
+
+	/**
+	 */
+	@Override
+	public boolean queueIdle() {
+		this.mScheduled = false;
+		this.prefetch();
+		return false;
+	}
+
+	/**
+	 * Prefetches the fragment predicted by prefetcher of the controller, unless it is already
+	 * prefetched or cached.
+	 */
+	private void prefetch() {
+		final FragmentPrefetcher prefetcher = mController.getPrefetcher();
+		final FragmentFactory factory = mController.getFactory();
+		if (prefetcher == null || factory == null) {
+			return;
+		}
+		final int fragmentId = prefetcher.predictNext();
+		final FragmentCache cache = mController.getFragmentCache();
+		if (fragmentId == FragmentRequest.NO_ID ||
+				fragmentId == prefetcher.getPrefetchedFragmentId() ||
+				(cache != null && cache.contains(fragmentId)) ||
+				!factory.isFragmentProvided(fragmentId)) {
+			return;
+		}
+		try {
+			final Fragment fragment = factory.createFragment(fragmentId);
+			if (fragment == null) {
+				return;
+			}
+			if (prefetcher.preInflate() && fragment instanceof ContentViewPreInflater && mParentActivity != null) {
+				final View containerView = mParentActivity.findViewById(mController.getViewContainerId());
+				((ContentViewPreInflater) fragment).preInflateContentView(
+						mParentActivity.getLayoutInflater(),
+						containerView instanceof ViewGroup ? (ViewGroup) containerView : null
+				);
+			}
+			prefetcher.putPrefetched(fragmentId, fragment);
+		} catch (RuntimeException e) {
+			Log.w(TAG, "Failed to prefetch fragment for id(" + fragmentId + ").", e);
+		}
+	}
+
+	/**
+	 * Inner classes ===============================================================================
+	 */
+}
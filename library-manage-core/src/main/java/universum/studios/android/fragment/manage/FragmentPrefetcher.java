@@ -0,0 +1,614 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.manage;
+
+import android.app.Fragment;
+import android.content.Context;
+import android.support.annotation.FloatRange;
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * A prefetcher that may be used by {@link FragmentController} to predict which factory fragment
+ * will be most likely requested next and to create its instance in advance while the main thread
+ * is idle.
+ * <p>
+ * The prediction is based on a compact model of transitions between factory fragments, where for
+ * each pair of fragment ids (<b>from</b> -&gt; <b>to</b>) is recorded count of how many times has
+ * been the <b>to</b> fragment requested right after the <b>from</b> fragment. Size of the model is
+ * limited by maximum count of transitions specified via {@link #FragmentPrefetcher(int)}, when the
+ * model is full, counts of all transitions are halved so the rarely used transitions are dropped.
+ * The model may be persisted across application sessions via {@link #save(Context, String)} and
+ * {@link #load(Context, String)}.
+ * <p>
+ * At most one fragment instance is prefetched at a time and it is used by the controller only if
+ * the predicted fragment is really requested, otherwise it is discarded. Ratio of the prefetched
+ * fragments that have been used rather than discarded may be obtained via {@link #getHitRate()}.
+ *
+ * @author Martin Albedinsky
+ * @see FragmentController#setPrefetcher(FragmentPrefetcher)
+ */
+public final class FragmentPrefetcher {
+
+	/**
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	private static final String TAG = "FragmentPrefetcher";
+
+	/**
+	 * Magic number identifying file with persisted model.
+	 */
+	private static final int MAGIC = 0x46525046;
+
+	/**
+	 * Version of format of the file with persisted model.
+	 */
+	private static final int FORMAT_VERSION = 1;
+
+	/**
+	 * Size of header of the file with persisted model (magic, version and count of transitions).
+	 */
+	private static final int HEADER_SIZE = 12;
+
+	/**
+	 * Size of one transition within the file with persisted model (key and count).
+	 */
+	private static final int TRANSITION_SIZE = 12;
+
+	/**
+	 * Prefix for names of files with persisted models.
+	 */
+	private static final String FILE_NAME_PREFIX = "fragments-prefetch-";
+
+	/**
+	 * Count at which are counts of all transitions halved, so they cannot overflow.
+	 */
+	private static final int MAX_TRANSITION_COUNT = Integer.MAX_VALUE / 2;
+
+	/**
+	 * Interface ===================================================================================
+	 */
+
+	/**
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Maximum count of transitions that may be recorded by the model.
+	 */
+	private final int mMaxTransitions;
+
+	/**
+	 * Keys of the recorded transitions. Each key combines id of the <b>from</b> fragment (high bits)
+	 * and id of the <b>to</b> fragment (low bits).
+	 */
+	private long[] mKeys;
+
+	/**
+	 * Counts of the recorded transitions. Count of {@code 0} determines an empty slot.
+	 */
+	private int[] mCounts;
+
+	/**
+	 * Count of the currently recorded transitions.
+	 */
+	private int mSize;
+
+	/**
+	 * Ids of the <b>from</b> fragments of the recorded transitions, indexed the same way as
+	 * {@link #mSourceTotals}.
+	 */
+	private int[] mSourceIds;
+
+	/**
+	 * Total counts of the recorded transitions from a particular fragment. Total of {@code 0}
+	 * determines an empty slot.
+	 */
+	private long[] mSourceTotals;
+
+	/**
+	 * Ids of the <b>to</b> fragments of the most frequent transitions from a particular fragment.
+	 */
+	private int[] mSourceBestIds;
+
+	/**
+	 * Counts of the most frequent transitions from a particular fragment.
+	 */
+	private int[] mSourceBestCounts;
+
+	/**
+	 * Id of the factory fragment that has been requested as the last one.
+	 */
+	private int mLastFragmentId = FragmentRequest.NO_ID;
+
+	/**
+	 * Minimum count of recorded transitions from a particular fragment required to make a prediction.
+	 */
+	private int mMinSamples = 3;
+
+	/**
+	 * Minimum probability of the predicted transition required to prefetch its fragment.
+	 */
+	private float mMinProbability = 0.5f;
+
+	/**
+	 * Boolean flag indicating whether content view of the prefetched fragment should be also
+	 * pre-inflated.
+	 */
+	private boolean mPreInflate;
+
+	/**
+	 * Id of the currently prefetched fragment.
+	 */
+	private int mPrefetchedFragmentId = FragmentRequest.NO_ID;
+
+	/**
+	 * Currently prefetched fragment.
+	 */
+	private Fragment mPrefetchedFragment;
+
+	/**
+	 * Count of prefetched fragments that have been used.
+	 */
+	private int mHits;
+
+	/**
+	 * Count of prefetched fragments that have been discarded without being used.
+	 */
+	private int mMisses;
+
+	/**
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of FragmentPrefetcher with the specified <var>maxTransitions</var>.
+	 *
+	 * @param maxTransitions Maximum count of transitions between fragments that may be recorded.
+	 *                       Each transition occupies 12 bytes of memory, twice for load factor.
+	 */
+	public FragmentPrefetcher(@IntRange(from = 1) int maxTransitions) {
+		if (maxTransitions < 1) throw new IllegalArgumentException("Max count of transitions must be at least 1!");
+		this.mMaxTransitions = maxTransitions;
+		int capacity = 2;
+		while (capacity < maxTransitions * 2) {
+			capacity <<= 1;
+		}
+		this.mKeys = new long[capacity];
+		this.mCounts = new int[capacity];
+		this.mSourceIds = new int[capacity];
+		this.mSourceTotals = new long[capacity];
+		this.mSourceBestIds = new int[capacity];
+		this.mSourceBestCounts = new int[capacity];
+	}
+
+	/**
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Sets the minimum requirements that must be met by a predicted transition so its fragment is
+	 * prefetched.
+	 * <p>
+	 * Default values: <b>3, 0.5</b>
+	 *
+	 * @param minSamples     Minimum count of recorded transitions from the current fragment.
+	 * @param minProbability Minimum probability of the predicted transition among all transitions
+	 *                       from the current fragment.
+	 * @return This prefetcher to allow methods chaining.
+	 */
+	public FragmentPrefetcher minConfidence(@IntRange(from = 1) int minSamples, @FloatRange(from = 0, to = 1) float minProbability) {
+		this.mMinSamples = Math.max(1, minSamples);
+		this.mMinProbability = minProbability;
+		return this;
+	}
+
+	/**
+	 * Sets a boolean flag indicating whether content view of the prefetched fragments should be also
+	 * pre-inflated, if the fragment supports it.
+	 * <p>
+	 * Default value: <b>false</b>
+	 *
+	 * @param preInflate {@code True} to pre-inflate content views, {@code false} otherwise.
+	 * @return This prefetcher to allow methods chaining.
+	 * @see universum.studios.android.fragment.ContentViewPreInflater
+	 */
+	public FragmentPrefetcher preInflate(boolean preInflate) {
+		this.mPreInflate = preInflate;
+		return this;
+	}
+
+	/**
+	 * Returns boolean flag indicating whether content view of the prefetched fragments should be
+	 * also pre-inflated.
+	 *
+	 * @return {@code True} if content views should be pre-inflated, {@code false} otherwise.
+	 */
+	public boolean preInflate() {
+		return mPreInflate;
+	}
+
+	/**
+	 * Returns the count of the currently recorded transitions.
+	 *
+	 * @return Count of transitions.
+	 */
+	public int getTransitionsCount() {
+		return mSize;
+	}
+
+	/**
+	 * Returns the count of prefetched fragments that have been used, because their fragment has been
+	 * requested.
+	 *
+	 * @return Count of hits.
+	 * @see #getHitRate()
+	 */
+	public int getHits() {
+		return mHits;
+	}
+
+	/**
+	 * Returns the count of prefetched fragments that have been discarded without being used, because
+	 * a different fragment has been requested or the prefetched fragment has been replaced.
+	 *
+	 * @return Count of misses.
+	 * @see #getHitRate()
+	 */
+	public int getMisses() {
+		return mMisses;
+	}
+
+	/**
+	 * Returns the ratio of prefetched fragments that have been used among all prefetched fragments
+	 * that have been either used or discarded.
+	 *
+	 * @return Hit rate from the range {@code [0, 1]}.
+	 */
+	public float getHitRate() {
+		final int total = mHits + mMisses;
+		return total == 0 ? 0 : (float) mHits / total;
+	}
+
+	/**
+	 * Records request for the factory fragment with the specified <var>fragmentId</var> as transition
+	 * from the last requested fragment.
+	 *
+	 * @param fragmentId Id of the requested fragment.
+	 */
+	void recordRequest(int fragmentId) {
+		if (mLastFragmentId != FragmentRequest.NO_ID && mLastFragmentId != fragmentId) {
+			this.recordTransition(mLastFragmentId, fragmentId);
+		}
+		this.mLastFragmentId = fragmentId;
+	}
+
+	/**
+	 * Increments count of the transition between the specified fragments.
+	 */
+	private void recordTransition(int fromFragmentId, int toFragmentId) {
+		final long key = createKey(fromFragmentId, toFragmentId);
+		int index = indexOf(key);
+		if (mCounts[index] == 0) {
+			if (mSize >= mMaxTransitions) {
+				while (mSize >= mMaxTransitions) {
+					this.age();
+				}
+				index = indexOf(key);
+			}
+			mKeys[index] = key;
+			this.mSize++;
+		}
+		final int count = ++mCounts[index];
+		final int sourceIndex = sourceIndexOf(fromFragmentId);
+		mSourceIds[sourceIndex] = fromFragmentId;
+		mSourceTotals[sourceIndex]++;
+		if (count > mSourceBestCounts[sourceIndex] || mSourceBestIds[sourceIndex] == toFragmentId) {
+			mSourceBestIds[sourceIndex] = toFragmentId;
+			mSourceBestCounts[sourceIndex] = count;
+		}
+		if (count >= MAX_TRANSITION_COUNT) {
+			this.age();
+		}
+	}
+
+	/**
+	 * Halves counts of all recorded transitions and drops the transitions with count of {@code 0}.
+	 */
+	private void age() {
+		final long[] keys = mKeys;
+		final int[] counts = mCounts;
+		this.mKeys = new long[keys.length];
+		this.mCounts = new int[counts.length];
+		this.mSize = 0;
+		for (int i = 0; i < keys.length; i++) {
+			final int count = counts[i] >> 1;
+			if (count > 0) {
+				final int index = indexOf(keys[i]);
+				mKeys[index] = keys[i];
+				mCounts[index] = count;
+				this.mSize++;
+			}
+		}
+		this.rebuildSourceIndex();
+	}
+
+	/**
+	 * Rebuilds index of transitions by their <b>from</b> fragment from all recorded transitions.
+	 */
+	private void rebuildSourceIndex() {
+		final int capacity = mKeys.length;
+		this.mSourceIds = new int[capacity];
+		this.mSourceTotals = new long[capacity];
+		this.mSourceBestIds = new int[capacity];
+		this.mSourceBestCounts = new int[capacity];
+		for (int i = 0; i < capacity; i++) {
+			final int count = mCounts[i];
+			if (count != 0) {
+				final int fromFragmentId = (int) (mKeys[i] >> 32);
+				final int sourceIndex = sourceIndexOf(fromFragmentId);
+				mSourceIds[sourceIndex] = fromFragmentId;
+				mSourceTotals[sourceIndex] += count;
+				if (count > mSourceBestCounts[sourceIndex]) {
+					mSourceBestIds[sourceIndex] = (int) mKeys[i];
+					mSourceBestCounts[sourceIndex] = count;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns index of slot for the specified <var>fragmentId</var> within the index of transitions
+	 * by their <b>from</b> fragment, either the slot that contains the id or an empty slot where the
+	 * id should be placed.
+	 */
+	private int sourceIndexOf(int fragmentId) {
+		final int mask = mSourceIds.length - 1;
+		int index = fragmentId * 0x9E3779B9 & mask;
+		while (mSourceTotals[index] != 0 && mSourceIds[index] != fragmentId) {
+			index = (index + 1) & mask;
+		}
+		return index;
+	}
+
+	/**
+	 * Returns index of slot for the specified <var>key</var>, either the slot that contains the key
+	 * or an empty slot where the key should be placed.
+	 */
+	private int indexOf(long key) {
+		final int mask = mKeys.length - 1;
+		int index = (int) (key ^ (key >>> 32)) * 0x9E3779B9 & mask;
+		while (mCounts[index] != 0 && mKeys[index] != key) {
+			index = (index + 1) & mask;
+		}
+		return index;
+	}
+
+	/**
+	 * Creates key of transition between the specified fragments.
+	 */
+	private static long createKey(int fromFragmentId, int toFragmentId) {
+		return ((long) fromFragmentId << 32) | (toFragmentId & 0xffffffffL);
+	}
+
+	/**
+	 * Predicts id of the factory fragment that will be most likely requested after the last requested
+	 * fragment.
+	 *
+	 * @return Id of the predicted fragment or {@link FragmentRequest#NO_ID} if there is no transition
+	 * that meets the minimum confidence.
+	 */
+	int predictNext() {
+		if (mLastFragmentId == FragmentRequest.NO_ID) {
+			return FragmentRequest.NO_ID;
+		}
+		final int sourceIndex = sourceIndexOf(mLastFragmentId);
+		final long total = mSourceTotals[sourceIndex];
+		if (total == 0) {
+			return FragmentRequest.NO_ID;
+		}
+		final int maxCount = mSourceBestCounts[sourceIndex];
+		return total >= mMinSamples && maxCount >= mMinProbability * total ? mSourceBestIds[sourceIndex] : FragmentRequest.NO_ID;
+	}
+
+	/**
+	 * Returns id of the currently prefetched fragment.
+	 *
+	 * @return Fragment id or {@link FragmentRequest#NO_ID} if there is no fragment prefetched.
+	 */
+	int getPrefetchedFragmentId() {
+		return mPrefetchedFragmentId;
+	}
+
+	/**
+	 * Stores the given prefetched <var>fragment</var> replacing the one prefetched before. The
+	 * replaced fragment is counted as miss.
+	 *
+	 * @param fragmentId Id of the prefetched fragment.
+	 * @param fragment   The prefetched fragment.
+	 */
+	void putPrefetched(int fragmentId, Fragment fragment) {
+		this.discardPrefetched();
+		this.mPrefetchedFragmentId = fragmentId;
+		this.mPrefetchedFragment = fragment;
+	}
+
+	/**
+	 * Takes the prefetched fragment for the specified <var>fragmentId</var>. The currently prefetched
+	 * fragment is discarded whenever a fragment is taken. Taken fragment is counted as hit, the
+	 * discarded one as miss.
+	 *
+	 * @param fragmentId Id of the requested fragment.
+	 * @return Prefetched fragment or {@code null} if the requested fragment has not been prefetched.
+	 */
+	@Nullable
+	Fragment takePrefetched(int fragmentId) {
+		final Fragment fragment = mPrefetchedFragment;
+		if (fragment == null || mPrefetchedFragmentId != fragmentId) {
+			this.discardPrefetched();
+			return null;
+		}
+		this.mHits++;
+		this.mPrefetchedFragmentId = FragmentRequest.NO_ID;
+		this.mPrefetchedFragment = null;
+		return fragment;
+	}
+
+	/**
+	 * Discards the currently prefetched fragment, if any, counting it as miss.
+	 */
+	void discardPrefetched() {
+		if (mPrefetchedFragment != null) this.mMisses++;
+		this.mPrefetchedFragmentId = FragmentRequest.NO_ID;
+		this.mPrefetchedFragment = null;
+	}
+
+	/**
+	 * Loads model of transitions persisted under the specified <var>name</var> via {@link #save(Context, String)}.
+	 * Transitions of the loaded model are added to the transitions recorded by this prefetcher, but
+	 * only if the whole model has been successfully read, otherwise the recorded transitions are
+	 * left untouched.
+	 *
+	 * @param context Context used to access files of the application.
+	 * @param name    Name under which has been the model persisted.
+	 * @return {@code True} if the model has been loaded, {@code false} if there is no persisted model
+	 * or it could not be loaded.
+	 */
+	public boolean load(@NonNull Context context, @NonNull String name) {
+		final File file = new File(context.getFilesDir(), FILE_NAME_PREFIX + name);
+		if (!file.exists()) {
+			return false;
+		}
+		DataInputStream input = null;
+		try {
+			input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+				throw new IOException("Not a prefetch model file.");
+			}
+			final int transitionsCount = input.readInt();
+			if (transitionsCount < 0 || transitionsCount > (file.length() - HEADER_SIZE) / TRANSITION_SIZE) {
+				throw new IOException("Invalid count of transitions(" + transitionsCount + ").");
+			}
+			final long[] keys = new long[transitionsCount];
+			final int[] counts = new int[transitionsCount];
+			for (int i = 0; i < transitionsCount; i++) {
+				keys[i] = input.readLong();
+				counts[i] = input.readInt();
+				if (counts[i] <= 0) {
+					throw new IOException("Invalid count of transition(" + counts[i] + ").");
+				}
+			}
+			for (int i = 0; i < transitionsCount; i++) {
+				final int index = indexOf(keys[i]);
+				if (mCounts[index] == 0) {
+					if (mSize >= mMaxTransitions) {
+						continue;
+					}
+					mKeys[index] = keys[i];
+					this.mSize++;
+				}
+				mCounts[index] = (int) Math.min((long) mCounts[index] + counts[i], MAX_TRANSITION_COUNT - 1);
+			}
+			this.rebuildSourceIndex();
+			return true;
+		} catch (IOException e) {
+			Log.e(TAG, "Failed to load prefetch model(" + name + ").", e);
+			return false;
+		} finally {
+			if (input != null) {
+				try {
+					input.close();
+				} catch (IOException ignored) {
+					// Nothing to do here.
+				}
+			}
+		}
+	}
+
+	/**
+	 * Persists the current model of transitions under the specified <var>name</var>, so it may be
+	 * loaded in the next application session via {@link #load(Context, String)}.
+	 *
+	 * @param context Context used to access files of the application.
+	 * @param name    Name under which to persist the model.
+	 * @return {@code True} if the model has been persisted, {@code false} otherwise.
+	 */
+	public boolean save(@NonNull Context context, @NonNull String name) {
+		final File file = new File(context.getFilesDir(), FILE_NAME_PREFIX + name);
+		final File tempFile = new File(file.getPath() + ".tmp");
+		FileOutputStream stream = null;
+		try {
+			stream = new FileOutputStream(tempFile);
+			final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream));
+			output.writeInt(MAGIC);
+			output.writeInt(FORMAT_VERSION);
+			output.writeInt(mSize);
+			for (int i = 0; i < mKeys.length; i++) {
+				if (mCounts[i] != 0) {
+					output.writeLong(mKeys[i]);
+					output.writeInt(mCounts[i]);
+				}
+			}
+			output.flush();
+			stream.getFD().sync();
+			output.close();
+			stream = null;
+			if (!tempFile.renameTo(file)) {
+				throw new IOException("Failed to replace prefetch model file.");
+			}
+			return true;
+		} catch (IOException e) {
+			Log.e(TAG, "Failed to save prefetch model(" + name + ").", e);
+			if (stream != null) {
+				try {
+					stream.close();
+				} catch (IOException ignored) {
+					// Temporary file is deleted below.
+				}
+			}
+			if (tempFile.exists() && !tempFile.delete()) {
+				Log.w(TAG, "Failed to delete temporary prefetch model file.");
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Inner classes ===============================================================================
+	 */
+}
@@ -21,6 +21,7 @@ package universum.studios.android.fragment.manage;
 import android.app.Fragment;
 import android.app.FragmentManager;
 import android.app.FragmentTransaction;
+import android.os.AsyncTask;
 import android.os.Bundle;
 import android.support.annotation.IdRes;
 import android.support.annotation.IntDef;
@@ -36,6 +37,7 @@ import java.lang.annotation.RetentionPolicy;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * A request that may be used to replace|add|remove|show|hide|attach|detach a desired {@link Fragment}
@@ -70,7 +72,12 @@ import java.util.List;
  * <li>{@link #executeImmediate(boolean)}</li>
  * </ul>
  * <p>
- * <b>Note, that each fragment request may be executed only once.</b>
+ * Requests that add a new fragment may be also prepared asynchronously via {@link #prepareAsync()}
+ * instead of being executed directly.
+ * <p>
+ * <b>Note, that each fragment request may be executed only once.</b> If the associated controller
+ * has pooling of requests enabled via {@link FragmentController#setRequestPoolSize(int)}, the request
+ * also should not be referenced after it has been executed as it may be recycled and reused.
  *
  * @author Martin Albedinsky
  * @see FragmentController
@@ -285,13 +292,19 @@ public final class FragmentRequest {
 	 *
 	 * @see #execute()
 	 */
-	private final FragmentController mController;
+	final FragmentController mController;
 
 	/**
 	 * Fragment instance associated with this request.
 	 */
 	Fragment mFragment;
 
+	/**
+	 * Boolean flag indicating whether the associated fragment has been resolved from the {@link FragmentCache}
+	 * attached to the controller, so it may be already active.
+	 */
+	boolean mFragmentCached;
+
 	/**
 	 * Id of the associated fragment.
 	 */
@@ -424,7 +437,7 @@ public final class FragmentRequest {
 	 * Boolean flag indicating whether this request has been already executed via {@link #execute()}
 	 * or not.
 	 */
-	private boolean mExecuted;
+	boolean mExecuted;
 
 	/**
 	 * Constructors ============================================================================
@@ -573,6 +586,10 @@ public final class FragmentRequest {
 
 	/**
 	 * Sets an arguments for the associated fragment.
+	 * <p>
+	 * If the associated fragment is reused from the {@link FragmentCache}, its arguments cannot be
+	 * replaced as it is already active, so the specified arguments are merged into its current ones
+	 * instead. Such fragment should then re-read its arguments when it is displayed again.
 	 *
 	 * @param arguments The desired arguments for fragment. May be {@code null}.
 	 * @return This request to allow methods chaining.
@@ -936,7 +953,7 @@ public final class FragmentRequest {
 	 */
 	@Nullable
 	public List<Pair<View, String>> sharedElements() {
-		return mSharedElements;
+		return mSharedElements == null || mSharedElements.isEmpty() ? null : mSharedElements;
 	}
 
 	/**
@@ -1208,21 +1225,57 @@ public final class FragmentRequest {
 	@Nullable
 	public Fragment execute() {
 		this.assertNotExecuted();
-		switch (mTransaction) {
-			case REPLACE:
-			case ADD:
-				if (mViewContainerId == FragmentController.NO_CONTAINER_ID) {
-					throw new IllegalArgumentException("Cannot execute request for REPLACE|ADD transaction. No view container id specified!");
-				}
-			case REMOVE:
-			case SHOW:
-			case HIDE:
-			case ATTACH:
-			case DETACH:
-			default:
-				final Fragment fragment = mController.executeRequest(this);
-				this.mExecuted = true;
-				return fragment;
+		this.assertHasViewContainer();
+		final Fragment fragment = mController.executeRequest(this);
+		this.mExecuted = true;
+		mController.recycleRequest(this);
+		return fragment;
+	}
+
+	/**
+	 * Same as {@link #prepareAsync(Executor)} with {@link AsyncTask#THREAD_POOL_EXECUTOR} as executor.
+	 */
+	public void prepareAsync() {
+		prepareAsync(AsyncTask.THREAD_POOL_EXECUTOR);
+	}
+
+	/**
+	 * Prepares this request via the given <var>executor</var> and executes it via the associated
+	 * {@link FragmentController} on the main thread once prepared.
+	 * <p>
+	 * For request of {@link #REPLACE} or {@link #ADD} transaction, the associated fragment is created
+	 * (if this is request for factory fragment) and its content view is pre-inflated (if the fragment
+	 * is {@link universum.studios.android.fragment.ContentViewPreInflater ContentViewPreInflater})
+	 * via the executor, so the main thread is not blocked by these operations. Requests of other
+	 * transaction types are executed immediately.
+	 * <p>
+	 * <b>Note</b>, that the attached {@link FragmentFactory} is invoked on a thread of the executor,
+	 * so it must be safe to be used from multiple threads. The content view is pre-inflated via a
+	 * clone of the layout inflater of the parent activity and with a detached stand-in container,
+	 * so the attached view hierarchy is not accessed outside of the main thread.
+	 * <p>
+	 * This request is considered executed after this call, so any subsequent calls to {@link #execute()}
+	 * or to this method will throw an exception.
+	 *
+	 * @param executor The executor on which to prepare this request.
+	 * @throws IllegalStateException    If this request has been already executed.
+	 * @throws IllegalArgumentException If current configuration of this request does not meet the
+	 *                                  requirements as described in {@link #execute()}.
+	 */
+	public void prepareAsync(@NonNull Executor executor) {
+		this.assertNotExecuted();
+		this.assertHasViewContainer();
+		this.mExecuted = true;
+		mController.prepareRequest(this, executor);
+	}
+
+	/**
+	 * Asserts that this request has view container id specified if it is required by its transaction
+	 * type. If not, an exception is thrown.
+	 */
+	private void assertHasViewContainer() {
+		if ((mTransaction == REPLACE || mTransaction == ADD) && mViewContainerId == FragmentController.NO_CONTAINER_ID) {
+			throw new IllegalArgumentException("Cannot execute request for REPLACE|ADD transaction. No view container id specified!");
 		}
 	}
 
@@ -1244,6 +1297,76 @@ public final class FragmentRequest {
 		return mExecuted;
 	}
 
+	/**
+	 * Copies the current configuration of this request into the given <var>request</var>. The executed
+	 * state is not copied.
+	 *
+	 * @param request The request into which to copy configuration of this request.
+	 */
+	void copyTo(FragmentRequest request) {
+		request.mFragment = mFragment;
+		request.mFragmentCached = mFragmentCached;
+		request.mFragmentId = mFragmentId;
+		request.mOutgoingFragmentId = mOutgoingFragmentId;
+		request.mArguments = mArguments;
+		request.mTransaction = mTransaction;
+		request.mTag = mTag;
+		request.mViewContainerId = mViewContainerId;
+		request.mTransition = mTransition;
+		request.mTransitionStyle = mTransitionStyle;
+		request.mEnterTransition = mEnterTransition;
+		request.mExitTransition = mExitTransition;
+		request.mReenterTransition = mReenterTransition;
+		request.mReturnTransition = mReturnTransition;
+		request.mSharedElementEnterTransition = mSharedElementEnterTransition;
+		request.mSharedElementReturnTransition = mSharedElementReturnTransition;
+		request.mSpecifiedTransitions = mSpecifiedTransitions;
+		request.mAllowEnterTransitionOverlap = mAllowEnterTransitionOverlap;
+		request.mAllowReturnTransitionOverlap = mAllowReturnTransitionOverlap;
+		if (mSharedElements != null) {
+			if (request.mSharedElements == null) request.mSharedElements = new ArrayList<>(mSharedElements.size());
+			else request.mSharedElements.clear();
+			request.mSharedElements.addAll(mSharedElements);
+		} else if (request.mSharedElements != null) {
+			request.mSharedElements.clear();
+		}
+		request.mFlags = mFlags;
+	}
+
+	/**
+	 * Clears current configuration of this request so it may be reused by the associated controller.
+	 * <p>
+	 * <b>Note</b>, that this does not change the executed state of this request, so any attempt to
+	 * execute recycled request will throw an exception until it is obtained again.
+	 *
+	 * @see FragmentController#setRequestPoolSize(int)
+	 */
+	void recycle() {
+		this.mFragment = null;
+		this.mFragmentCached = false;
+		this.mFragmentId = NO_ID;
+		this.mOutgoingFragmentId = NO_ID;
+		this.mArguments = null;
+		this.mTransaction = REPLACE;
+		this.mTag = null;
+		this.mViewContainerId = FragmentController.NO_CONTAINER_ID;
+		this.mTransition = null;
+		this.mTransitionStyle = NO_STYLE;
+		this.mEnterTransition = null;
+		this.mExitTransition = null;
+		this.mReenterTransition = null;
+		this.mReturnTransition = null;
+		this.mSharedElementEnterTransition = null;
+		this.mSharedElementReturnTransition = null;
+		this.mSpecifiedTransitions = 0;
+		this.mAllowEnterTransitionOverlap = null;
+		this.mAllowReturnTransitionOverlap = null;
+		if (mSharedElements != null) {
+			mSharedElements.clear();
+		}
+		this.mFlags = 0;
+	}
+
 	/**
 	 * Inner classes ===============================================================================
 	 */
@@ -0,0 +1,139 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.manage;
+
+import android.support.annotation.IntDef;
+import android.support.annotation.Nullable;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Interface that may be used to trace phases of execution of {@link FragmentRequest FragmentRequests}
+ * via {@link FragmentController}.
+ * <p>
+ * Each phase is reported via {@link #onPhaseStarted(int, int, String)} when it starts and via
+ * {@link #onPhaseFinished(int, int, String, long)} when it finishes along with its duration. Both
+ * callbacks are tagged with id of the factory fragment of the traced request and with name of its
+ * {@link FragmentTransition} (if specified). All callbacks are invoked on the main thread.
+ * <p>
+ * Requests executed as part of a batch (see {@link FragmentController#beginBatch()}) share a single
+ * transaction, so phases of its commit and execution of pending transactions are traced only once
+ * for the whole batch, tagged with its last request.
+ *
+ * @author Martin Albedinsky
+ * @see FragmentController#setRequestTracer(FragmentRequestTracer)
+ */
+public interface FragmentRequestTracer {
+
+	/**
+	 * Phase in which is the fragment of request created via the attached {@link FragmentFactory}.
+	 *
+	 * @see FragmentFactory#createFragment(int)
+	 */
+	int PHASE_CREATE_FRAGMENT = 0x00;
+
+	/**
+	 * Phase in which is the request intercepted via the attached {@link FragmentRequestInterceptor}.
+	 *
+	 * @see FragmentRequestInterceptor#interceptFragmentRequest(FragmentRequest)
+	 */
+	int PHASE_INTERCEPT = 0x01;
+
+	/**
+	 * Phase in which is created transaction for the request.
+	 *
+	 * @see FragmentController#createTransaction(FragmentRequest)
+	 */
+	int PHASE_CREATE_TRANSACTION = 0x02;
+
+	/**
+	 * Phase in which is the transaction for the request committed.
+	 *
+	 * @see android.app.FragmentTransaction#commit()
+	 */
+	int PHASE_COMMIT = 0x03;
+
+	/**
+	 * Phase in which are pending transactions executed for an {@link FragmentRequest#immediate(boolean) immediate}
+	 * request.
+	 *
+	 * @see android.app.FragmentManager#executePendingTransactions()
+	 */
+	int PHASE_EXECUTE_PENDING = 0x04;
+
+	/**
+	 * Phase lasting from commit of the transaction for the request until the first frame in which
+	 * is view of the incoming fragment going to be drawn. If the incoming fragment does not create
+	 * any view or its view is not drawn within a reasonable time (for example because it is not
+	 * attached to window), the phase is finished with duration of {@code -1}.
+	 * <p>
+	 * This phase is traced only for requests of {@link FragmentRequest#REPLACE}, {@link FragmentRequest#ADD},
+	 * {@link FragmentRequest#ATTACH} and {@link FragmentRequest#SHOW} transaction, including such
+	 * requests executed as part of a batch or coalesced requests.
+	 */
+	int PHASE_FIRST_FRAME = 0x05;
+
+	/**
+	 * Defines an annotation for determining available phases of request execution.
+	 *
+	 * <h3>Available phases:</h3>
+	 * <ul>
+	 * <li>{@link #PHASE_CREATE_FRAGMENT}</li>
+	 * <li>{@link #PHASE_INTERCEPT}</li>
+	 * <li>{@link #PHASE_CREATE_TRANSACTION}</li>
+	 * <li>{@link #PHASE_COMMIT}</li>
+	 * <li>{@link #PHASE_EXECUTE_PENDING}</li>
+	 * <li>{@link #PHASE_FIRST_FRAME}</li>
+	 * </ul>
+	 */
+	@IntDef({
+			PHASE_CREATE_FRAGMENT,
+			PHASE_INTERCEPT,
+			PHASE_CREATE_TRANSACTION,
+			PHASE_COMMIT,
+			PHASE_EXECUTE_PENDING,
+			PHASE_FIRST_FRAME
+	})
+	@Retention(RetentionPolicy.SOURCE)
+	@interface Phase {
+	}
+
+	/**
+	 * Invoked whenever the specified <var>phase</var> of request execution is started.
+	 *
+	 * @param phase             The started phase.
+	 * @param factoryFragmentId Id of the factory fragment of the request. May be {@link FragmentRequest#NO_ID}
+	 *                          if the request has been created for a fragment instance.
+	 * @param transitionName    Name of the transition specified for the request. May be {@code null}.
+	 */
+	void onPhaseStarted(@Phase int phase, int factoryFragmentId, @Nullable String transitionName);
+
+	/**
+	 * Invoked whenever the specified <var>phase</var> of request execution is finished.
+	 *
+	 * @param phase             The finished phase.
+	 * @param factoryFragmentId Id of the factory fragment of the request. May be {@link FragmentRequest#NO_ID}
+	 *                          if the request has been created for a fragment instance.
+	 * @param transitionName    Name of the transition specified for the request. May be {@code null}.
+	 * @param durationNanos     Duration of the phase in nanoseconds or {@code -1} if the phase could
+	 *                          not be completed.
+	 */
+	void onPhaseFinished(@Phase int phase, int factoryFragmentId, @Nullable String transitionName, long durationNanos);
+}
@@ -0,0 +1,403 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.manage;
+
+import android.annotation.SuppressLint;
+import android.app.Fragment;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Trace;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+/**
+ * Tracing of phases of execution of fragment requests used by {@link FragmentController}. Phases
+ * are reported to the attached {@link FragmentRequestTracer} and optionally emitted also as
+ * {@link Trace} sections.
+ * <p>
+ * Tracing state is resolved only once per phase via {@link #resolveFlags()} and the resolved flags
+ * are then passed to both {@link #beginPhase(int, int, FragmentRequest)} and {@link #endPhase(int, int, FragmentRequest, long)},
+ * so each started phase is always ended in the same way even if the tracing state changes meanwhile.
+ *
+ * @author Martin Albedinsky
+ * @see FragmentController#setRequestTracer(FragmentRequestTracer)
+ * @see FragmentController#setSystraceEnabled(boolean)
+ */
+final class FragmentRequestTracing {
+
+	/**
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "FragmentRequestTracing";
+
+	/**
+	 * Flag determining that phases should be reported to the attached {@link FragmentRequestTracer}.
+	 */
+	static final int TRACE_TRACER = 0x01;
+
+	/**
+	 * Flag determining that phases should be emitted as {@link Trace} sections.
+	 */
+	static final int TRACE_SYSTRACE = 0x02;
+
+	/**
+	 * Flag indicating whether we can emit {@link Trace} sections at the current Android API level
+	 * or not.
+	 */
+	private static final boolean CAN_USE_TRACE = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+	/**
+	 * Maximum length of name of a {@link Trace} section.
+	 */
+	private static final int MAX_TRACE_SECTION_NAME_LENGTH = 127;
+
+	/**
+	 * Maximum count of attempts to find view of an incoming fragment in order to trace its first
+	 * drawn frame.
+	 */
+	private static final int MAX_FIRST_FRAME_ATTEMPTS = 10;
+
+	/**
+	 * Time in milliseconds for which to wait for the first drawn frame of an incoming fragment after
+	 * its view has been found. If no frame is drawn within this time, the traced phase fails.
+	 */
+	private static final long FIRST_FRAME_TIMEOUT = 1000;
+
+	/**
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Tracer to be notified about phases of execution of fragment requests.
+	 */
+	private FragmentRequestTracer mTracer;
+
+	/**
+	 * Boolean flag indicating whether phases should be emitted also as {@link Trace} sections or not.
+	 */
+	private boolean mSystraceEnabled;
+
+	/**
+	 * Handler used to look up views of incoming fragments on the main thread.
+	 */
+	private Handler mHandler;
+
+	/**
+	 * Boolean flag indicating whether this tracing has been released or not.
+	 */
+	private boolean mReleased;
+
+	/**
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Sets a tracer to be notified about phases of execution of fragment requests.
+	 *
+	 * @param tracer The desired tracer. May be {@code null} to clear the current one.
+	 */
+	void setTracer(@Nullable FragmentRequestTracer tracer) {
+		this.mTracer = tracer;
+	}
+
+	/**
+	 * Returns the tracer notified about phases of execution of fragment requests.
+	 *
+	 * @return Tracer or {@code null} if there is no tracer attached.
+	 */
+	@Nullable
+	FragmentRequestTracer getTracer() {
+		return mTracer;
+	}
+
+	/**
+	 * Sets a flag indicating whether phases should be emitted also as {@link Trace} sections or not.
+	 *
+	 * @param enabled {@code True} to emit trace sections, {@code false} otherwise.
+	 */
+	void setSystraceEnabled(boolean enabled) {
+		this.mSystraceEnabled = enabled;
+	}
+
+	/**
+	 * Returns a flag indicating whether phases are emitted also as {@link Trace} sections or not.
+	 *
+	 * @return {@code True} if trace sections are emitted, {@code false} otherwise.
+	 */
+	boolean isSystraceEnabled() {
+		return mSystraceEnabled;
+	}
+
+	/**
+	 * Resolves flags determining how should be the next phase traced.
+	 *
+	 * @return Combination of {@link #TRACE_TRACER} and {@link #TRACE_SYSTRACE} flags or {@code 0}
+	 * if the phase should not be traced at all.
+	 */
+	int resolveFlags() {
+		int flags = mTracer == null ? 0 : TRACE_TRACER;
+		if (mSystraceEnabled && CAN_USE_TRACE) flags |= TRACE_SYSTRACE;
+		return flags;
+	}
+
+	/**
+	 * Begins tracing of the specified <var>phase</var> of execution of the given <var>request</var>.
+	 *
+	 * @param flags   Flags resolved via {@link #resolveFlags()} for the phase.
+	 * @param phase   The phase that is about to start.
+	 * @param request The request of which phase to trace. May be {@code null} if there is no request
+	 *                to be associated with the phase.
+	 * @return Start time of the phase in nanoseconds.
+	 * @see #endPhase(int, int, FragmentRequest, long)
+	 */
+	@SuppressLint("NewApi")
+	long beginPhase(int flags, @FragmentRequestTracer.Phase int phase, @Nullable FragmentRequest request) {
+		final int fragmentId = request == null ? FragmentRequest.NO_ID : request.mFragmentId;
+		final String transitionName = request == null || request.mTransition == null ? null : request.mTransition.getName();
+		if ((flags & TRACE_SYSTRACE) != 0) {
+			String sectionName = "Fragments:" + phaseName(phase) + "#" + fragmentId;
+			if (transitionName != null) sectionName += ":" + transitionName;
+			if (sectionName.length() > MAX_TRACE_SECTION_NAME_LENGTH) {
+				sectionName = sectionName.substring(0, MAX_TRACE_SECTION_NAME_LENGTH);
+			}
+			Trace.beginSection(sectionName);
+		}
+		final FragmentRequestTracer tracer = mTracer;
+		if ((flags & TRACE_TRACER) != 0 && tracer != null) {
+			tracer.onPhaseStarted(phase, fragmentId, transitionName);
+		}
+		return System.nanoTime();
+	}
+
+	/**
+	 * Ends tracing of the specified <var>phase</var> started via {@link #beginPhase(int, int, FragmentRequest)}.
+	 *
+	 * @param flags     The same flags as passed to {@link #beginPhase(int, int, FragmentRequest)}.
+	 * @param phase     The phase that has just finished.
+	 * @param request   The request of which phase has been traced.
+	 * @param startTime Start time of the phase in nanoseconds.
+	 */
+	@SuppressLint("NewApi")
+	void endPhase(int flags, @FragmentRequestTracer.Phase int phase, @Nullable FragmentRequest request, long startTime) {
+		final long duration = System.nanoTime() - startTime;
+		final FragmentRequestTracer tracer = mTracer;
+		if ((flags & TRACE_TRACER) != 0 && tracer != null) {
+			tracer.onPhaseFinished(
+					phase,
+					request == null ? FragmentRequest.NO_ID : request.mFragmentId,
+					request == null || request.mTransition == null ? null : request.mTransition.getName(),
+					duration
+			);
+		}
+		if ((flags & TRACE_SYSTRACE) != 0) {
+			Trace.endSection();
+		}
+	}
+
+	/**
+	 * Returns name of the specified request execution <var>phase</var> used in names of trace sections.
+	 */
+	private static String phaseName(@FragmentRequestTracer.Phase int phase) {
+		switch (phase) {
+			case FragmentRequestTracer.PHASE_CREATE_FRAGMENT:
+				return "CreateFragment";
+			case FragmentRequestTracer.PHASE_INTERCEPT:
+				return "Intercept";
+			case FragmentRequestTracer.PHASE_CREATE_TRANSACTION:
+				return "CreateTransaction";
+			case FragmentRequestTracer.PHASE_COMMIT:
+				return "Commit";
+			case FragmentRequestTracer.PHASE_EXECUTE_PENDING:
+				return "ExecutePending";
+			case FragmentRequestTracer.PHASE_FIRST_FRAME:
+				return "FirstFrame";
+			default:
+				return "Unknown";
+		}
+	}
+
+	/**
+	 * Starts tracing of {@link FragmentRequestTracer#PHASE_FIRST_FRAME} for the given committed
+	 * <var>request</var>, if there is tracer attached and the request displays its fragment.
+	 *
+	 * @param request The committed request.
+	 */
+	void watchFirstFrame(@NonNull FragmentRequest request) {
+		if (mTracer == null || request.mFragment == null) {
+			return;
+		}
+		switch (request.mTransaction) {
+			case FragmentRequest.REPLACE:
+			case FragmentRequest.ADD:
+			case FragmentRequest.ATTACH:
+			case FragmentRequest.SHOW:
+				if (mHandler == null) this.mHandler = new Handler(Looper.getMainLooper());
+				new FirstFrameWatcher(mTracer, request.mFragment, request).start();
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Releases this tracing, so no more phases are reported and all first frames that are still
+	 * being watched are no longer looked up.
+	 */
+	void release() {
+		this.mReleased = true;
+		this.mTracer = null;
+	}
+
+	/**
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * A {@link Runnable} and {@link ViewTreeObserver.OnPreDrawListener} implementation used to trace
+	 * the first frame drawn for view of an incoming fragment.
+	 */
+	private final class FirstFrameWatcher implements Runnable, ViewTreeObserver.OnPreDrawListener {
+
+		/**
+		 * Tracer to be notified about the traced phase.
+		 */
+		final FragmentRequestTracer tracer;
+
+		/**
+		 * The incoming fragment of which first frame to trace.
+		 */
+		final Fragment fragment;
+
+		/**
+		 * Id of the factory fragment of the traced request.
+		 */
+		final int fragmentId;
+
+		/**
+		 * Name of the transition of the traced request. May be {@code null}.
+		 */
+		final String transitionName;
+
+		/**
+		 * Start time of the traced phase in nanoseconds.
+		 */
+		long startTime;
+
+		/**
+		 * Count of attempts to find view of the incoming fragment.
+		 */
+		int attempts;
+
+		/**
+		 * View of the incoming fragment to which view tree observer is this watcher attached.
+		 */
+		View view;
+
+		/**
+		 * Boolean flag indicating whether the traced phase has been already finished.
+		 */
+		boolean finished;
+
+		/**
+		 * Creates a new instance of FirstFrameWatcher for the given <var>fragment</var> and <var>request</var>.
+		 */
+		FirstFrameWatcher(FragmentRequestTracer tracer, Fragment fragment, FragmentRequest request) {
+			this.tracer = tracer;
+			this.fragment = fragment;
+			this.fragmentId = request.mFragmentId;
+			this.transitionName = request.mTransition == null ? null : request.mTransition.getName();
+		}
+
+		/**
+		 * Starts the traced phase and schedules lookup for view of the incoming fragment.
+		 */
+		void start() {
+			tracer.onPhaseStarted(FragmentRequestTracer.PHASE_FIRST_FRAME, fragmentId, transitionName);
+			this.startTime = System.nanoTime();
+			mHandler.post(this);
+		}
+
+		/**
+		 * Attaches this watcher to view of the incoming fragment, if it is already created, or fails
+		 * the traced phase if the view has not been drawn within {@link #FIRST_FRAME_TIMEOUT}.
+		 */
+		@Override
+		public void run() {
+			if (finished) {
+				return;
+			}
+			if (this.view != null) {
+				removeOnPreDrawListener();
+				finish(-1);
+				return;
+			}
+			final View view = fragment.getView();
+			if (view == null) {
+				if (!mReleased && !fragment.isRemoving() && ++attempts < MAX_FIRST_FRAME_ATTEMPTS) {
+					mHandler.post(this);
+				} else {
+					finish(-1);
+				}
+				return;
+			}
+			this.view = view;
+			view.getViewTreeObserver().addOnPreDrawListener(this);
+			view.invalidate();
+			// View may never be drawn (e.g. it is not attached to window or it is hidden).
+			mHandler.postDelayed(this, FIRST_FRAME_TIMEOUT);
+		}
+
+		/**
+		 */
+		@Override
+		public boolean onPreDraw() {
+			removeOnPreDrawListener();
+			if (!finished) {
+				mHandler.removeCallbacks(this);
+				finish(System.nanoTime() - startTime);
+			}
+			return true;
+		}
+
+		/**
+		 * Removes this watcher from view tree observer of the incoming fragment's view.
+		 */
+		private void removeOnPreDrawListener() {
+			final ViewTreeObserver observer = view.getViewTreeObserver();
+			if (observer.isAlive()) {
+				observer.removeOnPreDrawListener(this);
+			}
+		}
+
+		/**
+		 * Finishes the traced phase with the specified <var>duration</var>.
+		 */
+		private void finish(long duration) {
+			this.finished = true;
+			tracer.onPhaseFinished(FragmentRequestTracer.PHASE_FIRST_FRAME, fragmentId, transitionName, duration);
+		}
+	}
+}
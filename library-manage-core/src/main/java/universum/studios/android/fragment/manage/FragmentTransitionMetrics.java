@@ -0,0 +1,458 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.manage;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Metrics that may be used by {@link FragmentController} to measure smoothness of animations played
+ * for {@link FragmentTransition FragmentTransitions}.
+ * <p>
+ * When metrics are attached to the controller via {@link FragmentController#setTransitionMetrics(FragmentTransitionMetrics)},
+ * durations of all frames drawn while animations of a transition specified for an executed request
+ * are running are captured (via {@link android.view.FrameMetrics FrameMetrics} where available and
+ * via {@link android.view.Choreographer Choreographer} frame callbacks otherwise) and aggregated
+ * into a {@link Report} for that transition. Reports are keyed by {@link FragmentTransition#getName()}
+ * and by class of the device on which are the metrics collected, so reports collected across a fleet
+ * of devices may be compared with each other.
+ * <p>
+ * Frame times are aggregated into a histogram with resolution of one millisecond, so the memory
+ * used by the metrics does not grow with count of captured frames.
+ *
+ * @author Martin Albedinsky
+ * @see FragmentController#setTransitionMetrics(FragmentTransitionMetrics)
+ */
+public final class FragmentTransitionMetrics {
+
+	/**
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "FragmentTransitionMetrics";
+
+	/**
+	 * Class of devices with low amount of memory or processor cores.
+	 *
+	 * @see #resolveDeviceClass(Context)
+	 */
+	public static final String DEVICE_CLASS_LOW = "low";
+
+	/**
+	 * Class of average devices.
+	 *
+	 * @see #resolveDeviceClass(Context)
+	 */
+	public static final String DEVICE_CLASS_MID = "mid";
+
+	/**
+	 * Class of devices with high amount of memory and processor cores.
+	 *
+	 * @see #resolveDeviceClass(Context)
+	 */
+	public static final String DEVICE_CLASS_HIGH = "high";
+
+	/**
+	 * Count of buckets of the frame times histogram. The last bucket holds all frames that took
+	 * longer than the count of milliseconds that precede it.
+	 */
+	private static final int HISTOGRAM_SIZE = 128;
+
+	/**
+	 * Count of nanoseconds in a single millisecond.
+	 */
+	private static final long NANOS_PER_MILLI = 1000000L;
+
+	/**
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Class of the device on which are these metrics collected.
+	 */
+	private final String mDeviceClass;
+
+	/**
+	 * Aggregates of captured frames mapped to names of theirs transitions.
+	 */
+	private final Map<String, Aggregate> mAggregates = new LinkedHashMap<>();
+
+	/**
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of FragmentTransitionMetrics for device of the specified <var>deviceClass</var>.
+	 *
+	 * @param deviceClass Class of the device on which are the metrics collected. May be one of
+	 *                    the classes resolved via {@link #resolveDeviceClass(Context)} or a custom
+	 *                    one used to group the collected reports.
+	 */
+	public FragmentTransitionMetrics(@NonNull String deviceClass) {
+		this.mDeviceClass = deviceClass;
+	}
+
+	/**
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Resolves class of the device of the given <var>context</var>.
+	 * <p>
+	 * Device is classified as {@link #DEVICE_CLASS_LOW} if it is a low RAM device, its memory class
+	 * is at most {@code 64} megabytes or it has at most two processor cores. Device with memory class
+	 * at least {@code 256} megabytes and at least eight processor cores is classified as
+	 * {@link #DEVICE_CLASS_HIGH}. All other devices are classified as {@link #DEVICE_CLASS_MID}.
+	 *
+	 * @param context Context used to access {@link ActivityManager}.
+	 * @return Resolved device class.
+	 */
+	@NonNull
+	public static String resolveDeviceClass(@NonNull Context context) {
+		final ActivityManager manager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+		final int memoryClass = manager.getMemoryClass();
+		final int processors = Runtime.getRuntime().availableProcessors();
+		if (memoryClass <= 64 || processors <= 2 ||
+				(Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT && manager.isLowRamDevice())) {
+			return DEVICE_CLASS_LOW;
+		}
+		return memoryClass >= 256 && processors >= 8 ? DEVICE_CLASS_HIGH : DEVICE_CLASS_MID;
+	}
+
+	/**
+	 * Returns the class of device on which are these metrics collected.
+	 *
+	 * @return Device class specified for these metrics.
+	 * @see #FragmentTransitionMetrics(String)
+	 */
+	@NonNull
+	public String getDeviceClass() {
+		return mDeviceClass;
+	}
+
+	/**
+	 * Records durations of frames captured while animations of the transition with the specified
+	 * <var>transitionName</var> were running.
+	 *
+	 * @param transitionName Name of the transition for which have been the frames captured.
+	 * @param frameDurations Durations of the captured frames in nanoseconds.
+	 * @param frameCount     Count of the captured frames within the durations array.
+	 * @param lostFrameCount Count of frames that have been drawn but could not be captured, like
+	 *                       frames of which metrics have been dropped by the system. Such frames
+	 *                       are counted as dropped.
+	 * @param frameInterval  Interval between two frames of the display in nanoseconds.
+	 * @param duration       Total duration of the capture in nanoseconds.
+	 */
+	synchronized void record(String transitionName, long[] frameDurations, int frameCount, int lostFrameCount, long frameInterval, long duration) {
+		Aggregate aggregate = mAggregates.get(transitionName);
+		if (aggregate == null) {
+			aggregate = new Aggregate();
+			mAggregates.put(transitionName, aggregate);
+		}
+		aggregate.transitionCount++;
+		aggregate.totalDuration += duration;
+		for (int i = 0; i < frameCount; i++) {
+			final long frameDuration = frameDurations[i];
+			final int bucket = (int) Math.min(frameDuration / NANOS_PER_MILLI, HISTOGRAM_SIZE - 1);
+			aggregate.histogram[bucket]++;
+			aggregate.maxFrameTime = Math.max(aggregate.maxFrameTime, frameDuration);
+			if (frameInterval > 0) {
+				// Frame that took longer than a single interval caused all following vsyncs it spans to be missed.
+				aggregate.droppedFrameCount += Math.max(0, (frameDuration + frameInterval / 2) / frameInterval - 1);
+			}
+		}
+		aggregate.frameCount += frameCount;
+		aggregate.droppedFrameCount += lostFrameCount;
+	}
+
+	/**
+	 * Returns report with metrics aggregated for the transition with the specified <var>transitionName</var>.
+	 *
+	 * @param transitionName Name of the transition of which report to obtain.
+	 * @return Report for the transition or {@code null} if there have not been captured any metrics
+	 * for that transition yet.
+	 * @see #getReports()
+	 */
+	@Nullable
+	public synchronized Report getReport(@NonNull String transitionName) {
+		final Aggregate aggregate = mAggregates.get(transitionName);
+		return aggregate == null ? null : new Report(transitionName, mDeviceClass, aggregate);
+	}
+
+	/**
+	 * Returns reports with metrics aggregated for all transitions for which have been captured some
+	 * metrics.
+	 *
+	 * @return List of reports in the order in which have been theirs transitions captured for the
+	 * first time. May be empty if there have not been captured any metrics yet.
+	 * @see #getReport(String)
+	 */
+	@NonNull
+	public synchronized List<Report> getReports() {
+		final List<Report> reports = new ArrayList<>(mAggregates.size());
+		for (final Map.Entry<String, Aggregate> entry : mAggregates.entrySet()) {
+			reports.add(new Report(entry.getKey(), mDeviceClass, entry.getValue()));
+		}
+		return reports;
+	}
+
+	/**
+	 * Clears all metrics captured so far.
+	 */
+	public synchronized void clear() {
+		mAggregates.clear();
+	}
+
+	/**
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Aggregate of frames captured for a single transition.
+	 */
+	private static final class Aggregate {
+
+		/**
+		 * Histogram with counts of frames by theirs duration in milliseconds.
+		 */
+		final int[] histogram = new int[HISTOGRAM_SIZE];
+
+		/**
+		 * Count of captured transitions.
+		 */
+		int transitionCount;
+
+		/**
+		 * Count of captured frames.
+		 */
+		long frameCount;
+
+		/**
+		 * Count of frames dropped during the captured transitions.
+		 */
+		long droppedFrameCount;
+
+		/**
+		 * Duration of the longest captured frame in nanoseconds.
+		 */
+		long maxFrameTime;
+
+		/**
+		 * Total duration of the captured transitions in nanoseconds.
+		 */
+		long totalDuration;
+	}
+
+	/**
+	 * Immutable report with metrics aggregated for a single {@link FragmentTransition}.
+	 *
+	 * @author Martin Albedinsky
+	 * @see #getReport(String)
+	 */
+	public static final class Report {
+
+		/**
+		 * Name of the transition for which has been this report collected.
+		 */
+		private final String mTransitionName;
+
+		/**
+		 * Class of the device on which has been this report collected.
+		 */
+		private final String mDeviceClass;
+
+		/**
+		 * Count of captured transitions.
+		 */
+		private final int mTransitionCount;
+
+		/**
+		 * Count of captured frames.
+		 */
+		private final long mFrameCount;
+
+		/**
+		 * Count of dropped frames.
+		 */
+		private final long mDroppedFrameCount;
+
+		/**
+		 * 50th, 95th and 99th percentile of frame time in nanoseconds.
+		 */
+		private final long mFrameTime50, mFrameTime95, mFrameTime99;
+
+		/**
+		 * Total duration of the captured transitions in nanoseconds.
+		 */
+		private final long mTotalDuration;
+
+		/**
+		 * Creates a new instance of Report from the given <var>aggregate</var>.
+		 */
+		Report(String transitionName, String deviceClass, Aggregate aggregate) {
+			this.mTransitionName = transitionName;
+			this.mDeviceClass = deviceClass;
+			this.mTransitionCount = aggregate.transitionCount;
+			this.mFrameCount = aggregate.frameCount;
+			this.mDroppedFrameCount = aggregate.droppedFrameCount;
+			this.mFrameTime50 = percentile(aggregate, 50);
+			this.mFrameTime95 = percentile(aggregate, 95);
+			this.mFrameTime99 = percentile(aggregate, 99);
+			this.mTotalDuration = aggregate.totalDuration;
+		}
+
+		/**
+		 * Computes the specified <var>percentile</var> of frame time from histogram of the given
+		 * <var>aggregate</var>. The computed value is the upper bound of the histogram bucket in
+		 * which the percentile lies, except for the last bucket where it is the longest frame time.
+		 */
+		private static long percentile(Aggregate aggregate, int percentile) {
+			if (aggregate.frameCount == 0) {
+				return 0;
+			}
+			final long threshold = (aggregate.frameCount * percentile + 99) / 100;
+			long count = 0;
+			for (int i = 0; i < HISTOGRAM_SIZE - 1; i++) {
+				count += aggregate.histogram[i];
+				if (count >= threshold) {
+					return (i + 1) * NANOS_PER_MILLI;
+				}
+			}
+			return aggregate.maxFrameTime;
+		}
+
+		/**
+		 * Returns the name of transition for which has been this report collected.
+		 *
+		 * @return Transition name.
+		 * @see FragmentTransition#getName()
+		 */
+		@NonNull
+		public String getTransitionName() {
+			return mTransitionName;
+		}
+
+		/**
+		 * Returns the class of device on which has been this report collected.
+		 *
+		 * @return Device class.
+		 * @see FragmentTransitionMetrics#getDeviceClass()
+		 */
+		@NonNull
+		public String getDeviceClass() {
+			return mDeviceClass;
+		}
+
+		/**
+		 * Returns the count of captured transitions.
+		 *
+		 * @return Count of times the transition has been played while being captured.
+		 */
+		public int getTransitionCount() {
+			return mTransitionCount;
+		}
+
+		/**
+		 * Returns the count of frames captured for all played transitions.
+		 *
+		 * @return Frame count.
+		 */
+		public long getFrameCount() {
+			return mFrameCount;
+		}
+
+		/**
+		 * Returns the count of frames dropped during all played transitions.
+		 *
+		 * @return Count of vsync intervals that have been missed because of frames that took longer
+		 * than a single interval, plus count of frames of which metrics have been dropped by the system.
+		 */
+		public long getDroppedFrameCount() {
+			return mDroppedFrameCount;
+		}
+
+		/**
+		 * Returns the 50th percentile (median) of frame time.
+		 *
+		 * @return Frame time in nanoseconds.
+		 */
+		public long getFrameTime50() {
+			return mFrameTime50;
+		}
+
+		/**
+		 * Returns the 95th percentile of frame time.
+		 *
+		 * @return Frame time in nanoseconds.
+		 */
+		public long getFrameTime95() {
+			return mFrameTime95;
+		}
+
+		/**
+		 * Returns the 99th percentile of frame time.
+		 *
+		 * @return Frame time in nanoseconds.
+		 */
+		public long getFrameTime99() {
+			return mFrameTime99;
+		}
+
+		/**
+		 * Returns the total duration of all played transitions.
+		 *
+		 * @return Duration in nanoseconds.
+		 */
+		public long getTotalDuration() {
+			return mTotalDuration;
+		}
+
+		/**
+		 */
+		@Override
+		public String toString() {
+			return "FragmentTransitionMetrics.Report{" +
+					"transitionName: " + mTransitionName +
+					", deviceClass: " + mDeviceClass +
+					", transitionCount: " + mTransitionCount +
+					", frameCount: " + mFrameCount +
+					", droppedFrameCount: " + mDroppedFrameCount +
+					", frameTime50: " + mFrameTime50 +
+					", frameTime95: " + mFrameTime95 +
+					", frameTime99: " + mFrameTime99 +
+					", totalDuration: " + mTotalDuration +
+					"}";
+		}
+	}
+}
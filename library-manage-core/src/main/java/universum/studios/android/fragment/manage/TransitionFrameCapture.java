@@ -0,0 +1,492 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.manage;
+
+import android.animation.Animator;
+import android.animation.AnimatorInflater;
+import android.animation.AnimatorSet;
+import android.animation.ValueAnimator;
+import android.annotation.SuppressLint;
+import android.app.Activity;
+import android.content.res.Configuration;
+import android.os.Build;
+import android.os.Handler;
+import android.support.annotation.NonNull;
+import android.util.Log;
+import android.util.SparseIntArray;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import java.util.Arrays;
+
+/**
+ * Capture of durations of frames drawn while animations of a single {@link FragmentTransition} are
+ * running. When the capture window elapses, the captured frames are recorded into {@link FragmentTransitionMetrics}.
+ * <p>
+ * Frames are captured via {@link FrameMetrics} where available and via {@link Choreographer} frame
+ * callbacks otherwise. Capture is also finished when it does not receive any frames within a
+ * reasonable time after its window should have elapsed, as frame metrics are reported only for
+ * frames that are actually drawn.
+ * <p>
+ * Length of the capture window is resolved from durations of the transition animations. Durations
+ * are resolved by inflating the animations once per process and configuration and are cached for
+ * all controllers, so the animations are not inflated again on the main thread for each transition.
+ *
+ * @author Martin Albedinsky
+ * @see #start(FragmentTransitionMetrics, FragmentTransition, Activity, Handler)
+ */
+abstract class TransitionFrameCapture implements Runnable {
+
+	/**
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	private static final String TAG = "TransitionFrameCapture";
+
+	/**
+	 * Flag indicating whether we can use {@link FrameMetrics} at the current Android API level or not.
+	 */
+	private static final boolean CAN_USE_FRAME_METRICS = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N;
+
+	/**
+	 * Flag indicating whether we can use {@link Choreographer} at the current Android API level or not.
+	 */
+	private static final boolean CAN_USE_CHOREOGRAPHER = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN;
+
+	/**
+	 * Time in milliseconds after the capture window after which is the capture finished regardless
+	 * of whether its window has been covered by frames or not.
+	 */
+	private static final long TIMEOUT_SLACK = 500;
+
+	/**
+	 * Initial capacity of the array with captured frame durations.
+	 */
+	private static final int INITIAL_CAPACITY = 32;
+
+	/**
+	 * Index of vsync timestamp metric of {@link FrameMetrics} ({@code FrameMetrics.VSYNC_TIMESTAMP}).
+	 */
+	private static final int METRIC_VSYNC_TIMESTAMP = 11;
+
+	/**
+	 * Flag indicating whether {@link #METRIC_VSYNC_TIMESTAMP} is available at the current Android
+	 * API level (Android O) or not.
+	 */
+	private static final boolean CAN_USE_VSYNC_TIMESTAMP = Build.VERSION.SDK_INT >= 26;
+
+	/**
+	 * Refresh rate of display assumed when the actual one cannot be resolved.
+	 */
+	private static final float DEFAULT_REFRESH_RATE = 60f;
+
+	/**
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Durations of animations (in milliseconds) mapped to theirs resource ids. Accessed only on the
+	 * main thread.
+	 */
+	private static final SparseIntArray sAnimationDurations = new SparseIntArray();
+
+	/**
+	 * Configuration for which have been the cached animation durations resolved.
+	 */
+	private static Configuration sAnimationDurationsConfiguration;
+
+	/**
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Metrics into which to record the captured frames.
+	 */
+	private final FragmentTransitionMetrics mMetrics;
+
+	/**
+	 * Name of the transition for which are frames captured.
+	 */
+	private final String mTransitionName;
+
+	/**
+	 * Length of the capture window in nanoseconds.
+	 */
+	final long mWindowLength;
+
+	/**
+	 * Interval between two frames of the display in nanoseconds.
+	 */
+	private final long mFrameInterval;
+
+	/**
+	 * Handler used to schedule timeout of this capture.
+	 */
+	final Handler mHandler;
+
+	/**
+	 * Durations of the captured frames in nanoseconds.
+	 */
+	private long[] mFrameDurations = new long[INITIAL_CAPACITY];
+
+	/**
+	 * Count of the captured frames.
+	 */
+	private int mFrameCount;
+
+	/**
+	 * Count of frames that have been drawn but not captured.
+	 */
+	private int mLostFrameCount;
+
+	/**
+	 * Time in nanoseconds at which has been the first frame captured. Is {@code 0} if no frame has
+	 * been captured yet.
+	 */
+	long mStartTime;
+
+	/**
+	 * Boolean flag indicating whether this capture has been already finished or not.
+	 */
+	private boolean mFinished;
+
+	/**
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of TransitionFrameCapture with the given parameters.
+	 *
+	 * @see #start(FragmentTransitionMetrics, FragmentTransition, Activity, Handler)
+	 */
+	TransitionFrameCapture(FragmentTransitionMetrics metrics, String transitionName, long windowLength, long frameInterval, Handler handler) {
+		this.mMetrics = metrics;
+		this.mTransitionName = transitionName;
+		this.mWindowLength = windowLength;
+		this.mFrameInterval = frameInterval;
+		this.mHandler = handler;
+	}
+
+	/**
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Starts a new capture of frames drawn while animations of the given <var>transition</var> are
+	 * running within the given <var>activity</var>. Must be called on the main thread.
+	 *
+	 * @param metrics    Metrics into which to record the captured frames.
+	 * @param transition The transition of which frames to capture.
+	 * @param activity   Activity in which the transition runs.
+	 * @param handler    Handler of the main thread.
+	 * @return {@code True} if capture has been started, {@code false} if the transition has no
+	 * animations or frames cannot be captured at the current Android API level.
+	 */
+	static boolean start(@NonNull FragmentTransitionMetrics metrics, @NonNull FragmentTransition transition, @NonNull Activity activity, @NonNull Handler handler) {
+		final long duration = Math.max(
+				resolveAnimationDuration(activity, transition.getIncomingAnimation()),
+				resolveAnimationDuration(activity, transition.getOutgoingAnimation())
+		);
+		if (duration <= 0) {
+			return false;
+		}
+		final Display display = activity.getWindowManager().getDefaultDisplay();
+		final float refreshRate = display == null ? 0 : display.getRefreshRate();
+		return start(
+				metrics,
+				transition.getName(),
+				duration * 1000000L,
+				(long) (1000000000L / (refreshRate > 0 ? refreshRate : DEFAULT_REFRESH_RATE)),
+				activity.getWindow(),
+				handler
+		);
+	}
+
+	/**
+	 * Resolves duration of animation with the specified <var>animationRes</var>. Resolved durations
+	 * are cached for the whole process until the configuration of the given <var>activity</var>
+	 * changes, so each animation is inflated at most once per configuration.
+	 *
+	 * @param activity     Activity used to inflate the animation.
+	 * @param animationRes Resource id of the animation of which duration to resolve.
+	 * @return Duration of the animation in milliseconds or {@code 0} if the animation cannot be
+	 * inflated.
+	 */
+	private static int resolveAnimationDuration(Activity activity, int animationRes) {
+		if (animationRes == FragmentTransition.NO_ANIMATION) {
+			return 0;
+		}
+		final Configuration configuration = activity.getResources().getConfiguration();
+		if (!configuration.equals(sAnimationDurationsConfiguration)) {
+			sAnimationDurations.clear();
+			sAnimationDurationsConfiguration = new Configuration(configuration);
+		}
+		int duration = sAnimationDurations.get(animationRes, -1);
+		if (duration == -1) {
+			try {
+				duration = (int) computeAnimatorDuration(AnimatorInflater.loadAnimator(activity, animationRes));
+			} catch (RuntimeException e) {
+				Log.w(TAG, "Failed to resolve duration of animation(" + animationRes + ").", e);
+				duration = 0;
+			}
+			sAnimationDurations.put(animationRes, duration);
+		}
+		return duration;
+	}
+
+	/**
+	 * Computes duration of the given <var>animator</var> including its start delay and repeats.
+	 * Children of an {@link AnimatorSet} without explicit duration are considered to be played
+	 * together, which is the way how the transition animations are usually composed.
+	 *
+	 * @param animator The animator of which duration to compute.
+	 * @return Duration of the animator in milliseconds.
+	 */
+	private static long computeAnimatorDuration(Animator animator) {
+		long duration = animator.getDuration();
+		if (animator instanceof AnimatorSet && duration < 0) {
+			duration = 0;
+			for (final Animator child : ((AnimatorSet) animator).getChildAnimations()) {
+				duration = Math.max(duration, computeAnimatorDuration(child));
+			}
+		} else if (animator instanceof ValueAnimator) {
+			final int repeatCount = ((ValueAnimator) animator).getRepeatCount();
+			if (repeatCount > 0) duration *= repeatCount + 1;
+		}
+		return animator.getStartDelay() + Math.max(0, duration);
+	}
+
+	/**
+	 * Starts a new capture of frames for the transition with the specified <var>transitionName</var>.
+	 *
+	 * @param metrics        Metrics into which to record the captured frames.
+	 * @param transitionName Name of the transition for which to capture frames.
+	 * @param windowLength   Length of the capture window in nanoseconds, that is duration of the
+	 *                       longest animation of the transition.
+	 * @param frameInterval  Interval between two frames of the display in nanoseconds.
+	 * @param window         Window of which frames to capture via {@link FrameMetrics}. May be
+	 *                       {@code null} to capture frames via {@link Choreographer}.
+	 * @param handler        Handler of the main thread.
+	 * @return {@code True} if capture has been started, {@code false} if frames cannot be captured
+	 * at the current Android API level.
+	 */
+	@SuppressLint("NewApi")
+	private static boolean start(FragmentTransitionMetrics metrics, String transitionName, long windowLength, long frameInterval, Window window, @NonNull Handler handler) {
+		TransitionFrameCapture capture = null;
+		if (CAN_USE_FRAME_METRICS && window != null) {
+			capture = new FrameMetricsCapture(metrics, transitionName, windowLength, frameInterval, handler, window);
+			try {
+				capture.onStart();
+			} catch (IllegalStateException e) {
+				// Frame metrics are available only for hardware accelerated windows.
+				Log.w(TAG, "Cannot capture frame metrics. Falling back to Choreographer.", e);
+				capture = null;
+			}
+		}
+		if (capture == null) {
+			if (!CAN_USE_CHOREOGRAPHER) {
+				return false;
+			}
+			capture = new ChoreographerCapture(metrics, transitionName, windowLength, frameInterval, handler);
+			capture.onStart();
+		}
+		handler.postDelayed(capture, windowLength / 1000000L + TIMEOUT_SLACK);
+		return true;
+	}
+
+	/**
+	 * Invoked to start receiving of frames.
+	 */
+	abstract void onStart();
+
+	/**
+	 * Invoked to stop receiving of frames.
+	 */
+	abstract void onStop();
+
+	/**
+	 * Captures a frame with the specified <var>frameDuration</var>. If the capture window elapses
+	 * with this frame, the capture is finished.
+	 *
+	 * @param frameTime     Time at which has been the frame reported in nanoseconds.
+	 * @param frameDuration Duration of the frame in nanoseconds.
+	 * @return {@code True} if the capture should continue, {@code false} if it has been finished.
+	 */
+	final boolean captureFrame(long frameTime, long frameDuration) {
+		if (mFinished) {
+			return false;
+		}
+		if (mFrameCount == mFrameDurations.length) {
+			this.mFrameDurations = Arrays.copyOf(mFrameDurations, mFrameCount * 2);
+		}
+		mFrameDurations[mFrameCount++] = frameDuration;
+		if (frameTime - mStartTime >= mWindowLength) {
+			finish(frameTime - mStartTime);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Captures the specified <var>count</var> of frames that have been drawn within the capture
+	 * window but of which durations are not known. Such frames are recorded as dropped.
+	 *
+	 * @param count Count of the lost frames.
+	 */
+	final void captureLostFrames(int count) {
+		if (!mFinished) this.mLostFrameCount += count;
+	}
+
+	/**
+	 * Invoked when this capture times out.
+	 */
+	@Override
+	public void run() {
+		if (!mFinished) {
+			finish(mStartTime == 0 ? 0 : System.nanoTime() - mStartTime);
+		}
+	}
+
+	/**
+	 * Finishes this capture and records the captured frames into the metrics.
+	 *
+	 * @param duration Duration of the capture in nanoseconds.
+	 */
+	private void finish(long duration) {
+		this.mFinished = true;
+		mHandler.removeCallbacks(this);
+		this.onStop();
+		if (mFrameCount > 0) {
+			mMetrics.record(mTransitionName, mFrameDurations, mFrameCount, mLostFrameCount, mFrameInterval, duration);
+		}
+	}
+
+	/**
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * A {@link TransitionFrameCapture} implementation that captures frames via {@link Choreographer}
+	 * frame callbacks as intervals between vsync times of two consecutive frames.
+	 */
+	@SuppressLint("NewApi")
+	private static final class ChoreographerCapture extends TransitionFrameCapture implements Choreographer.FrameCallback {
+
+		/**
+		 * Vsync time of the last frame in nanoseconds.
+		 */
+		private long lastFrameTime;
+
+		/**
+		 * Creates a new instance of ChoreographerCapture with the given parameters.
+		 */
+		ChoreographerCapture(FragmentTransitionMetrics metrics, String transitionName, long windowLength, long frameInterval, Handler handler) {
+			super(metrics, transitionName, windowLength, frameInterval, handler);
+		}
+
+		/**
+		 */
+		@Override
+		void onStart() {
+			Choreographer.getInstance().postFrameCallback(this);
+		}
+
+		/**
+		 */
+		@Override
+		void onStop() {
+			Choreographer.getInstance().removeFrameCallback(this);
+		}
+
+		/**
+		 */
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			if (lastFrameTime == 0) {
+				this.mStartTime = frameTimeNanos;
+			} else if (!captureFrame(frameTimeNanos, frameTimeNanos - lastFrameTime)) {
+				return;
+			}
+			this.lastFrameTime = frameTimeNanos;
+			Choreographer.getInstance().postFrameCallback(this);
+		}
+	}
+
+	/**
+	 * A {@link TransitionFrameCapture} implementation that captures frames via {@link FrameMetrics}
+	 * as total durations of the drawn frames. Frames are placed into the capture window by theirs
+	 * vsync timestamps where available and frames of which metrics have been dropped by the system
+	 * are captured as lost.
+	 */
+	@SuppressLint("NewApi")
+	private static final class FrameMetricsCapture extends TransitionFrameCapture implements Window.OnFrameMetricsAvailableListener {
+
+		/**
+		 * Window of which frames are captured.
+		 */
+		private final Window window;
+
+		/**
+		 * Creates a new instance of FrameMetricsCapture with the given parameters.
+		 */
+		FrameMetricsCapture(FragmentTransitionMetrics metrics, String transitionName, long windowLength, long frameInterval, Handler handler, Window window) {
+			super(metrics, transitionName, windowLength, frameInterval, handler);
+			this.window = window;
+		}
+
+		/**
+		 */
+		@Override
+		void onStart() {
+			window.addOnFrameMetricsAvailableListener(this, mHandler);
+		}
+
+		/**
+		 */
+		@Override
+		void onStop() {
+			try {
+				window.removeOnFrameMetricsAvailableListener(this);
+			} catch (IllegalArgumentException e) {
+				// Listener has not been registered.
+			}
+		}
+
+		/**
+		 */
+		@Override
+		public void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics, int dropCountSinceLastInvocation) {
+			final long frameTime = CAN_USE_VSYNC_TIMESTAMP ?
+					frameMetrics.getMetric(METRIC_VSYNC_TIMESTAMP) :
+					System.nanoTime();
+			if (mStartTime == 0) {
+				this.mStartTime = frameTime;
+			} else if (dropCountSinceLastInvocation > 0) {
+				// Drops reported along with the first frame have happened before this capture started.
+				captureLostFrames(dropCountSinceLastInvocation);
+			}
+			captureFrame(frameTime, frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION));
+		}
+	}
+}
@@ -38,7 +38,6 @@ import java.lang.annotation.RetentionPolicy;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import universum.studios.android.fragment.annotation.FragmentAnnotations;
 import universum.studios.android.fragment.annotation.handler.WebAnnotationHandlers;
 import universum.studios.android.fragment.annotation.handler.WebFragmentAnnotationHandler;
 
@@ -263,6 +262,11 @@ public class WebFragment extends ActionBarFragment {
 	 * Static members ==============================================================================
 	 */
 
+	static {
+		// Allow pre-warming of annotation handlers for subclasses of this class.
+		WebAnnotationHandlers.registerHandlerTypes();
+	}
+
 	/**
 	 * Matcher for the {@code file://PATH_TO_FILE} pattern.
 	 */
@@ -348,13 +352,19 @@ public class WebFragment extends ActionBarFragment {
 		return WebAnnotationHandlers.obtainWebFragmentHandler(getClass());
 	}
 
+	/**
+	 */
+	@Override
+	WebFragmentAnnotationHandler onCreateAnnotationHandlerIfAnnotated() {
+		return WebAnnotationHandlers.obtainWebFragmentHandlerIfAnnotated(getClass());
+	}
+
 	/**
 	 */
 	@NonNull
 	@Override
 	protected WebFragmentAnnotationHandler getAnnotationHandler() {
-		FragmentAnnotations.checkIfEnabledOrThrow();
-		return (WebFragmentAnnotationHandler) mAnnotationHandler;
+		return (WebFragmentAnnotationHandler) super.getAnnotationHandler();
 	}
 
 	/**
@@ -386,8 +396,8 @@ public class WebFragment extends ActionBarFragment {
 	@Override
 	public void onCreate(Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
-		if (mAnnotationHandler != null) {
-			final WebFragmentAnnotationHandler annotationHandler = (WebFragmentAnnotationHandler) mAnnotationHandler;
+		final WebFragmentAnnotationHandler annotationHandler = (WebFragmentAnnotationHandler) resolveAnnotationHandler();
+		if (annotationHandler != null) {
 			final int contentResId = annotationHandler.getWebContentResId(-1);
 			if (contentResId == -1) {
 				this.mContent = annotationHandler.getWebContent(null);
@@ -439,6 +449,17 @@ public class WebFragment extends ActionBarFragment {
 		if (mContentLoadingListener != null) mContentLoadingListener.onLoadingFinished(webUrl);
 	}
 
+	/**
+	 * Web fragment creates its {@link WebView} always on the main thread, so its content view cannot
+	 * be inflated in advance.
+	 *
+	 * @return Always {@code false}.
+	 */
+	@Override
+	public boolean preInflateContentView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container) {
+		return false;
+	}
+
 	/**
 	 */
 	@Override
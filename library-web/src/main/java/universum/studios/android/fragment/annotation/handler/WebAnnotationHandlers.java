@@ -23,6 +23,10 @@ import android.support.annotation.Nullable;
 import android.support.annotation.StringRes;
 import android.text.TextUtils;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import universum.studios.android.fragment.WebFragment;
 import universum.studios.android.fragment.annotation.WebContent;
 
@@ -59,6 +63,123 @@ public final class WebAnnotationHandlers extends AnnotationHandlers {
 		return obtainHandler(WebFragmentHandler.class, classOfFragment);
 	}
 
+	/**
+	 * Obtains a {@link WebFragmentAnnotationHandler} implementation for the given <var>classOfFragment</var>
+	 * only if there are some annotations to be handled by such handler.
+	 * <p>
+	 * Already cached handlers and handlers provided by registries or by the loaded snapshot are
+	 * returned without any check. Otherwise the handler is instantiated only if the given class or
+	 * any of its super classes up to the {@link WebFragment} class has presented at least one
+	 * annotation of the Fragments library.
+	 *
+	 * @param classOfFragment The class of fragment for which to obtain the handler.
+	 * @return Handler for the class or {@code null} if there are no annotations to be handled or
+	 * annotations processing is disabled.
+	 * @see #obtainWebFragmentHandler(Class)
+	 * @see AnnotationHandlers#obtainHandlerIfAnnotated(Class, Class, Class)
+	 */
+	@Nullable
+	public static WebFragmentAnnotationHandler obtainWebFragmentHandlerIfAnnotated(@NonNull Class<?> classOfFragment) {
+		return obtainHandlerIfAnnotated(WebFragmentHandler.class, classOfFragment, WebFragment.class);
+	}
+
+	/**
+	 * Registers type of handlers obtained via {@link #obtainWebFragmentHandler(Class)} for {@link WebFragment} and
+	 * all its subclasses, so handlers for such classes may be pre-warmed.
+	 * <p>
+	 * <b>Note</b>, that this method is called by {@link WebFragment} class itself whenever it is
+	 * initialized.
+	 *
+	 * @see AnnotationHandlers#prewarmHandlers(java.util.concurrent.Executor, boolean, Class[])
+	 */
+	public static void registerHandlerTypes() {
+		registerHandlerType(WebFragment.class, WebFragmentHandler.class);
+		registerSnapshotReader(WebFragmentHandler.class, new AnnotationSnapshot.HandlerReader() {
+
+			/**
+			 */
+			@NonNull
+			@Override
+			public AnnotationHandler readHandler(@NonNull Class<?> annotatedClass, @NonNull DataInput input) throws IOException {
+				// Values are read in the same order as written by WebFragmentHandler.writeSnapshot(DataOutput).
+				return createWebFragmentHandler(
+						annotatedClass,
+						input.readInt(),
+						input.readBoolean(),
+						input.readInt(),
+						input.readBoolean(),
+						input.readInt(),
+						input.readInt(),
+						input.readInt(),
+						input.readInt(),
+						input.readInt(),
+						input.readBoolean(),
+						input.readInt(),
+						input.readBoolean(),
+						input.readInt(),
+						input.readInt(),
+						input.readInt(),
+						AnnotationSnapshot.readString(input)
+				);
+			}
+		});
+	}
+
+	/**
+	 * Creates a new {@link WebFragmentAnnotationHandler} implementation for the given <var>classOfFragment</var>
+	 * with values of all supported annotations already resolved.
+	 * <p>
+	 * <b>Note</b>, that this method is intended to be called only from {@link AnnotationHandlerRegistry}
+	 * implementations generated by the Fragments annotation processor.
+	 *
+	 * @param webContentResId Resolved value of {@link WebContent#valueRes()} or {@link WebFragmentAnnotationHandler#NO_RES}.
+	 * @param webContent      Resolved value of {@link WebContent#value()}. May be {@code null}.
+	 * @see ActionBarAnnotationHandlers#createActionBarFragmentHandler(Class, int, boolean, int, boolean, int, int, int, int, int, boolean, int, boolean, int, int)
+	 */
+	@NonNull
+	public static WebFragmentAnnotationHandler createWebFragmentHandler(
+			@NonNull Class<?> classOfFragment,
+			int contentViewResource,
+			boolean attachContentViewToContainer,
+			int contentViewBackgroundResId,
+			boolean preInflateContentView,
+			int title,
+			int icon,
+			int homeAsUp,
+			int homeAsUpVectorIndicator,
+			int homeAsUpIndicator,
+			boolean hasOptionsMenu,
+			int optionsMenuResource,
+			boolean clearOptionsMenu,
+			int optionsMenuFlags,
+			int actionModeMenuResource,
+			@StringRes int webContentResId,
+			@Nullable String webContent
+	) {
+		final WebFragmentHandler handler = new WebFragmentHandler(
+				classOfFragment,
+				contentViewResource,
+				attachContentViewToContainer,
+				contentViewBackgroundResId,
+				preInflateContentView,
+				webContentResId,
+				webContent
+		);
+		handler.setResolvedValues(
+				title,
+				icon,
+				homeAsUp,
+				homeAsUpVectorIndicator,
+				homeAsUpIndicator,
+				hasOptionsMenu,
+				optionsMenuResource,
+				clearOptionsMenu,
+				optionsMenuFlags,
+				actionModeMenuResource
+		);
+		return handler;
+	}
+
 	/**
 	 * Inner classes ===============================================================================
 	 */
@@ -93,6 +214,29 @@ public final class WebAnnotationHandlers extends AnnotationHandlers {
 			this.webContent = webContent == null ? null : webContent.value();
 		}
 
+		/**
+		 * Creates a new instance of WebFragmentHandler for the specified <var>annotatedClass</var>
+		 * with values of {@link WebContent @WebContent} and {@link universum.studios.android.fragment.annotation.ContentView @ContentView}
+		 * annotations already resolved.
+		 *
+		 * @see WebAnnotationHandlers#createWebFragmentHandler(Class, int, boolean, int, boolean, int, int, int, int, int, boolean, int, boolean, int, int, int, String)
+		 */
+		WebFragmentHandler(Class<?> annotatedClass, int contentViewResource, boolean attachContentViewToContainer, int contentViewBackgroundResId, boolean preInflateContentView, int webContentResId, String webContent) {
+			super(annotatedClass, WebFragment.class, contentViewResource, attachContentViewToContainer, contentViewBackgroundResId, preInflateContentView);
+			this.webContentResId = webContentResId;
+			this.webContent = webContent;
+		}
+
+		/**
+		 */
+		@Override
+		boolean writeSnapshot(@NonNull DataOutput output) throws IOException {
+			super.writeSnapshot(output);
+			output.writeInt(webContentResId);
+			AnnotationSnapshot.writeString(output, webContent);
+			return true;
+		}
+
 		/**
 		 */
 		@Override
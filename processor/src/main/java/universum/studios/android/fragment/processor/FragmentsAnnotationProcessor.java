@@ -0,0 +1,658 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Annotation processor that generates an {@link #REGISTRY_INTERFACE AnnotationHandlerRegistry}
+ * implementation containing already resolved annotation handlers for all fragment classes (of the
+ * processed module) annotated with annotations supported by the Fragments library. Such handlers
+ * do not need to be created and resolved via reflection at runtime.
+ * <p>
+ * The generated registry provides also handlers for all fragment factories (derived from
+ * {@code BaseFragmentFactory}) with already resolved fragment items along with generated
+ * {@code FragmentInstantiator} that instantiates the factory fragments via theirs constructors.
+ * <p>
+ * Qualified name of the generated registry may be specified via {@link #OPTION_REGISTRY} processor
+ * option, otherwise {@link #DEFAULT_REGISTRY} is used. Each module processed by this processor should
+ * specify its unique registry name. Instance of the generated registry needs to be registered via
+ * {@code AnnotationHandlers.registerHandlerRegistry(AnnotationHandlerRegistry)}.
+ *
+ * @author Martin Albedinsky
+ */
+public final class FragmentsAnnotationProcessor extends AbstractProcessor {
+
+	/**
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "FragmentsAnnotationProcessor";
+
+	/**
+	 * Name of the processor option specifying qualified name of the generated registry class.
+	 */
+	public static final String OPTION_REGISTRY = "fragments.registry";
+
+	/**
+	 * Qualified name of the generated registry class used when {@link #OPTION_REGISTRY} option
+	 * is not specified.
+	 */
+	public static final String DEFAULT_REGISTRY = "universum.studios.android.fragment.FragmentsAnnotationHandlerRegistry";
+
+	/**
+	 * Package of annotations supported by the Fragments library.
+	 */
+	static final String ANNOTATION_PACKAGE = "universum.studios.android.fragment.annotation.";
+
+	/**
+	 * Package of annotation handlers provided by the Fragments library.
+	 */
+	static final String HANDLER_PACKAGE = ANNOTATION_PACKAGE + "handler.";
+
+	/**
+	 * Qualified name of the registry interface implemented by the generated registry.
+	 */
+	static final String REGISTRY_INTERFACE = HANDLER_PACKAGE + "AnnotationHandlerRegistry";
+
+	/**
+	 * Qualified names of fragment classes for which may be generated annotation handlers.
+	 */
+	static final String BASE_FRAGMENT = "universum.studios.android.fragment.BaseFragment";
+	static final String ACTION_BAR_FRAGMENT = "universum.studios.android.fragment.ActionBarFragment";
+	static final String WEB_FRAGMENT = "universum.studios.android.fragment.WebFragment";
+
+	/**
+	 * Qualified names of classes related to fragment factories.
+	 */
+	static final String FRAGMENT = "android.app.Fragment";
+	static final String BASE_FRAGMENT_FACTORY = "universum.studios.android.fragment.manage.BaseFragmentFactory";
+	static final String FRAGMENT_ITEM = "universum.studios.android.fragment.manage.FragmentItem";
+	static final String FRAGMENT_INSTANTIATOR = "universum.studios.android.fragment.manage.FragmentInstantiator";
+
+	/**
+	 * Qualified names of annotations supported by this processor.
+	 */
+	static final String CONTENT_VIEW = ANNOTATION_PACKAGE + "ContentView";
+	static final String ACTION_BAR_OPTIONS = ANNOTATION_PACKAGE + "ActionBarOptions";
+	static final String MENU_OPTIONS = ANNOTATION_PACKAGE + "MenuOptions";
+	static final String ACTION_MODE_OPTIONS = ANNOTATION_PACKAGE + "ActionModeOptions";
+	static final String WEB_CONTENT = ANNOTATION_PACKAGE + "WebContent";
+	static final String FACTORY_FRAGMENTS = ANNOTATION_PACKAGE + "FactoryFragments";
+	static final String FACTORY_FRAGMENT = ANNOTATION_PACKAGE + "FactoryFragment";
+
+	/**
+	 * Same as {@code FragmentAnnotationHandler.NO_RES}.
+	 */
+	static final int NO_RES = 0;
+
+	/**
+	 * Same as {@code ActionBarOptions.UNCHANGED}.
+	 */
+	static final int UNCHANGED = -1;
+
+	/**
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Annotation utils used to resolve annotations of the processed classes.
+	 */
+	private ProcessorAnnotations mAnnotations;
+
+	/**
+	 * Boolean flag indicating whether the registry has been already generated or not.
+	 */
+	private boolean mRegistryGenerated;
+
+	/**
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 */
+	@Override
+	public synchronized void init(ProcessingEnvironment processingEnv) {
+		super.init(processingEnv);
+		this.mAnnotations = new ProcessorAnnotations(processingEnv.getElementUtils());
+	}
+
+	/**
+	 */
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		// Annotations may be presented also only on super classes of the processed fragments.
+		return Collections.singleton("*");
+	}
+
+	/**
+	 */
+	@Override
+	public Set<String> getSupportedOptions() {
+		return Collections.singleton(OPTION_REGISTRY);
+	}
+
+	/**
+	 */
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	/**
+	 */
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		if (mRegistryGenerated || roundEnv.processingOver() || roundEnv.getRootElements().isEmpty()) {
+			return false;
+		}
+		final Elements elements = processingEnv.getElementUtils();
+		final TypeElement registryInterface = elements.getTypeElement(REGISTRY_INTERFACE);
+		if (registryInterface == null) {
+			// Fragments library is not presented on the class path.
+			return false;
+		}
+		final List<FragmentHandlerSpec> fragmentSpecs = new ArrayList<>();
+		final List<FactoryHandlerSpec> factorySpecs = new ArrayList<>();
+		final Set<TypeElement> processed = new HashSet<>();
+		for (final TypeElement element : collectTypes(roundEnv.getRootElements())) {
+			if (processed.add(element)) {
+				final FragmentHandlerSpec fragmentSpec = resolveHandlerSpec(element, elements);
+				if (fragmentSpec != null) {
+					fragmentSpecs.add(fragmentSpec);
+					continue;
+				}
+				final FactoryHandlerSpec factorySpec = resolveFactoryHandlerSpec(element, elements);
+				if (factorySpec != null) factorySpecs.add(factorySpec);
+			}
+		}
+		this.mRegistryGenerated = true;
+		writeRegistry(fragmentSpecs, factorySpecs);
+		return false;
+	}
+
+	/**
+	 * Collects all types (including nested ones) from the given <var>elements</var>.
+	 *
+	 * @param elements The root elements of the current round.
+	 * @return List of collected types.
+	 */
+	private static List<TypeElement> collectTypes(Set<? extends Element> elements) {
+		final List<TypeElement> types = new ArrayList<>();
+		for (final Element element : elements) {
+			collectTypes(element, types);
+		}
+		return types;
+	}
+
+	/**
+	 * Collects the given <var>element</var> along with all its nested types into the given <var>types</var>.
+	 */
+	private static void collectTypes(Element element, List<TypeElement> types) {
+		if (element.getKind() == ElementKind.CLASS) {
+			types.add((TypeElement) element);
+		}
+		for (final Element enclosed : element.getEnclosedElements()) {
+			if (enclosed.getKind().isClass() || enclosed.getKind().isInterface()) {
+				collectTypes(enclosed, types);
+			}
+		}
+	}
+
+	/**
+	 * Resolves specification of the annotation handler for the given fragment <var>element</var>.
+	 *
+	 * @param element  The processed class element.
+	 * @param elements Elements utils.
+	 * @return Resolved handler spec or {@code null} if the element is not a fragment supported by
+	 * this processor or it is not accessible from the generated registry.
+	 */
+	private FragmentHandlerSpec resolveHandlerSpec(TypeElement element, Elements elements) {
+		if (element.getModifiers().contains(Modifier.ABSTRACT) || !isAccessible(element)) {
+			return null;
+		}
+		// Resolve the most specific fragment class that the processed element extends.
+		TypeElement maxSuperClass = null;
+		for (TypeElement type = ProcessorAnnotations.superClassOf(element); type != null; type = ProcessorAnnotations.superClassOf(type)) {
+			final String name = type.getQualifiedName().toString();
+			if (WEB_FRAGMENT.equals(name) || ACTION_BAR_FRAGMENT.equals(name) || BASE_FRAGMENT.equals(name)) {
+				maxSuperClass = type;
+				break;
+			}
+		}
+		if (maxSuperClass == null || elements.getTypeElement(HANDLER_PACKAGE + kindHandlersOf(maxSuperClass)) == null) {
+			return null;
+		}
+		final FragmentHandlerSpec spec = new FragmentHandlerSpec(element, maxSuperClass.getQualifiedName().toString());
+		final AnnotationMirror contentView = ProcessorAnnotations.findAnnotation(CONTENT_VIEW, element, maxSuperClass);
+		if (contentView != null) {
+			spec.contentViewResource = mAnnotations.intValue(contentView, "value");
+			spec.attachContentViewToContainer = mAnnotations.booleanValue(contentView, "attachToContainer");
+			spec.contentViewBackgroundResId = mAnnotations.intValue(contentView, "background");
+			spec.preInflateContentView = mAnnotations.booleanValue(contentView, "preInflate");
+		}
+		if (spec.isActionBarFragment()) {
+			final AnnotationMirror actionBarOptions = ProcessorAnnotations.findAnnotation(ACTION_BAR_OPTIONS, element, maxSuperClass);
+			if (actionBarOptions != null) {
+				spec.title = mAnnotations.intValue(actionBarOptions, "title");
+				spec.icon = mAnnotations.intValue(actionBarOptions, "icon");
+				spec.homeAsUp = mAnnotations.intValue(actionBarOptions, "homeAsUp");
+				spec.homeAsUpVectorIndicator = mAnnotations.intValue(actionBarOptions, "homeAsUpVectorIndicator");
+				spec.homeAsUpIndicator = mAnnotations.intValue(actionBarOptions, "homeAsUpIndicator");
+			}
+			final AnnotationMirror menuOptions = ProcessorAnnotations.findAnnotation(MENU_OPTIONS, element, maxSuperClass);
+			if (menuOptions != null) {
+				spec.hasOptionsMenu = true;
+				spec.optionsMenuResource = mAnnotations.intValue(menuOptions, "value");
+				spec.clearOptionsMenu = mAnnotations.booleanValue(menuOptions, "clear");
+				spec.optionsMenuFlags = mAnnotations.intValue(menuOptions, "flags");
+			}
+			final AnnotationMirror actionModeOptions = ProcessorAnnotations.findAnnotation(ACTION_MODE_OPTIONS, element, maxSuperClass);
+			if (actionModeOptions != null) {
+				spec.actionModeMenuResource = mAnnotations.intValue(actionModeOptions, "menu");
+			}
+		}
+		if (spec.isWebFragment()) {
+			// WebContent annotation is not searched for within super classes.
+			final AnnotationMirror webContent = ProcessorAnnotations.findAnnotation(WEB_CONTENT, element);
+			if (webContent != null) {
+				spec.webContentResId = mAnnotations.intValue(webContent, "valueRes");
+				spec.webContent = mAnnotations.stringValue(webContent, "value");
+			}
+		}
+		return spec;
+	}
+
+	/**
+	 * Resolves specification of the annotation handler for the given fragment factory <var>element</var>.
+	 * <p>
+	 * Fragment items are resolved in the same order as at runtime, so items resolved from
+	 * {@code FactoryFragment} fields of super classes override items with the same id resolved
+	 * before.
+	 *
+	 * @param element  The processed class element.
+	 * @param elements Elements utils.
+	 * @return Resolved handler spec or {@code null} if the element is not a fragment factory, it is
+	 * not accessible from the generated registry or some of its fragment ids may be resolved only
+	 * at runtime.
+	 */
+	private FactoryHandlerSpec resolveFactoryHandlerSpec(TypeElement element, Elements elements) {
+		if (element.getModifiers().contains(Modifier.ABSTRACT) || !isAccessible(element)) {
+			return null;
+		}
+		final TypeElement factoryClass = elements.getTypeElement(BASE_FRAGMENT_FACTORY);
+		if (factoryClass == null || element.equals(factoryClass) || !ProcessorAnnotations.isSubclassOf(element, BASE_FRAGMENT_FACTORY)) {
+			return null;
+		}
+		final FactoryHandlerSpec spec = new FactoryHandlerSpec(element);
+		final AnnotationMirror factoryFragments = ProcessorAnnotations.findAnnotation(FACTORY_FRAGMENTS, element, factoryClass);
+		if (factoryFragments != null) {
+			for (final int id : mAnnotations.intArrayValue(factoryFragments, "value")) {
+				spec.putItem(new FactoryItemSpec(id, FRAGMENT, false, Integer.toString(id)));
+			}
+		}
+		for (TypeElement type = element; type != null && !type.equals(factoryClass); type = ProcessorAnnotations.superClassOf(type)) {
+			for (final VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+				if (field.asType().getKind() != TypeKind.INT) {
+					continue;
+				}
+				final AnnotationMirror factoryFragment = ProcessorAnnotations.findAnnotation(FACTORY_FRAGMENT, field);
+				if (factoryFragment == null) {
+					continue;
+				}
+				final Object id = field.getConstantValue();
+				if (!(id instanceof Integer) || !field.getModifiers().contains(Modifier.STATIC)) {
+					// Let the handler for this factory be created at runtime as usually.
+					return null;
+				}
+				final TypeMirror fragmentType = mAnnotations.typeValue(factoryFragment, "value");
+				if (fragmentType == null || fragmentType.getKind() != TypeKind.DECLARED) {
+					return null;
+				}
+				final TypeElement fragmentClass = (TypeElement) ((DeclaredType) fragmentType).asElement();
+				if (!isAccessible(fragmentClass)) {
+					return null;
+				}
+				final String taggedName = mAnnotations.stringValue(factoryFragment, "taggedName");
+				spec.putItem(new FactoryItemSpec(
+						(Integer) id,
+						fragmentClass.getQualifiedName().toString(),
+						isInstantiable(fragmentClass),
+						taggedName == null || taggedName.length() == 0 ? id.toString() : taggedName
+				));
+			}
+		}
+		return spec;
+	}
+
+	/**
+	 * Checks whether the given fragment class may be instantiated directly via its constructor
+	 * from the generated registry.
+	 *
+	 * @param fragmentClass The fragment class to check.
+	 * @return {@code True} if the class is concrete and has public empty constructor, {@code false}
+	 * otherwise.
+	 */
+	private static boolean isInstantiable(TypeElement fragmentClass) {
+		if (fragmentClass.getKind() != ElementKind.CLASS || fragmentClass.getQualifiedName().contentEquals(FRAGMENT)) {
+			return false;
+		}
+		final Set<Modifier> modifiers = fragmentClass.getModifiers();
+		if (modifiers.contains(Modifier.ABSTRACT) || (fragmentClass.getNestingKind() == NestingKind.MEMBER && !modifiers.contains(Modifier.STATIC))) {
+			return false;
+		}
+		for (final ExecutableElement constructor : ElementFilter.constructorsIn(fragmentClass.getEnclosedElements())) {
+			if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns simple name of the handlers class that provides handler for the given fragment class.
+	 */
+	private static String kindHandlersOf(TypeElement fragmentClass) {
+		final String name = fragmentClass.getQualifiedName().toString();
+		if (WEB_FRAGMENT.equals(name)) return "WebAnnotationHandlers";
+		if (ACTION_BAR_FRAGMENT.equals(name)) return "ActionBarAnnotationHandlers";
+		return "BaseAnnotationHandlers";
+	}
+
+	/**
+	 * Checks whether the given <var>element</var> may be referenced from the generated registry.
+	 *
+	 * @param element The element to check.
+	 * @return {@code True} if the element and all its enclosing types are public, {@code false} otherwise.
+	 */
+	private static boolean isAccessible(TypeElement element) {
+		Element type = element;
+		while (type != null && (type.getKind().isClass() || type.getKind().isInterface())) {
+			if (!type.getModifiers().contains(Modifier.PUBLIC)) {
+				return false;
+			}
+			final TypeElement typeElement = (TypeElement) type;
+			if (typeElement.getNestingKind() == NestingKind.TOP_LEVEL) {
+				return true;
+			}
+			if (typeElement.getNestingKind() != NestingKind.MEMBER) {
+				return false;
+			}
+			type = type.getEnclosingElement();
+		}
+		return true;
+	}
+
+	/**
+	 * Writes the registry source file for the given handler specs.
+	 *
+	 * @param fragmentSpecs Specifications of fragment handlers to be provided by the registry.
+	 * @param factorySpecs  Specifications of factory handlers to be provided by the registry.
+	 */
+	private void writeRegistry(List<FragmentHandlerSpec> fragmentSpecs, List<FactoryHandlerSpec> factorySpecs) {
+		final String registryName = resolveRegistryName();
+		final List<Element> originatingElements = new ArrayList<>(fragmentSpecs.size() + factorySpecs.size());
+		for (final FragmentHandlerSpec spec : fragmentSpecs) {
+			originatingElements.add(spec.element);
+		}
+		for (final FactoryHandlerSpec spec : factorySpecs) {
+			originatingElements.add(spec.element);
+		}
+		Writer writer = null;
+		try {
+			final JavaFileObject file = processingEnv.getFiler().createSourceFile(registryName, originatingElements.toArray(new Element[originatingElements.size()]));
+			writer = file.openWriter();
+			new HandlerRegistryWriter(registryName, fragmentSpecs, factorySpecs).write(writer);
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(
+					Diagnostic.Kind.ERROR,
+					"Failed to generate annotation handler registry '" + registryName + "'. " + e.getMessage()
+			);
+		} finally {
+			if (writer != null) {
+				try {
+					writer.close();
+				} catch (IOException ignored) {
+					// Nothing to do here.
+				}
+			}
+		}
+	}
+
+	/**
+	 * Resolves qualified name of the registry to be generated.
+	 *
+	 * @return Either name specified via {@link #OPTION_REGISTRY} option or {@link #DEFAULT_REGISTRY}.
+	 */
+	private String resolveRegistryName() {
+		final String name = processingEnv.getOptions().get(OPTION_REGISTRY);
+		if (name == null || name.trim().length() == 0) {
+			return DEFAULT_REGISTRY;
+		}
+		return name.trim();
+	}
+
+	/**
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Specification of an annotation handler with values of all supported annotations resolved for
+	 * a single fragment class.
+	 */
+	static final class FragmentHandlerSpec {
+
+		/**
+		 * Element of the annotated fragment class.
+		 */
+		final TypeElement element;
+
+		/**
+		 * Qualified name of the library fragment class extended by the annotated class.
+		 */
+		final String fragmentClass;
+
+		/**
+		 * Resolved values of {@code ContentView} annotation.
+		 */
+		int contentViewResource = NO_RES;
+		boolean attachContentViewToContainer;
+		int contentViewBackgroundResId = NO_RES;
+		boolean preInflateContentView;
+
+		/**
+		 * Resolved values of {@code ActionBarOptions} annotation.
+		 */
+		int title = UNCHANGED;
+		int icon = UNCHANGED;
+		int homeAsUp = UNCHANGED;
+		int homeAsUpVectorIndicator = UNCHANGED;
+		int homeAsUpIndicator = UNCHANGED;
+
+		/**
+		 * Resolved values of {@code MenuOptions} annotation.
+		 */
+		boolean hasOptionsMenu;
+		int optionsMenuResource = NO_RES;
+		boolean clearOptionsMenu;
+		int optionsMenuFlags = -1;
+
+		/**
+		 * Resolved value of {@code ActionModeOptions} annotation.
+		 */
+		int actionModeMenuResource = NO_RES;
+
+		/**
+		 * Resolved values of {@code WebContent} annotation.
+		 */
+		int webContentResId = NO_RES;
+		String webContent;
+
+		/**
+		 * Creates a new instance of FragmentHandlerSpec for the given annotated <var>element</var>.
+		 *
+		 * @param element       Element of the annotated fragment class.
+		 * @param fragmentClass Qualified name of the library fragment class extended by the element.
+		 */
+		FragmentHandlerSpec(TypeElement element, String fragmentClass) {
+			this.element = element;
+			this.fragmentClass = fragmentClass;
+		}
+
+		/**
+		 * Returns qualified name of the annotated class in form that may be used in source code.
+		 */
+		String className() {
+			return element.getQualifiedName().toString();
+		}
+
+		/**
+		 * Returns {@code true} if the annotated class is an ActionBarFragment (or WebFragment).
+		 */
+		boolean isActionBarFragment() {
+			return ACTION_BAR_FRAGMENT.equals(fragmentClass) || WEB_FRAGMENT.equals(fragmentClass);
+		}
+
+		/**
+		 * Returns {@code true} if the annotated class is a WebFragment.
+		 */
+		boolean isWebFragment() {
+			return WEB_FRAGMENT.equals(fragmentClass);
+		}
+	}
+
+	/**
+	 * Specification of an annotation handler with resolved fragment items for a single fragment
+	 * factory class.
+	 */
+	static final class FactoryHandlerSpec {
+
+		/**
+		 * Element of the annotated factory class.
+		 */
+		final TypeElement element;
+
+		/**
+		 * Resolved fragment items mapped to theirs ids.
+		 */
+		final Map<Integer, FactoryItemSpec> items = new LinkedHashMap<>();
+
+		/**
+		 * Creates a new instance of FactoryHandlerSpec for the given annotated <var>element</var>.
+		 *
+		 * @param element Element of the annotated factory class.
+		 */
+		FactoryHandlerSpec(TypeElement element) {
+			this.element = element;
+		}
+
+		/**
+		 * Returns qualified name of the annotated class in form that may be used in source code.
+		 */
+		String className() {
+			return element.getQualifiedName().toString();
+		}
+
+		/**
+		 * Puts the given <var>item</var> into items of this spec replacing the one with the same id.
+		 */
+		void putItem(FactoryItemSpec item) {
+			items.put(item.id, item);
+		}
+
+		/**
+		 * Returns {@code true} if there is at least one item of which fragment may be instantiated
+		 * directly via its constructor.
+		 */
+		boolean hasInstantiableItems() {
+			for (final FactoryItemSpec item : items.values()) {
+				if (item.instantiable) return true;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Specification of a single fragment item resolved for a fragment factory.
+	 */
+	static final class FactoryItemSpec {
+
+		/**
+		 * Id of the fragment.
+		 */
+		final int id;
+
+		/**
+		 * Qualified name of the fragment class.
+		 */
+		final String fragmentClass;
+
+		/**
+		 * Boolean flag indicating whether the fragment may be instantiated via its public empty
+		 * constructor.
+		 */
+		final boolean instantiable;
+
+		/**
+		 * Name used to create tag of the fragment.
+		 */
+		final String taggedName;
+
+		/**
+		 * Creates a new instance of FactoryItemSpec with the given resolved values.
+		 */
+		FactoryItemSpec(int id, String fragmentClass, boolean instantiable, String taggedName) {
+			this.id = id;
+			this.fragmentClass = fragmentClass;
+			this.instantiable = instantiable;
+			this.taggedName = taggedName;
+		}
+	}
+}
@@ -0,0 +1,298 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import universum.studios.android.fragment.processor.FragmentsAnnotationProcessor.FactoryHandlerSpec;
+import universum.studios.android.fragment.processor.FragmentsAnnotationProcessor.FactoryItemSpec;
+import universum.studios.android.fragment.processor.FragmentsAnnotationProcessor.FragmentHandlerSpec;
+
+/**
+ * Writer used to write source code of the annotation handler registry generated by
+ * {@link FragmentsAnnotationProcessor}.
+ *
+ * @author Martin Albedinsky
+ */
+final class HandlerRegistryWriter {
+
+	/**
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "HandlerRegistryWriter";
+
+	/**
+	 * Qualified name of the annotation handler interface.
+	 */
+	private static final String HANDLER_INTERFACE = FragmentsAnnotationProcessor.HANDLER_PACKAGE + "AnnotationHandler";
+
+	/**
+	 * Qualified name of the fragment factory annotation handler interface.
+	 */
+	private static final String FACTORY_HANDLER_INTERFACE = FragmentsAnnotationProcessor.HANDLER_PACKAGE + "FragmentFactoryAnnotationHandler";
+
+	/**
+	 * Line separator used in the generated source code.
+	 */
+	private static final String NEW_LINE = "\n";
+
+	/**
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Package of the generated registry.
+	 */
+	private final String mPackageName;
+
+	/**
+	 * Simple name of the generated registry.
+	 */
+	private final String mSimpleName;
+
+	/**
+	 * Specifications of fragment handlers to be provided by the generated registry.
+	 */
+	private final List<FragmentHandlerSpec> mFragmentSpecs;
+
+	/**
+	 * Specifications of factory handlers to be provided by the generated registry.
+	 */
+	private final List<FactoryHandlerSpec> mFactorySpecs;
+
+	/**
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of HandlerRegistryWriter for registry with the specified <var>registryName</var>.
+	 *
+	 * @param registryName  Qualified name of the registry to be generated.
+	 * @param fragmentSpecs Specifications of fragment handlers to be provided by the registry.
+	 * @param factorySpecs  Specifications of factory handlers to be provided by the registry.
+	 */
+	HandlerRegistryWriter(String registryName, List<FragmentHandlerSpec> fragmentSpecs, List<FactoryHandlerSpec> factorySpecs) {
+		final int lastDot = registryName.lastIndexOf('.');
+		this.mPackageName = lastDot > 0 ? registryName.substring(0, lastDot) : "";
+		this.mSimpleName = registryName.substring(lastDot + 1);
+		this.mFragmentSpecs = fragmentSpecs;
+		this.mFactorySpecs = factorySpecs;
+	}
+
+	/**
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Writes the whole source code of the registry into the given <var>writer</var>.
+	 *
+	 * @param writer The writer into which to write the source code.
+	 * @throws IOException If some I/O error occurs.
+	 */
+	void write(Writer writer) throws IOException {
+		final int fragmentsCount = mFragmentSpecs.size();
+		final int factoriesCount = mFactorySpecs.size();
+		final StringBuilder source = new StringBuilder(1024 + (fragmentsCount + factoriesCount) * 256);
+		source.append("// Generated by the Fragments annotation processor. Do not modify!").append(NEW_LINE);
+		if (mPackageName.length() > 0) {
+			source.append("package ").append(mPackageName).append(";").append(NEW_LINE).append(NEW_LINE);
+		}
+		source.append("public final class ").append(mSimpleName)
+				.append(" implements ").append(FragmentsAnnotationProcessor.REGISTRY_INTERFACE).append(" {").append(NEW_LINE).append(NEW_LINE);
+		// Index map.
+		source.append("\tprivate final java.util.Map<java.lang.Class<?>, java.lang.Integer> mIndexes = ")
+				.append("new java.util.IdentityHashMap<java.lang.Class<?>, java.lang.Integer>(")
+				.append(fragmentsCount + factoriesCount).append(");").append(NEW_LINE).append(NEW_LINE);
+		source.append("\tpublic ").append(mSimpleName).append("() {").append(NEW_LINE);
+		for (int i = 0; i < fragmentsCount; i++) {
+			source.append("\t\tmIndexes.put(").append(mFragmentSpecs.get(i).className()).append(".class, ").append(i).append(");").append(NEW_LINE);
+		}
+		for (int i = 0; i < factoriesCount; i++) {
+			source.append("\t\tmIndexes.put(").append(mFactorySpecs.get(i).className()).append(".class, ").append(fragmentsCount + i).append(");").append(NEW_LINE);
+		}
+		source.append("\t}").append(NEW_LINE).append(NEW_LINE);
+		// Factory method.
+		source.append("\t@java.lang.Override").append(NEW_LINE);
+		source.append("\tpublic ").append(HANDLER_INTERFACE).append(" createHandler(")
+				.append("java.lang.Class<? extends ").append(HANDLER_INTERFACE).append("> classOfHandler, ")
+				.append("java.lang.Class<?> annotatedClass) {").append(NEW_LINE);
+		source.append("\t\tfinal java.lang.Integer index = mIndexes.get(annotatedClass);").append(NEW_LINE);
+		source.append("\t\tif (index == null) {").append(NEW_LINE);
+		source.append("\t\t\treturn null;").append(NEW_LINE);
+		source.append("\t\t}").append(NEW_LINE);
+		source.append("\t\tswitch (index) {").append(NEW_LINE);
+		for (int i = 0; i < fragmentsCount; i++) {
+			source.append("\t\t\tcase ").append(i).append(":").append(NEW_LINE);
+			source.append("\t\t\t\treturn ");
+			appendCreateHandler(source, mFragmentSpecs.get(i));
+			source.append(";").append(NEW_LINE);
+		}
+		for (int i = 0; i < factoriesCount; i++) {
+			source.append("\t\t\tcase ").append(fragmentsCount + i).append(":").append(NEW_LINE);
+			source.append("\t\t\t\treturn createFactoryHandler").append(i).append("();").append(NEW_LINE);
+		}
+		source.append("\t\t\tdefault:").append(NEW_LINE);
+		source.append("\t\t\t\treturn null;").append(NEW_LINE);
+		source.append("\t\t}").append(NEW_LINE);
+		source.append("\t}").append(NEW_LINE);
+		for (int i = 0; i < factoriesCount; i++) {
+			appendFactoryHandler(source, mFactorySpecs.get(i), i);
+		}
+		source.append("}").append(NEW_LINE);
+		writer.write(source.toString());
+	}
+
+	/**
+	 * Appends expression creating handler for the given <var>spec</var> into the given <var>source</var>.
+	 */
+	private static void appendCreateHandler(StringBuilder source, FragmentHandlerSpec spec) {
+		final String handlers;
+		final String factoryMethod;
+		if (spec.isWebFragment()) {
+			handlers = "WebAnnotationHandlers";
+			factoryMethod = "createWebFragmentHandler";
+		} else if (spec.isActionBarFragment()) {
+			handlers = "ActionBarAnnotationHandlers";
+			factoryMethod = "createActionBarFragmentHandler";
+		} else {
+			handlers = "BaseAnnotationHandlers";
+			factoryMethod = "createFragmentHandler";
+		}
+		source.append(FragmentsAnnotationProcessor.HANDLER_PACKAGE).append(handlers).append(".").append(factoryMethod).append("(");
+		source.append(spec.className()).append(".class");
+		source.append(", ").append(spec.contentViewResource);
+		source.append(", ").append(spec.attachContentViewToContainer);
+		source.append(", ").append(spec.contentViewBackgroundResId);
+		source.append(", ").append(spec.preInflateContentView);
+		if (spec.isActionBarFragment()) {
+			source.append(", ").append(spec.title);
+			source.append(", ").append(spec.icon);
+			source.append(", ").append(spec.homeAsUp);
+			source.append(", ").append(spec.homeAsUpVectorIndicator);
+			source.append(", ").append(spec.homeAsUpIndicator);
+			source.append(", ").append(spec.hasOptionsMenu);
+			source.append(", ").append(spec.optionsMenuResource);
+			source.append(", ").append(spec.clearOptionsMenu);
+			source.append(", ").append(spec.optionsMenuFlags);
+			source.append(", ").append(spec.actionModeMenuResource);
+		}
+		if (spec.isWebFragment()) {
+			source.append(", ").append(spec.webContentResId);
+			source.append(", ");
+			appendStringLiteral(source, spec.webContent);
+		}
+		source.append(")");
+	}
+
+	/**
+	 * Appends method creating handler for the given factory <var>spec</var> along with its fragment
+	 * instantiator class into the given <var>source</var>.
+	 */
+	private static void appendFactoryHandler(StringBuilder source, FactoryHandlerSpec spec, int index) {
+		final String itemClass = FragmentsAnnotationProcessor.FRAGMENT_ITEM;
+		final boolean hasInstantiator = spec.hasInstantiableItems();
+		source.append(NEW_LINE);
+		source.append("\tprivate static ").append(FACTORY_HANDLER_INTERFACE).append(" createFactoryHandler").append(index).append("() {").append(NEW_LINE);
+		if (spec.items.isEmpty()) {
+			source.append("\t\tfinal android.util.SparseArray<").append(itemClass).append("> items = null;").append(NEW_LINE);
+		} else {
+			source.append("\t\tfinal android.util.SparseArray<").append(itemClass).append("> items = new android.util.SparseArray<")
+					.append(itemClass).append(">(").append(spec.items.size()).append(");").append(NEW_LINE);
+			for (final FactoryItemSpec item : spec.items.values()) {
+				source.append("\t\titems.put(").append(item.id).append(", new ").append(itemClass).append("(")
+						.append(item.id).append(", ")
+						.append(item.fragmentClass).append(".class, ")
+						.append(FragmentsAnnotationProcessor.BASE_FRAGMENT_FACTORY).append(".createFragmentTag(")
+						.append(spec.className()).append(".class, ");
+				appendStringLiteral(source, item.taggedName);
+				source.append(")));").append(NEW_LINE);
+			}
+		}
+		source.append("\t\treturn ").append(FragmentsAnnotationProcessor.HANDLER_PACKAGE).append("BaseManagementAnnotationHandlers.createFactoryHandler(")
+				.append(spec.className()).append(".class, items, ")
+				.append(hasInstantiator ? "new FragmentInstantiator" + index + "()" : "null").append(");").append(NEW_LINE);
+		source.append("\t}").append(NEW_LINE);
+		if (!hasInstantiator) {
+			return;
+		}
+		source.append(NEW_LINE);
+		source.append("\tprivate static final class FragmentInstantiator").append(index)
+				.append(" implements ").append(FragmentsAnnotationProcessor.FRAGMENT_INSTANTIATOR).append(" {").append(NEW_LINE).append(NEW_LINE);
+		source.append("\t\t@java.lang.Override").append(NEW_LINE);
+		source.append("\t\tpublic ").append(FragmentsAnnotationProcessor.FRAGMENT).append(" instantiateFragment(")
+				.append(itemClass).append(" item) {").append(NEW_LINE);
+		source.append("\t\t\tswitch (item.id) {").append(NEW_LINE);
+		for (final FactoryItemSpec item : spec.items.values()) {
+			if (item.instantiable) {
+				source.append("\t\t\t\tcase ").append(item.id).append(":").append(NEW_LINE);
+				source.append("\t\t\t\t\treturn new ").append(item.fragmentClass).append("();").append(NEW_LINE);
+			}
+		}
+		source.append("\t\t\t\tdefault:").append(NEW_LINE);
+		source.append("\t\t\t\t\treturn null;").append(NEW_LINE);
+		source.append("\t\t\t}").append(NEW_LINE);
+		source.append("\t\t}").append(NEW_LINE);
+		source.append("\t}").append(NEW_LINE);
+	}
+
+	/**
+	 * Appends the given <var>value</var> as Java string literal into the given <var>source</var>.
+	 */
+	private static void appendStringLiteral(StringBuilder source, String value) {
+		if (value == null) {
+			source.append("null");
+			return;
+		}
+		source.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			switch (c) {
+				case '"':
+					source.append("\\\"");
+					break;
+				case '\\':
+					source.append("\\\\");
+					break;
+				case '\n':
+					source.append("\\n");
+					break;
+				case '\r':
+					source.append("\\r");
+					break;
+				case '\t':
+					source.append("\\t");
+					break;
+				default:
+					if (c < 0x20 || c > 0x7e) {
+						source.append(String.format("\\u%04x", (int) c));
+					} else {
+						source.append(c);
+					}
+					break;
+			}
+		}
+		source.append('"');
+	}
+}
@@ -0,0 +1,229 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.processor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+
+/**
+ * Annotation utils for the Fragments annotation processor that mirror behaviour of
+ * {@code FragmentAnnotations} from the Fragments library at the compile time.
+ *
+ * @author Martin Albedinsky
+ */
+final class ProcessorAnnotations {
+
+	/**
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "ProcessorAnnotations";
+
+	/**
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Utils used to resolve values of annotations including theirs defaults.
+	 */
+	private final Elements mElements;
+
+	/**
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of ProcessorAnnotations with the given <var>elements</var> utils.
+	 *
+	 * @param elements Elements utils of the current processing environment.
+	 */
+	ProcessorAnnotations(Elements elements) {
+		this.mElements = elements;
+	}
+
+	/**
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Returns the direct super class of the given <var>element</var>.
+	 *
+	 * @param element The element of which super class to return.
+	 * @return Super class element or {@code null} if the given element does not have super class.
+	 */
+	static TypeElement superClassOf(TypeElement element) {
+		final TypeMirror superClass = element.getSuperclass();
+		if (superClass.getKind() != TypeKind.DECLARED) {
+			return null;
+		}
+		return (TypeElement) ((DeclaredType) superClass).asElement();
+	}
+
+	/**
+	 * Checks whether the given <var>element</var> is or extends class with the specified <var>className</var>.
+	 *
+	 * @param element   The element to check.
+	 * @param className Qualified name of the desired super class.
+	 * @return {@code True} if the element is the requested class or its subclass, {@code false} otherwise.
+	 */
+	static boolean isSubclassOf(TypeElement element, String className) {
+		for (TypeElement type = element; type != null; type = superClassOf(type)) {
+			if (type.getQualifiedName().contentEquals(className)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Obtains the requested annotation from the given <var>fromClass</var> if it is presented.
+	 * <p>
+	 * Same as {@code FragmentAnnotations.obtainAnnotationFrom(Class, Class, Class)}.
+	 *
+	 * @param annotationName Qualified name of the requested annotation.
+	 * @param fromClass      Element from which should be the requested annotation obtained.
+	 * @param maxSuperClass  If {@code not null}, the annotation will be searched for also within
+	 *                       super classes of the given class up to this class (excluding).
+	 * @return Obtained annotation or {@code null} if there is no such annotation presented.
+	 */
+	static AnnotationMirror findAnnotation(String annotationName, TypeElement fromClass, TypeElement maxSuperClass) {
+		for (TypeElement type = fromClass; type != null; type = superClassOf(type)) {
+			final AnnotationMirror annotation = findAnnotation(annotationName, type);
+			if (annotation != null) {
+				return annotation;
+			}
+			if (maxSuperClass == null) {
+				break;
+			}
+			final TypeElement parent = superClassOf(type);
+			if (parent == null || parent.equals(maxSuperClass)) {
+				break;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Obtains the requested annotation directly from the given <var>element</var>.
+	 *
+	 * @param annotationName Qualified name of the requested annotation.
+	 * @param element        Element from which should be the requested annotation obtained.
+	 * @return Obtained annotation or {@code null} if there is no such annotation presented.
+	 */
+	static AnnotationMirror findAnnotation(String annotationName, Element element) {
+		for (final AnnotationMirror annotation : element.getAnnotationMirrors()) {
+			final Element annotationType = annotation.getAnnotationType().asElement();
+			if (((TypeElement) annotationType).getQualifiedName().contentEquals(annotationName)) {
+				return annotation;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns value of an attribute with the specified <var>name</var> of the given <var>annotation</var>
+	 * including its default value.
+	 *
+	 * @param annotation The annotation of which attribute value to obtain.
+	 * @param name       Name of the desired attribute.
+	 * @return Attribute value or {@code null} if there is no such attribute.
+	 */
+	Object value(AnnotationMirror annotation, String name) {
+		final Map<? extends ExecutableElement, ? extends AnnotationValue> values = mElements.getElementValuesWithDefaults(annotation);
+		for (final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+			if (entry.getKey().getSimpleName().contentEquals(name)) {
+				return entry.getValue().getValue();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns an integer value of the requested annotation attribute.
+	 *
+	 * @see #value(AnnotationMirror, String)
+	 */
+	int intValue(AnnotationMirror annotation, String name) {
+		final Object value = value(annotation, name);
+		return value instanceof Number ? ((Number) value).intValue() : 0;
+	}
+
+	/**
+	 * Returns a boolean value of the requested annotation attribute.
+	 *
+	 * @see #value(AnnotationMirror, String)
+	 */
+	boolean booleanValue(AnnotationMirror annotation, String name) {
+		return Boolean.TRUE.equals(value(annotation, name));
+	}
+
+	/**
+	 * Returns a String value of the requested annotation attribute.
+	 *
+	 * @see #value(AnnotationMirror, String)
+	 */
+	String stringValue(AnnotationMirror annotation, String name) {
+		final Object value = value(annotation, name);
+		return value == null ? null : value.toString();
+	}
+
+	/**
+	 * Returns a type value of the requested annotation attribute.
+	 *
+	 * @see #value(AnnotationMirror, String)
+	 */
+	TypeMirror typeValue(AnnotationMirror annotation, String name) {
+		final Object value = value(annotation, name);
+		return value instanceof TypeMirror ? (TypeMirror) value : null;
+	}
+
+	/**
+	 * Returns an integer array value of the requested annotation attribute.
+	 *
+	 * @see #value(AnnotationMirror, String)
+	 */
+	List<Integer> intArrayValue(AnnotationMirror annotation, String name) {
+		final Object value = value(annotation, name);
+		if (!(value instanceof List)) {
+			return Collections.emptyList();
+		}
+		final List<?> values = (List<?>) value;
+		final List<Integer> ints = new ArrayList<>(values.size());
+		for (final Object item : values) {
+			final Object itemValue = ((AnnotationValue) item).getValue();
+			if (itemValue instanceof Number) {
+				ints.add(((Number) itemValue).intValue());
+			}
+		}
+		return ints;
+	}
+}
@@ -0,0 +1,460 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.fragment.processor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Compiles sources annotated with the Fragments annotations against minimal stubs of the Fragments
+ * library with {@link FragmentsAnnotationProcessor} attached and checks both the generated registry
+ * source and the handlers that the compiled registry creates.
+ *
+ * @author Martin Albedinsky
+ */
+public final class FragmentsAnnotationProcessorTest {
+
+	/**
+	 * Log TAG.
+	 */
+	@SuppressWarnings("unused")
+	private static final String TAG = "FragmentsAnnotationProcessorTest";
+
+	private static final String STUB_FRAGMENT = "package android.app;\n" +
+			"public class Fragment {}\n";
+
+	private static final String STUB_SPARSE_ARRAY = "package android.util;\n" +
+			"public class SparseArray<E> {\n" +
+			"	private final java.util.TreeMap<Integer, E> map = new java.util.TreeMap<Integer, E>();\n" +
+			"	public SparseArray(int capacity) {}\n" +
+			"	public void put(int key, E value) { map.put(key, value); }\n" +
+			"	public java.util.Collection<E> values() { return map.values(); }\n" +
+			"}\n";
+
+	private static final String STUB_BASE_FRAGMENT = "package universum.studios.android.fragment;\n" +
+			"public abstract class BaseFragment extends android.app.Fragment {}\n";
+
+	private static final String STUB_CONTENT_VIEW = "package universum.studios.android.fragment.annotation;\n" +
+			"@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n" +
+			"public @interface ContentView {\n" +
+			"	int value();\n" +
+			"	boolean attachToContainer() default false;\n" +
+			"	int background() default 0;\n" +
+			"	boolean preInflate() default false;\n" +
+			"}\n";
+
+	private static final String STUB_FACTORY_FRAGMENT = "package universum.studios.android.fragment.annotation;\n" +
+			"@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n" +
+			"public @interface FactoryFragment {\n" +
+			"	Class<? extends android.app.Fragment> value() default android.app.Fragment.class;\n" +
+			"	String taggedName() default \"\";\n" +
+			"}\n";
+
+	private static final String STUB_FACTORY_FRAGMENTS = "package universum.studios.android.fragment.annotation;\n" +
+			"@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n" +
+			"public @interface FactoryFragments {\n" +
+			"	int[] value();\n" +
+			"}\n";
+
+	private static final String STUB_ANNOTATION_HANDLER = "package universum.studios.android.fragment.annotation.handler;\n" +
+			"public interface AnnotationHandler {}\n";
+
+	private static final String STUB_FACTORY_ANNOTATION_HANDLER = "package universum.studios.android.fragment.annotation.handler;\n" +
+			"public interface FragmentFactoryAnnotationHandler extends AnnotationHandler {}\n";
+
+	private static final String STUB_ANNOTATION_HANDLER_REGISTRY = "package universum.studios.android.fragment.annotation.handler;\n" +
+			"public interface AnnotationHandlerRegistry {\n" +
+			"	AnnotationHandler createHandler(Class<? extends AnnotationHandler> classOfHandler, Class<?> annotatedClass);\n" +
+			"}\n";
+
+	private static final String STUB_BASE_ANNOTATION_HANDLERS = "package universum.studios.android.fragment.annotation.handler;\n" +
+			"public final class BaseAnnotationHandlers {\n" +
+			"	public static AnnotationHandler createFragmentHandler(final Class<?> annotatedClass, final int contentView, final boolean attachToContainer, final int background, final boolean preInflate) {\n" +
+			"		return new AnnotationHandler() {\n" +
+			"			@Override public String toString() {\n" +
+			"				return annotatedClass.getName() + \"(\" + contentView + \", \" + attachToContainer + \", \" + background + \", \" + preInflate + \")\";\n" +
+			"			}\n" +
+			"		};\n" +
+			"	}\n" +
+			"}\n";
+
+	private static final String STUB_BASE_MANAGEMENT_ANNOTATION_HANDLERS = "package universum.studios.android.fragment.annotation.handler;\n" +
+			"import universum.studios.android.fragment.manage.FragmentInstantiator;\n" +
+			"import universum.studios.android.fragment.manage.FragmentItem;\n" +
+			"public final class BaseManagementAnnotationHandlers {\n" +
+			"	public static FragmentFactoryAnnotationHandler createFactoryHandler(final Class<?> classOfFactory, final android.util.SparseArray<FragmentItem> items, final FragmentInstantiator instantiator) {\n" +
+			"		return new FragmentFactoryAnnotationHandler() {\n" +
+			"			@Override public String toString() {\n" +
+			"				final StringBuilder builder = new StringBuilder(classOfFactory.getName());\n" +
+			"				if (items != null) for (final FragmentItem item : items.values()) {\n" +
+			"					final android.app.Fragment fragment = instantiator == null ? null : instantiator.instantiateFragment(item);\n" +
+			"					builder.append(\"; \").append(item.id).append(\", \").append(item.type.getName()).append(\", \").append(item.tag);\n" +
+			"					builder.append(\", \").append(fragment == null ? \"reflection\" : \"new \" + fragment.getClass().getName());\n" +
+			"				}\n" +
+			"				return builder.toString();\n" +
+			"			}\n" +
+			"		};\n" +
+			"	}\n" +
+			"}\n";
+
+	private static final String STUB_BASE_FRAGMENT_FACTORY = "package universum.studios.android.fragment.manage;\n" +
+			"public abstract class BaseFragmentFactory {\n" +
+			"	public static String createFragmentTag(Class<?> classOfFactory, String fragmentName) {\n" +
+			"		if (fragmentName == null || fragmentName.length() == 0) return null;\n" +
+			"		return classOfFactory.getPackage().getName() + \".\" + classOfFactory.getSimpleName() + \".TAG.\" + fragmentName;\n" +
+			"	}\n" +
+			"}\n";
+
+	private static final String STUB_FRAGMENT_ITEM = "package universum.studios.android.fragment.manage;\n" +
+			"public final class FragmentItem {\n" +
+			"	public final int id;\n" +
+			"	public final Class<? extends android.app.Fragment> type;\n" +
+			"	public final String tag;\n" +
+			"	public FragmentItem(int id, Class<? extends android.app.Fragment> type, String tag) {\n" +
+			"		this.id = id;\n" +
+			"		this.type = type;\n" +
+			"		this.tag = tag;\n" +
+			"	}\n" +
+			"}\n";
+
+	private static final String STUB_FRAGMENT_INSTANTIATOR = "package universum.studios.android.fragment.manage;\n" +
+			"public interface FragmentInstantiator {\n" +
+			"	android.app.Fragment instantiateFragment(FragmentItem item);\n" +
+			"}\n";
+
+	private static final String FIRST_FRAGMENT = "package test;\n" +
+			"public class FirstFragment extends android.app.Fragment {}\n";
+
+	private static final String SECOND_FRAGMENT = "package test;\n" +
+			"public class SecondFragment extends android.app.Fragment {\n" +
+			"	public SecondFragment() {}\n" +
+			"}\n";
+
+	private static final String HIDDEN_CONSTRUCTOR_FRAGMENT = "package test;\n" +
+			"public class HiddenConstructorFragment extends android.app.Fragment {\n" +
+			"	HiddenConstructorFragment() {}\n" +
+			"}\n";
+
+	private File mDirectory;
+
+	@Before
+	public void beforeTest() throws Exception {
+		this.mDirectory = Files.createTempDirectory("fragments-processor").toFile();
+	}
+
+	@After
+	public void afterTest() throws Exception {
+		delete(mDirectory);
+	}
+
+	@Test
+	public void testGeneratedRegistry() throws Exception {
+		final Compilation compilation = compile(Collections.<String>emptyList(),
+				"package test;\n" +
+						"@universum.studios.android.fragment.annotation.ContentView(value = 10, background = 20, preInflate = true)\n" +
+						"public class MainFragment extends universum.studios.android.fragment.BaseFragment {}\n",
+				"package test;\n" +
+						"public class MainFactory extends universum.studios.android.fragment.manage.BaseFragmentFactory {\n" +
+						"	@universum.studios.android.fragment.annotation.FactoryFragment(FirstFragment.class)\n" +
+						"	public static final int FIRST = 1;\n" +
+						"}\n",
+				"package test;\n" +
+						"class HiddenFragment extends universum.studios.android.fragment.BaseFragment {}\n",
+				FIRST_FRAGMENT
+		);
+		final String source = compilation.generatedSource(FragmentsAnnotationProcessor.DEFAULT_REGISTRY);
+		assertThat(source.contains("public final class FragmentsAnnotationHandlerRegistry implements " + FragmentsAnnotationProcessor.REGISTRY_INTERFACE), is(true));
+		assertThat(source.contains("BaseAnnotationHandlers.createFragmentHandler(test.MainFragment.class, 10, false, 20, true)"), is(true));
+		assertThat(source.contains("mIndexes.put(test.MainFactory.class, 1);"), is(true));
+		assertThat(source.contains("test.HiddenFragment"), is(false));
+		assertThat(
+				compilation.createHandler(FragmentsAnnotationProcessor.DEFAULT_REGISTRY, "test.MainFragment"),
+				is("test.MainFragment(10, false, 20, true)")
+		);
+		assertThat(
+				compilation.createHandler(FragmentsAnnotationProcessor.DEFAULT_REGISTRY, "test.MainFactory"),
+				is("test.MainFactory; 1, test.FirstFragment, test.MainFactory.TAG.1, new test.FirstFragment")
+		);
+		assertThat(compilation.createHandler(FragmentsAnnotationProcessor.DEFAULT_REGISTRY, "test.HiddenFragment"), is(nullValue()));
+	}
+
+	@Test
+	public void testGeneratedRegistryWithCustomName() throws Exception {
+		final Compilation compilation = compile(Collections.singletonList("-A" + FragmentsAnnotationProcessor.OPTION_REGISTRY + "=test.registry.TestRegistry"),
+				"package test;\n" +
+						"public class MainFragment extends universum.studios.android.fragment.BaseFragment {}\n"
+		);
+		assertThat(compilation.generatedSource("test.registry.TestRegistry").contains("package test.registry;"), is(true));
+		assertThat(compilation.createHandler("test.registry.TestRegistry", "test.MainFragment"), is("test.MainFragment(0, false, 0, false)"));
+	}
+
+	@Test
+	public void testInheritedFactoryFragmentFields() throws Exception {
+		final Compilation compilation = compile(Collections.<String>emptyList(),
+				"package test;\n" +
+						"public abstract class ParentFactory extends universum.studios.android.fragment.manage.BaseFragmentFactory {\n" +
+						"	@universum.studios.android.fragment.annotation.FactoryFragment(FirstFragment.class)\n" +
+						"	public static final int FIRST = 1;\n" +
+						"	@universum.studios.android.fragment.annotation.FactoryFragment(FirstFragment.class)\n" +
+						"	static final int SHARED = 3;\n" +
+						"}\n",
+				"package test;\n" +
+						"public class ChildFactory extends ParentFactory {\n" +
+						"	@universum.studios.android.fragment.annotation.FactoryFragment(SecondFragment.class)\n" +
+						"	public static final int SECOND = 2;\n" +
+						"	@universum.studios.android.fragment.annotation.FactoryFragment(SecondFragment.class)\n" +
+						"	static final int SHARED_CHILD = 3;\n" +
+						"}\n",
+				FIRST_FRAGMENT,
+				SECOND_FRAGMENT
+		);
+		// Items of super classes override items with the same id like at runtime.
+		assertThat(
+				compilation.createHandler(FragmentsAnnotationProcessor.DEFAULT_REGISTRY, "test.ChildFactory"),
+				is("test.ChildFactory" +
+						"; 1, test.FirstFragment, test.ChildFactory.TAG.1, new test.FirstFragment" +
+						"; 2, test.SecondFragment, test.ChildFactory.TAG.2, new test.SecondFragment" +
+						"; 3, test.FirstFragment, test.ChildFactory.TAG.3, new test.FirstFragment")
+		);
+		assertThat(compilation.generatedSource(FragmentsAnnotationProcessor.DEFAULT_REGISTRY).contains("test.ParentFactory"), is(false));
+	}
+
+	@Test
+	public void testFactoryFragments() throws Exception {
+		final Compilation compilation = compile(Collections.<String>emptyList(),
+				"package test;\n" +
+						"@universum.studios.android.fragment.annotation.FactoryFragments({5, -6})\n" +
+						"public class IdsFactory extends universum.studios.android.fragment.manage.BaseFragmentFactory {\n" +
+						"	@universum.studios.android.fragment.annotation.FactoryFragment(HiddenConstructorFragment.class)\n" +
+						"	public static final int HIDDEN = 5;\n" +
+						"}\n",
+				HIDDEN_CONSTRUCTOR_FRAGMENT
+		);
+		// Fragments without public empty constructor are left for reflection.
+		assertThat(
+				compilation.createHandler(FragmentsAnnotationProcessor.DEFAULT_REGISTRY, "test.IdsFactory"),
+				is("test.IdsFactory" +
+						"; -6, android.app.Fragment, test.IdsFactory.TAG.-6, reflection" +
+						"; 5, test.HiddenConstructorFragment, test.IdsFactory.TAG.5, reflection")
+		);
+		assertThat(compilation.generatedSource(FragmentsAnnotationProcessor.DEFAULT_REGISTRY).contains("FragmentInstantiator0"), is(false));
+	}
+
+	@Test
+	public void testNonConstantIdsFallBackToReflection() throws Exception {
+		final Compilation compilation = compile(Collections.<String>emptyList(),
+				"package test;\n" +
+						"public class NonFinalFactory extends universum.studios.android.fragment.manage.BaseFragmentFactory {\n" +
+						"	@universum.studios.android.fragment.annotation.FactoryFragment(FirstFragment.class)\n" +
+						"	public static int FIRST = 1;\n" +
+						"}\n",
+				"package test;\n" +
+						"public class ComputedFactory extends universum.studios.android.fragment.manage.BaseFragmentFactory {\n" +
+						"	@universum.studios.android.fragment.annotation.FactoryFragment(FirstFragment.class)\n" +
+						"	public static final int FIRST = Integer.valueOf(1);\n" +
+						"}\n",
+				"package test;\n" +
+						"public class InstanceFactory extends universum.studios.android.fragment.manage.BaseFragmentFactory {\n" +
+						"	@universum.studios.android.fragment.annotation.FactoryFragment(FirstFragment.class)\n" +
+						"	public final int FIRST = 1;\n" +
+						"}\n",
+				"package test;\n" +
+						"public class ConstantFactory extends universum.studios.android.fragment.manage.BaseFragmentFactory {\n" +
+						"	@universum.studios.android.fragment.annotation.FactoryFragment(FirstFragment.class)\n" +
+						"	public static final int FIRST = 1;\n" +
+						"}\n",
+				FIRST_FRAGMENT
+		);
+		assertThat(compilation.createHandler(FragmentsAnnotationProcessor.DEFAULT_REGISTRY, "test.NonFinalFactory"), is(nullValue()));
+		assertThat(compilation.createHandler(FragmentsAnnotationProcessor.DEFAULT_REGISTRY, "test.ComputedFactory"), is(nullValue()));
+		assertThat(compilation.createHandler(FragmentsAnnotationProcessor.DEFAULT_REGISTRY, "test.InstanceFactory"), is(nullValue()));
+		assertThat(
+				compilation.createHandler(FragmentsAnnotationProcessor.DEFAULT_REGISTRY, "test.ConstantFactory"),
+				is("test.ConstantFactory; 1, test.FirstFragment, test.ConstantFactory.TAG.1, new test.FirstFragment")
+		);
+	}
+
+	@Test
+	public void testTagsMatchRuntimeHandler() throws Exception {
+		final Compilation compilation = compile(Collections.<String>emptyList(),
+				"package test.tags;\n" +
+						"public class TagsFactory extends universum.studios.android.fragment.manage.BaseFragmentFactory {\n" +
+						"	@universum.studios.android.fragment.annotation.FactoryFragment(value = test.FirstFragment.class, taggedName = \"Custom\")\n" +
+						"	public static final int CUSTOM = 1;\n" +
+						"	@universum.studios.android.fragment.annotation.FactoryFragment(value = test.FirstFragment.class, taggedName = \"\")\n" +
+						"	public static final int EMPTY = 2;\n" +
+						"	@universum.studios.android.fragment.annotation.FactoryFragment(value = test.FirstFragment.class, taggedName = \"Quoted \\\"name\\\"\")\n" +
+						"	public static final int QUOTED = 3;\n" +
+						"}\n",
+				FIRST_FRAGMENT
+		);
+		// Runtime handler creates tags via BaseFragmentFactory.createFragmentTag(...) with the tagged
+		// name or with the id if the tagged name is empty.
+		assertThat(
+				compilation.createHandler(FragmentsAnnotationProcessor.DEFAULT_REGISTRY, "test.tags.TagsFactory"),
+				is("test.tags.TagsFactory" +
+						"; 1, test.FirstFragment, " + runtimeTag("test.tags", "TagsFactory", "Custom", 1) + ", new test.FirstFragment" +
+						"; 2, test.FirstFragment, " + runtimeTag("test.tags", "TagsFactory", "", 2) + ", new test.FirstFragment" +
+						"; 3, test.FirstFragment, " + runtimeTag("test.tags", "TagsFactory", "Quoted \"name\"", 3) + ", new test.FirstFragment")
+		);
+	}
+
+	private static String runtimeTag(String factoryPackage, String factoryName, String taggedName, int id) {
+		return factoryPackage + "." + factoryName + ".TAG." + (taggedName.length() == 0 ? Integer.toString(id) : taggedName);
+	}
+
+	private Compilation compile(List<String> options, String... sources) throws IOException {
+		final File classesDir = new File(mDirectory, "classes");
+		final File sourcesDir = new File(mDirectory, "generated");
+		if (!classesDir.mkdirs() || !sourcesDir.mkdirs()) {
+			throw new IOException("Failed to create output directories.");
+		}
+		final List<JavaFileObject> files = new ArrayList<>();
+		for (final String source : Arrays.asList(
+				STUB_FRAGMENT,
+				STUB_SPARSE_ARRAY,
+				STUB_BASE_FRAGMENT,
+				STUB_CONTENT_VIEW,
+				STUB_FACTORY_FRAGMENT,
+				STUB_FACTORY_FRAGMENTS,
+				STUB_ANNOTATION_HANDLER,
+				STUB_FACTORY_ANNOTATION_HANDLER,
+				STUB_ANNOTATION_HANDLER_REGISTRY,
+				STUB_BASE_ANNOTATION_HANDLERS,
+				STUB_BASE_MANAGEMENT_ANNOTATION_HANDLERS,
+				STUB_BASE_FRAGMENT_FACTORY,
+				STUB_FRAGMENT_ITEM,
+				STUB_FRAGMENT_INSTANTIATOR
+		)) {
+			files.add(new SourceFile(source));
+		}
+		for (final String source : sources) {
+			files.add(new SourceFile(source));
+		}
+		final List<String> compilerOptions = new ArrayList<>(options);
+		compilerOptions.addAll(Arrays.asList("-d", classesDir.getPath(), "-s", sourcesDir.getPath(), "-Xlint:none"));
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		final StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, Charset.forName("UTF-8"));
+		try {
+			final JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, compilerOptions, null, files);
+			task.setProcessors(Collections.singletonList(new FragmentsAnnotationProcessor()));
+			if (!task.call()) {
+				throw new AssertionError("Compilation failed: " + diagnostics.getDiagnostics());
+			}
+		} finally {
+			fileManager.close();
+		}
+		return new Compilation(classesDir, sourcesDir);
+	}
+
+	private static void delete(File file) {
+		final File[] children = file.listFiles();
+		if (children != null) {
+			for (final File child : children) {
+				delete(child);
+			}
+		}
+		// noinspection ResultOfMethodCallIgnored
+		file.delete();
+	}
+
+	private static final class SourceFile extends SimpleJavaFileObject {
+
+		private final String content;
+
+		SourceFile(String content) {
+			super(URI.create("string:///" + resolveClassName(content).replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+			this.content = content;
+		}
+
+		private static String resolveClassName(String content) {
+			final String packageName = content.substring("package ".length(), content.indexOf(';'));
+			final String[] words = content.substring(content.indexOf(';') + 1).split("[\\s{<]+");
+			for (int i = 0; i < words.length - 1; i++) {
+				if ("class".equals(words[i]) || "interface".equals(words[i]) || "@interface".equals(words[i])) {
+					return packageName + "." + words[i + 1];
+				}
+			}
+			throw new IllegalArgumentException("No type declared in source.");
+		}
+
+		@Override
+		public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+			return content;
+		}
+	}
+
+	private static final class Compilation {
+
+		private final File classesDir;
+		private final File sourcesDir;
+
+		Compilation(File classesDir, File sourcesDir) {
+			this.classesDir = classesDir;
+			this.sourcesDir = sourcesDir;
+		}
+
+		String generatedSource(String registryName) throws IOException {
+			final File file = new File(sourcesDir, registryName.replace('.', File.separatorChar) + ".java");
+			return new String(Files.readAllBytes(file.toPath()), Charset.forName("UTF-8"));
+		}
+
+		String createHandler(String registryName, String annotatedClassName) throws Exception {
+			final URLClassLoader classLoader = new URLClassLoader(new URL[]{classesDir.toURI().toURL()}, getClass().getClassLoader());
+			try {
+				final Class<?> registryClass = classLoader.loadClass(registryName);
+				final Class<?> handlerClass = classLoader.loadClass(FragmentsAnnotationProcessor.HANDLER_PACKAGE + "AnnotationHandler");
+				final Object registry = registryClass.newInstance();
+				final Object handler = registryClass.getMethod("createHandler", Class.class, Class.class).invoke(
+						registry,
+						handlerClass,
+						classLoader.loadClass(annotatedClassName)
+				);
+				return handler == null ? null : handler.toString();
+			} finally {
+				classLoader.close();
+			}
+		}
+	}
+}